@@ -0,0 +1,24 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Bounds for the beer detail cache.
+ *
+ * @param maximumSize maximum number of cached beers before size-based eviction kicks in
+ * @param timeToLive  how long an entry may be served after it was loaded
+ */
+@ConfigurationProperties(prefix = "app.beer-cache")
+public record BeerCacheProperties(Long maximumSize, Duration timeToLive) {
+
+    public BeerCacheProperties {
+        if (maximumSize == null) {
+            maximumSize = 10_000L;
+        }
+        if (timeToLive == null) {
+            timeToLive = Duration.ofMinutes(10);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the beer catalog export ({@code GET /api/v1/beers/export}).
+ *
+ * @param requestTimeout how long one export may stream before the request times out; applies to exports only, other
+ *                       async requests keep the container default
+ */
+@ConfigurationProperties(prefix = "app.beer-export")
+public record BeerExportProperties(Duration requestTimeout) {
+
+    public BeerExportProperties {
+        if (requestTimeout == null || requestTimeout.isNegative() || requestTimeout.isZero()) {
+            requestTimeout = Duration.ofMinutes(30);
+        }
+    }
+}
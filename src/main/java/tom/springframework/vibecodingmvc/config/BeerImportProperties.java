@@ -0,0 +1,22 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for the NDJSON beer import.
+ *
+ * @param batchSize         rows per JDBC batch insert
+ * @param maxReportedErrors line errors listed in the report; further failures are only counted
+ */
+@ConfigurationProperties(prefix = "app.beer-import")
+public record BeerImportProperties(Integer batchSize, Integer maxReportedErrors) {
+
+    public BeerImportProperties {
+        if (batchSize == null || batchSize < 1) {
+            batchSize = 500;
+        }
+        if (maxReportedErrors == null || maxReportedErrors < 0) {
+            maxReportedErrors = 1_000;
+        }
+    }
+}
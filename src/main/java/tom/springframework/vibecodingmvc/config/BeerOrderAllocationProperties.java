@@ -0,0 +1,28 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for allocating beer stock to order lines. The batch schedule itself is
+ * {@code app.beer-order-allocation.cron} ({@code -} disables it).
+ *
+ * @param allocateOnCreate whether single order creates allocate stock in the creating transaction;
+ *                         otherwise (and always for bulk ingestion) the scheduled batch picks the orders up
+ * @param stripes          number of in-process locks that beers are hashed onto
+ * @param batchSize        orders read per chunk by the scheduled batch
+ */
+@ConfigurationProperties(prefix = "app.beer-order-allocation")
+public record BeerOrderAllocationProperties(Boolean allocateOnCreate, Integer stripes, Integer batchSize) {
+
+    public BeerOrderAllocationProperties {
+        if (allocateOnCreate == null) {
+            allocateOnCreate = true;
+        }
+        if (stripes == null || stripes < 1) {
+            stripes = 64;
+        }
+        if (batchSize == null || batchSize < 1) {
+            batchSize = 100;
+        }
+    }
+}
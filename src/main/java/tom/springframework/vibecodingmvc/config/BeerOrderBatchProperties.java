@@ -0,0 +1,18 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for NDJSON bulk order ingestion.
+ *
+ * @param groupSize orders persisted per transaction; a failing group is retried order by order
+ */
+@ConfigurationProperties(prefix = "app.beer-order-batch")
+public record BeerOrderBatchProperties(Integer groupSize) {
+
+    public BeerOrderBatchProperties {
+        if (groupSize == null || groupSize < 1) {
+            groupSize = 100;
+        }
+    }
+}
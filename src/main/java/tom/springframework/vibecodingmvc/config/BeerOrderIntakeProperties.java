@@ -0,0 +1,41 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for asynchronous order acceptance ({@code POST /api/v1/beer-orders?async=true}).
+ *
+ * @param queueCapacity     accepted orders waiting to be stored; once full, new submissions get 429
+ * @param workers           virtual-thread workers storing orders, which also bounds the connections they hold
+ * @param batchSize         orders stored per transaction; a failing batch is retried order by order
+ * @param shutdownTimeout   how long shutdown waits for the queue to drain
+ * @param statusMaximumSize submission statuses kept for polling before size-based eviction kicks in
+ * @param statusTimeToLive  how long a submission status can be polled after its last change
+ */
+@ConfigurationProperties(prefix = "app.beer-order-intake")
+public record BeerOrderIntakeProperties(Integer queueCapacity, Integer workers, Integer batchSize,
+                                        Duration shutdownTimeout, Long statusMaximumSize, Duration statusTimeToLive) {
+
+    public BeerOrderIntakeProperties {
+        if (queueCapacity == null || queueCapacity < 1) {
+            queueCapacity = 10_000;
+        }
+        if (workers == null || workers < 1) {
+            workers = 4;
+        }
+        if (batchSize == null || batchSize < 1) {
+            batchSize = 100;
+        }
+        if (shutdownTimeout == null) {
+            shutdownTimeout = Duration.ofSeconds(30);
+        }
+        if (statusMaximumSize == null) {
+            statusMaximumSize = 100_000L;
+        }
+        if (statusTimeToLive == null) {
+            statusTimeToLive = Duration.ofHours(1);
+        }
+    }
+}
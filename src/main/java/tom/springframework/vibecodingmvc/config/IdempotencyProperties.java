@@ -0,0 +1,32 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for {@code Idempotency-Key} handling on create endpoints.
+ *
+ * @param maximumSize maximum number of recorded responses kept in memory before size-based eviction kicks in
+ * @param timeToLive  how long a recorded response stays in memory after it was stored
+ * @param retention   how long a recorded response is kept in the database and replayed, also across restarts
+ * @param lockTimeout how long a duplicate request waits for the in-flight original before answering 409
+ */
+@ConfigurationProperties(prefix = "app.idempotency")
+public record IdempotencyProperties(Long maximumSize, Duration timeToLive, Duration retention, Duration lockTimeout) {
+
+    public IdempotencyProperties {
+        if (maximumSize == null) {
+            maximumSize = 10_000L;
+        }
+        if (timeToLive == null) {
+            timeToLive = Duration.ofMinutes(10);
+        }
+        if (retention == null) {
+            retention = Duration.ofHours(24);
+        }
+        if (lockTimeout == null) {
+            lockTimeout = Duration.ofSeconds(30);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for leasing pending shipments to packing workers ({@code POST /api/v1/shipments/claims}).
+ *
+ * @param maxShipments shipments one claim may lease
+ * @param defaultLease lease length when the claim does not ask for one
+ * @param maxLease     longest lease a claim may ask for
+ * @param strategy     how concurrent claimers are kept apart; {@code AUTO} uses {@code SKIP LOCKED} and falls back
+ *                     to optimistic claiming if the database rejects it
+ */
+@ConfigurationProperties(prefix = "app.shipment-claims")
+public record ShipmentClaimProperties(Integer maxShipments, Duration defaultLease, Duration maxLease,
+                                      Strategy strategy) {
+
+    public ShipmentClaimProperties {
+        if (maxShipments == null || maxShipments < 1) {
+            maxShipments = 100;
+        }
+        if (defaultLease == null) {
+            defaultLease = Duration.ofMinutes(5);
+        }
+        if (maxLease == null) {
+            maxLease = Duration.ofHours(1);
+        }
+        if (strategy == null) {
+            strategy = Strategy.AUTO;
+        }
+    }
+
+    public enum Strategy {
+        AUTO,
+        /** Lock candidates with {@code FOR UPDATE SKIP LOCKED}, skipping rows other claimers hold */
+        SKIP_LOCKED,
+        /** Read candidates without locks and lease each with a conditional UPDATE */
+        OPTIMISTIC
+    }
+}
@@ -0,0 +1,25 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for the shipment event stream ({@code GET /api/v1/shipments/stream}).
+ *
+ * @param bufferSize        most recent changes kept for subscribers resuming with {@code Last-Event-ID}
+ * @param heartbeatInterval how long a subscriber may go without a write before it gets a heartbeat, which also
+ *                          detects clients that went away
+ */
+@ConfigurationProperties(prefix = "app.shipment-events")
+public record ShipmentEventProperties(Integer bufferSize, Duration heartbeatInterval) {
+
+    public ShipmentEventProperties {
+        if (bufferSize == null || bufferSize < 1) {
+            bufferSize = 10_000;
+        }
+        if (heartbeatInterval == null) {
+            heartbeatInterval = Duration.ofSeconds(15);
+        }
+    }
+}
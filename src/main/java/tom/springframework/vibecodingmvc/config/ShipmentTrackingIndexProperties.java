@@ -0,0 +1,18 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Bounds for the in-memory tracking number to shipment id map.
+ *
+ * @param maximumSize maximum number of tracking numbers held before size-based eviction kicks in
+ */
+@ConfigurationProperties(prefix = "app.shipment-tracking-index")
+public record ShipmentTrackingIndexProperties(Long maximumSize) {
+
+    public ShipmentTrackingIndexProperties {
+        if (maximumSize == null) {
+            maximumSize = 100_000L;
+        }
+    }
+}
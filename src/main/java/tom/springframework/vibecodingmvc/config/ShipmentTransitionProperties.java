@@ -0,0 +1,22 @@
+package tom.springframework.vibecodingmvc.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings for bulk shipment status transitions.
+ *
+ * @param maxShipments shipments accepted in one request
+ * @param batchSize    shipments read with one query and updated with one JDBC batch
+ */
+@ConfigurationProperties(prefix = "app.shipment-transitions")
+public record ShipmentTransitionProperties(Integer maxShipments, Integer batchSize) {
+
+    public ShipmentTransitionProperties {
+        if (maxShipments == null || maxShipments < 1) {
+            maxShipments = 10_000;
+        }
+        if (batchSize == null || batchSize < 1) {
+            batchSize = 1_000;
+        }
+    }
+}
@@ -1,11 +1,42 @@
 package tom.springframework.vibecodingmvc.config;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import tom.springframework.vibecodingmvc.models.SliceResponse;
+
+import java.io.IOException;
 
 @Configuration
 @EnableSpringDataWebSupport(
         pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO
 )
 class SpringDataWebConfig {
+
+    // VIA_DTO only covers PageImpl; render count-free slices through a DTO as well
+    @Bean
+    Module sliceSerializationModule() {
+        SimpleModule module = new SimpleModule("SliceSerializationModule");
+        module.addSerializer(new SliceSerializer());
+        return module;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static class SliceSerializer extends StdSerializer<SliceImpl> {
+
+        SliceSerializer() {
+            super(SliceImpl.class);
+        }
+
+        @Override
+        public void serialize(SliceImpl value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            provider.defaultSerializeValue(SliceResponse.of(value), gen);
+        }
+    }
 }
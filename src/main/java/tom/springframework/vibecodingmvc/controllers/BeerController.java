@@ -1,16 +1,31 @@
 package tom.springframework.vibecodingmvc.controllers;
 
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import tom.springframework.vibecodingmvc.config.BeerExportProperties;
+import tom.springframework.vibecodingmvc.models.BeerBatchResponse;
+import tom.springframework.vibecodingmvc.models.BeerFacetsResponse;
+import tom.springframework.vibecodingmvc.models.BeerIdsRequest;
+import tom.springframework.vibecodingmvc.models.BeerImportReport;
 import tom.springframework.vibecodingmvc.models.BeerRequestDto;
 import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
+import tom.springframework.vibecodingmvc.models.SliceResponse;
+import tom.springframework.vibecodingmvc.services.BeerExportService;
+import tom.springframework.vibecodingmvc.services.BeerImportService;
 import tom.springframework.vibecodingmvc.services.BeerService;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -22,15 +37,27 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.web.util.HtmlUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+
 @RestController
 @RequestMapping("/api/v1/beers")
 @Tag(name = "Beers", description = "Operations for managing beers in the catalog")
 class BeerController {
 
     private final BeerService beerService;
+    private final BeerImportService beerImportService;
+    private final BeerExportService beerExportService;
+    private final BeerExportProperties exportProperties;
 
-    BeerController(BeerService beerService) {
+    BeerController(BeerService beerService, BeerImportService beerImportService, BeerExportService beerExportService,
+                   BeerExportProperties exportProperties) {
         this.beerService = beerService;
+        this.beerImportService = beerImportService;
+        this.beerExportService = beerExportService;
+        this.exportProperties = exportProperties;
     }
 
     @GetMapping
@@ -58,10 +85,142 @@ class BeerController {
         return ResponseEntity.ok(beerService.listBeers(safeBeerName, pageable));
     }
 
+    @GetMapping(params = {"withTotal", "!cursor", "!ids"})
+    @Operation(
+            summary = "List beers without totals",
+            description = "With withTotal=false, same as the paged listing but skips the count query; the response only "
+                    + "reports whether a next page exists. Any true value returns the counted page."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of beers returned",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SliceResponse.class)))
+    })
+    public ResponseEntity<Slice<BeerResponseDto>> sliceBeers(
+            @Parameter(description = "Optional filter by beer name", example = "Galaxy")
+            @RequestParam(value = "beerName", required = false) String beerName,
+            @Parameter(description = "Set to false to omit totals", example = "false")
+            @RequestParam("withTotal") boolean withTotal,
+            @ParameterObject @PageableDefault(size = 10) Pageable pageable
+    ) {
+        String safeBeerName = beerName != null ? HtmlUtils.htmlEscape(beerName) : null;
+        return ResponseEntity.ok(withTotal
+                ? beerService.listBeers(safeBeerName, pageable)
+                : beerService.sliceBeers(safeBeerName, pageable));
+    }
+
+    @GetMapping(params = {"cursor", "!ids"})
+    @Operation(
+            summary = "List beers with keyset pagination",
+            description = "Cursor mode of the beer listing. Send an empty cursor for the first page and the returned "
+                    + "next token for the following ones. Each page seeks past the last sort key and id instead of "
+                    + "skipping rows, so latency does not grow with depth. Supports sorting by id, beerName, beerStyle or upc."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of beers returned",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or unsupported sort", content = @Content)
+    })
+    public ResponseEntity<CursorPageResponse<BeerResponseDto>> scrollBeers(
+            @Parameter(description = "Optional filter by beer name", example = "Galaxy")
+            @RequestParam(value = "beerName", required = false) String beerName,
+            @Parameter(description = "Opaque cursor from a previous response; empty for the first page")
+            @RequestParam("cursor") String cursor,
+            @ParameterObject @PageableDefault(size = 10) Pageable pageable
+    ) {
+        String safeBeerName = beerName != null ? HtmlUtils.htmlEscape(beerName) : null;
+        return ResponseEntity.ok(beerService.scrollBeers(safeBeerName, cursor, pageable.getPageSize(), pageable.getSort()));
+    }
+
+    @GetMapping("/facets")
+    @Operation(
+            summary = "Facet counts",
+            description = "Counts of beers per beerStyle and per stock status (quantityOnHand > 0), optionally for the "
+                    + "beers matching a beerName filter. Served from in-memory counters kept current on every write."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Facet counts returned",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerFacetsResponse.class)))
+    })
+    public ResponseEntity<BeerFacetsResponse> getFacets(
+            @Parameter(description = "Optional filter by beer name", example = "Galaxy")
+            @RequestParam(value = "beerName", required = false) String beerName) {
+        String safeBeerName = beerName != null ? HtmlUtils.htmlEscape(beerName) : null;
+        return ResponseEntity.ok(beerService.getFacets(safeBeerName));
+    }
+
+    @GetMapping(params = "ids")
+    @Operation(
+            summary = "Get several beers by id",
+            description = "Resolves a comma-separated list of ids in one round trip. Beers come back in request order; "
+                    + "ids that do not exist are listed under missing. Use POST /api/v1/beers/batch for long lists."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Beers resolved",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerBatchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Too many or invalid ids", content = @Content)
+    })
+    public ResponseEntity<BeerBatchResponse> getBeersByIds(
+            @Parameter(description = "Beer ids", example = "1,2,3")
+            @RequestParam("ids") List<Integer> ids) {
+        return ResponseEntity.ok(beerService.getBeersByIds(ids));
+    }
+
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Get several beers by id (POST)",
+            description = "Same as GET /api/v1/beers?ids=... with the ids in the request body, for lists too long for a URL."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Beers resolved",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerBatchResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Too many or invalid ids", content = @Content)
+    })
+    ResponseEntity<BeerBatchResponse> getBeersByIds(@Valid @RequestBody BeerIdsRequest request) {
+        return ResponseEntity.ok(beerService.getBeersByIds(request.ids()));
+    }
+
+    @GetMapping("/export")
+    @Operation(
+            summary = "Export the beer catalog",
+            description = "Streams every beer in id order as NDJSON (default) or CSV with a header row. Rows are written "
+                    + "as they are read from the database, so the export size is not limited by memory."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Catalog streamed",
+                    content = {@Content(mediaType = "application/x-ndjson"), @Content(mediaType = "text/csv")}),
+            @ApiResponse(responseCode = "400", description = "Unsupported format", content = @Content)
+    })
+    WebAsyncTask<Void> exportBeers(
+            @Parameter(description = "Output format: ndjson or csv", example = "csv")
+            @RequestParam(value = "format", defaultValue = "ndjson") String format,
+            HttpServletResponse response) {
+        BeerExportService.Format exportFormat = switch (format.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> BeerExportService.Format.NDJSON;
+            case "csv" -> BeerExportService.Format.CSV;
+            default -> throw new InvalidRequestException("Unsupported export format; use ndjson or csv");
+        };
+        String filename = "beers." + exportFormat.name().toLowerCase(Locale.ROOT);
+        response.setContentType(exportFormat.mediaType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename).build().toString());
+        // Streamed on an async request with its own timeout, so long downloads do not need a global async timeout
+        return new WebAsyncTask<>(exportProperties.requestTimeout().toMillis(), () -> {
+            beerExportService.exportBeers(exportFormat, response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
     @GetMapping("/{beerId}")
     @Operation(
             summary = "Get beer by id",
-            description = "Returns the beer with the given id if it exists."
+            description = "Returns the beer with the given id if it exists. The response carries a strong ETag built "
+                    + "from id and version; send it back as If-None-Match to get 304 when the beer is unchanged."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Beer found",
@@ -69,14 +228,16 @@ class BeerController {
                             schema = @Schema(implementation = BeerResponseDto.class),
                             examples = @ExampleObject(name = "BeerExample", value = "{\n  \"id\": 42,\n  \"version\": 1,\n  \"beerName\": \"Pale Rider\",\n  \"beerStyle\": \"PALE_ALE\",\n  \"upc\": \"0987654321098\",\n  \"quantityOnHand\": 64,\n  \"price\": 9.49,\n  \"createdDate\": \"2025-07-20T10:15:30\",\n  \"updatedDate\": \"2025-08-10T08:00:00\"\n}"))
             ),
+            @ApiResponse(responseCode = "304", description = "Beer unchanged since the given ETag", content = @Content),
             @ApiResponse(responseCode = "404", description = "Beer not found", content = @Content)
     })
     public ResponseEntity<BeerResponseDto> getBeerById(
             @Parameter(description = "Unique identifier of the beer", example = "42")
-            @PathVariable("beerId") Integer beerId) {
-        return beerService.getBeerById(beerId)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+            @PathVariable("beerId") Integer beerId,
+            @Parameter(description = "ETag from a previous response", example = "\"42-1\"")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(beerId, ifNoneMatch, beerService::getBeerVersion, beerService::getBeerById,
+                BeerResponseDto::version);
     }
 
     @PostMapping
@@ -98,47 +259,78 @@ class BeerController {
         return ResponseEntity.status(HttpStatus.CREATED).body(created);
     }
 
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    @Operation(
+            summary = "Import beers from NDJSON",
+            description = "Streams one beer JSON object per line. Each line is sanitized and validated like a single create "
+                    + "and inserted in JDBC batches; invalid lines are skipped and reported with their line number."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import finished",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerImportReport.class))),
+            @ApiResponse(responseCode = "415", description = "Unsupported Media Type", content = @Content)
+    })
+    ResponseEntity<BeerImportReport> importBeers(InputStream ndjson) throws IOException {
+        return ResponseEntity.ok(beerImportService.importBeers(ndjson, this::sanitizeDto));
+    }
+
     @PutMapping("/{beerId}")
     @Operation(
             summary = "Update a beer",
-            description = "Updates an existing beer by id."
+            description = "Updates an existing beer by id. With If-Match the update is applied only if the beer "
+                    + "still has that ETag."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Beer updated",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = BeerResponseDto.class))),
             @ApiResponse(responseCode = "400", description = "Validation error"),
-            @ApiResponse(responseCode = "404", description = "Beer not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Beer not found", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Beer was modified since the If-Match ETag", content = @Content)
     })
     ResponseEntity<BeerResponseDto> updateBeer(
             @Parameter(description = "Unique identifier of the beer", example = "1")
             @PathVariable("beerId") Integer beerId,
+            @Parameter(description = "Only update if the beer still has this ETag", example = "\"1-0\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody BeerRequestDto dto) {
         BeerRequestDto safeDto = sanitizeDto(dto);
+        Integer expectedVersion = ETags.expectedVersion(ifMatch, beerId);
+        if (expectedVersion != null) {
+            BeerResponseDto updated = beerService.updateBeer(beerId, expectedVersion, safeDto);
+            return ETags.ok(beerId, updated.version(), updated);
+        }
         return beerService.updateBeer(beerId, safeDto)
-                .map(ResponseEntity::ok)
+                .map(updated -> ETags.ok(beerId, updated.version(), updated))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     @DeleteMapping("/{beerId}")
     @Operation(
             summary = "Delete a beer",
-            description = "Deletes a beer by id. Returns 204 if deleted, 404 if not found."
+            description = "Deletes a beer by id. Returns 204 if deleted, 404 if not found, 412 if an If-Match ETag is stale."
     )
     @ApiResponses({
         @ApiResponse(responseCode = "204", description = "Beer deleted"),
-        @ApiResponse(responseCode = "404", description = "Beer not found")
+        @ApiResponse(responseCode = "404", description = "Beer not found"),
+        @ApiResponse(responseCode = "412", description = "Beer was modified since the If-Match ETag")
     })
     ResponseEntity<Void> deleteBeer(
             @Parameter(description = "Unique identifier of the beer", example = "1")
-            @PathVariable("beerId") Integer beerId) {
-        // Attempt deletion only if present
-        return beerService.getBeerById(beerId)
-                .map(b -> {
-                    beerService.deleteBeer(beerId);
-                    return new ResponseEntity<Void>(HttpStatus.NO_CONTENT);
-                })
-                .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
+            @PathVariable("beerId") Integer beerId,
+            @Parameter(description = "Only delete if the beer still has this ETag", example = "\"1-0\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Integer expectedVersion = ETags.expectedVersion(ifMatch, beerId);
+        if (expectedVersion != null) {
+            // Single versioned DELETE; no existence read up front
+            beerService.deleteBeer(beerId, expectedVersion);
+            return ResponseEntity.noContent().build();
+        }
+        // Single DELETE; its row count decides between 204 and 404
+        return beerService.deleteBeer(beerId)
+                ? new ResponseEntity<>(HttpStatus.NO_CONTENT)
+                : new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
     // Package-private to aid potential reuse in tests; escapes only textual fields
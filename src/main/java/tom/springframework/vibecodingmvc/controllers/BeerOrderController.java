@@ -3,18 +3,33 @@ package tom.springframework.vibecodingmvc.controllers;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.util.UriComponentsBuilder;
+import tom.springframework.vibecodingmvc.models.BeerOrderBatchReport;
+import tom.springframework.vibecodingmvc.models.BeerOrderFilter;
+import tom.springframework.vibecodingmvc.models.BeerOrderIntakeStatus;
 import tom.springframework.vibecodingmvc.models.BeerOrderResponse;
 import tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse;
 import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
+import tom.springframework.vibecodingmvc.models.SliceResponse;
+import tom.springframework.vibecodingmvc.services.BeerOrderBatchService;
+import tom.springframework.vibecodingmvc.services.BeerOrderIntakeService;
 import tom.springframework.vibecodingmvc.services.BeerOrderService;
+import tom.springframework.vibecodingmvc.services.IdempotencyService;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.util.Set;
+import java.util.UUID;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -32,16 +47,26 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 @Tag(name = "Beer Orders", description = "Operations for creating and retrieving beer orders")
 class BeerOrderController {
 
+    private static final String INCLUDE_AGGREGATES = "aggregates";
+
     private final BeerOrderService beerOrderService;
+    private final BeerOrderBatchService beerOrderBatchService;
+    private final IdempotencyService idempotencyService;
+    private final BeerOrderIntakeService beerOrderIntakeService;
 
-    BeerOrderController(BeerOrderService beerOrderService) {
+    BeerOrderController(BeerOrderService beerOrderService, BeerOrderBatchService beerOrderBatchService,
+                        IdempotencyService idempotencyService, BeerOrderIntakeService beerOrderIntakeService) {
         this.beerOrderService = beerOrderService;
+        this.beerOrderBatchService = beerOrderBatchService;
+        this.idempotencyService = idempotencyService;
+        this.beerOrderIntakeService = beerOrderIntakeService;
     }
 
     @GetMapping(produces = "application/json")
     @Operation(
             summary = "List beer orders",
-            description = "Returns a paged list of beer orders."
+            description = "Returns a paged list of beer orders. With include=aggregates each order also carries its line "
+                    + "count, total quantity and allocated quantity, computed for the whole page in one grouped query."
     )
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "OK",
@@ -52,22 +77,73 @@ class BeerOrderController {
             )
     })
     public ResponseEntity<Page<BeerOrderSummaryResponse>> list(
+            @Parameter(description = "Set to aggregates to add line count and quantities to each order", example = "aggregates")
+            @RequestParam(value = "include", required = false) Set<String> include,
+            @ParameterObject @PageableDefault(size = 10) Pageable pageable) {
+        return ResponseEntity.ok(beerOrderService.listOrders(pageable, includesAggregates(include)));
+    }
+
+    @GetMapping(params = {"withTotal", "!cursor"}, produces = "application/json")
+    @Operation(
+            summary = "List beer orders without totals",
+            description = "With withTotal=false, same as the paged listing but skips the count query; the response only "
+                    + "reports whether a next page exists. Any true value returns the counted page."
+    )
+    @ApiResponse(responseCode = "200", description = "OK",
+            content = @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = SliceResponse.class)))
+    public ResponseEntity<Slice<BeerOrderSummaryResponse>> slice(
+            @Parameter(description = "Set to false to omit totals", example = "false")
+            @RequestParam("withTotal") boolean withTotal,
+            @Parameter(description = "Set to aggregates to add line count and quantities to each order", example = "aggregates")
+            @RequestParam(value = "include", required = false) Set<String> include,
             @ParameterObject @PageableDefault(size = 10) Pageable pageable) {
-        return ResponseEntity.ok(beerOrderService.listOrders(pageable));
+        boolean aggregates = includesAggregates(include);
+        return ResponseEntity.ok(withTotal
+                ? beerOrderService.listOrders(pageable, aggregates)
+                : beerOrderService.sliceOrders(pageable, aggregates));
+    }
+
+    @GetMapping(params = "cursor", produces = "application/json")
+    @Operation(
+            summary = "List beer orders with keyset pagination",
+            description = "Cursor mode of the order listing, newest first. Send an empty cursor for the first page and the "
+                    + "returned next token for the following ones, repeating the same filters. Each page seeks past the "
+                    + "last createdDate and id instead of skipping rows, so latency does not grow with depth. "
+                    + "Supports sorting by createdAt only (desc by default)."
+    )
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = CursorPageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, filter or unsupported sort", content = @Content)
+    })
+    public ResponseEntity<CursorPageResponse<BeerOrderSummaryResponse>> scroll(
+            @ParameterObject BeerOrderFilter filter,
+            @Parameter(description = "Opaque cursor from a previous response; empty for the first page")
+            @RequestParam("cursor") String cursor,
+            @Parameter(description = "Set to aggregates to add line count and quantities to each order", example = "aggregates")
+            @RequestParam(value = "include", required = false) Set<String> include,
+            @ParameterObject @PageableDefault(size = 10) Pageable pageable) {
+        return ResponseEntity.ok(beerOrderService.scrollOrders(filter, cursor, pageable.getPageSize(), pageable.getSort(),
+                includesAggregates(include)));
     }
 
     @GetMapping(value = "/list", produces = "application/json")
     @Operation(summary = "Alias for list beer orders", description = "Same as GET /api/v1/beer-orders")
     @ApiResponse(responseCode = "200", description = "OK")
     public ResponseEntity<Page<BeerOrderSummaryResponse>> listAlias(
+            @Parameter(description = "Set to aggregates to add line count and quantities to each order", example = "aggregates")
+            @RequestParam(value = "include", required = false) Set<String> include,
             @ParameterObject @PageableDefault(size = 10) Pageable pageable) {
-        return list(pageable);
+        return list(include, pageable);
     }
 
     @PostMapping(consumes = "application/json", produces = "application/json")
     @Operation(
             summary = "Create a beer order",
-            description = "Creates a new beer order and returns the created resource. The Location header contains the URI of the created order.")
+            description = "Creates a new beer order and returns the created resource. The Location header contains the URI of the created order. "
+                    + "With an Idempotency-Key header, a retried request returns the original response (marked Idempotent-Replayed: true) instead of creating a duplicate.")
     @ApiResponses({
             @ApiResponse(responseCode = "201", description = "Created",
                     headers = {@Header(name = "Location", description = "URI of the created beer order")},
@@ -77,19 +153,86 @@ class BeerOrderController {
                                     value = "{\n  \"id\": 42,\n  \"customerRef\": \"PO-2025-0001\",\n  \"paymentAmount\": 24.99,\n  \"status\": \"PENDING\",\n  \"lines\": [\n    {\n      \"id\": 10,\n      \"beerId\": 1,\n      \"beerName\": \"Galaxy Cat IPA\",\n      \"orderQuantity\": 2,\n      \"quantityAllocated\": 0,\n      \"status\": \"PENDING\"\n    }\n  ],\n  \"createdDate\": \"2025-08-20T14:13:00Z\",\n  \"updatedDate\": \"2025-08-20T14:13:00Z\"\n}"))
             ),
             @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content),
-            @ApiResponse(responseCode = "415", description = "Unsupported Media Type", content = @Content)
+            @ApiResponse(responseCode = "409", description = "A request with the same Idempotency-Key is still in progress", content = @Content),
+            @ApiResponse(responseCode = "415", description = "Unsupported Media Type", content = @Content),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request", content = @Content)
     })
     ResponseEntity<BeerOrderResponse> create(@Valid @RequestBody CreateBeerOrderCommand cmd,
+                                             @Parameter(description = "Client-generated key (e.g. a UUID) that makes retries of this request safe")
+                                             @RequestHeader(value = IdempotencyKeys.HEADER, required = false) String idempotencyKey,
                                              UriComponentsBuilder uriBuilder) {
-        int id = beerOrderService.createOrder(cmd);
-        URI location = uriBuilder.path("/api/v1/beer-orders/{id}").buildAndExpand(id).toUri();
-        return beerOrderService.getOrder(id)
-                .map(resp -> ResponseEntity.created(location).body(resp))
-                .orElseGet(() -> ResponseEntity.created(location).build());
+        return IdempotencyKeys.execute(idempotencyService, "beer-orders", idempotencyKey, cmd, BeerOrderResponse.class, () -> {
+            BeerOrderResponse created = beerOrderService.createOrder(cmd);
+            URI location = uriBuilder.path("/api/v1/beer-orders/{id}").buildAndExpand(created.id()).toUri();
+            return ResponseEntity.created(location).body(created);
+        });
+    }
+
+    @PostMapping(params = "async=true", consumes = "application/json", produces = "application/json")
+    @Operation(
+            summary = "Submit a beer order for asynchronous creation",
+            description = "Validates the order, queues it and returns 202 right away; background workers store queued "
+                    + "orders in batches. Poll the Location URL until the state is CREATED (with the order id) or "
+                    + "REJECTED. A full queue answers 429 with Retry-After. Idempotency-Key is honoured as on the "
+                    + "synchronous create, returning the original submission.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Accepted",
+                    headers = {@Header(name = "Location", description = "URI of the submission status")},
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerOrderIntakeStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Queue full; retry after the Retry-After delay", content = @Content),
+            @ApiResponse(responseCode = "503", description = "Not accepting orders, e.g. during shutdown", content = @Content)
+    })
+    ResponseEntity<BeerOrderIntakeStatus> createAsync(@Valid @RequestBody CreateBeerOrderCommand cmd,
+                                                      @Parameter(description = "Set to true to create the order asynchronously", example = "true")
+                                                      @RequestParam("async") boolean async,
+                                                      @Parameter(description = "Client-generated key (e.g. a UUID) that makes retries of this request safe")
+                                                      @RequestHeader(value = IdempotencyKeys.HEADER, required = false) String idempotencyKey,
+                                                      UriComponentsBuilder uriBuilder) {
+        return IdempotencyKeys.execute(idempotencyService, "beer-orders-async", idempotencyKey, cmd,
+                BeerOrderIntakeStatus.class, () -> {
+                    BeerOrderIntakeStatus accepted = beerOrderIntakeService.submit(cmd);
+                    URI location = uriBuilder.path("/api/v1/beer-orders/submissions/{id}").buildAndExpand(accepted.id()).toUri();
+                    return ResponseEntity.accepted().location(location).body(accepted);
+                });
+    }
+
+    @GetMapping(value = "/submissions/{id}", produces = "application/json")
+    @Operation(summary = "Get the status of an asynchronous order submission",
+            description = "ACCEPTED while queued, then CREATED with the order id or REJECTED with the reason. Statuses "
+                    + "are kept for app.beer-order-intake.status-time-to-live.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerOrderIntakeStatus.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired submission", content = @Content)
+    })
+    ResponseEntity<BeerOrderIntakeStatus> getSubmission(
+            @Parameter(description = "Submission id from the Location header", example = "3f2b8c1e-7a4d-4e0f-9b6a-1c2d3e4f5a6b")
+            @PathVariable UUID id) {
+        return ResponseEntity.of(beerOrderIntakeService.getStatus(id));
+    }
+
+    @PostMapping(value = "/batch", consumes = "application/x-ndjson", produces = "application/json")
+    @Operation(
+            summary = "Create beer orders in bulk from NDJSON",
+            description = "Streams one create-order command per line. Orders are validated like a single create and "
+                    + "persisted in grouped transactions; the response lists the new id or the rejection reason for "
+                    + "every line, and a rejected order never rolls back the others.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch processed",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerOrderBatchReport.class))),
+            @ApiResponse(responseCode = "415", description = "Unsupported Media Type", content = @Content)
+    })
+    ResponseEntity<BeerOrderBatchReport> createBatch(InputStream ndjson) throws IOException {
+        return ResponseEntity.ok(beerOrderBatchService.createOrders(ndjson));
     }
 
     @GetMapping(value = "/{id}", produces = "application/json")
-    @Operation(summary = "Get beer order by id", description = "Retrieves a beer order by its identifier.")
+    @Operation(summary = "Get beer order by id",
+            description = "Retrieves a beer order by its identifier. Send the returned ETag as If-None-Match to get 304 while it is unchanged.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "OK",
                     content = @Content(mediaType = "application/json",
@@ -97,13 +240,27 @@ class BeerOrderController {
                             examples = @ExampleObject(name = "example",
                                     value = "{\n  \"id\": 42,\n  \"customerRef\": \"PO-2025-0001\",\n  \"paymentAmount\": 24.99,\n  \"status\": \"PENDING\",\n  \"lines\": [\n    {\n      \"id\": 10,\n      \"beerId\": 1,\n      \"beerName\": \"Galaxy Cat IPA\",\n      \"orderQuantity\": 2,\n      \"quantityAllocated\": 0,\n      \"status\": \"PENDING\"\n    }\n  ],\n  \"createdDate\": \"2025-08-20T14:13:00Z\",\n  \"updatedDate\": \"2025-08-20T14:13:00Z\"\n}"))
             ),
+            @ApiResponse(responseCode = "304", description = "Not Modified", content = @Content),
             @ApiResponse(responseCode = "404", description = "Not Found", content = @Content)
     })
     ResponseEntity<BeerOrderResponse> get(
             @Parameter(description = "ID of the beer order", example = "42")
-            @PathVariable Integer id) {
-        return beerOrderService.getOrder(id)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+            @PathVariable Integer id,
+            @Parameter(description = "ETag from a previous response", example = "\"42-0\"")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(id, ifNoneMatch, beerOrderService::getOrderVersion, beerOrderService::getOrder,
+                BeerOrderResponse::version);
+    }
+
+    private static boolean includesAggregates(Set<String> include) {
+        if (include == null) {
+            return false;
+        }
+        for (String value : include) {
+            if (!INCLUDE_AGGREGATES.equals(value)) {
+                throw new InvalidRequestException("Unsupported include '" + value + "'; supported: " + INCLUDE_AGGREGATES);
+            }
+        }
+        return !include.isEmpty();
     }
 }
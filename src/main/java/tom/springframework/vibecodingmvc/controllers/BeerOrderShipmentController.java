@@ -2,6 +2,7 @@ package tom.springframework.vibecodingmvc.controllers;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -10,10 +11,10 @@ import tom.springframework.vibecodingmvc.models.BeerOrderShipmentCreateDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentUpdateDto;
 import tom.springframework.vibecodingmvc.services.BeerOrderShipmentService;
+import tom.springframework.vibecodingmvc.services.IdempotencyService;
 
 import java.net.URI;
 import java.util.List;
-import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1/beerorders/{beerOrderId}/shipments")
@@ -21,74 +22,77 @@ import java.util.Optional;
 class BeerOrderShipmentController {
 
     private final BeerOrderShipmentService service;
+    private final IdempotencyService idempotencyService;
 
-    BeerOrderShipmentController(BeerOrderShipmentService service) {
+    BeerOrderShipmentController(BeerOrderShipmentService service, IdempotencyService idempotencyService) {
         this.service = service;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping(consumes = "application/json", produces = "application/json")
     ResponseEntity<BeerOrderShipmentDto> create(@PathVariable @Positive Integer beerOrderId,
                                                 @Valid @RequestBody BeerOrderShipmentCreateDto dto,
+                                                @RequestHeader(value = IdempotencyKeys.HEADER, required = false) String idempotencyKey,
                                                 UriComponentsBuilder uriBuilder) {
-        // Ensure BeerOrder exists
-        if (!service.beerOrderExists(beerOrderId)) {
-            return ResponseEntity.notFound().build();
-        }
+        // The order id is part of the fingerprint: the same key sent for another order is a different request
+        return IdempotencyKeys.execute(idempotencyService, "beer-order-shipments", idempotencyKey,
+                List.of(beerOrderId, dto), BeerOrderShipmentDto.class, () -> doCreate(beerOrderId, dto, uriBuilder));
+    }
+
+    private ResponseEntity<BeerOrderShipmentDto> doCreate(Integer beerOrderId, BeerOrderShipmentCreateDto dto,
+                                                          UriComponentsBuilder uriBuilder) {
         // Ensure path variable and payload are consistent
         if (dto.beerOrderId() != null && !dto.beerOrderId().equals(beerOrderId)) {
             return ResponseEntity.badRequest().build();
         }
-        Integer id = service.create(dto);
+        // A missing order surfaces as 404 from the insert itself
+        BeerOrderShipmentDto created = service.create(beerOrderId, dto);
         URI location = uriBuilder
                 .path("/api/v1/beerorders/{beerOrderId}/shipments/{id}")
-                .buildAndExpand(beerOrderId, id)
+                .buildAndExpand(beerOrderId, created.id())
                 .toUri();
-        Optional<BeerOrderShipmentDto> body = service.get(id);
-        return body.map(b -> ResponseEntity.created(location).body(b))
-                .orElseGet(() -> ResponseEntity.created(location).build());
+        return ResponseEntity.created(location).body(created);
     }
 
     @GetMapping(value = "/{id}", produces = "application/json")
     ResponseEntity<BeerOrderShipmentDto> get(@PathVariable @Positive Integer beerOrderId,
-                                             @PathVariable Integer id) {
-        // Ensure BeerOrder exists
-        if (!service.beerOrderExists(beerOrderId)) {
-            return ResponseEntity.notFound().build();
-        }
-        return service.get(id)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+                                             @PathVariable Integer id,
+                                             @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Scoped to the order: a shipment of another order (or of no order) is 404
+        return ETags.conditionalGet(id, ifNoneMatch, shipmentId -> service.getVersion(beerOrderId, shipmentId),
+                shipmentId -> service.get(beerOrderId, shipmentId), BeerOrderShipmentDto::version);
     }
 
     @GetMapping(produces = "application/json")
     ResponseEntity<List<BeerOrderShipmentDto>> listByOrder(@PathVariable @Positive Integer beerOrderId) {
-        // Return 404 if the BeerOrder does not exist
-        if (!service.beerOrderExists(beerOrderId)) {
-            return ResponseEntity.notFound().build();
-        }
+        // 404 if the BeerOrder does not exist
         return ResponseEntity.ok(service.listByBeerOrderId(beerOrderId));
     }
 
     @PatchMapping(value = "/{id}", consumes = "application/json")
     ResponseEntity<Void> update(@PathVariable @Positive Integer beerOrderId,
                                 @PathVariable Integer id,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                 @Valid @RequestBody BeerOrderShipmentUpdateDto dto) {
-        // Ensure BeerOrder exists
-        if (!service.beerOrderExists(beerOrderId)) {
-            return ResponseEntity.notFound().build();
+        Integer expectedVersion = ETags.expectedVersion(ifMatch, id);
+        if (expectedVersion != null) {
+            Integer version = service.update(beerOrderId, id, expectedVersion, dto);
+            return ResponseEntity.noContent().eTag(ETags.of(id, version)).build();
         }
-        service.update(id, dto);
+        service.update(beerOrderId, id, dto);
         return ResponseEntity.noContent().build();
     }
 
     @DeleteMapping("/{id}")
     ResponseEntity<Void> delete(@PathVariable @Positive Integer beerOrderId,
-                                @PathVariable Integer id) {
-        // Ensure BeerOrder exists
-        if (!service.beerOrderExists(beerOrderId)) {
-            return ResponseEntity.notFound().build();
+                                @PathVariable Integer id,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Integer expectedVersion = ETags.expectedVersion(ifMatch, id);
+        if (expectedVersion != null) {
+            service.delete(beerOrderId, id, expectedVersion);
+            return ResponseEntity.noContent().build();
         }
-        service.delete(id);
+        service.delete(beerOrderId, id);
         return ResponseEntity.noContent().build();
     }
 }
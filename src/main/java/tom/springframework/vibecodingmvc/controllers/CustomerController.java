@@ -9,11 +9,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import tom.springframework.vibecodingmvc.models.CustomerRequestDto;
 import tom.springframework.vibecodingmvc.models.CustomerResponseDto;
+import tom.springframework.vibecodingmvc.models.SliceResponse;
 import tom.springframework.vibecodingmvc.services.CustomerService;
 
 import java.net.URI;
@@ -41,20 +46,41 @@ class CustomerController {
         return ResponseEntity.ok(customerService.listCustomers());
     }
 
+    @GetMapping(params = "withTotal")
+    @Operation(summary = "List customers page by page",
+            description = "With withTotal=false, paged customer listing without totals; no count query is run, the "
+                    + "response only reports whether a next page exists. Any true value returns the full list.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of customers returned",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = SliceResponse.class)))
+    })
+    ResponseEntity<?> sliceCustomers(
+            @Parameter(description = "Set to false to omit totals", example = "false")
+            @RequestParam("withTotal") boolean withTotal,
+            @ParameterObject @PageableDefault(size = 10) Pageable pageable) {
+        return withTotal
+                ? listCustomers()
+                : ResponseEntity.ok(customerService.sliceCustomers(pageable));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Get customer by id", description = "Returns the customer with the given id if it exists.")
+    @Operation(summary = "Get customer by id",
+            description = "Returns the customer with the given id if it exists, with an ETag usable in If-None-Match.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Customer found",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CustomerResponseDto.class))),
+            @ApiResponse(responseCode = "304", description = "Customer unchanged since the given ETag", content = @Content),
             @ApiResponse(responseCode = "404", description = "Customer not found", content = @Content)
     })
     ResponseEntity<CustomerResponseDto> getCustomer(
             @Parameter(description = "Unique identifier of the customer", example = "42")
-            @PathVariable Integer id) {
-        return customerService.getCustomerById(id)
-                .map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+            @PathVariable Integer id,
+            @Parameter(description = "ETag from a previous response", example = "\"42-1\"")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return ETags.conditionalGet(id, ifNoneMatch, customerService::getCustomerVersion,
+                customerService::getCustomerById, CustomerResponseDto::version);
     }
 
     @PostMapping
@@ -72,32 +98,50 @@ class CustomerController {
     }
 
     @PutMapping("/{id}")
-    @Operation(summary = "Update customer", description = "Updates an existing customer by id.")
+    @Operation(summary = "Update customer",
+            description = "Updates an existing customer by id. With If-Match the update is applied only if the customer still has that ETag.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Customer updated",
                     content = @Content(mediaType = "application/json",
                             schema = @Schema(implementation = CustomerResponseDto.class))),
             @ApiResponse(responseCode = "400", description = "Validation error"),
-            @ApiResponse(responseCode = "404", description = "Customer not found", content = @Content)
+            @ApiResponse(responseCode = "404", description = "Customer not found", content = @Content),
+            @ApiResponse(responseCode = "412", description = "Customer was modified since the If-Match ETag", content = @Content)
     })
     ResponseEntity<CustomerResponseDto> updateCustomer(
             @Parameter(description = "Unique identifier of the customer", example = "1")
             @PathVariable Integer id,
+            @Parameter(description = "Only update if the customer still has this ETag", example = "\"1-0\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody CustomerRequestDto dto) {
+        Integer expectedVersion = ETags.expectedVersion(ifMatch, id);
+        if (expectedVersion != null) {
+            CustomerResponseDto updated = customerService.updateCustomer(id, expectedVersion, dto);
+            return ETags.ok(id, updated.version(), updated);
+        }
         return customerService.updateCustomer(id, dto)
-                .map(ResponseEntity::ok)
+                .map(updated -> ETags.ok(id, updated.version(), updated))
                 .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Delete customer", description = "Deletes a customer by id. Returns 204 if deleted, 404 if not found.")
+    @Operation(summary = "Delete customer",
+            description = "Deletes a customer by id. Returns 204 if deleted, 404 if not found, 412 if an If-Match ETag is stale.")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Customer deleted"),
-            @ApiResponse(responseCode = "404", description = "Customer not found")
+            @ApiResponse(responseCode = "404", description = "Customer not found"),
+            @ApiResponse(responseCode = "412", description = "Customer was modified since the If-Match ETag")
     })
     ResponseEntity<Void> deleteCustomer(
             @Parameter(description = "Unique identifier of the customer", example = "1")
-            @PathVariable Integer id) {
+            @PathVariable Integer id,
+            @Parameter(description = "Only delete if the customer still has this ETag", example = "\"1-0\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Integer expectedVersion = ETags.expectedVersion(ifMatch, id);
+        if (expectedVersion != null) {
+            customerService.deleteCustomer(id, expectedVersion);
+            return ResponseEntity.noContent().build();
+        }
         boolean deleted = customerService.deleteCustomer(id);
         return deleted ? ResponseEntity.noContent().build() : ResponseEntity.status(HttpStatus.NOT_FOUND).build();
     }
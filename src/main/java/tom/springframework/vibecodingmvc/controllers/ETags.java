@@ -0,0 +1,94 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Strong entity tags derived from an entity's id and {@code @Version}, e.g. {@code "42-3"}.
+ */
+final class ETags {
+
+    /**
+     * Version passed to conditional writes when {@code If-Match} names no tag of the target resource;
+     * it never matches a row, so the write reports 412 (or 404 if the row is gone).
+     */
+    static final int NO_MATCHING_VERSION = -1;
+
+    private ETags() {
+    }
+
+    static String of(Integer id, Integer version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    /**
+     * Weak comparison as used for {@code If-None-Match}: {@code *} or any listed tag, with or without {@code W/}.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeak(tag).equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Extracts the expected version for {@code id} from an {@code If-Match} header. Returns {@code null} when
+     * the header is absent or {@code *} (unconditional write) and {@link #NO_MATCHING_VERSION} when no strong
+     * tag of this resource is listed.
+     */
+    static Integer expectedVersion(String ifMatch, Integer id) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String prefix = "\"" + id + "-";
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith(prefix) && tag.endsWith("\"") && tag.length() > prefix.length() + 1) {
+                try {
+                    return Integer.valueOf(tag.substring(prefix.length(), tag.length() - 1));
+                } catch (NumberFormatException ignored) {
+                    // not one of our tags
+                }
+            }
+        }
+        return NO_MATCHING_VERSION;
+    }
+
+    /**
+     * Answers a single-resource GET. When the client already holds the current version, replies 304 from the
+     * cheap {@code versionLookup} without loading or serializing the body.
+     */
+    static <T> ResponseEntity<T> conditionalGet(Integer id, String ifNoneMatch,
+                                                Function<Integer, Optional<Integer>> versionLookup,
+                                                Function<Integer, Optional<T>> loader,
+                                                Function<T, Integer> versionOf) {
+        if (ifNoneMatch != null) {
+            Optional<Integer> version = versionLookup.apply(id);
+            if (version.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            String etag = of(id, version.get());
+            if (matches(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+            }
+        }
+        return loader.apply(id)
+                .map(body -> ok(id, versionOf.apply(body), body))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    static <T> ResponseEntity<T> ok(Integer id, Integer version, T body) {
+        return ResponseEntity.ok().eTag(of(id, version)).cacheControl(CacheControl.noCache()).body(body);
+    }
+
+    private static String stripWeak(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
@@ -2,7 +2,9 @@ package tom.springframework.vibecodingmvc.controllers;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -10,6 +12,13 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import tom.springframework.vibecodingmvc.services.BeerOrderIntakeClosedException;
+import tom.springframework.vibecodingmvc.services.BeerOrderIntakeFullException;
+import tom.springframework.vibecodingmvc.services.DuplicateTrackingNumberException;
+import tom.springframework.vibecodingmvc.services.IdempotencyKeyInProgressException;
+import tom.springframework.vibecodingmvc.services.IdempotencyKeyReuseException;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
+import tom.springframework.vibecodingmvc.services.VersionMismatchException;
 
 import java.net.URI;
 import java.util.HashMap;
@@ -28,6 +37,15 @@ class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(pd);
     }
 
+    @ExceptionHandler({InvalidRequestException.class})
+    ResponseEntity<ProblemDetail> handleBadRequest(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.BAD_REQUEST);
+        pd.setTitle("Invalid request");
+        pd.setDetail(ex.getMessage());
+        pd.setType(URI.create("about:blank#invalid-request"));
+        return ResponseEntity.badRequest().body(pd);
+    }
+
     @ExceptionHandler({EntityNotFoundException.class})
     ResponseEntity<ProblemDetail> handleNotFound(Exception ex, WebRequest request) {
         ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.NOT_FOUND);
@@ -37,6 +55,15 @@ class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(pd);
     }
 
+    @ExceptionHandler({VersionMismatchException.class})
+    ResponseEntity<ProblemDetail> handlePreconditionFailed(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.PRECONDITION_FAILED);
+        pd.setTitle("Precondition failed");
+        pd.setDetail(ex.getMessage());
+        pd.setType(URI.create("about:blank#precondition-failed"));
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(pd);
+    }
+
     @ExceptionHandler({OptimisticLockingFailureException.class})
     ResponseEntity<ProblemDetail> handleConflict(Exception ex, WebRequest request) {
         ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
@@ -46,6 +73,61 @@ class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(pd);
     }
 
+    @ExceptionHandler({DuplicateTrackingNumberException.class})
+    ResponseEntity<ProblemDetail> handleDuplicateTrackingNumber(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        pd.setTitle("Duplicate tracking number");
+        pd.setDetail(ex.getMessage());
+        pd.setType(URI.create("about:blank#duplicate-tracking-number"));
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(pd);
+    }
+
+    // The database's message names tables and values, so it is not returned
+    @ExceptionHandler({DataIntegrityViolationException.class})
+    ResponseEntity<ProblemDetail> handleDataIntegrityViolation(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        pd.setTitle("Data integrity violation");
+        pd.setDetail("The request conflicts with the stored data");
+        pd.setType(URI.create("about:blank#data-integrity-violation"));
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(pd);
+    }
+
+    @ExceptionHandler({IdempotencyKeyReuseException.class})
+    ResponseEntity<ProblemDetail> handleIdempotencyKeyReuse(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.UNPROCESSABLE_ENTITY);
+        pd.setTitle("Idempotency-Key reused");
+        pd.setDetail(ex.getMessage());
+        pd.setType(URI.create("about:blank#idempotency-key-reused"));
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(pd);
+    }
+
+    @ExceptionHandler({IdempotencyKeyInProgressException.class})
+    ResponseEntity<ProblemDetail> handleIdempotencyKeyInProgress(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.CONFLICT);
+        pd.setTitle("Request in progress");
+        pd.setDetail(ex.getMessage());
+        pd.setType(URI.create("about:blank#idempotency-key-in-progress"));
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(pd);
+    }
+
+    @ExceptionHandler({BeerOrderIntakeFullException.class})
+    ResponseEntity<ProblemDetail> handleIntakeFull(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.TOO_MANY_REQUESTS);
+        pd.setTitle("Too many requests");
+        pd.setDetail(ex.getMessage());
+        pd.setType(URI.create("about:blank#intake-full"));
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(pd);
+    }
+
+    @ExceptionHandler({BeerOrderIntakeClosedException.class})
+    ResponseEntity<ProblemDetail> handleIntakeClosed(Exception ex, WebRequest request) {
+        ProblemDetail pd = ProblemDetail.forStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        pd.setTitle("Service unavailable");
+        pd.setDetail(ex.getMessage());
+        pd.setType(URI.create("about:blank#intake-closed"));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(pd);
+    }
+
     private Map<String, Object> extractErrors(Exception ex) {
         Map<String, Object> errors = new HashMap<>();
         if (ex instanceof MethodArgumentNotValidException manve) {
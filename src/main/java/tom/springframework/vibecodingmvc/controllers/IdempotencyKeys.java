@@ -0,0 +1,40 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import org.springframework.http.ResponseEntity;
+import tom.springframework.vibecodingmvc.services.IdempotencyService;
+import tom.springframework.vibecodingmvc.services.IdempotencyService.Outcome;
+
+import java.util.function.Supplier;
+
+/**
+ * Adapts create endpoints to {@link IdempotencyService}: without an {@code Idempotency-Key} the create simply
+ * runs; with one, a repeated request gets the recorded response marked with {@code Idempotent-Replayed: true}.
+ */
+final class IdempotencyKeys {
+
+    static final String HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private IdempotencyKeys() {
+    }
+
+    static <T> ResponseEntity<T> execute(IdempotencyService service, String scope, String key, Object request,
+                                         Class<T> bodyType, Supplier<ResponseEntity<T>> create) {
+        if (key == null) {
+            return create.get();
+        }
+        Outcome<T> outcome = service.execute(scope, key, request, bodyType, () -> {
+            ResponseEntity<T> response = create.get();
+            return new Outcome<>(response.getStatusCode().value(), response.getHeaders().getLocation(),
+                    response.getBody(), false);
+        });
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(outcome.status());
+        if (outcome.location() != null) {
+            builder.location(outcome.location());
+        }
+        if (outcome.replayed()) {
+            builder.header(REPLAYED_HEADER, "true");
+        }
+        return builder.body(outcome.body());
+    }
+}
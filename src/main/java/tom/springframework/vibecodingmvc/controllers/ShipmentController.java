@@ -0,0 +1,157 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
+import tom.springframework.vibecodingmvc.models.ShipmentClaim;
+import tom.springframework.vibecodingmvc.models.ShipmentClaimRequest;
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionReport;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionRequest;
+import tom.springframework.vibecodingmvc.services.BeerOrderShipmentService;
+import tom.springframework.vibecodingmvc.services.ShipmentClaimService;
+import tom.springframework.vibecodingmvc.services.ShipmentEventService;
+import tom.springframework.vibecodingmvc.services.ShipmentTransitionService;
+
+import java.io.IOException;
+
+/**
+ * Shipment operations that are not scoped to a single order.
+ */
+@RestController
+@RequestMapping("/api/v1/shipments")
+@Validated
+@Tag(name = "Shipments", description = "Operations across the shipments of many orders")
+class ShipmentController {
+
+    private final BeerOrderShipmentService shipmentService;
+    private final ShipmentTransitionService transitionService;
+    private final ShipmentEventService eventService;
+    private final ShipmentClaimService claimService;
+
+    ShipmentController(BeerOrderShipmentService shipmentService, ShipmentTransitionService transitionService,
+                       ShipmentEventService eventService, ShipmentClaimService claimService) {
+        this.shipmentService = shipmentService;
+        this.transitionService = transitionService;
+        this.eventService = eventService;
+        this.claimService = claimService;
+    }
+
+    @GetMapping(value = "/by-tracking/{trackingNumber}", produces = "application/json")
+    @Operation(
+            summary = "Get a shipment by tracking number",
+            description = "Resolves a carrier tracking number to its shipment, e.g. for carrier callbacks. Recently "
+                    + "seen tracking numbers are mapped to their shipment id in memory; others use the unique index.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "OK",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = BeerOrderShipmentDto.class))),
+            @ApiResponse(responseCode = "404", description = "No shipment has this tracking number", content = @Content)
+    })
+    ResponseEntity<BeerOrderShipmentDto> getByTrackingNumber(@PathVariable @NotBlank String trackingNumber) {
+        return shipmentService.getByTrackingNumber(trackingNumber)
+                .map(shipment -> ETags.ok(shipment.id(), shipment.version(), shipment))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping(value = "/transitions", consumes = "application/json", produces = "application/json")
+    @Operation(
+            summary = "Move many shipments to one status",
+            description = "Applies the status (and optionally a carrier and per-shipment tracking numbers) with the "
+                    + "same rules as a single update. Shipments are read and written in batches; the response lists "
+                    + "the outcome for every shipment, and one that cannot be moved never holds back the others.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Transition processed",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ShipmentTransitionReport.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, e.g. too many shipments", content = @Content)
+    })
+    ResponseEntity<ShipmentTransitionReport> transition(@Valid @RequestBody ShipmentTransitionRequest request) {
+        return ResponseEntity.ok(transitionService.transition(request));
+    }
+
+    @PostMapping(value = "/claims", consumes = "application/json", produces = "application/json")
+    @Operation(
+            summary = "Lease the next pending shipments",
+            description = "Leases up to `limit` of the oldest PENDING shipments that nobody else holds a live lease "
+                    + "on, for packing workers pulling from a shared queue. Concurrent claims never lease the same "
+                    + "shipment. A lease ends when it expires or the shipment leaves PENDING.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Leased shipments; none when nothing is claimable",
+                    content = @Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ShipmentClaim.class))),
+            @ApiResponse(responseCode = "400", description = "Bad Request, e.g. limit or lease too large",
+                    content = @Content)
+    })
+    ResponseEntity<ShipmentClaim> claim(@Valid @RequestBody ShipmentClaimRequest request) {
+        return ResponseEntity.ok(claimService.claim(request));
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(
+            summary = "Stream shipment changes",
+            description = "Server-Sent Events for every committed shipment create, update and delete: a `shipment` "
+                    + "event whose data is a ShipmentEvent, optionally only for one order. A reconnecting client "
+                    + "sends Last-Event-ID to resume from the recent changes kept in memory; if they no longer "
+                    + "cover it, a `reset` event asks the client to reload. Idle streams get a heartbeat comment. "
+                    + "Streams end after spring.mvc.async.request-timeout, and EventSource clients reconnect.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = ShipmentEvent.class)))
+    })
+    SseEmitter stream(@RequestParam(required = false) Integer beerOrderId,
+                      @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = new SseEmitter();
+        Runnable cancel = eventService.subscribe(beerOrderId, lastEventId, new EmitterSink(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onCompletion(cancel);
+        emitter.onError(e -> cancel.run());
+        return emitter;
+    }
+
+    private record EmitterSink(SseEmitter emitter) implements ShipmentEventService.Sink {
+
+        @Override
+        public void send(ShipmentEvent event) throws IOException {
+            emitter.send(SseEmitter.event()
+                    .id(Long.toString(event.id()))
+                    .name("shipment")
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+
+        // An id without data moves the client's Last-Event-ID without dispatching an event
+        @Override
+        public void heartbeat(long position) throws IOException {
+            emitter.send(SseEmitter.event().id(Long.toString(position)).comment("heartbeat"));
+        }
+
+        @Override
+        public void reset(long position) throws IOException {
+            emitter.send(SseEmitter.event().id(Long.toString(position)).name("reset").data("reload"));
+        }
+
+        @Override
+        public void close() {
+            emitter.complete();
+        }
+    }
+}
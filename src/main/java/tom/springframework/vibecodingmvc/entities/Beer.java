@@ -4,7 +4,9 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Column;
+import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
@@ -23,6 +25,12 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Keyset indexes (see V10 migration): each cursor sort column followed by the id tie-breaker
+@Table(indexes = {
+        @Index(name = "idx_beer_name_id", columnList = "beer_name, id"),
+        @Index(name = "idx_beer_style_id", columnList = "beer_style, id"),
+        @Index(name = "idx_beer_upc_id", columnList = "upc, id")
+})
 public class Beer {
 
     @Id
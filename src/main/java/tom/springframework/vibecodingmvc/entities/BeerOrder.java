@@ -16,10 +16,18 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// Listing indexes (see V7 migration): the keyset sort (created_date, id), optionally behind a filter column
+@Table(indexes = {
+        @Index(name = "idx_beer_order_created", columnList = "created_date, id"),
+        @Index(name = "idx_beer_order_status_created", columnList = "status, created_date, id"),
+        @Index(name = "idx_beer_order_customer_created", columnList = "customer_ref, created_date, id")
+})
 public class BeerOrder {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence (V5) so inserts can be batched; the line and shipment ids work the same way
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "beer_order_seq")
+    @SequenceGenerator(name = "beer_order_seq", sequenceName = "beer_order_seq", allocationSize = 50)
     private Integer id;
 
     @Version
@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
 public class BeerOrderLine {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "beer_order_line_seq")
+    @SequenceGenerator(name = "beer_order_line_seq", sequenceName = "beer_order_line_seq", allocationSize = 50)
     private Integer id;
 
     @Version
@@ -15,19 +15,21 @@ import java.time.LocalDateTime;
 @Builder
 @Table(name = "beer_order_shipment", indexes = {
         @Index(name = "idx_bos_order", columnList = "beer_order_id"),
-        @Index(name = "idx_bos_status", columnList = "shipmentStatus")
+        @Index(name = "idx_bos_status", columnList = "shipmentStatus"),
+        @Index(name = "ux_bos_tracking_number", columnList = "trackingNumber", unique = true)
 })
 public class BeerOrderShipment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "beer_order_shipment_seq")
+    @SequenceGenerator(name = "beer_order_shipment_seq", sequenceName = "beer_order_shipment_seq", allocationSize = 50)
     private Integer id;
 
     @Version
     private Integer version;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "beer_order_id", nullable = false)
+    @JoinColumn(name = "beer_order_id", nullable = false, foreignKey = @ForeignKey(name = "fk_bos_order"))
     private BeerOrder beerOrder;
 
     @Enumerated(EnumType.STRING)
@@ -43,6 +45,13 @@ public class BeerOrderShipment {
     @Column(length = 1000)
     private String notes;
 
+    // Written only by the claim statements, so saving a loaded shipment never overwrites a newer lease
+    @Column(length = 100, insertable = false, updatable = false)
+    private String leaseOwner;
+
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime leaseExpiresAt;
+
     @CreationTimestamp
     @Column(updatable = false)
     private LocalDateTime createdDate;
@@ -8,7 +8,8 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "customer")
+// Same name as the V2 migration's index, so a duplicate email can be told apart from other violations
+@Table(name = "customer", indexes = @Index(name = "uq_customer_email", columnList = "email", unique = true))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -26,7 +27,7 @@ public class Customer {
     @Column(nullable = false, length = 120)
     private String name;
 
-    @Column(nullable = false, length = 255, unique = true)
+    @Column(nullable = false, length = 255)
     private String email;
 
     @Column(length = 40)
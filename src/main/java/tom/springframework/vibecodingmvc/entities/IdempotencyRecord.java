@@ -0,0 +1,51 @@
+package tom.springframework.vibecodingmvc.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response recorded for an {@code Idempotency-Key}, replayed when the same request is sent again.
+ * The id is the endpoint scope and the client's key, e.g. {@code beer-orders:3f9c...}.
+ */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Table(name = "idempotency_record", indexes = {
+        @Index(name = "idx_idempotency_created", columnList = "createdDate")
+})
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(length = 300)
+    private String id;
+
+    // SHA-256 of the request, so a key reused for a different request is rejected instead of replayed
+    @Column(nullable = false, length = 64)
+    private String requestHash;
+
+    @Column(nullable = false)
+    private Integer responseStatus;
+
+    @Column(length = 1000)
+    private String location;
+
+    @Lob
+    private String responseBody;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdDate;
+
+    // Always insert (never merge) new records, so a key stored concurrently elsewhere fails on the primary key
+    @Override
+    public boolean isNew() {
+        return createdDate == null;
+    }
+}
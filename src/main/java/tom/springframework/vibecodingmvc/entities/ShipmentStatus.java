@@ -6,5 +6,12 @@ public enum ShipmentStatus {
     IN_TRANSIT,
     OUT_FOR_DELIVERY,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+
+    /**
+     * IN_TRANSIT or later: the shipment needs a tracking number and carrier, and has a shipped date.
+     */
+    public boolean isShipped() {
+        return ordinal() >= IN_TRANSIT.ordinal();
+    }
 }
@@ -1,5 +1,7 @@
 package tom.springframework.vibecodingmvc.mappers;
 
+import org.mapstruct.Context;
+import org.mapstruct.IterableMapping;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Named;
@@ -10,6 +12,7 @@ import tom.springframework.vibecodingmvc.models.BeerOrderResponse;
 import tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse;
 
 import java.util.List;
+import java.util.Map;
 
 @Mapper(componentModel = "spring")
 public interface BeerOrderMapper {
@@ -17,6 +20,7 @@ public interface BeerOrderMapper {
     @Mapping(target = "lines", source = "lines")
     BeerOrderResponse toResponse(BeerOrder order);
 
+    @Mapping(target = "aggregates", ignore = true)
     BeerOrderSummaryResponse toSummaryResponse(BeerOrder order);
 
     @Mapping(target = "beerId", source = "beer.id")
@@ -24,4 +28,17 @@ public interface BeerOrderMapper {
     BeerOrderLineResponse toLineResponse(BeerOrderLine line);
 
     List<BeerOrderLineResponse> toLineResponses(List<BeerOrderLine> lines);
+
+    // Variants for a freshly created order: names are resolved up front so the lines' beer proxies stay unloaded
+    @Mapping(target = "lines", source = "lines", qualifiedByName = "withBeerNames")
+    BeerOrderResponse toResponse(BeerOrder order, @Context Map<Integer, String> beerNames);
+
+    @Named("withBeerName")
+    @Mapping(target = "beerId", source = "beer.id")
+    @Mapping(target = "beerName", expression = "java(beerNames.get(line.getBeer().getId()))")
+    BeerOrderLineResponse toLineResponse(BeerOrderLine line, @Context Map<Integer, String> beerNames);
+
+    @Named("withBeerNames")
+    @IterableMapping(qualifiedByName = "withBeerName")
+    List<BeerOrderLineResponse> toLineResponses(List<BeerOrderLine> lines, @Context Map<Integer, String> beerNames);
 }
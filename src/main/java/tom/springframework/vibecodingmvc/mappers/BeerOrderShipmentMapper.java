@@ -6,6 +6,7 @@ import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentCreateDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentUpdateDto;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
 
 @Mapper(componentModel = "spring")
 public interface BeerOrderShipmentMapper {
@@ -22,12 +23,16 @@ public interface BeerOrderShipmentMapper {
     @Mapping(target = "shipmentStatus", source = "shipmentStatus", qualifiedByName = "stringToStatus")
     @Mapping(target = "createdDate", ignore = true)
     @Mapping(target = "updatedDate", ignore = true)
+    @Mapping(target = "leaseOwner", ignore = true)
+    @Mapping(target = "leaseExpiresAt", ignore = true)
     BeerOrderShipment toEntity(BeerOrderShipmentCreateDto dto);
 
     // Update into existing entity; ignore nulls
     @BeanMapping(nullValuePropertyMappingStrategy = NullValuePropertyMappingStrategy.IGNORE)
     @Mapping(target = "beerOrder", ignore = true)
     @Mapping(target = "shipmentStatus", source = "shipmentStatus", qualifiedByName = "stringToStatus")
+    @Mapping(target = "leaseOwner", ignore = true)
+    @Mapping(target = "leaseExpiresAt", ignore = true)
     void updateEntity(@MappingTarget BeerOrderShipment entity, BeerOrderShipmentUpdateDto dto);
 
     @Named("statusToString")
@@ -38,6 +43,10 @@ public interface BeerOrderShipmentMapper {
     @Named("stringToStatus")
     default ShipmentStatus stringToStatus(String value) {
         if (value == null || value.isBlank()) return null;
-        return ShipmentStatus.valueOf(value);
+        try {
+            return ShipmentStatus.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unknown shipment status: " + value);
+        }
     }
 }
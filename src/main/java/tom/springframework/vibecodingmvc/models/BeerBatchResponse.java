@@ -0,0 +1,14 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Beers resolved for a list of ids")
+public record BeerBatchResponse(
+        @Schema(description = "Found beers, in the order their ids were requested")
+        List<BeerResponseDto> content,
+
+        @Schema(description = "Requested ids that do not exist", example = "[7]")
+        List<Integer> missing
+) {}
@@ -0,0 +1,24 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Map;
+
+@Schema(description = "Facet counts for the beer catalog, optionally narrowed by a beerName filter")
+public record BeerFacetsResponse(
+        @Schema(description = "Number of beers matching the filter", example = "42")
+        long total,
+
+        @Schema(description = "Beers per style", example = "{\"IPA\": 30, \"STOUT\": 12}")
+        Map<String, Long> beerStyle,
+
+        @Schema(description = "Beers by stock status")
+        Stock stock
+) {
+
+    @Schema(description = "In-stock (quantityOnHand > 0) and out-of-stock counts")
+    public record Stock(
+            @Schema(example = "40") long inStock,
+            @Schema(example = "2") long outOfStock
+    ) {}
+}
@@ -0,0 +1,14 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+@Schema(description = "Ids of the beers to fetch")
+public record BeerIdsRequest(
+        @Schema(description = "Beer ids; duplicates are resolved once", example = "[1, 2, 3]")
+        @NotEmpty
+        List<@NotNull Integer> ids
+) {}
@@ -0,0 +1,30 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Outcome of an NDJSON beer import")
+public record BeerImportReport(
+        @Schema(description = "Number of beers inserted", example = "99998")
+        long imported,
+
+        @Schema(description = "Number of lines rejected", example = "2")
+        long failed,
+
+        @Schema(description = "Rejected lines, capped at app.beer-import.max-reported-errors")
+        List<LineError> errors,
+
+        @Schema(description = "True when more lines failed than are listed in errors", example = "false")
+        boolean errorsTruncated
+) {
+
+    @Schema(description = "A rejected NDJSON line")
+    public record LineError(
+            @Schema(description = "1-based line number in the uploaded file", example = "17")
+            long line,
+
+            @Schema(description = "Why the line was rejected", example = "beerName: must not be blank")
+            String message
+    ) {}
+}
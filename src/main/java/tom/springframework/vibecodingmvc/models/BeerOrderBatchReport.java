@@ -0,0 +1,30 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Outcome of an NDJSON bulk order submission")
+public record BeerOrderBatchReport(
+        @Schema(description = "Number of orders created", example = "998")
+        long created,
+
+        @Schema(description = "Number of orders rejected", example = "2")
+        long failed,
+
+        @Schema(description = "One entry per submitted order, in input order")
+        List<OrderResult> results
+) {
+
+    @Schema(description = "Result for a single NDJSON line: the new order id, or why it was rejected")
+    public record OrderResult(
+            @Schema(description = "1-based line number in the uploaded stream", example = "17")
+            long line,
+
+            @Schema(description = "Id of the created order; null when rejected", example = "42")
+            Integer id,
+
+            @Schema(description = "Why the order was rejected; null when created", example = "items: must not be null")
+            String error
+    ) {}
+}
@@ -0,0 +1,30 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Optional filters of the order listing; absent values do not restrict the result.
+ */
+public record BeerOrderFilter(
+        @Parameter(description = "Only orders with this status", example = "ALLOCATED")
+        String status,
+
+        @Parameter(description = "Only orders with this customer reference", example = "PO-2025-0001")
+        String customerRef,
+
+        @Parameter(description = "Only orders created at or after this time", example = "2025-08-01T00:00:00")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime createdFrom,
+
+        @Parameter(description = "Only orders created before this time", example = "2025-09-01T00:00:00")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+        LocalDateTime createdTo
+) {
+
+    public static BeerOrderFilter none() {
+        return new BeerOrderFilter(null, null, null, null);
+    }
+}
@@ -0,0 +1,40 @@
+package tom.springframework.vibecodingmvc.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.UUID;
+
+@Schema(description = "Processing state of an asynchronously submitted beer order")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BeerOrderIntakeStatus(
+        @Schema(description = "Submission identifier", example = "3f2b8c1e-7a4d-4e0f-9b6a-1c2d3e4f5a6b")
+        UUID id,
+
+        @Schema(description = "ACCEPTED while queued, then CREATED or REJECTED",
+                allowableValues = {"ACCEPTED", "CREATED", "REJECTED"}, example = "CREATED")
+        String state,
+
+        @Schema(description = "Id of the created order", example = "42")
+        Integer orderId,
+
+        @Schema(description = "Why the order was not created", example = "items: unknown beer id(s) [7]")
+        String error
+) {
+
+    public static final String ACCEPTED = "ACCEPTED";
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    public static BeerOrderIntakeStatus accepted(UUID id) {
+        return new BeerOrderIntakeStatus(id, ACCEPTED, null, null);
+    }
+
+    public static BeerOrderIntakeStatus created(UUID id, Integer orderId) {
+        return new BeerOrderIntakeStatus(id, CREATED, orderId, null);
+    }
+
+    public static BeerOrderIntakeStatus rejected(UUID id, String error) {
+        return new BeerOrderIntakeStatus(id, REJECTED, null, error);
+    }
+}
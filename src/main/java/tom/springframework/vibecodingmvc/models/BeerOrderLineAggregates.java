@@ -0,0 +1,18 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Totals over the lines of a beer order")
+public record BeerOrderLineAggregates(
+        @Schema(description = "Number of order lines", example = "3")
+        long lineCount,
+
+        @Schema(description = "Sum of ordered quantities", example = "12")
+        long totalQuantity,
+
+        @Schema(description = "Sum of allocated quantities", example = "10")
+        long allocatedQuantity
+) {
+
+    public static final BeerOrderLineAggregates NONE = new BeerOrderLineAggregates(0, 0, 0);
+}
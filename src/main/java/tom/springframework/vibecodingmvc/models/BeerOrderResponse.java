@@ -12,6 +12,9 @@ public record BeerOrderResponse(
         @Schema(description = "Order identifier", example = "42")
         Integer id,
 
+        @Schema(description = "Entity version for optimistic locking and ETags", example = "0", minimum = "0")
+        Integer version,
+
         @Schema(description = "Client-provided reference for the order", example = "PO-2025-0001")
         String customerRef,
 
@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 
 public record BeerOrderShipmentDto(
         Integer id,
+        Integer version,
         Integer beerOrderId,
         String shipmentStatus,
         LocalDateTime shippedDate,
@@ -1,6 +1,8 @@
 package tom.springframework.vibecodingmvc.models;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.annotation.PersistenceCreator;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
@@ -21,5 +23,18 @@ public record BeerOrderSummaryResponse(
         String status,
 
         @Schema(type = "string", format = "date-time", example = "2025-08-20T14:13:00Z")
-        LocalDateTime createdDate
-) {}
+        LocalDateTime createdDate,
+
+        @Schema(description = "Line totals; only present when requested with include=aggregates")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        BeerOrderLineAggregates aggregates
+) {
+
+    // Used by the listing projections, which select the order columns only; @PersistenceCreator makes Spring
+    // Data's DTO projection (keyset scrolling) bind to this constructor instead of the canonical one
+    @PersistenceCreator
+    public BeerOrderSummaryResponse(Integer id, String customerRef, BigDecimal paymentAmount, String status,
+                                    LocalDateTime createdDate) {
+        this(id, customerRef, paymentAmount, status, createdDate, null);
+    }
+}
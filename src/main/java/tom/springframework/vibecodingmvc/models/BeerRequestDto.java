@@ -3,6 +3,7 @@ package tom.springframework.vibecodingmvc.models;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 
 import java.math.BigDecimal;
 
@@ -11,16 +12,19 @@ import io.swagger.v3.oas.annotations.media.Schema;
 @Schema(name = "BeerRequestDto", description = "Request payload to create or update a beer")
 public record BeerRequestDto(
         @NotBlank
+        @Size(max = 255)
         @Schema(description = "Name of the beer", example = "Galaxy Cat IPA")
         String beerName,
 
         // style of the beer, ALE, PALE ALE, IPA, etc
         @NotBlank
+        @Size(max = 100)
         @Schema(description = "Style of the beer (e.g., ALE, PALE_ALE, IPA)", example = "IPA")
         String beerStyle,
 
         // Universal Product Code, a 13-digit number assigned to each unique beer product by the Federal Bar Association
         @NotBlank
+        @Size(max = 32)
         @Schema(description = "Universal Product Code (13-digit)", example = "0123456789012")
         String upc,
 
@@ -32,6 +36,7 @@ public record BeerRequestDto(
         @Schema(description = "Price per unit (must be greater than 0)", example = "12.99", minimum = "0.01")
         BigDecimal price,
 
+        @Size(max = 1000)
         @Schema(description = "Optional human-readable description of the beer", example = "A bright, citrus-forward IPA brewed with Galaxy hops")
         String description
 ) {}
@@ -0,0 +1,18 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Keyset-paginated page of results")
+public record CursorPageResponse<T>(
+        @Schema(description = "Items of this page")
+        List<T> content,
+
+        @Schema(description = "Requested page size", example = "10")
+        int size,
+
+        @Schema(description = "Opaque cursor for the next page; absent on the last page",
+                example = "eyJzb3J0IjpbImlkLEFTQyJdLCJrZXlzIjp7ImlkIjo0Mn19")
+        String next
+) {}
@@ -0,0 +1,18 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Schema(description = "Shipments leased to a worker")
+public record ShipmentClaim(
+        @Schema(description = "Worker holding the lease", example = "packer-7")
+        String worker,
+
+        @Schema(description = "When the lease lapses and the shipments can be claimed again")
+        LocalDateTime leaseExpiresAt,
+
+        @Schema(description = "Leased shipments, oldest first; empty when none are pending and unleased")
+        List<BeerOrderShipmentDto> shipments
+) {}
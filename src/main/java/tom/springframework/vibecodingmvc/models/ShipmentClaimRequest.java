@@ -0,0 +1,22 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+@Schema(description = "Leases the next pending shipments to a packing worker")
+public record ShipmentClaimRequest(
+        @Schema(description = "Worker taking the lease", example = "packer-7")
+        @NotBlank @Size(max = 100)
+        String worker,
+
+        @Schema(description = "Most shipments to lease, at most app.shipment-claims.max-shipments", example = "10")
+        @NotNull @Positive
+        Integer limit,
+
+        @Schema(description = "Lease length in seconds; app.shipment-claims.default-lease when omitted", example = "300")
+        @Positive
+        Integer leaseSeconds
+) {}
@@ -0,0 +1,40 @@
+package tom.springframework.vibecodingmvc.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+@Schema(description = "A committed change to a shipment, as sent on the shipment event stream")
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ShipmentEvent(
+        @Schema(description = "Position in the stream, also sent as the SSE id to resume from with Last-Event-ID",
+                example = "1760700000000042")
+        long id,
+
+        @Schema(description = "What happened to the shipment", example = "UPDATED")
+        Type type,
+
+        @Schema(description = "Shipment id", example = "17")
+        Integer shipmentId,
+
+        @Schema(description = "Order the shipment belongs to", example = "42")
+        Integer beerOrderId,
+
+        @Schema(description = "Status after the change; omitted when the change did not set one, and on deletes",
+                example = "IN_TRANSIT")
+        String shipmentStatus,
+
+        @Schema(description = "Version after the change, when known", example = "3")
+        Integer version,
+
+        @Schema(description = "When the change was committed")
+        LocalDateTime occurredAt
+) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,41 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Outcome of a bulk shipment status transition")
+public record ShipmentTransitionReport(
+        @Schema(description = "Number of shipments moved", example = "4998")
+        long applied,
+
+        @Schema(description = "Number of shipments not moved", example = "2")
+        long failed,
+
+        @Schema(description = "One entry per listed shipment, in request order")
+        List<Result> results
+) {
+
+    public enum Outcome {
+        APPLIED,
+        /** No shipment with this id */
+        NOT_FOUND,
+        /** The target status rules are not met, the tracking number is taken, or the id is listed twice */
+        REJECTED,
+        /** The shipment changed while the request ran; retrying it is safe */
+        CONFLICT
+    }
+
+    @Schema(description = "Result for a single shipment")
+    public record Result(
+            @Schema(description = "Shipment id", example = "17")
+            Integer id,
+
+            @Schema(description = "What happened to the shipment", example = "APPLIED")
+            Outcome outcome,
+
+            @Schema(description = "Why the shipment was not moved; null when applied",
+                    example = "trackingNumber and carrier are required when status is IN_TRANSIT or later")
+            String error
+    ) {}
+}
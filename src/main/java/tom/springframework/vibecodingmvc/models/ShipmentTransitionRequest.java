@@ -0,0 +1,35 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
+
+import java.util.List;
+
+@Schema(description = "Moves a set of shipments to one status")
+public record ShipmentTransitionRequest(
+        @Schema(description = "Status to move every listed shipment to", example = "IN_TRANSIT")
+        @NotNull
+        ShipmentStatus status,
+
+        @Schema(description = "Carrier for all listed shipments; each keeps its stored carrier when omitted", example = "DHL")
+        String carrier,
+
+        @Schema(description = "Shipments to move, at most app.shipment-transitions.max-shipments")
+        @NotEmpty
+        List<@Valid @NotNull Item> shipments
+) {
+
+    @Schema(description = "A shipment to move")
+    public record Item(
+            @Schema(description = "Shipment id", example = "17")
+            @NotNull @Positive
+            Integer id,
+
+            @Schema(description = "Tracking number; the stored one is kept when omitted or blank", example = "1Z999AA10123456784")
+            String trackingNumber
+    ) {}
+}
@@ -0,0 +1,35 @@
+package tom.springframework.vibecodingmvc.models;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+
+/**
+ * Stable JSON shape for a {@link Slice}, mirroring Spring Data's {@code PagedModel} but without totals.
+ */
+@Schema(description = "Page of results without total counts")
+public record SliceResponse<T>(
+        @Schema(description = "Items of this page")
+        List<T> content,
+
+        @Schema(description = "Page metadata")
+        SliceMetadata page
+) {
+
+    public static <T> SliceResponse<T> of(Slice<T> slice) {
+        return new SliceResponse<>(slice.getContent(),
+                new SliceMetadata(slice.getSize(), slice.getNumber(), slice.hasNext()));
+    }
+
+    public record SliceMetadata(
+            @Schema(description = "Requested page size", example = "10")
+            int size,
+
+            @Schema(description = "Zero-based page index", example = "0")
+            int number,
+
+            @Schema(description = "Whether a further page exists", example = "true")
+            boolean hasNext
+    ) {}
+}
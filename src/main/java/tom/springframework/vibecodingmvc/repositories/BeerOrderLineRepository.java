@@ -1,7 +1,29 @@
 package tom.springframework.vibecodingmvc.repositories;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import tom.springframework.vibecodingmvc.entities.BeerOrderLine;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface BeerOrderLineRepository extends JpaRepository<BeerOrderLine, Integer> {
+
+    // One grouped pass over idx_bol_order for a page of orders; orders without lines are absent
+    @Query("""
+            select l.beerOrder.id as beerOrderId, count(l) as lineCount,
+                   coalesce(sum(l.orderQuantity), 0) as totalQuantity,
+                   coalesce(sum(l.quantityAllocated), 0) as allocatedQuantity
+            from BeerOrderLine l
+            where l.beerOrder.id in :orderIds
+            group by l.beerOrder.id""")
+    List<LineAggregateView> aggregateByOrderIds(@Param("orderIds") Collection<Integer> orderIds);
+
+    interface LineAggregateView {
+        Integer getBeerOrderId();
+        Long getLineCount();
+        Long getTotalQuantity();
+        Long getAllocatedQuantity();
+    }
 }
@@ -1,13 +1,41 @@
 package tom.springframework.vibecodingmvc.repositories;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import tom.springframework.vibecodingmvc.entities.BeerOrder;
+import tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface BeerOrderRepository extends JpaRepository<BeerOrder, Integer> {
+public interface BeerOrderRepository extends JpaRepository<BeerOrder, Integer>, JpaSpecificationExecutor<BeerOrder> {
 
     @EntityGraph(attributePaths = {"lines", "lines.beer"})
     Optional<BeerOrder> findWithLinesById(Integer id);
+
+    // Listing rows are built from the five summary columns: no entity hydration, no dirty-checking snapshot
+    String SUMMARY_SELECT = "select new tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse("
+            + "o.id, o.customerRef, o.paymentAmount, o.status, o.createdDate) from BeerOrder o";
+
+    @Query(value = SUMMARY_SELECT, countQuery = "select count(o) from BeerOrder o")
+    Page<BeerOrderSummaryResponse> findSummaries(Pageable pageable);
+
+    @Query(SUMMARY_SELECT)
+    Slice<BeerOrderSummaryResponse> findSummarySlice(Pageable pageable);
+
+    @Query("select o.version from BeerOrder o where o.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    // Keyset walk over orders still waiting for stock, in id order
+    @Query("select o.id from BeerOrder o where o.status in :statuses and o.id > :afterId order by o.id")
+    List<Integer> findIdsByStatusIn(@Param("statuses") Collection<String> statuses, @Param("afterId") Integer afterId,
+                                    Limit limit);
 }
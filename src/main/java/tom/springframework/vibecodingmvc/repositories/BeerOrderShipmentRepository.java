@@ -3,16 +3,94 @@ package tom.springframework.vibecodingmvc.repositories;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import tom.springframework.vibecodingmvc.entities.BeerOrderShipment;
+import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface BeerOrderShipmentRepository extends JpaRepository<BeerOrderShipment, Integer> {
 
+    String SELECT_STATE = "select s.id as id, s.beerOrder.id as beerOrderId, s.version as version, "
+            + "s.trackingNumber as trackingNumber, s.carrier as carrier, s.shippedDate as shippedDate "
+            + "from BeerOrderShipment s";
+
     List<BeerOrderShipment> findByBeerOrder_Id(Integer beerOrderId);
 
     Page<BeerOrderShipment> findByBeerOrder_Id(Integer beerOrderId, Pageable pageable);
 
     Optional<BeerOrderShipment> findByTrackingNumber(String trackingNumber);
+
+    // Order-scoped lookups: a shipment of another order is as absent as a missing one
+    Optional<BeerOrderShipment> findByIdAndBeerOrder_Id(Integer id, Integer beerOrderId);
+
+    @Query("select s.version from BeerOrderShipment s where s.id = :id and s.beerOrder.id = :beerOrderId")
+    Optional<Integer> findVersionByIdAndBeerOrderId(@Param("id") Integer id, @Param("beerOrderId") Integer beerOrderId);
+
+    /**
+     * Merges the non-null values into the shipment in one statement, guarded by its order, the expected version
+     * (when given) and the shipping rules: a {@code shippedStatuses} status needs a tracking number and carrier and
+     * gets a shipped date if it has none. 0 rows means missing, owned by another order, stale or rejected.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update BeerOrderShipment s set s.shipmentStatus = coalesce(:status, s.shipmentStatus),
+                s.trackingNumber = coalesce(:trackingNumber, s.trackingNumber),
+                s.carrier = coalesce(:carrier, s.carrier),
+                s.notes = coalesce(:notes, s.notes),
+                s.shippedDate = case when coalesce(:status, s.shipmentStatus) in :shippedStatuses
+                    then coalesce(:shippedDate, s.shippedDate, local datetime)
+                    else coalesce(:shippedDate, s.shippedDate) end,
+                s.version = s.version + 1, s.updatedDate = local datetime
+            where s.id = :id and s.beerOrder.id = :beerOrderId
+                and (:version is null or s.version = :version)
+                and (coalesce(:status, s.shipmentStatus) not in :shippedStatuses
+                    or (trim(coalesce(:trackingNumber, s.trackingNumber, '')) <> ''
+                        and trim(coalesce(:carrier, s.carrier, '')) <> ''))""")
+    int updateByIdAndBeerOrderId(@Param("id") Integer id, @Param("beerOrderId") Integer beerOrderId,
+                                 @Param("version") Integer version,
+                                 @Param("status") ShipmentStatus status, @Param("shippedDate") LocalDateTime shippedDate,
+                                 @Param("trackingNumber") String trackingNumber, @Param("carrier") String carrier,
+                                 @Param("notes") String notes,
+                                 @Param("shippedStatuses") Collection<ShipmentStatus> shippedStatuses);
+
+    // What an update statement left behind, read back in its transaction when the request did not set it
+    @Query("select s.version as version, s.shipmentStatus as shipmentStatus from BeerOrderShipment s where s.id = :id")
+    Optional<ShipmentVersionView> findVersionAndStatusById(@Param("id") Integer id);
+
+    // Just the columns the status rules and change events read, for a whole batch of shipments at once
+    @Query(SELECT_STATE + " where s.id in :ids")
+    List<ShipmentStateView> findByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Current owners of tracking numbers about to be assigned (served by the unique index)
+    @Query(SELECT_STATE + " where s.trackingNumber in :trackingNumbers")
+    List<ShipmentStateView> findByTrackingNumberIn(@Param("trackingNumbers") Collection<String> trackingNumbers);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from BeerOrderShipment s where s.id = :id and s.beerOrder.id = :beerOrderId")
+    int deleteByIdAndBeerOrderId(@Param("id") Integer id, @Param("beerOrderId") Integer beerOrderId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from BeerOrderShipment s where s.id = :id and s.beerOrder.id = :beerOrderId and s.version = :version")
+    int deleteByIdAndBeerOrderIdAndVersion(@Param("id") Integer id, @Param("beerOrderId") Integer beerOrderId,
+                                           @Param("version") Integer version);
+
+    interface ShipmentVersionView {
+        Integer getVersion();
+        ShipmentStatus getShipmentStatus();
+    }
+
+    interface ShipmentStateView {
+        Integer getId();
+        Integer getBeerOrderId();
+        Integer getVersion();
+        String getTrackingNumber();
+        String getCarrier();
+        LocalDateTime getShippedDate();
+    }
 }
@@ -1,12 +1,145 @@
 package tom.springframework.vibecodingmvc.repositories;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import tom.springframework.vibecodingmvc.entities.Beer;
 
+import java.util.Collection;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 public interface BeerRepository extends JpaRepository<Beer, Integer> {
     // Spring Data JPA will automatically implement basic CRUD operations
 
     Page<Beer> findAllByBeerNameContainingIgnoreCase(String beerName, Pageable pageable);
-}
\ No newline at end of file
+
+    // Slice variants fetch one extra row to detect a next page instead of running a count query
+    Slice<Beer> findSliceBy(Pageable pageable);
+
+    Slice<Beer> findSliceByBeerNameContainingIgnoreCase(String beerName, Pageable pageable);
+
+    // Keyset (seek) pagination: Spring Data renders the position as (sortKey > ? or (sortKey = ? and id > ?))
+    Window<Beer> findAllBy(ScrollPosition position, Sort sort, Limit limit);
+
+    Window<Beer> findAllByBeerNameContainingIgnoreCase(String beerName, ScrollPosition position, Sort sort, Limit limit);
+
+    // Existence check for ids the in-memory id set does not know
+    @Query("select b.id from Beer b where b.id in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+
+    // Returns only the requested page of the given ids; the caller already knows the total, so no count query
+    List<Beer> findAllByIdIn(Collection<Integer> ids, Pageable pageable);
+
+    // Columns used to (re)build the in-memory name and facet indexes; must be consumed inside a transaction
+    @Query("select b.id as id, b.beerName as beerName, b.beerStyle as beerStyle, b.quantityOnHand as quantityOnHand from Beer b")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<BeerIndexView> streamAllIndexRows();
+
+    // GROUP BY fallbacks for facet counts while the in-memory indexes are not built yet
+    @Query("""
+            select b.beerStyle as value, count(b) as count from Beer b
+            where :beerName is null or lower(b.beerName) like lower(concat('%', :beerName, '%'))
+            group by b.beerStyle""")
+    List<FacetCountView> countByBeerStyle(@Param("beerName") String beerName);
+
+    @Query("""
+            select case when b.quantityOnHand > 0 then 'IN_STOCK' else 'OUT_OF_STOCK' end as value, count(b) as count
+            from Beer b
+            where :beerName is null or lower(b.beerName) like lower(concat('%', :beerName, '%'))
+            group by case when b.quantityOnHand > 0 then 'IN_STOCK' else 'OUT_OF_STOCK' end""")
+    List<FacetCountView> countByStockStatus(@Param("beerName") String beerName);
+
+    // Full catalog in id order for exports; rows are fetched from the cursor in chunks, not materialized as a list
+    @Query("select b from Beer b order by b.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Beer> streamAllByOrderById();
+
+    // Version-only lookup backing ETag revalidation (If-None-Match) without loading the entity
+    @Query("select b.version from Beer b where b.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    // Unconditional writes as one statement each; the row count tells whether the beer existed.
+    // Null fields keep their stored values, matching the mapper's merge semantics.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Beer b set b.beerName = coalesce(:beerName, b.beerName),
+                b.beerStyle = coalesce(:beerStyle, b.beerStyle),
+                b.upc = coalesce(:upc, b.upc),
+                b.quantityOnHand = coalesce(:quantityOnHand, b.quantityOnHand),
+                b.price = coalesce(:price, b.price),
+                b.description = coalesce(:description, b.description),
+                b.version = b.version + 1, b.updatedDate = local datetime
+            where b.id = :id""")
+    int updateById(@Param("id") Integer id,
+                   @Param("beerName") String beerName, @Param("beerStyle") String beerStyle,
+                   @Param("upc") String upc, @Param("quantityOnHand") Integer quantityOnHand,
+                   @Param("price") BigDecimal price, @Param("description") String description);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Beer b where b.id = :id")
+    int deleteByIdReturningCount(@Param("id") Integer id);
+
+    // Conditional (If-Match) writes: a single statement guarded by the expected version; 0 rows means stale or missing
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Beer b set b.beerName = :beerName, b.beerStyle = :beerStyle, b.upc = :upc,
+                b.quantityOnHand = coalesce(:quantityOnHand, b.quantityOnHand),
+                b.price = coalesce(:price, b.price),
+                b.description = coalesce(:description, b.description),
+                b.version = b.version + 1, b.updatedDate = local datetime
+            where b.id = :id and b.version = :version""")
+    int updateByIdAndVersion(@Param("id") Integer id, @Param("version") Integer version,
+                             @Param("beerName") String beerName, @Param("beerStyle") String beerStyle,
+                             @Param("upc") String upc, @Param("quantityOnHand") Integer quantityOnHand,
+                             @Param("price") BigDecimal price, @Param("description") String description);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Beer b where b.id = :id and b.version = :version")
+    int deleteByIdAndVersion(@Param("id") Integer id, @Param("version") Integer version);
+
+    // Conditional decrement: only succeeds while enough stock is left, so concurrent allocators can never oversell.
+    // Deliberately neither flushes nor clears: it runs while the order being allocated is managed and dirty.
+    @Modifying
+    @Query("""
+            update Beer b set b.quantityOnHand = b.quantityOnHand - :quantity,
+                b.version = b.version + 1, b.updatedDate = local datetime
+            where b.id = :id and b.quantityOnHand >= :quantity""")
+    int decrementStock(@Param("id") Integer id, @Param("quantity") int quantity);
+
+    @Query("select b.id as id, b.quantityOnHand as quantityOnHand from Beer b where b.id in :ids")
+    List<BeerStockView> findStockByIdIn(@Param("ids") Collection<Integer> ids);
+
+    interface BeerIndexView {
+        Integer getId();
+        String getBeerName();
+        String getBeerStyle();
+        Integer getQuantityOnHand();
+    }
+
+    interface BeerStockView {
+        Integer getId();
+        Integer getQuantityOnHand();
+    }
+
+    interface FacetCountView {
+        String getValue();
+        Long getCount();
+    }
+}
@@ -1,6 +1,11 @@
 package tom.springframework.vibecodingmvc.repositories;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import tom.springframework.vibecodingmvc.entities.Customer;
 
 import java.util.Optional;
@@ -8,4 +13,54 @@ import java.util.Optional;
 public interface CustomerRepository extends JpaRepository<Customer, Integer> {
     boolean existsByEmail(String email);
     Optional<Customer> findByEmail(String email);
+
+    Slice<Customer> findSliceBy(Pageable pageable);
+
+    @Query("select c.version from Customer c where c.id = :id")
+    Optional<Integer> findVersionById(@Param("id") Integer id);
+
+    // Unconditional writes as one statement each; the row count tells whether the customer existed.
+    // Null fields keep their stored values, matching the mapper's merge semantics.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Customer c set c.name = coalesce(:name, c.name),
+                c.email = coalesce(:email, c.email),
+                c.phone = coalesce(:phone, c.phone),
+                c.addressLine1 = coalesce(:addressLine1, c.addressLine1),
+                c.addressLine2 = coalesce(:addressLine2, c.addressLine2),
+                c.city = coalesce(:city, c.city),
+                c.state = coalesce(:state, c.state),
+                c.postalCode = coalesce(:postalCode, c.postalCode),
+                c.version = c.version + 1, c.updatedDate = local datetime
+            where c.id = :id""")
+    int updateById(@Param("id") Integer id,
+                   @Param("name") String name, @Param("email") String email,
+                   @Param("phone") String phone, @Param("addressLine1") String addressLine1,
+                   @Param("addressLine2") String addressLine2, @Param("city") String city,
+                   @Param("state") String state, @Param("postalCode") String postalCode);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Customer c where c.id = :id")
+    int deleteByIdReturningCount(@Param("id") Integer id);
+
+    // Conditional (If-Match) writes guarded by the expected version; 0 rows means stale or missing
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Customer c set c.name = :name, c.email = :email, c.addressLine1 = :addressLine1,
+                c.phone = coalesce(:phone, c.phone),
+                c.addressLine2 = coalesce(:addressLine2, c.addressLine2),
+                c.city = coalesce(:city, c.city),
+                c.state = coalesce(:state, c.state),
+                c.postalCode = coalesce(:postalCode, c.postalCode),
+                c.version = c.version + 1, c.updatedDate = local datetime
+            where c.id = :id and c.version = :version""")
+    int updateByIdAndVersion(@Param("id") Integer id, @Param("version") Integer version,
+                             @Param("name") String name, @Param("email") String email,
+                             @Param("phone") String phone, @Param("addressLine1") String addressLine1,
+                             @Param("addressLine2") String addressLine2, @Param("city") String city,
+                             @Param("state") String state, @Param("postalCode") String postalCode);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Customer c where c.id = :id and c.version = :version")
+    int deleteByIdAndVersion(@Param("id") Integer id, @Param("version") Integer version);
 }
@@ -0,0 +1,21 @@
+package tom.springframework.vibecodingmvc.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import tom.springframework.vibecodingmvc.entities.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // Removes an expired record so its key can be recorded again
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.id = :id and r.createdDate < :cutoff")
+    int deleteExpired(@Param("id") String id, @Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.createdDate < :cutoff")
+    int deleteAllExpired(@Param("cutoff") LocalDateTime cutoff);
+}
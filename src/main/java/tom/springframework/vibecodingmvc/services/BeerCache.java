@@ -0,0 +1,121 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tom.springframework.vibecodingmvc.config.BeerCacheProperties;
+import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache of beer details keyed by id. Hit, miss and eviction statistics are published
+ * through Micrometer as {@code cache.*} meters tagged {@code cache=beers}.
+ * <p>
+ * Two guards keep stale rows out: a load is only stored if no write was recorded while it was reading
+ * from the database, and an entry is never replaced by one carrying an older {@code version}.
+ */
+@Component
+class BeerCache {
+
+    static final String CACHE_NAME = "beers";
+
+    private static final Comparator<Integer> VERSION_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final Cache<Integer, BeerResponseDto> cache;
+
+    // Bumped on every invalidation; loads that started before a bump are not stored
+    private final AtomicLong writeStamp = new AtomicLong();
+
+    BeerCache(BeerCacheProperties properties, MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.timeToLive())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    Optional<BeerResponseDto> get(Integer id, Function<Integer, Optional<BeerResponseDto>> loader) {
+        BeerResponseDto cached = cache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long stamp = writeStamp.get();
+        Optional<BeerResponseDto> loaded = loader.apply(id);
+        loaded.ifPresent(dto -> store(dto, stamp));
+        return loaded;
+    }
+
+    /**
+     * Bulk variant of {@link #get}: serves what is cached and loads the rest with a single {@code loader} call.
+     * Ids absent from the result do not exist.
+     */
+    Map<Integer, BeerResponseDto> getAll(Collection<Integer> ids,
+                                         Function<Collection<Integer>, Collection<BeerResponseDto>> loader) {
+        Map<Integer, BeerResponseDto> found = new HashMap<>(cache.getAllPresent(ids));
+        List<Integer> missing = ids.stream().filter(id -> !found.containsKey(id)).toList();
+        if (missing.isEmpty()) {
+            return found;
+        }
+        long stamp = writeStamp.get();
+        for (BeerResponseDto dto : loader.apply(missing)) {
+            found.put(dto.id(), dto);
+            store(dto, stamp);
+        }
+        return found;
+    }
+
+    // Peeks without loading or touching the hit/miss statistics
+    Optional<Integer> cachedVersion(Integer id) {
+        return Optional.ofNullable(cache.asMap().get(id)).map(BeerResponseDto::version);
+    }
+
+    /**
+     * Drops the entry now and, when called inside a transaction, once more after it commits so a
+     * concurrent reader cannot re-cache the pre-commit row.
+     */
+    void invalidate(Integer id) {
+        evict(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(id);
+                }
+            });
+        }
+    }
+
+    long size() {
+        return cache.estimatedSize();
+    }
+
+    private void store(BeerResponseDto dto, long stamp) {
+        cache.asMap().compute(dto.id(), (key, current) -> {
+            if (writeStamp.get() != stamp) {
+                return current;
+            }
+            if (current != null && VERSION_ORDER.compare(current.version(), dto.version()) >= 0) {
+                return current;
+            }
+            return dto;
+        });
+    }
+
+    private void evict(Integer id) {
+        writeStamp.incrementAndGet();
+        cache.invalidate(id);
+    }
+}
@@ -0,0 +1,27 @@
+package tom.springframework.vibecodingmvc.services;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface BeerExportService {
+
+    enum Format {
+        NDJSON("application/x-ndjson"),
+        CSV("text/csv");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+    }
+
+    /**
+     * Writes the whole catalog to {@code out} in id order, one row at a time.
+     */
+    void exportBeers(Format format, OutputStream out) throws IOException;
+}
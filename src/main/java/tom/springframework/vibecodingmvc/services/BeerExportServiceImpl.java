@@ -0,0 +1,77 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.mappers.BeerMapper;
+import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+class BeerExportServiceImpl implements BeerExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BeerExportServiceImpl.class);
+
+    private final BeerRepository beerRepository;
+    private final BeerMapper beerMapper;
+    private final EntityManager entityManager;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectWriter csvWriter;
+
+    BeerExportServiceImpl(BeerRepository beerRepository, BeerMapper beerMapper, EntityManager entityManager,
+                          ObjectMapper objectMapper) {
+        this.beerRepository = beerRepository;
+        this.beerMapper = beerMapper;
+        this.entityManager = entityManager;
+        this.ndjsonWriter = objectMapper.writerFor(BeerResponseDto.class)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n");
+        // CsvMapper sorts columns alphabetically by default; keep the DTO's field order like the JSON output
+        CsvMapper csvMapper = CsvMapper.builder().findAndAddModules()
+                .disable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        this.csvWriter = csvMapper.writer(csvMapper.schemaFor(BeerResponseDto.class).withHeader())
+                .forType(BeerResponseDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportBeers(Format format, OutputStream out) throws IOException {
+        ObjectWriter writer = format == Format.CSV ? csvWriter : ndjsonWriter;
+        long rows = 0;
+        try (Stream<Beer> beers = beerRepository.streamAllByOrderById();
+             SequenceWriter sequence = writer.writeValues(out)) {
+            Iterator<Beer> it = beers.iterator();
+            while (it.hasNext()) {
+                Beer beer = it.next();
+                sequence.write(beerMapper.toResponseDto(beer));
+                // Detach so the persistence context does not grow with the export
+                entityManager.detach(beer);
+                rows++;
+            }
+            if (format == Format.NDJSON && rows > 0) {
+                sequence.flush();
+                out.write('\n');
+            }
+        }
+        log.info("Exported {} beers as {}", rows, format);
+    }
+}
@@ -0,0 +1,132 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Facet counters over the catalog: beers per {@code beerStyle} and in-stock/out-of-stock buckets.
+ * <p>
+ * Unfiltered counts are read straight from the counters. Filtered counts are aggregated from the
+ * per-beer facet values for the given ids (typically the matches of {@link BeerNameIndex}), so
+ * neither path runs a GROUP BY. Writes are serialized; reads are lock-free and may be momentarily
+ * off by one concurrent write. Like the name index, it is only consulted after {@link #rebuild(Map)},
+ * and writes made between {@link #beginRebuild()} and the rebuild are replayed on top of the snapshot.
+ */
+@Component
+class BeerFacetIndex {
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> styleCounts = new ConcurrentHashMap<>();
+    private final LongAdder inStock = new LongAdder();
+    private final LongAdder outOfStock = new LongAdder();
+    private volatile boolean ready;
+
+    private final RebuildWriteLog writeLog = new RebuildWriteLog();
+
+    boolean isReady() {
+        return ready;
+    }
+
+    synchronized void beginRebuild() {
+        writeLog.begin();
+    }
+
+    synchronized void abortRebuild() {
+        writeLog.abort();
+    }
+
+    synchronized void rebuild(Map<Integer, Entry> beers) {
+        entries.clear();
+        styleCounts.clear();
+        inStock.reset();
+        outOfStock.reset();
+        beers.forEach(this::add);
+        writeLog.replay();
+        ready = true;
+    }
+
+    synchronized void put(Integer id, String beerStyle, Integer quantityOnHand) {
+        if (id == null) return;
+        writeLog.apply(() -> {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                count(previous, -1);
+            }
+            add(id, Entry.of(beerStyle, quantityOnHand));
+        });
+    }
+
+    // Stock-only change (allocation): keeps the indexed style
+    synchronized void putStock(Integer id, Integer quantityOnHand) {
+        Entry previous = entries.get(id);
+        if (previous != null) {
+            put(id, previous.beerStyle(), quantityOnHand);
+        }
+    }
+
+    synchronized void remove(Integer id) {
+        if (id == null) return;
+        writeLog.apply(() -> {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                count(previous, -1);
+            }
+        });
+    }
+
+    Facets counts() {
+        Map<String, Long> styles = new TreeMap<>();
+        styleCounts.forEach((style, count) -> {
+            long value = count.sum();
+            if (value > 0) {
+                styles.put(style, value);
+            }
+        });
+        long in = inStock.sum();
+        long out = outOfStock.sum();
+        return new Facets(in + out, styles, in, out);
+    }
+
+    Facets counts(Collection<Integer> ids) {
+        Map<String, Long> styles = new HashMap<>();
+        long in = 0;
+        long out = 0;
+        for (Integer id : ids) {
+            Entry entry = entries.get(id);
+            if (entry == null) continue;
+            if (entry.beerStyle() != null) {
+                styles.merge(entry.beerStyle(), 1L, Long::sum);
+            }
+            if (entry.inStock()) in++; else out++;
+        }
+        return new Facets(in + out, new TreeMap<>(styles), in, out);
+    }
+
+    private void add(Integer id, Entry entry) {
+        entries.put(id, entry);
+        count(entry, 1);
+    }
+
+    private void count(Entry entry, int delta) {
+        if (entry.beerStyle() != null) {
+            styleCounts.computeIfAbsent(entry.beerStyle(), style -> new LongAdder()).add(delta);
+        }
+        (entry.inStock() ? inStock : outOfStock).add(delta);
+    }
+
+    record Entry(String beerStyle, boolean inStock) {
+
+        static Entry of(String beerStyle, Integer quantityOnHand) {
+            return new Entry(beerStyle, quantityOnHand != null && quantityOnHand > 0);
+        }
+    }
+
+    record Facets(long total, Map<String, Long> beerStyles, long inStock, long outOfStock) {
+    }
+}
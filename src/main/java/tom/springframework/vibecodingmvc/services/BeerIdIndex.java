@@ -0,0 +1,113 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Set of existing beer ids as a bitset, so order items can be checked without a query. Beer ids come from an
+ * identity column and are dense, which keeps the set at about one bit per id ever issued.
+ * <p>
+ * Only "present" answers are trusted; ids the set does not hold (a beer created on another instance, or before
+ * {@link #rebuild(Collection)} ran) are confirmed with one lookup for all of them. The foreign key stays the
+ * final guard against a beer deleted in between.
+ */
+@Component
+class BeerIdIndex {
+
+    private final BitSet ids = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Bumped on every removal; ids confirmed by a lookup that overlapped a removal are not added
+    private final AtomicLong removals = new AtomicLong();
+    private volatile boolean ready;
+
+    boolean isReady() {
+        return ready;
+    }
+
+    void rebuild(Collection<Integer> beerIds) {
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            beerIds.forEach(this::set);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void add(Integer id) {
+        lock.writeLock().lock();
+        try {
+            set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            removals.incrementAndGet();
+            if (id != null && id >= 0) {
+                ids.clear(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the ids that do not exist, in input order. Ids missing from the set are resolved with a single
+     * {@code existingLoader} call, which returns those that do exist; confirmed ids are added to the set.
+     */
+    List<Integer> findMissing(Collection<Integer> beerIds, Function<Collection<Integer>, Collection<Integer>> existingLoader) {
+        List<Integer> unknown = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Integer id : beerIds) {
+                if (!contains(id)) {
+                    unknown.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (unknown.isEmpty()) {
+            return unknown;
+        }
+        long stamp = removals.get();
+        Set<Integer> existing = new HashSet<>(existingLoader.apply(unknown));
+        if (!existing.isEmpty()) {
+            lock.writeLock().lock();
+            try {
+                if (removals.get() == stamp) {
+                    existing.forEach(this::set);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return unknown.stream().filter(id -> !existing.contains(id)).toList();
+    }
+
+    private boolean contains(Integer id) {
+        return ready && id != null && id >= 0 && ids.get(id);
+    }
+
+    private void set(Integer id) {
+        if (id != null && id >= 0) {
+            ids.set(id);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package tom.springframework.vibecodingmvc.services;
+
+import tom.springframework.vibecodingmvc.models.BeerImportReport;
+import tom.springframework.vibecodingmvc.models.BeerRequestDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.UnaryOperator;
+
+public interface BeerImportService {
+
+    /**
+     * Imports one {@link BeerRequestDto} per line of {@code ndjson}. Each line is sanitized, validated and inserted in
+     * JDBC batches; rejected lines are reported and skipped. Batches commit independently, so a failure midway
+     * keeps what was already imported.
+     */
+    BeerImportReport importBeers(InputStream ndjson, UnaryOperator<BeerRequestDto> sanitizer) throws IOException;
+}
@@ -0,0 +1,208 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tom.springframework.vibecodingmvc.config.BeerImportProperties;
+import tom.springframework.vibecodingmvc.models.BeerImportReport;
+import tom.springframework.vibecodingmvc.models.BeerRequestDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+@Service
+class BeerImportServiceImpl implements BeerImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BeerImportServiceImpl.class);
+
+    private static final String INSERT_BEER = "insert into beer (version, beer_name, beer_style, upc, quantity_on_hand, "
+            + "price, description, created_date, updated_date) values (0, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BeerNameIndex beerNameIndex;
+    private final BeerFacetIndex beerFacetIndex;
+    private final BeerIdIndex beerIdIndex;
+    private final BeerImportProperties properties;
+
+    BeerImportServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                          Validator validator, BeerNameIndex beerNameIndex, BeerFacetIndex beerFacetIndex,
+                          BeerIdIndex beerIdIndex, BeerImportProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.beerNameIndex = beerNameIndex;
+        this.beerFacetIndex = beerFacetIndex;
+        this.beerIdIndex = beerIdIndex;
+        this.properties = properties;
+    }
+
+    @Override
+    public BeerImportReport importBeers(InputStream ndjson, UnaryOperator<BeerRequestDto> sanitizer) throws IOException {
+        // Only one batch and the capped error list are held at a time, independent of the upload size
+        List<Row> batch = new ArrayList<>(properties.batchSize());
+        Tally tally = new Tally(properties.maxReportedErrors());
+        long lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String error;
+                try {
+                    BeerRequestDto dto = objectMapper.readValue(line, BeerRequestDto.class);
+                    // Validated after sanitizing: escaping can push a value past its column length
+                    BeerRequestDto sanitized = dto == null ? null : sanitizer.apply(dto);
+                    error = sanitized == null ? "empty record" : violations(sanitized);
+                    if (error == null) {
+                        batch.add(new Row(lineNumber, sanitized));
+                    }
+                } catch (JsonProcessingException e) {
+                    error = "malformed JSON: " + e.getOriginalMessage();
+                }
+                if (error != null) {
+                    tally.reject(lineNumber, error);
+                }
+                if (batch.size() == properties.batchSize()) {
+                    insert(batch, tally);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            insert(batch, tally);
+        }
+
+        log.info("Imported {} beers from {} lines, {} rejected", tally.imported, lineNumber, tally.failed);
+        // Rows refused by the database are only known once their batch is written, after later lines were read
+        tally.errors.sort(Comparator.comparingLong(BeerImportReport.LineError::line));
+        return new BeerImportReport(tally.imported, tally.failed, tally.errors, tally.failed > tally.errors.size());
+    }
+
+    private String violations(BeerRequestDto dto) {
+        Set<ConstraintViolation<BeerRequestDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .collect(Collectors.joining("; "));
+    }
+
+    // A batch is inserted in one transaction, so a row the database refuses rolls back the whole batch; its rows are
+    // then inserted one by one and only the refused ones are reported
+    private void insert(List<Row> batch, Tally tally) {
+        List<Integer> ids;
+        try {
+            ids = transactionTemplate.execute(status -> insertAll(batch));
+        } catch (DataAccessException e) {
+            log.debug("Import batch rejected ({}); retrying its {} rows one by one", e.getMessage(), batch.size());
+            for (Row row : batch) {
+                try {
+                    index(row.dto(), insertAll(List.of(row)).getFirst());
+                    tally.imported++;
+                } catch (DataAccessException rowError) {
+                    log.debug("Import line {} rejected: {}", row.line(), rowError.getMessage());
+                    tally.reject(row.line(), "rejected by the database");
+                }
+            }
+            return;
+        }
+        // Keep the name, facet and id indexes in step with the committed rows
+        for (int i = 0; i < ids.size(); i++) {
+            index(batch.get(i).dto(), ids.get(i));
+        }
+        tally.imported += ids.size();
+    }
+
+    // Generated keys come back in insert order
+    private List<Integer> insertAll(List<Row> rows) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT_BEER, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        BeerRequestDto dto = rows.get(i).dto();
+                        ps.setString(1, dto.beerName());
+                        ps.setString(2, dto.beerStyle());
+                        ps.setString(3, dto.upc());
+                        ps.setObject(4, dto.quantityOnHand(), Types.INTEGER);
+                        ps.setBigDecimal(5, dto.price());
+                        ps.setString(6, dto.description());
+                        ps.setTimestamp(7, now);
+                        ps.setTimestamp(8, now);
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                },
+                keys);
+        return keys.getKeyList().stream()
+                .map(key -> ((Number) key.values().iterator().next()).intValue())
+                .toList();
+    }
+
+    private void index(BeerRequestDto dto, int id) {
+        beerNameIndex.put(id, dto.beerName());
+        beerFacetIndex.put(id, dto.beerStyle(), dto.quantityOnHand());
+        beerIdIndex.add(id);
+    }
+
+    private record Row(long line, BeerRequestDto dto) {
+    }
+
+    private static final class Tally {
+
+        private final int maxReportedErrors;
+        private final List<BeerImportReport.LineError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        private Tally(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        private void reject(long line, String message) {
+            failed++;
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new BeerImportReport.LineError(line, message));
+            }
+        }
+    }
+}
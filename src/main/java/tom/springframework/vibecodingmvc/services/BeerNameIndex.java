@@ -0,0 +1,151 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory trigram inverted index over {@code Beer.beerName}.
+ * <p>
+ * Substring searches are resolved to candidate ids from the smallest posting list of the
+ * query's trigrams and then verified against the indexed name, so results match
+ * {@code findAllByBeerNameContainingIgnoreCase} without touching the database.
+ * Queries shorter than a trigram fall back to a scan of the in-memory names.
+ * <p>
+ * Writes are serialized; reads are lock-free. The index is only consulted once
+ * {@link #rebuild(Map)} has run, callers should fall back to the database until then.
+ * Writes made between {@link #beginRebuild()} and {@link #rebuild(Map)} are replayed on top
+ * of the snapshot, so a change that the snapshot read missed is not lost.
+ */
+@Component
+class BeerNameIndex {
+
+    static final int GRAM_SIZE = 3;
+
+    private final Map<String, Set<Integer>> postings = new ConcurrentHashMap<>();
+    private final Map<Integer, String> names = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    private final RebuildWriteLog writeLog = new RebuildWriteLog();
+
+    boolean isReady() {
+        return ready;
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    /**
+     * Starts recording writes; call before reading the snapshot passed to {@link #rebuild(Map)}.
+     */
+    synchronized void beginRebuild() {
+        writeLog.begin();
+    }
+
+    /**
+     * Drops the writes recorded for a rebuild that will not happen, e.g. because reading the snapshot failed.
+     */
+    synchronized void abortRebuild() {
+        writeLog.abort();
+    }
+
+    synchronized void rebuild(Map<Integer, String> beerNames) {
+        postings.clear();
+        names.clear();
+        beerNames.forEach(this::doPut);
+        writeLog.replay();
+        ready = true;
+    }
+
+    synchronized void put(Integer id, String beerName) {
+        if (id == null) return;
+        writeLog.apply(() -> {
+            doRemove(id);
+            doPut(id, beerName);
+        });
+    }
+
+    synchronized void remove(Integer id) {
+        if (id == null) return;
+        writeLog.apply(() -> doRemove(id));
+    }
+
+    /**
+     * Returns the ids of all beers whose name contains the fragment (case-insensitive), in ascending order.
+     */
+    List<Integer> search(String fragment) {
+        String needle = normalize(fragment);
+        if (needle.isEmpty()) {
+            return List.of();
+        }
+
+        Iterable<Integer> candidates = needle.length() < GRAM_SIZE ? names.keySet() : smallestPosting(needle);
+        List<Integer> matches = new ArrayList<>();
+        for (Integer id : candidates) {
+            String name = names.get(id);
+            if (name != null && name.contains(needle)) {
+                matches.add(id);
+            }
+        }
+        matches.sort(null);
+        return matches;
+    }
+
+    private Set<Integer> smallestPosting(String needle) {
+        Set<Integer> smallest = null;
+        for (String gram : grams(needle)) {
+            Set<Integer> posting = postings.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        return smallest;
+    }
+
+    private void doPut(Integer id, String beerName) {
+        String name = normalize(beerName);
+        names.put(id, name);
+        for (String gram : grams(name)) {
+            postings.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void doRemove(Integer id) {
+        String previous = names.remove(id);
+        if (previous == null) return;
+        for (String gram : grams(previous)) {
+            Set<Integer> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String name) {
+        if (name.length() < GRAM_SIZE) {
+            return Set.of();
+        }
+        Set<String> unique = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= name.length(); i++) {
+            unique.add(name.substring(i, i + GRAM_SIZE));
+        }
+        return unique;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,20 @@
+package tom.springframework.vibecodingmvc.services;
+
+import java.util.Optional;
+
+public interface BeerOrderAllocationService {
+
+    /**
+     * Allocates stock to the order's open lines in its own transaction.
+     *
+     * @return the resulting order status, or empty if the order does not exist
+     */
+    Optional<String> allocateOrder(Integer orderId);
+
+    /**
+     * Retries allocation for every order that is new, partially allocated or backordered, oldest first.
+     *
+     * @return the number of orders that reached {@code ALLOCATED}
+     */
+    int allocatePendingOrders();
+}
@@ -0,0 +1,77 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tom.springframework.vibecodingmvc.config.BeerOrderAllocationProperties;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Service
+class BeerOrderAllocationServiceImpl implements BeerOrderAllocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(BeerOrderAllocationServiceImpl.class);
+
+    static final List<String> PENDING_STATUSES =
+            List.of("NEW", InventoryAllocator.PARTIALLY_ALLOCATED, InventoryAllocator.BACKORDERED);
+
+    private final BeerOrderRepository beerOrderRepository;
+    private final InventoryAllocator inventoryAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final BeerOrderAllocationProperties properties;
+
+    BeerOrderAllocationServiceImpl(BeerOrderRepository beerOrderRepository,
+                                   InventoryAllocator inventoryAllocator,
+                                   TransactionTemplate transactionTemplate,
+                                   BeerOrderAllocationProperties properties) {
+        this.beerOrderRepository = beerOrderRepository;
+        this.inventoryAllocator = inventoryAllocator;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+    }
+
+    @Override
+    public Optional<String> allocateOrder(Integer orderId) {
+        return transactionTemplate.execute(status -> beerOrderRepository.findWithLinesById(orderId)
+                .map(order -> {
+                    inventoryAllocator.allocate(order);
+                    return order.getStatus();
+                }));
+    }
+
+    @Override
+    public int allocatePendingOrders() {
+        int allocated = 0;
+        Integer afterId = 0;
+        List<Integer> ids;
+        do {
+            ids = beerOrderRepository.findIdsByStatusIn(PENDING_STATUSES, afterId, Limit.of(properties.batchSize()));
+            for (Integer id : ids) {
+                try {
+                    if (allocateOrder(id).filter(InventoryAllocator.ALLOCATED::equals).isPresent()) {
+                        allocated++;
+                    }
+                } catch (ConcurrencyFailureException e) {
+                    // Changed concurrently (e.g. allocated by another instance); its decrements were rolled back
+                    log.debug("Skipping order {} modified during allocation", id, e);
+                }
+                afterId = id;
+            }
+        } while (ids.size() == properties.batchSize());
+        return allocated;
+    }
+
+    @Scheduled(cron = "${app.beer-order-allocation.cron:0 * * * * *}")
+    void allocatePendingOrdersOnSchedule() {
+        int allocated = allocatePendingOrders();
+        if (allocated > 0) {
+            log.info("Allocated {} pending beer orders", allocated);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package tom.springframework.vibecodingmvc.services;
+
+import tom.springframework.vibecodingmvc.models.BeerOrderBatchReport;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BeerOrderBatchService {
+
+    /**
+     * Creates one order per {@link CreateBeerOrderCommand} line of {@code ndjson}. Lines are validated in parallel and
+     * persisted in transactions of {@code app.beer-order-batch.group-size} orders while the next group is read; when a
+     * group cannot be committed its orders are retried one by one, so a bad order only fails itself.
+     */
+    BeerOrderBatchReport createOrders(InputStream ndjson) throws IOException;
+}
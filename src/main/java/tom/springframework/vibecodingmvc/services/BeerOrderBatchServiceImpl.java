@@ -0,0 +1,178 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import tom.springframework.vibecodingmvc.config.BeerOrderBatchProperties;
+import tom.springframework.vibecodingmvc.models.BeerOrderBatchReport;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+@Service
+class BeerOrderBatchServiceImpl implements BeerOrderBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BeerOrderBatchServiceImpl.class);
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BeerOrderService beerOrderService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final BeerOrderBatchProperties properties;
+    private final BeerOrderGroupWriter groupWriter;
+
+    BeerOrderBatchServiceImpl(ObjectMapper objectMapper, Validator validator, BeerOrderService beerOrderService,
+                              @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                              AsyncTaskExecutor taskExecutor,
+                              BeerOrderBatchProperties properties) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.beerOrderService = beerOrderService;
+        this.taskExecutor = taskExecutor;
+        this.properties = properties;
+        this.groupWriter = new BeerOrderGroupWriter(beerOrderService);
+    }
+
+    @Override
+    public BeerOrderBatchReport createOrders(InputStream ndjson) throws IOException {
+        List<BeerOrderBatchReport.OrderResult> results = new ArrayList<>();
+        List<Pending> group = new ArrayList<>(properties.groupSize());
+        // At most one group is being persisted while the next one is read and validated
+        CompletableFuture<List<BeerOrderBatchReport.OrderResult>> inFlight = CompletableFuture.completedFuture(List.of());
+        long lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(ndjson, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                group.add(parse(lineNumber, line));
+                if (group.size() == properties.groupSize()) {
+                    List<Pending> validated = validate(group);
+                    results.addAll(await(inFlight));
+                    inFlight = CompletableFuture.supplyAsync(() -> persist(validated), taskExecutor);
+                    group = new ArrayList<>(properties.groupSize());
+                }
+            }
+        } finally {
+            results.addAll(await(inFlight));
+        }
+        if (!group.isEmpty()) {
+            results.addAll(persist(validate(group)));
+        }
+
+        long created = results.stream().filter(result -> result.id() != null).count();
+        log.info("Created {} beer orders from {} lines, {} rejected", created, lineNumber, results.size() - created);
+        return new BeerOrderBatchReport(created, results.size() - created, results);
+    }
+
+    private Pending parse(long line, String json) {
+        try {
+            CreateBeerOrderCommand cmd = objectMapper.readValue(json, CreateBeerOrderCommand.class);
+            return cmd == null ? new Pending(line, null, "empty record") : new Pending(line, cmd, null);
+        } catch (JsonProcessingException e) {
+            return new Pending(line, null, "malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    // Bean validation is CPU-bound and independent per order, so the group is checked in parallel.
+    // Beer ids of the whole group are then checked at once, so unknown beers never reach an insert.
+    private List<Pending> validate(List<Pending> group) {
+        List<Pending> checked = group.parallelStream()
+                .map(pending -> pending.error() != null ? pending : new Pending(pending.line(), pending.cmd(),
+                        violations(pending.cmd())))
+                .toList();
+        List<Integer> beerIds = checked.stream()
+                .filter(pending -> pending.error() == null)
+                .flatMap(pending -> pending.cmd().items().stream())
+                .map(CreateBeerOrderItem::beerId)
+                .distinct()
+                .toList();
+        if (beerIds.isEmpty()) {
+            return checked;
+        }
+        Set<Integer> unknown = new HashSet<>(beerOrderService.findUnknownBeerIds(beerIds));
+        if (unknown.isEmpty()) {
+            return checked;
+        }
+        return checked.stream()
+                .map(pending -> pending.error() != null ? pending : unknownBeers(pending, unknown))
+                .toList();
+    }
+
+    private static Pending unknownBeers(Pending pending, Set<Integer> unknown) {
+        List<Integer> missing = pending.cmd().items().stream()
+                .map(CreateBeerOrderItem::beerId)
+                .filter(unknown::contains)
+                .distinct()
+                .toList();
+        return missing.isEmpty() ? pending
+                : new Pending(pending.line(), pending.cmd(), "items: unknown beer id(s) " + missing);
+    }
+
+    private String violations(CreateBeerOrderCommand cmd) {
+        Set<ConstraintViolation<CreateBeerOrderCommand>> violations = validator.validate(cmd);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .sorted(Comparator.comparing(v -> v.getPropertyPath().toString()))
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .collect(Collectors.joining("; "));
+    }
+
+    private List<BeerOrderBatchReport.OrderResult> persist(List<Pending> group) {
+        List<Pending> valid = group.stream().filter(pending -> pending.error() == null).toList();
+        List<BeerOrderGroupWriter.Outcome> outcomes = groupWriter.store(valid.stream().map(Pending::cmd).toList());
+
+        List<BeerOrderBatchReport.OrderResult> results = new ArrayList<>(group.size());
+        int next = 0;
+        for (Pending pending : group) {
+            if (pending.error() != null) {
+                results.add(pending.rejected());
+            } else {
+                BeerOrderGroupWriter.Outcome outcome = outcomes.get(next++);
+                results.add(new BeerOrderBatchReport.OrderResult(pending.line(), outcome.id(), outcome.error()));
+            }
+        }
+        return results;
+    }
+
+    private static List<BeerOrderBatchReport.OrderResult> await(
+            CompletableFuture<List<BeerOrderBatchReport.OrderResult>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private record Pending(long line, CreateBeerOrderCommand cmd, String error) {
+
+        BeerOrderBatchReport.OrderResult rejected() {
+            return new BeerOrderBatchReport.OrderResult(line, null, error);
+        }
+    }
+}
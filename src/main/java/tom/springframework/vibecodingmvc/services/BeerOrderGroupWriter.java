@@ -0,0 +1,70 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+
+import java.util.List;
+
+/**
+ * Stores a group of orders in one transaction and, if that fails, falls back to one order at a time so a single bad
+ * order only rejects itself. Shared by the NDJSON batch import and the queued intake.
+ */
+final class BeerOrderGroupWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BeerOrderGroupWriter.class);
+
+    private final BeerOrderService beerOrderService;
+
+    BeerOrderGroupWriter(BeerOrderService beerOrderService) {
+        this.beerOrderService = beerOrderService;
+    }
+
+    /**
+     * Returns one outcome per command, in the same order.
+     */
+    List<Outcome> store(List<CreateBeerOrderCommand> commands) {
+        if (commands.isEmpty()) {
+            return List.of();
+        }
+        List<Integer> ids;
+        try {
+            // One transaction for the whole group; the order and line inserts are JDBC-batched
+            ids = beerOrderService.createOrders(commands);
+        } catch (RuntimeException e) {
+            log.debug("Group of {} orders failed, retrying them one by one", commands.size(), e);
+            return commands.stream().map(this::storeAlone).toList();
+        }
+        return ids.stream().map(Outcome::created).toList();
+    }
+
+    private Outcome storeAlone(CreateBeerOrderCommand cmd) {
+        try {
+            return Outcome.created(beerOrderService.createOrders(List.of(cmd)).getFirst());
+        } catch (InvalidRequestException e) {
+            // A beer deleted after the order was validated
+            return Outcome.rejected("items: " + e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            // Lines only reference beers, so a constraint failure means an unknown beer id
+            return Outcome.rejected("items: references an unknown beer");
+        } catch (RuntimeException e) {
+            log.warn("Could not store order for customer {}", cmd.customerRef(), e);
+            return Outcome.rejected("could not be stored");
+        }
+    }
+
+    /**
+     * Either the id of the stored order or the reason it was rejected.
+     */
+    record Outcome(Integer id, String error) {
+
+        static Outcome created(Integer id) {
+            return new Outcome(id, null);
+        }
+
+        static Outcome rejected(String error) {
+            return new Outcome(null, error);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package tom.springframework.vibecodingmvc.services;
+
+/**
+ * Thrown when an order is submitted asynchronously while the intake is not running, e.g. during shutdown.
+ */
+public class BeerOrderIntakeClosedException extends RuntimeException {
+
+    public BeerOrderIntakeClosedException() {
+        super("Order intake is not accepting orders");
+    }
+}
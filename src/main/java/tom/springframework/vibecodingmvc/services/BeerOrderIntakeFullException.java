@@ -0,0 +1,11 @@
+package tom.springframework.vibecodingmvc.services;
+
+/**
+ * Thrown when the asynchronous order queue is full; the client should retry later.
+ */
+public class BeerOrderIntakeFullException extends RuntimeException {
+
+    public BeerOrderIntakeFullException(int capacity) {
+        super("Order intake queue is full (" + capacity + " orders waiting); retry later");
+    }
+}
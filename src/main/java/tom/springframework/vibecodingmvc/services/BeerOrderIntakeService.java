@@ -0,0 +1,19 @@
+package tom.springframework.vibecodingmvc.services;
+
+import tom.springframework.vibecodingmvc.models.BeerOrderIntakeStatus;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface BeerOrderIntakeService {
+
+    /**
+     * Queues a validated order for storage and returns its {@code ACCEPTED} status. Unknown beer ids are rejected
+     * with {@link InvalidRequestException} up front; a full queue raises {@link BeerOrderIntakeFullException}.
+     * Orders are kept in memory until stored, and shutdown waits for the queue to drain.
+     */
+    BeerOrderIntakeStatus submit(CreateBeerOrderCommand cmd);
+
+    Optional<BeerOrderIntakeStatus> getStatus(UUID id);
+}
@@ -0,0 +1,182 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import tom.springframework.vibecodingmvc.config.BeerOrderIntakeProperties;
+import tom.springframework.vibecodingmvc.models.BeerOrderIntakeStatus;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Accepts orders into a bounded in-memory queue that a fixed number of virtual-thread workers drain in batches,
+ * so request threads only validate and enqueue. Each worker takes whatever is queued, up to
+ * {@code app.beer-order-intake.batch-size}, and stores it in one transaction; under load batches fill up, when idle
+ * a single order is stored right away.
+ * <p>
+ * The intake stops after the web server, so in-flight requests can still enqueue during graceful shutdown; the
+ * workers then drain the queue before the data source goes away.
+ */
+@Service
+class BeerOrderIntakeServiceImpl implements BeerOrderIntakeService, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(BeerOrderIntakeServiceImpl.class);
+
+    // Idle workers wake up this often to notice a shutdown
+    private static final long POLL_MILLIS = 100;
+
+    private final BeerOrderService beerOrderService;
+    private final BeerOrderIntakeProperties properties;
+    private final BeerOrderGroupWriter groupWriter;
+    private final BlockingQueue<Submission> queue;
+    private final Cache<UUID, BeerOrderIntakeStatus> statuses;
+
+    // Submitters hold the read lock while checking "accepting" and enqueuing, so nothing is queued after stop
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean accepting;
+    private ExecutorService workers;
+
+    BeerOrderIntakeServiceImpl(BeerOrderService beerOrderService, BeerOrderIntakeProperties properties) {
+        this.beerOrderService = beerOrderService;
+        this.properties = properties;
+        this.groupWriter = new BeerOrderGroupWriter(beerOrderService);
+        this.queue = new ArrayBlockingQueue<>(properties.queueCapacity());
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(properties.statusMaximumSize())
+                .expireAfterWrite(properties.statusTimeToLive())
+                .build();
+    }
+
+    @Override
+    public BeerOrderIntakeStatus submit(CreateBeerOrderCommand cmd) {
+        List<Integer> unknown = beerOrderService.findUnknownBeerIds(cmd.items().stream()
+                .map(CreateBeerOrderItem::beerId)
+                .distinct()
+                .toList());
+        if (!unknown.isEmpty()) {
+            throw new InvalidRequestException("Unknown beer id(s): " + unknown);
+        }
+
+        BeerOrderIntakeStatus status = BeerOrderIntakeStatus.accepted(UUID.randomUUID());
+        acceptLock.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new BeerOrderIntakeClosedException();
+            }
+            // Visible before a worker can overwrite it with the outcome
+            statuses.put(status.id(), status);
+            if (!queue.offer(new Submission(status.id(), cmd))) {
+                statuses.invalidate(status.id());
+                throw new BeerOrderIntakeFullException(properties.queueCapacity());
+            }
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        return status;
+    }
+
+    @Override
+    public Optional<BeerOrderIntakeStatus> getStatus(UUID id) {
+        return Optional.ofNullable(statuses.getIfPresent(id));
+    }
+
+    @Override
+    public void start() {
+        workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("order-intake-", 0).factory());
+        accepting = true;
+        for (int i = 0; i < properties.workers(); i++) {
+            workers.submit(this::drain);
+        }
+    }
+
+    @Override
+    public void stop() {
+        acceptLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(properties.shutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Order intake did not drain within {}; {} accepted orders were not stored",
+                        properties.shutdownTimeout(), queue.size());
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return accepting;
+    }
+
+    // Stops after the web server has finished its in-flight requests, and before beans are destroyed
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 2048;
+    }
+
+    private void drain() {
+        List<Submission> batch = new ArrayList<>(properties.batchSize());
+        while (true) {
+            Submission first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                if (!accepting) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, properties.batchSize() - 1);
+            try {
+                store(batch);
+            } catch (RuntimeException e) {
+                log.error("Could not store {} accepted orders", batch.size(), e);
+                batch.forEach(submission -> statuses.put(submission.id(),
+                        BeerOrderIntakeStatus.rejected(submission.id(), "could not be stored")));
+            }
+            batch.clear();
+        }
+    }
+
+    private void store(List<Submission> batch) {
+        List<BeerOrderGroupWriter.Outcome> outcomes = groupWriter.store(batch.stream().map(Submission::cmd).toList());
+        for (int i = 0; i < batch.size(); i++) {
+            UUID id = batch.get(i).id();
+            BeerOrderGroupWriter.Outcome outcome = outcomes.get(i);
+            statuses.put(id, outcome.error() == null
+                    ? BeerOrderIntakeStatus.created(id, outcome.id())
+                    : BeerOrderIntakeStatus.rejected(id, outcome.error()));
+        }
+    }
+
+    private record Submission(UUID id, CreateBeerOrderCommand cmd) {
+    }
+}
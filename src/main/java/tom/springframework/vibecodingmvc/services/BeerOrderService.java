@@ -2,17 +2,56 @@ package tom.springframework.vibecodingmvc.services;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import tom.springframework.vibecodingmvc.models.BeerOrderFilter;
 import tom.springframework.vibecodingmvc.models.BeerOrderResponse;
 import tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse;
 import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface BeerOrderService {
 
-    int createOrder(CreateBeerOrderCommand cmd);
+    /**
+     * Creates the order and returns it as written, mapped inside the creating transaction.
+     * Unknown beer ids are rejected with {@link InvalidRequestException} before anything is inserted.
+     * Unless disabled, stock is allocated to the lines in the same transaction.
+     */
+    BeerOrderResponse createOrder(CreateBeerOrderCommand cmd);
+
+    /**
+     * Creates all orders in one transaction and returns their ids in input order. Meant for bulk ingestion, where
+     * no response body is echoed, so beers are referenced without being loaded. Unknown beer ids are rejected
+     * with {@link InvalidRequestException} before anything is inserted.
+     */
+    List<Integer> createOrders(List<CreateBeerOrderCommand> cmds);
+
+    /**
+     * Returns the given beer ids that do not exist, in input order. Known ids are answered from memory; the rest
+     * are checked with a single query.
+     */
+    List<Integer> findUnknownBeerIds(Collection<Integer> beerIds);
 
     Optional<BeerOrderResponse> getOrder(Integer id);
 
-    Page<BeerOrderSummaryResponse> listOrders(Pageable pageable);
+    Optional<Integer> getOrderVersion(Integer id);
+
+    /**
+     * Pages of order summaries. With {@code withAggregates}, line totals for the page are added from one grouped
+     * query over its order ids.
+     */
+    Page<BeerOrderSummaryResponse> listOrders(Pageable pageable, boolean withAggregates);
+
+    Slice<BeerOrderSummaryResponse> sliceOrders(Pageable pageable, boolean withAggregates);
+
+    /**
+     * Keyset pagination over (createdDate, id), newest first unless {@code sort} asks for {@code createdAt,asc}.
+     * Each page seeks past the previous one's last row, so deep pages cost the same as the first.
+     */
+    CursorPageResponse<BeerOrderSummaryResponse> scrollOrders(BeerOrderFilter filter, String cursor, int size, Sort sort,
+                                                              boolean withAggregates);
 }
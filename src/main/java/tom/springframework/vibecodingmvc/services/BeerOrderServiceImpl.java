@@ -2,43 +2,140 @@ package tom.springframework.vibecodingmvc.services;
 
 import jakarta.transaction.Transactional;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import tom.springframework.vibecodingmvc.config.BeerOrderAllocationProperties;
 import tom.springframework.vibecodingmvc.entities.Beer;
 import tom.springframework.vibecodingmvc.entities.BeerOrder;
 import tom.springframework.vibecodingmvc.entities.BeerOrderLine;
+import tom.springframework.vibecodingmvc.mappers.BeerMapper;
 import tom.springframework.vibecodingmvc.mappers.BeerOrderMapper;
+import tom.springframework.vibecodingmvc.models.BeerOrderFilter;
+import tom.springframework.vibecodingmvc.models.BeerOrderLineAggregates;
 import tom.springframework.vibecodingmvc.models.BeerOrderResponse;
 import tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse;
+import tom.springframework.vibecodingmvc.models.BeerResponseDto;
 import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
 import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderLineRepository;
 import tom.springframework.vibecodingmvc.repositories.BeerOrderRepository;
 import tom.springframework.vibecodingmvc.repositories.BeerRepository;
 
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 class BeerOrderServiceImpl implements BeerOrderService {
 
+    private static final String CREATED_DATE = "createdDate";
+    private static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("createdAt", CREATED_DATE, "id");
+
     private final BeerOrderRepository beerOrderRepository;
+    private final BeerOrderLineRepository beerOrderLineRepository;
     private final BeerRepository beerRepository;
     private final BeerOrderMapper beerOrderMapper;
+    private final BeerMapper beerMapper;
+    private final BeerCache beerCache;
+    private final PaginationMetrics paginationMetrics;
+    private final InventoryAllocator inventoryAllocator;
+    private final BeerOrderAllocationProperties allocationProperties;
+    private final BeerIdIndex beerIdIndex;
+    private final KeysetCursorCodec cursorCodec;
 
     BeerOrderServiceImpl(BeerOrderRepository beerOrderRepository,
+                         BeerOrderLineRepository beerOrderLineRepository,
                          BeerRepository beerRepository,
-                         BeerOrderMapper beerOrderMapper) {
+                         BeerOrderMapper beerOrderMapper,
+                         BeerMapper beerMapper,
+                         BeerCache beerCache,
+                         PaginationMetrics paginationMetrics,
+                         InventoryAllocator inventoryAllocator,
+                         BeerOrderAllocationProperties allocationProperties,
+                         BeerIdIndex beerIdIndex,
+                         KeysetCursorCodec cursorCodec) {
         this.beerOrderRepository = beerOrderRepository;
+        this.beerOrderLineRepository = beerOrderLineRepository;
         this.beerRepository = beerRepository;
         this.beerOrderMapper = beerOrderMapper;
+        this.beerMapper = beerMapper;
+        this.beerCache = beerCache;
+        this.paginationMetrics = paginationMetrics;
+        this.inventoryAllocator = inventoryAllocator;
+        this.allocationProperties = allocationProperties;
+        this.beerIdIndex = beerIdIndex;
+        this.cursorCodec = cursorCodec;
     }
 
     @Override
     @Transactional
-    public int createOrder(CreateBeerOrderCommand cmd) {
+    public BeerOrderResponse createOrder(CreateBeerOrderCommand cmd) {
         // Assume validated at controller boundary (@Validated)
+        List<Integer> beerIds = cmd.items().stream().map(CreateBeerOrderItem::beerId).distinct().toList();
+        requireExistingBeers(beerIds);
+
+        // Beer names come from the beer cache; all misses are loaded with one IN query
+        Map<Integer, BeerResponseDto> beers = beerCache.getAll(beerIds, missing -> beerRepository.findAllById(missing)
+                .stream()
+                .map(beerMapper::toResponseDto)
+                .toList());
+
+        // Allocate before inserting, so lines are written once with their final quantities and statuses
+        BeerOrder order = newOrder(cmd);
+        if (allocationProperties.allocateOnCreate()) {
+            inventoryAllocator.allocate(order);
+        }
+
+        // Flush so ids, versions and timestamps are assigned, then echo the aggregate without re-reading it
+        BeerOrder saved = beerOrderRepository.saveAndFlush(order);
+        Map<Integer, String> beerNames = new HashMap<>();
+        beers.forEach((id, beer) -> beerNames.put(id, beer.beerName()));
+        return beerOrderMapper.toResponse(saved, beerNames);
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> createOrders(List<CreateBeerOrderCommand> cmds) {
+        requireExistingBeers(cmds.stream()
+                .flatMap(cmd -> cmd.items().stream())
+                .map(CreateBeerOrderItem::beerId)
+                .distinct()
+                .toList());
+        List<BeerOrder> orders = cmds.stream().map(this::newOrder).toList();
+        return beerOrderRepository.saveAll(orders).stream().map(BeerOrder::getId).toList();
+    }
+
+    @Override
+    public List<Integer> findUnknownBeerIds(Collection<Integer> beerIds) {
+        return beerIdIndex.findMissing(beerIds, beerRepository::findExistingIds);
+    }
+
+    // Rejects unknown beers before any insert; otherwise they would only surface as a foreign key violation on flush
+    private void requireExistingBeers(List<Integer> beerIds) {
+        List<Integer> unknown = findUnknownBeerIds(beerIds);
+        if (!unknown.isEmpty()) {
+            throw new InvalidRequestException("Unknown beer id(s): " + unknown);
+        }
+    }
+
+    // Lines reference beers through uninitialized proxies, so building the aggregate issues no queries
+    private BeerOrder newOrder(CreateBeerOrderCommand cmd) {
         BeerOrder order = BeerOrder.builder()
                 .customerRef(cmd.customerRef())
                 .paymentAmount(cmd.paymentAmount())
@@ -55,9 +152,7 @@ class BeerOrderServiceImpl implements BeerOrderService {
                     .build();
             order.addLine(line);
         }
-
-        BeerOrder saved = beerOrderRepository.save(order);
-        return saved.getId();
+        return order;
     }
 
     @Override
@@ -69,21 +164,137 @@ class BeerOrderServiceImpl implements BeerOrderService {
 
     @Override
     @Transactional(Transactional.TxType.SUPPORTS)
-    public Page<BeerOrderSummaryResponse> listOrders(Pageable pageable) {
-        Pageable effectivePageable = pageable;
-        if (pageable.getSort().isSorted()) {
-            List<Sort.Order> orders = pageable.getSort().stream()
-                    .map(order -> {
-                        if ("createdAt".equals(order.getProperty())) {
-                            return new Sort.Order(order.getDirection(), "createdDate");
-                        }
-                        return order;
-                    })
-                    .toList();
-            effectivePageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(orders));
-        }
-
-        return beerOrderRepository.findAll(effectivePageable)
-                .map(beerOrderMapper::toSummaryResponse);
+    public Optional<Integer> getOrderVersion(Integer id) {
+        return beerOrderRepository.findVersionById(id);
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public Page<BeerOrderSummaryResponse> listOrders(Pageable pageable, boolean withAggregates) {
+        Page<BeerOrderSummaryResponse> page = beerOrderRepository.findSummaries(mapSortAliases(pageable));
+        if (!withAggregates) {
+            return page;
+        }
+        return new PageImpl<>(withLineAggregates(page.getContent()), page.getPageable(), page.getTotalElements());
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public Slice<BeerOrderSummaryResponse> sliceOrders(Pageable pageable, boolean withAggregates) {
+        Slice<BeerOrderSummaryResponse> slice = beerOrderRepository.findSummarySlice(mapSortAliases(pageable));
+        paginationMetrics.countQuerySkipped("orders");
+        if (!withAggregates) {
+            return slice;
+        }
+        return new SliceImpl<>(withLineAggregates(slice.getContent()), slice.getPageable(), slice.hasNext());
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.SUPPORTS)
+    public CursorPageResponse<BeerOrderSummaryResponse> scrollOrders(BeerOrderFilter filter, String cursor, int size,
+                                                                     Sort sort, boolean withAggregates) {
+        Sort keysetSort;
+        ScrollPosition position;
+        if (StringUtils.hasText(cursor)) {
+            KeysetCursorCodec.Cursor decoded = cursorCodec.decode(cursor);
+            keysetSort = keysetSort(decoded.sort());
+            position = ScrollPosition.forward(cursorKeys(decoded.keys()));
+        } else {
+            keysetSort = keysetSort(sort);
+            position = ScrollPosition.keyset();
+        }
+
+        Window<BeerOrderSummaryResponse> window = beerOrderRepository.findBy(matching(filter),
+                query -> query.as(BeerOrderSummaryResponse.class).sortBy(keysetSort).limit(size).scroll(position));
+
+        String next = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            // Timestamps travel as ISO strings; the codec would otherwise write them as number arrays
+            BeerOrderSummaryResponse last = window.getContent().getLast();
+            next = cursorCodec.encode(keysetSort, ScrollPosition.forward(Map.of(
+                    CREATED_DATE, last.createdDate().toString(), "id", last.id())));
+        }
+        List<BeerOrderSummaryResponse> content = withAggregates
+                ? withLineAggregates(window.getContent())
+                : window.getContent();
+        return new CursorPageResponse<>(content, size, next);
+    }
+
+    // Line totals for a whole page come from one grouped query instead of loading each order's lines
+    private List<BeerOrderSummaryResponse> withLineAggregates(List<BeerOrderSummaryResponse> summaries) {
+        if (summaries.isEmpty()) {
+            return summaries;
+        }
+        Map<Integer, BeerOrderLineAggregates> aggregates = new HashMap<>();
+        for (BeerOrderLineRepository.LineAggregateView row : beerOrderLineRepository.aggregateByOrderIds(
+                summaries.stream().map(BeerOrderSummaryResponse::id).toList())) {
+            aggregates.put(row.getBeerOrderId(), new BeerOrderLineAggregates(row.getLineCount(),
+                    row.getTotalQuantity(), row.getAllocatedQuantity()));
+        }
+        return summaries.stream()
+                .map(summary -> new BeerOrderSummaryResponse(summary.id(), summary.customerRef(),
+                        summary.paymentAmount(), summary.status(), summary.createdDate(),
+                        aggregates.getOrDefault(summary.id(), BeerOrderLineAggregates.NONE)))
+                .toList();
+    }
+
+    // Orders are always walked by (createdDate, id) in one direction, which the listing indexes cover
+    private static Sort keysetSort(Sort requested) {
+        if (requested.stream().anyMatch(order -> !KEYSET_SORT_PROPERTIES.contains(order.getProperty()))) {
+            throw new InvalidCursorException("Cursor pagination supports sorting by createdAt");
+        }
+        Sort.Direction direction = requested.stream().findFirst()
+                .map(Sort.Order::getDirection)
+                .orElse(Sort.Direction.DESC);
+        return Sort.by(new Sort.Order(direction, CREATED_DATE), new Sort.Order(direction, "id"));
+    }
+
+    private static Map<String, Object> cursorKeys(Map<String, Object> keys) {
+        if (!(keys.get(CREATED_DATE) instanceof String createdDate) || !(keys.get("id") instanceof Number id)) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+        try {
+            return Map.of(CREATED_DATE, LocalDateTime.parse(createdDate), "id", id.intValue());
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+
+    // Only the filters that are set become predicates, so each query shape can use its own index
+    private static Specification<BeerOrder> matching(BeerOrderFilter filter) {
+        if (filter.createdFrom() != null && filter.createdTo() != null
+                && !filter.createdFrom().isBefore(filter.createdTo())) {
+            throw new InvalidRequestException("createdFrom must be before createdTo");
+        }
+        List<Specification<BeerOrder>> predicates = new ArrayList<>();
+        if (StringUtils.hasText(filter.status())) {
+            predicates.add((root, query, cb) -> cb.equal(root.get("status"), filter.status()));
+        }
+        if (StringUtils.hasText(filter.customerRef())) {
+            predicates.add((root, query, cb) -> cb.equal(root.get("customerRef"), filter.customerRef()));
+        }
+        if (filter.createdFrom() != null) {
+            predicates.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get(CREATED_DATE), filter.createdFrom()));
+        }
+        if (filter.createdTo() != null) {
+            predicates.add((root, query, cb) -> cb.lessThan(root.get(CREATED_DATE), filter.createdTo()));
+        }
+        return Specification.allOf(predicates);
+    }
+
+    // The API exposes createdAt while the entity property is createdDate
+    private static Pageable mapSortAliases(Pageable pageable) {
+        if (pageable.getSort().isUnsorted()) {
+            return pageable;
+        }
+        List<Sort.Order> orders = pageable.getSort().stream()
+                .map(order -> {
+                    if ("createdAt".equals(order.getProperty())) {
+                        return new Sort.Order(order.getDirection(), "createdDate");
+                    }
+                    return order;
+                })
+                .toList();
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(orders));
     }
 }
@@ -7,20 +7,38 @@ import tom.springframework.vibecodingmvc.models.BeerOrderShipmentUpdateDto;
 import java.util.List;
 import java.util.Optional;
 
+/**
+ * Shipments are always addressed through their order: a shipment id under another order is treated as missing.
+ */
 public interface BeerOrderShipmentService {
 
-    Integer create(BeerOrderShipmentCreateDto dto);
+    /**
+     * Creates a shipment for the order; throws {@link jakarta.persistence.EntityNotFoundException} if it does not exist.
+     */
+    BeerOrderShipmentDto create(Integer beerOrderId, BeerOrderShipmentCreateDto dto);
+
+    Optional<BeerOrderShipmentDto> get(Integer beerOrderId, Integer id);
 
-    Optional<BeerOrderShipmentDto> get(Integer id);
+    Optional<Integer> getVersion(Integer beerOrderId, Integer id);
 
+    /**
+     * Looks a shipment up by its (unique) tracking number, across all orders.
+     */
+    Optional<BeerOrderShipmentDto> getByTrackingNumber(String trackingNumber);
+
+    /**
+     * Lists the order's shipments; throws {@link jakarta.persistence.EntityNotFoundException} if the order does not exist.
+     */
     List<BeerOrderShipmentDto> listByBeerOrderId(Integer beerOrderId);
 
+    void update(Integer beerOrderId, Integer id, BeerOrderShipmentUpdateDto dto);
+
     /**
-     * Returns true if a BeerOrder with the given id exists.
+     * Applies the update only if the shipment is still at {@code expectedVersion}; returns the new version.
      */
-    boolean beerOrderExists(Integer beerOrderId);
+    Integer update(Integer beerOrderId, Integer id, Integer expectedVersion, BeerOrderShipmentUpdateDto dto);
 
-    void update(Integer id, BeerOrderShipmentUpdateDto dto);
+    void delete(Integer beerOrderId, Integer id);
 
-    void delete(Integer id);
+    void delete(Integer beerOrderId, Integer id, Integer expectedVersion);
 }
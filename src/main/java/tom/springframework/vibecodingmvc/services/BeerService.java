@@ -2,15 +2,29 @@ package tom.springframework.vibecodingmvc.services;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import tom.springframework.vibecodingmvc.models.BeerBatchResponse;
+import tom.springframework.vibecodingmvc.models.BeerFacetsResponse;
 import tom.springframework.vibecodingmvc.models.BeerRequestDto;
 import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface BeerService {
     Page<BeerResponseDto> listBeers(String beerName, Pageable pageable);
+    Slice<BeerResponseDto> sliceBeers(String beerName, Pageable pageable);
+    BeerFacetsResponse getFacets(String beerName);
+    CursorPageResponse<BeerResponseDto> scrollBeers(String beerName, String cursor, int size, Sort sort);
     Optional<BeerResponseDto> getBeerById(Integer id);
+    Optional<Integer> getBeerVersion(Integer id);
+    BeerBatchResponse getBeersByIds(List<Integer> ids);
     BeerResponseDto saveBeer(BeerRequestDto dto);
     Optional<BeerResponseDto> updateBeer(Integer id, BeerRequestDto dto);
-    void deleteBeer(Integer id);
+    // Conditional variants: throw EntityNotFoundException or VersionMismatchException instead of writing
+    BeerResponseDto updateBeer(Integer id, Integer expectedVersion, BeerRequestDto dto);
+    boolean deleteBeer(Integer id);
+    void deleteBeer(Integer id, Integer expectedVersion);
 }
\ No newline at end of file
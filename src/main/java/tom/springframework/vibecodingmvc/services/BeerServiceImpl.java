@@ -1,60 +1,368 @@
 package tom.springframework.vibecodingmvc.services;
 
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 import tom.springframework.vibecodingmvc.entities.Beer;
 import tom.springframework.vibecodingmvc.mappers.BeerMapper;
+import tom.springframework.vibecodingmvc.models.BeerBatchResponse;
+import tom.springframework.vibecodingmvc.models.BeerFacetsResponse;
 import tom.springframework.vibecodingmvc.models.BeerRequestDto;
 import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
 import tom.springframework.vibecodingmvc.repositories.BeerRepository;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
 
 @Service
 public class BeerServiceImpl implements BeerService {
 
+    private static final Logger log = LoggerFactory.getLogger(BeerServiceImpl.class);
+
+    // Upper bound for one multi-get, and for the ids a name search binds, so a single IN list stays reasonable
+    static final int MAX_BATCH_IDS = 1_000;
+
+    // Keyset pagination needs non-null, comparable sort keys; id is always appended as the tie-breaker
+    private static final Set<String> KEYSET_SORT_PROPERTIES = Set.of("id", "beerName", "beerStyle", "upc");
+
     private final BeerRepository beerRepository;
     private final BeerMapper beerMapper;
+    private final BeerNameIndex beerNameIndex;
+    private final KeysetCursorCodec cursorCodec;
+    private final PaginationMetrics paginationMetrics;
+    private final BeerCache beerCache;
+    private final BeerFacetIndex beerFacetIndex;
+    private final BeerIdIndex beerIdIndex;
 
-    public BeerServiceImpl(BeerRepository beerRepository, BeerMapper beerMapper) {
+    public BeerServiceImpl(BeerRepository beerRepository, BeerMapper beerMapper, BeerNameIndex beerNameIndex,
+                           KeysetCursorCodec cursorCodec, PaginationMetrics paginationMetrics, BeerCache beerCache,
+                           BeerFacetIndex beerFacetIndex, BeerIdIndex beerIdIndex) {
         this.beerRepository = beerRepository;
         this.beerMapper = beerMapper;
+        this.beerNameIndex = beerNameIndex;
+        this.cursorCodec = cursorCodec;
+        this.paginationMetrics = paginationMetrics;
+        this.beerCache = beerCache;
+        this.beerFacetIndex = beerFacetIndex;
+        this.beerIdIndex = beerIdIndex;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuildSearchIndexes() {
+        Map<Integer, String> names = new HashMap<>();
+        Map<Integer, BeerFacetIndex.Entry> facets = new HashMap<>();
+        // Writes that land while the snapshot is read are replayed by the rebuilds
+        beerNameIndex.beginRebuild();
+        beerFacetIndex.beginRebuild();
+        try (Stream<BeerRepository.BeerIndexView> rows = beerRepository.streamAllIndexRows()) {
+            rows.forEach(row -> {
+                names.put(row.getId(), row.getBeerName());
+                facets.put(row.getId(), BeerFacetIndex.Entry.of(row.getBeerStyle(), row.getQuantityOnHand()));
+            });
+        } catch (RuntimeException e) {
+            beerNameIndex.abortRebuild();
+            beerFacetIndex.abortRebuild();
+            throw e;
+        }
+        beerNameIndex.rebuild(names);
+        beerFacetIndex.rebuild(facets);
+        beerIdIndex.rebuild(names.keySet());
+        log.info("Built beer name, facet and id indexes with {} entries", names.size());
     }
 
     @Override
     public Page<BeerResponseDto> listBeers(String beerName, Pageable pageable) {
-        Page<Beer> page = (StringUtils.hasText(beerName))
-                ? beerRepository.findAllByBeerNameContainingIgnoreCase(beerName, pageable)
-                : beerRepository.findAll(pageable);
+        Page<Beer> page;
+        if (!StringUtils.hasText(beerName)) {
+            page = beerRepository.findAll(pageable);
+        } else if (beerNameIndex.isReady()) {
+            page = findByIndexedName(beerName, pageable)
+                    .orElseGet(() -> beerRepository.findAllByBeerNameContainingIgnoreCase(beerName, pageable));
+        } else {
+            // Index not built yet (e.g. during startup); use the LIKE query
+            page = beerRepository.findAllByBeerNameContainingIgnoreCase(beerName, pageable);
+        }
         return page.map(beerMapper::toResponseDto);
     }
 
+    @Override
+    public Slice<BeerResponseDto> sliceBeers(String beerName, Pageable pageable) {
+        Slice<Beer> slice;
+        Optional<Page<Beer>> indexed = StringUtils.hasText(beerName) && beerNameIndex.isReady()
+                ? findByIndexedName(beerName, pageable)
+                : Optional.empty();
+        if (indexed.isPresent()) {
+            // The index already knows the number of matches, so this path never counted
+            slice = new SliceImpl<>(indexed.get().getContent(), pageable, indexed.get().hasNext());
+        } else {
+            slice = StringUtils.hasText(beerName)
+                    ? beerRepository.findSliceByBeerNameContainingIgnoreCase(beerName, pageable)
+                    : beerRepository.findSliceBy(pageable);
+            paginationMetrics.countQuerySkipped("beers");
+        }
+        return slice.map(beerMapper::toResponseDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BeerFacetsResponse getFacets(String beerName) {
+        boolean filtered = StringUtils.hasText(beerName);
+        if (beerFacetIndex.isReady() && (!filtered || beerNameIndex.isReady())) {
+            BeerFacetIndex.Facets facets = filtered
+                    ? beerFacetIndex.counts(beerNameIndex.search(beerName))
+                    : beerFacetIndex.counts();
+            return new BeerFacetsResponse(facets.total(), facets.beerStyles(),
+                    new BeerFacetsResponse.Stock(facets.inStock(), facets.outOfStock()));
+        }
+
+        // Indexes not built yet (e.g. during startup); aggregate in the database
+        String filter = filtered ? beerName : null;
+        Map<String, Long> styles = new TreeMap<>();
+        long total = 0;
+        for (BeerRepository.FacetCountView row : beerRepository.countByBeerStyle(filter)) {
+            total += row.getCount();
+            if (row.getValue() != null) {
+                styles.put(row.getValue(), row.getCount());
+            }
+        }
+        long inStock = 0;
+        for (BeerRepository.FacetCountView row : beerRepository.countByStockStatus(filter)) {
+            if ("IN_STOCK".equals(row.getValue())) {
+                inStock = row.getCount();
+            }
+        }
+        return new BeerFacetsResponse(total, styles, new BeerFacetsResponse.Stock(inStock, total - inStock));
+    }
+
+    @Override
+    public CursorPageResponse<BeerResponseDto> scrollBeers(String beerName, String cursor, int size, Sort sort) {
+        Sort keysetSort;
+        ScrollPosition position;
+        if (StringUtils.hasText(cursor)) {
+            KeysetCursorCodec.Cursor decoded = cursorCodec.decode(cursor);
+            keysetSort = keysetSort(decoded.sort());
+            position = decoded.position();
+        } else {
+            keysetSort = keysetSort(sort);
+            position = ScrollPosition.keyset();
+        }
+
+        Window<Beer> window = StringUtils.hasText(beerName)
+                ? beerRepository.findAllByBeerNameContainingIgnoreCase(beerName, position, keysetSort, Limit.of(size))
+                : beerRepository.findAllBy(position, keysetSort, Limit.of(size));
+
+        String next = window.hasNext() && !window.isEmpty()
+                ? cursorCodec.encode(keysetSort, (KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+        return new CursorPageResponse<>(window.map(beerMapper::toResponseDto).getContent(), size, next);
+    }
+
     @Override
     public Optional<BeerResponseDto> getBeerById(Integer id) {
-        return beerRepository.findById(id).map(beerMapper::toResponseDto);
+        return beerCache.get(id, key -> beerRepository.findById(key).map(beerMapper::toResponseDto));
+    }
+
+    @Override
+    public BeerBatchResponse getBeersByIds(List<Integer> ids) {
+        // "?ids=1,,2" binds an empty entry as null
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidRequestException("ids must not contain blank entries");
+        }
+        List<Integer> distinct = ids.stream().distinct().toList();
+        if (distinct.size() > MAX_BATCH_IDS) {
+            throw new InvalidRequestException("At most " + MAX_BATCH_IDS + " ids can be requested at once");
+        }
+        // Cached beers are served directly; the rest come from one IN query
+        Map<Integer, BeerResponseDto> found = beerCache.getAll(distinct, missing -> beerRepository.findAllById(missing)
+                .stream()
+                .map(beerMapper::toResponseDto)
+                .toList());
+        List<BeerResponseDto> content = new ArrayList<>(found.size());
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : distinct) {
+            BeerResponseDto beer = found.get(id);
+            if (beer != null) {
+                content.add(beer);
+            } else {
+                missing.add(id);
+            }
+        }
+        return new BeerBatchResponse(content, missing);
+    }
+
+    @Override
+    public Optional<Integer> getBeerVersion(Integer id) {
+        return beerCache.cachedVersion(id).or(() -> beerRepository.findVersionById(id));
     }
 
     @Override
     public BeerResponseDto saveBeer(BeerRequestDto dto) {
         Beer toSave = beerMapper.toEntity(dto);
         Beer saved = beerRepository.save(toSave);
+        index(saved);
+        beerCache.invalidate(saved.getId());
         return beerMapper.toResponseDto(saved);
     }
 
     @Override
+    @Transactional
     public Optional<BeerResponseDto> updateBeer(Integer id, BeerRequestDto dto) {
-        return beerRepository.findById(id)
-                .map(existing -> {
-                    beerMapper.updateEntityFromDto(dto, existing);
-                    Beer saved = beerRepository.save(existing);
-                    return beerMapper.toResponseDto(saved);
-                });
+        // One UPDATE instead of load + merge + save; no row means no such beer
+        int updated = beerRepository.updateById(id, dto.beerName(), dto.beerStyle(), dto.upc(),
+                dto.quantityOnHand(), dto.price(), dto.description());
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        beerCache.invalidate(id);
+        // Null quantity/price/description keep their stored values, so the response is read back by primary key
+        return beerRepository.findById(id).map(saved -> {
+            index(saved);
+            return beerMapper.toResponseDto(saved);
+        });
+    }
+
+    @Override
+    @Transactional
+    public BeerResponseDto updateBeer(Integer id, Integer expectedVersion, BeerRequestDto dto) {
+        int updated = beerRepository.updateByIdAndVersion(id, expectedVersion, dto.beerName(), dto.beerStyle(),
+                dto.upc(), dto.quantityOnHand(), dto.price(), dto.description());
+        if (updated == 0) {
+            throw notUpdated(id);
+        }
+        beerCache.invalidate(id);
+        // Null quantity/price/description keep their stored values, so index the row as written
+        Beer saved = beerRepository.findById(id).orElseThrow(() -> notUpdated(id));
+        index(saved);
+        return beerMapper.toResponseDto(saved);
     }
 
     @Override
-    public void deleteBeer(Integer id) {
-        beerRepository.deleteById(id);
+    @Transactional
+    public boolean deleteBeer(Integer id) {
+        // Single DELETE; the row count replaces a separate existence check
+        if (beerRepository.deleteByIdReturningCount(id) == 0) {
+            return false;
+        }
+        unindex(id);
+        beerCache.invalidate(id);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void deleteBeer(Integer id, Integer expectedVersion) {
+        if (beerRepository.deleteByIdAndVersion(id, expectedVersion) == 0) {
+            throw notUpdated(id);
+        }
+        unindex(id);
+        beerCache.invalidate(id);
+    }
+
+    private void index(Beer beer) {
+        Integer id = beer.getId();
+        String name = beer.getBeerName();
+        String style = beer.getBeerStyle();
+        Integer quantityOnHand = beer.getQuantityOnHand();
+        afterCommit(() -> {
+            beerNameIndex.put(id, name);
+            beerFacetIndex.put(id, style, quantityOnHand);
+            beerIdIndex.add(id);
+        });
+    }
+
+    private void unindex(Integer id) {
+        afterCommit(() -> {
+            beerNameIndex.remove(id);
+            beerFacetIndex.remove(id);
+            beerIdIndex.remove(id);
+        });
+    }
+
+    // The indexes are only rebuilt on startup, so they follow committed rows: a rolled-back write must not reach them
+    private static void afterCommit(Runnable indexChange) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            indexChange.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                indexChange.run();
+            }
+        });
+    }
+
+    // Only reached when the versioned statement matched no row: tell a stale version apart from a missing beer
+    private RuntimeException notUpdated(Integer id) {
+        return beerRepository.existsById(id)
+                ? new VersionMismatchException("Beer", id)
+                : new EntityNotFoundException("Beer not found: " + id);
+    }
+
+    // Keeps the first requested sort property (default id) and appends id in the same direction as tie-breaker
+    private static Sort keysetSort(Sort requested) {
+        if (requested.stream().anyMatch(order -> !KEYSET_SORT_PROPERTIES.contains(order.getProperty()))) {
+            throw new InvalidCursorException("Cursor pagination supports sorting by " + KEYSET_SORT_PROPERTIES);
+        }
+        Sort.Order primary = requested.stream().findFirst().orElse(Sort.Order.asc("id"));
+        if ("id".equals(primary.getProperty())) {
+            return Sort.by(primary);
+        }
+        return Sort.by(primary, new Sort.Order(primary.getDirection(), "id"));
+    }
+
+    // Resolves the name filter to matching ids in memory, then fetches only the requested page by id. Empty when
+    // the database has to sort or return every match and there are too many of them to bind as one IN list
+    private Optional<Page<Beer>> findByIndexedName(String beerName, Pageable pageable) {
+        List<Integer> ids = beerNameIndex.search(beerName);
+        if (ids.isEmpty()) {
+            return Optional.of(Page.empty(pageable));
+        }
+        if (pageable.isUnpaged() || pageable.getSort().isSorted()) {
+            if (ids.size() > MAX_BATCH_IDS) {
+                return Optional.empty();
+            }
+            List<Beer> content = beerRepository.findAllByIdIn(ids, pageable);
+            return Optional.of(pageable.isUnpaged()
+                    ? new PageImpl<>(content, pageable, content.size())
+                    : PageableExecutionUtils.getPage(content, pageable, ids::size));
+        }
+
+        // Ids are already in ascending order, so the page can be cut before hitting the database
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Integer> pageIds = ids.subList(from, to);
+        List<Beer> content = pageIds.isEmpty() ? List.of() : beerRepository.findAllById(pageIds).stream()
+                .sorted(Comparator.comparing(Beer::getId))
+                .toList();
+        return Optional.of(new PageImpl<>(content, pageable, ids.size()));
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package tom.springframework.vibecodingmvc.services;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import tom.springframework.vibecodingmvc.models.CustomerRequestDto;
 import tom.springframework.vibecodingmvc.models.CustomerResponseDto;
 
@@ -8,8 +10,13 @@ import java.util.Optional;
 
 public interface CustomerService {
     List<CustomerResponseDto> listCustomers();
+    Slice<CustomerResponseDto> sliceCustomers(Pageable pageable);
     Optional<CustomerResponseDto> getCustomerById(Integer id);
+    Optional<Integer> getCustomerVersion(Integer id);
     CustomerResponseDto createCustomer(CustomerRequestDto dto);
     Optional<CustomerResponseDto> updateCustomer(Integer id, CustomerRequestDto dto);
+    // Conditional variants: throw EntityNotFoundException or VersionMismatchException instead of writing
+    CustomerResponseDto updateCustomer(Integer id, Integer expectedVersion, CustomerRequestDto dto);
     boolean deleteCustomer(Integer id);
+    void deleteCustomer(Integer id, Integer expectedVersion);
 }
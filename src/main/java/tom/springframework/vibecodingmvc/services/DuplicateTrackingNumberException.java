@@ -0,0 +1,18 @@
+package tom.springframework.vibecodingmvc.services;
+
+/**
+ * Thrown when a shipment would get a tracking number that another shipment already has.
+ */
+public class DuplicateTrackingNumberException extends RuntimeException {
+
+    public DuplicateTrackingNumberException(String trackingNumber) {
+        super("Tracking number " + trackingNumber + " is already used by another shipment");
+    }
+
+    /**
+     * For bulk writes, where the database does not say which of the tracking numbers collided.
+     */
+    public DuplicateTrackingNumberException() {
+        super("A tracking number is already used by another shipment");
+    }
+}
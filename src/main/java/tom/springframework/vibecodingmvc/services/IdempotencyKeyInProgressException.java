@@ -0,0 +1,13 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+/**
+ * Thrown when a request with the same {@code Idempotency-Key} is still being processed after the lock timeout.
+ */
+public class IdempotencyKeyInProgressException extends ConcurrencyFailureException {
+
+    public IdempotencyKeyInProgressException(String key) {
+        super("A request with Idempotency-Key " + key + " is still being processed; retry later");
+    }
+}
@@ -0,0 +1,11 @@
+package tom.springframework.vibecodingmvc.services;
+
+/**
+ * Thrown when an {@code Idempotency-Key} is sent again with a request that differs from the recorded one.
+ */
+public class IdempotencyKeyReuseException extends RuntimeException {
+
+    public IdempotencyKeyReuseException(String key) {
+        super("Idempotency-Key " + key + " was already used for a different request");
+    }
+}
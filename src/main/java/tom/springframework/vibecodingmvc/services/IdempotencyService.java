@@ -0,0 +1,33 @@
+package tom.springframework.vibecodingmvc.services;
+
+import java.net.URI;
+import java.util.function.Supplier;
+
+/**
+ * Executes create requests at most once per {@code Idempotency-Key}. Successful (2xx) outcomes are recorded
+ * in the same transaction as the create and replayed for later requests with the same key; failures are not
+ * recorded, so a retry runs again.
+ */
+public interface IdempotencyService {
+
+    /**
+     * Runs {@code action} unless an outcome is already recorded for {@code key} within {@code scope}.
+     * A concurrent request with the same key waits for the one in flight and then replays its outcome.
+     *
+     * @param request fingerprinted to detect a key reused for a different request
+     * @throws InvalidRequestException            if the key is blank or longer than 255 characters
+     * @throws IdempotencyKeyReuseException       if the key was recorded for a different request
+     * @throws IdempotencyKeyInProgressException  if the original request did not finish within the lock timeout
+     */
+    <T> Outcome<T> execute(String scope, String key, Object request, Class<T> bodyType, Supplier<Outcome<T>> action);
+
+    /**
+     * Status, location and body of a create response; {@code replayed} is set when it was not produced by this call.
+     */
+    record Outcome<T>(int status, URI location, T body, boolean replayed) {
+
+        public boolean successful() {
+            return status >= 200 && status < 300;
+        }
+    }
+}
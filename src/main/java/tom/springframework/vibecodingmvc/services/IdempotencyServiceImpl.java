@@ -0,0 +1,213 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tom.springframework.vibecodingmvc.config.IdempotencyProperties;
+import tom.springframework.vibecodingmvc.entities.IdempotencyRecord;
+import tom.springframework.vibecodingmvc.repositories.IdempotencyRecordRepository;
+
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Recorded outcomes live in a bounded in-memory cache in front of the {@code idempotency_record} table, which
+ * keeps them across restarts. Requests with the same key are serialized on a per-key single-flight lock within
+ * this instance; across instances the table's primary key decides, because the record is inserted in the
+ * create's own transaction and the losing create rolls back and replays the winner.
+ */
+@Service
+class IdempotencyServiceImpl implements IdempotencyService {
+
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyProperties properties;
+    private final Cache<String, Recorded> recorded;
+
+    // One entry per key currently being executed; completed (and removed) when the leader finishes
+    private final ConcurrentMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    IdempotencyServiceImpl(IdempotencyRecordRepository repository,
+                           TransactionTemplate transactionTemplate,
+                           ObjectMapper objectMapper,
+                           IdempotencyProperties properties) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.recorded = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.timeToLive())
+                .build();
+    }
+
+    @Override
+    public <T> Outcome<T> execute(String scope, String key, Object request, Class<T> bodyType,
+                                  Supplier<Outcome<T>> action) {
+        if (key == null || key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidRequestException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        String id = scope + ":" + key;
+        String requestHash = hash(request);
+        while (true) {
+            Recorded existing = lookup(id);
+            if (existing != null) {
+                return replay(existing, key, requestHash, bodyType);
+            }
+            CompletableFuture<Void> flight = new CompletableFuture<>();
+            CompletableFuture<Void> leader = inFlight.putIfAbsent(id, flight);
+            if (leader != null) {
+                // Duplicate in flight: wait for it, then replay its outcome or, if it was not recorded, run again
+                await(leader, key);
+                continue;
+            }
+            try {
+                // The previous leader may have finished between the lookup and taking the lock
+                existing = recorded.getIfPresent(id);
+                if (existing != null) {
+                    return replay(existing, key, requestHash, bodyType);
+                }
+                return executeAndRecord(id, key, requestHash, bodyType, action);
+            } finally {
+                inFlight.remove(id, flight);
+                flight.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Deletes recorded outcomes older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:PT1H}")
+    @Transactional
+    public void purgeExpired() {
+        repository.deleteAllExpired(LocalDateTime.now().minus(properties.retention()));
+    }
+
+    private <T> Outcome<T> executeAndRecord(String id, String key, String requestHash, Class<T> bodyType,
+                                            Supplier<Outcome<T>> action) {
+        Recorded[] stored = new Recorded[1];
+        Outcome<T> outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                Outcome<T> result = action.get();
+                if (result.successful()) {
+                    stored[0] = new Recorded(requestHash, result.status(),
+                            result.location() == null ? null : result.location().toString(), write(result.body()));
+                    repository.deleteExpired(id, expiryCutoff());
+                    repository.saveAndFlush(stored[0].toRecord(id));
+                }
+                return result;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance recorded this key first; our create was rolled back with the insert
+            Recorded winner = repository.findById(id).map(Recorded::of).orElseThrow(() -> e);
+            recorded.put(id, winner);
+            return replay(winner, key, requestHash, bodyType);
+        }
+        if (stored[0] != null) {
+            recorded.put(id, stored[0]);
+        }
+        return outcome;
+    }
+
+    private Recorded lookup(String id) {
+        Recorded cached = recorded.getIfPresent(id);
+        if (cached != null) {
+            return cached;
+        }
+        Recorded persisted = repository.findById(id)
+                .filter(record -> record.getCreatedDate().isAfter(expiryCutoff()))
+                .map(Recorded::of)
+                .orElse(null);
+        if (persisted != null) {
+            recorded.put(id, persisted);
+        }
+        return persisted;
+    }
+
+    private <T> Outcome<T> replay(Recorded existing, String key, String requestHash, Class<T> bodyType) {
+        if (!existing.requestHash().equals(requestHash)) {
+            throw new IdempotencyKeyReuseException(key);
+        }
+        try {
+            T body = existing.body() == null ? null : objectMapper.readValue(existing.body(), bodyType);
+            URI location = existing.location() == null ? null : URI.create(existing.location());
+            return new Outcome<>(existing.status(), location, body, true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to read recorded response", e);
+        }
+    }
+
+    private void await(CompletableFuture<Void> leader, String key) {
+        try {
+            leader.get(properties.lockTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInProgressException(key);
+        } catch (ExecutionException e) {
+            // the leader never completes exceptionally
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private LocalDateTime expiryCutoff() {
+        return LocalDateTime.now().minus(properties.retention());
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to fingerprint request", e);
+        }
+    }
+
+    private String write(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to record response", e);
+        }
+    }
+
+    private record Recorded(String requestHash, int status, String location, String body) {
+
+        static Recorded of(IdempotencyRecord record) {
+            return new Recorded(record.getRequestHash(), record.getResponseStatus(), record.getLocation(),
+                    record.getResponseBody());
+        }
+
+        IdempotencyRecord toRecord(String id) {
+            return IdempotencyRecord.builder()
+                    .id(id)
+                    .requestHash(requestHash)
+                    .responseStatus(status)
+                    .location(location)
+                    .responseBody(body)
+                    .build();
+        }
+    }
+}
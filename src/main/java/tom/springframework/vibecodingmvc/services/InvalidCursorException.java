@@ -0,0 +1,15 @@
+package tom.springframework.vibecodingmvc.services;
+
+/**
+ * Thrown when a pagination cursor cannot be decoded, or cursor pagination is asked for with an unsupported sort.
+ */
+public class InvalidCursorException extends InvalidRequestException {
+
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+
+    public InvalidCursorException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
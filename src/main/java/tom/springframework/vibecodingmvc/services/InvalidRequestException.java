@@ -0,0 +1,16 @@
+package tom.springframework.vibecodingmvc.services;
+
+/**
+ * Thrown when a request is well-formed but asks for something the API does not allow, e.g. a limit above the
+ * configured maximum. The message is written for the client and returned as the problem detail.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,146 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tom.springframework.vibecodingmvc.config.BeerOrderAllocationProperties;
+import tom.springframework.vibecodingmvc.entities.BeerOrder;
+import tom.springframework.vibecodingmvc.entities.BeerOrderLine;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Allocates beer stock to the open lines of an order, all or nothing per line.
+ * <p>
+ * Stock is taken with a conditional decrement ({@code quantity_on_hand >= n}), so the database never
+ * oversells however many allocators run. Within this instance, beers are hashed onto a fixed set of lock
+ * stripes that are held until the transaction completes: allocators touching the same hot beer queue here
+ * instead of on the row lock, and orders for unrelated beers proceed in parallel. Stripes and decrements are
+ * always taken in ascending order, so orders sharing several beers cannot deadlock.
+ */
+@Component
+class InventoryAllocator {
+
+    static final String ALLOCATED = "ALLOCATED";
+    static final String PARTIALLY_ALLOCATED = "PARTIALLY_ALLOCATED";
+    static final String BACKORDERED = "BACKORDERED";
+
+    private static final Comparator<BeerOrderLine> BY_BEER_ID = Comparator.comparing(line -> line.getBeer().getId());
+
+    private final BeerRepository beerRepository;
+    private final BeerCache beerCache;
+    private final BeerFacetIndex beerFacetIndex;
+    private final ReentrantLock[] stripes;
+
+    InventoryAllocator(BeerRepository beerRepository, BeerCache beerCache, BeerFacetIndex beerFacetIndex,
+                       BeerOrderAllocationProperties properties) {
+        this.beerRepository = beerRepository;
+        this.beerCache = beerCache;
+        this.beerFacetIndex = beerFacetIndex;
+        this.stripes = new ReentrantLock[properties.stripes()];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Allocates every line that is not yet {@value #ALLOCATED} and sets line and order statuses. Works on new
+     * (not yet persisted) and managed orders alike; must run inside a transaction, which keeps the stripes locked.
+     */
+    void allocate(BeerOrder order) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Allocation must run inside a transaction");
+        }
+        // Beers are referenced through proxies; reading their ids does not load them
+        List<BeerOrderLine> open = order.getLines().stream()
+                .filter(line -> !ALLOCATED.equals(line.getStatus()))
+                .sorted(BY_BEER_ID)
+                .toList();
+        if (!open.isEmpty()) {
+            lockStripes(open);
+            Set<Integer> decremented = new TreeSet<>();
+            for (BeerOrderLine line : open) {
+                Integer beerId = line.getBeer().getId();
+                int quantity = line.getOrderQuantity();
+                if (beerRepository.decrementStock(beerId, quantity) == 1) {
+                    line.setQuantityAllocated(quantity);
+                    line.setStatus(ALLOCATED);
+                    decremented.add(beerId);
+                } else {
+                    line.setQuantityAllocated(0);
+                    line.setStatus(BACKORDERED);
+                }
+            }
+            afterStockChange(decremented);
+        }
+        order.setStatus(orderStatus(order.getLines()));
+    }
+
+    int stripeOf(Integer beerId) {
+        return Math.floorMod(beerId, stripes.length);
+    }
+
+    private void lockStripes(List<BeerOrderLine> lines) {
+        int[] indexes = lines.stream()
+                .mapToInt(line -> stripeOf(line.getBeer().getId()))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int index : indexes) {
+            stripes[index].lock();
+        }
+        try {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    unlock(indexes);
+                }
+            });
+        } catch (RuntimeException e) {
+            unlock(indexes);
+            throw e;
+        }
+    }
+
+    private void unlock(int[] indexes) {
+        for (int i = indexes.length - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    // Cached beer details carry the old stock and version; facet counts follow the stock once committed
+    private void afterStockChange(Set<Integer> beerIds) {
+        if (beerIds.isEmpty()) {
+            return;
+        }
+        beerIds.forEach(beerCache::invalidate);
+        if (!beerFacetIndex.isReady()) {
+            return;
+        }
+        Map<Integer, Integer> stock = beerRepository.findStockByIdIn(beerIds).stream()
+                .filter(row -> row.getQuantityOnHand() != null)
+                .collect(Collectors.toMap(BeerRepository.BeerStockView::getId,
+                        BeerRepository.BeerStockView::getQuantityOnHand));
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stock.forEach(beerFacetIndex::putStock);
+            }
+        });
+    }
+
+    private static String orderStatus(List<BeerOrderLine> lines) {
+        long allocated = lines.stream().filter(line -> ALLOCATED.equals(line.getStatus())).count();
+        if (allocated == lines.size()) {
+            return ALLOCATED;
+        }
+        return allocated == 0 ? BACKORDERED : PARTIALLY_ALLOCATED;
+    }
+}
@@ -0,0 +1,66 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodes keyset positions as opaque, URL-safe tokens. The token carries the sort it was produced
+ * for together with the last row's sort key values, so follow-up requests only need the token.
+ */
+@Component
+class KeysetCursorCodec {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    String encode(Sort sort, KeysetScrollPosition position) {
+        List<String> orders = sort.stream()
+                .map(order -> order.getProperty() + "," + order.getDirection())
+                .toList();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new Token(orders, position.getKeys()));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to encode cursor", e);
+        }
+    }
+
+    Cursor decode(String token) {
+        try {
+            Token decoded = objectMapper.readValue(Base64.getUrlDecoder().decode(token), Token.class);
+            Sort sort = Sort.by(decoded.sort().stream()
+                    .map(KeysetCursorCodec::toOrder)
+                    .toList());
+            return new Cursor(sort, new LinkedHashMap<>(decoded.keys()));
+        } catch (Exception e) {
+            throw new InvalidCursorException("Invalid cursor", e);
+        }
+    }
+
+    private static Sort.Order toOrder(String value) {
+        String[] parts = value.split(",");
+        return new Sort.Order(Sort.Direction.fromString(parts[1]), parts[0]);
+    }
+
+    /**
+     * Decoded cursor. Key values come back as JSON types; callers convert them to attribute types if needed.
+     */
+    record Cursor(Sort sort, Map<String, Object> keys) {
+
+        ScrollPosition position() {
+            return ScrollPosition.forward(keys);
+        }
+    }
+
+    record Token(List<String> sort, Map<String, Object> keys) {
+    }
+}
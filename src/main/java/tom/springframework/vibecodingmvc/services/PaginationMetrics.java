@@ -0,0 +1,24 @@
+package tom.springframework.vibecodingmvc.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts list requests that were answered as a {@code Slice} instead of a {@code Page}, i.e. without the
+ * extra {@code SELECT COUNT(*)}. Exposed as {@value #COUNT_QUERIES_SKIPPED} tagged by resource.
+ */
+@Component
+public class PaginationMetrics {
+
+    public static final String COUNT_QUERIES_SKIPPED = "pagination.count.queries.skipped";
+
+    private final MeterRegistry meterRegistry;
+
+    public PaginationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void countQuerySkipped(String resource) {
+        meterRegistry.counter(COUNT_QUERIES_SKIPPED, "resource", resource).increment();
+    }
+}
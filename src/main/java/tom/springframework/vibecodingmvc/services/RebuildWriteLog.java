@@ -0,0 +1,50 @@
+package tom.springframework.vibecodingmvc.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the writes an in-memory index applies while a rebuild is reading its snapshot, so they can be replayed
+ * on top of that snapshot and a change the snapshot read missed is not lost.
+ * <p>
+ * Not thread-safe: the owning index calls it under its own write lock.
+ */
+final class RebuildWriteLog {
+
+    // Writes since begin(), in order; null when no rebuild is reading its snapshot
+    private List<Runnable> pending;
+
+    /**
+     * Starts recording writes; call before reading the snapshot.
+     */
+    void begin() {
+        pending = new ArrayList<>();
+    }
+
+    /**
+     * Drops the recorded writes of a rebuild that will not happen, e.g. because reading the snapshot failed.
+     */
+    void abort() {
+        pending = null;
+    }
+
+    /**
+     * Runs the write, recording it if a rebuild is in progress.
+     */
+    void apply(Runnable write) {
+        if (pending != null) {
+            pending.add(write);
+        }
+        write.run();
+    }
+
+    /**
+     * Re-runs the recorded writes once the snapshot has been loaded, and stops recording.
+     */
+    void replay() {
+        if (pending != null) {
+            pending.forEach(Runnable::run);
+            pending = null;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package tom.springframework.vibecodingmvc.services;
+
+import tom.springframework.vibecodingmvc.models.ShipmentClaim;
+import tom.springframework.vibecodingmvc.models.ShipmentClaimRequest;
+
+public interface ShipmentClaimService {
+
+    /**
+     * Leases up to {@code limit} PENDING shipments that no one else holds a live lease on, oldest first. Under
+     * heavy contention a claim may return fewer than are available; claiming again picks up the rest.
+     */
+    ShipmentClaim claim(ShipmentClaimRequest request);
+}
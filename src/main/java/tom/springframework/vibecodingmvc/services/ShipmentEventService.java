@@ -0,0 +1,40 @@
+package tom.springframework.vibecodingmvc.services;
+
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
+
+import java.io.IOException;
+
+public interface ShipmentEventService {
+
+    /**
+     * Streams committed shipment changes to the sink until it fails, the returned handle is run, or the application
+     * stops; the sink is closed in every case. Starts after {@code lastEventId} when it is given and still buffered,
+     * otherwise with the next change.
+     *
+     * @param beerOrderId only changes to shipments of this order; null for all
+     * @return cancels the subscription
+     */
+    Runnable subscribe(Integer beerOrderId, Long lastEventId, Sink sink);
+
+    /**
+     * Where a subscription writes; called from one thread at a time. A failing write ends the subscription.
+     */
+    interface Sink {
+
+        void send(ShipmentEvent event) throws IOException;
+
+        /**
+         * Nothing was sent for a while. {@code position} is how far the stream has been read, including changes
+         * the filter skipped, so a client resuming from it does not replay them.
+         */
+        void heartbeat(long position) throws IOException;
+
+        /**
+         * Changes after the requested position are no longer buffered, or the position is unknown (e.g. from before
+         * a restart); the client should reload what it shows. The stream continues from {@code position}.
+         */
+        void reset(long position) throws IOException;
+
+        void close();
+    }
+}
@@ -0,0 +1,13 @@
+package tom.springframework.vibecodingmvc.services;
+
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionReport;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionRequest;
+
+public interface ShipmentTransitionService {
+
+    /**
+     * Moves the listed shipments to the requested status, applying the same rules as a single update. Shipments
+     * that cannot be moved are reported and never hold back the others.
+     */
+    ShipmentTransitionReport transition(ShipmentTransitionRequest request);
+}
@@ -0,0 +1,13 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * Thrown when a conditional write names a version (via {@code If-Match}) that is no longer current.
+ */
+public class VersionMismatchException extends OptimisticLockingFailureException {
+
+    public VersionMismatchException(String resource, Integer id) {
+        super(resource + " " + id + " has been modified; reload it and retry");
+    }
+}
@@ -3,49 +3,70 @@ package tom.springframework.vibecodingmvc.services.impl;
 import jakarta.persistence.EntityNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import tom.springframework.vibecodingmvc.entities.BeerOrder;
 import tom.springframework.vibecodingmvc.entities.BeerOrderShipment;
 import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
 import tom.springframework.vibecodingmvc.mappers.BeerOrderShipmentMapper;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentCreateDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentUpdateDto;
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
 import tom.springframework.vibecodingmvc.repositories.BeerOrderRepository;
 import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository.ShipmentVersionView;
 import tom.springframework.vibecodingmvc.services.BeerOrderShipmentService;
+import tom.springframework.vibecodingmvc.services.DuplicateTrackingNumberException;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
+import tom.springframework.vibecodingmvc.services.VersionMismatchException;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 class BeerOrderShipmentServiceImpl implements BeerOrderShipmentService {
 
     private static final Logger log = LoggerFactory.getLogger(BeerOrderShipmentServiceImpl.class);
 
+    // Foreign key from the shipment to its order (V3 migration and the entity mapping)
+    private static final String ORDER_FOREIGN_KEY = "fk_bos_order";
+
+    // Passed to the guarded UPDATE, which applies the shipped rules in SQL
+    private static final Set<ShipmentStatus> SHIPPED_STATUSES = Arrays.stream(ShipmentStatus.values())
+            .filter(ShipmentStatus::isShipped)
+            .collect(Collectors.toCollection(() -> EnumSet.noneOf(ShipmentStatus.class)));
+
     private final BeerOrderShipmentRepository shipmentRepository;
     private final BeerOrderRepository orderRepository;
     private final BeerOrderShipmentMapper mapper;
+    private final ShipmentTrackingIndex trackingIndex;
+    private final ShipmentEventBroadcaster events;
 
     BeerOrderShipmentServiceImpl(BeerOrderShipmentRepository shipmentRepository,
                                  BeerOrderRepository orderRepository,
-                                 BeerOrderShipmentMapper mapper) {
+                                 BeerOrderShipmentMapper mapper,
+                                 ShipmentTrackingIndex trackingIndex,
+                                 ShipmentEventBroadcaster events) {
         this.shipmentRepository = shipmentRepository;
         this.orderRepository = orderRepository;
         this.mapper = mapper;
+        this.trackingIndex = trackingIndex;
+        this.events = events;
     }
 
     @Override
     @Transactional
-    public Integer create(BeerOrderShipmentCreateDto dto) {
-        // Validate beer order exists
-        BeerOrder order = orderRepository.findById(dto.beerOrderId())
-                .orElseThrow(() -> new EntityNotFoundException("BeerOrder not found: " + dto.beerOrderId()));
-
+    public BeerOrderShipmentDto create(Integer beerOrderId, BeerOrderShipmentCreateDto dto) {
         BeerOrderShipment entity = mapper.toEntity(dto);
-        entity.setBeerOrder(order);
+        entity.setTrackingNumber(ShipmentTrackingIndex.normalize(entity.getTrackingNumber()));
+        // A reference rather than a load: the foreign key checks that the order exists when the insert is flushed
+        entity.setBeerOrder(orderRepository.getReferenceById(beerOrderId));
 
         // Default status
         if (entity.getShipmentStatus() == null) {
@@ -54,56 +75,155 @@ class BeerOrderShipmentServiceImpl implements BeerOrderShipmentService {
 
         applyBusinessRulesOnCreateOrUpdate(entity);
 
-        BeerOrderShipment saved = shipmentRepository.save(entity);
-        log.info("Created shipment id={} for orderId={} with status={}", saved.getId(), order.getId(), saved.getShipmentStatus());
-        return saved.getId();
+        BeerOrderShipment saved;
+        try {
+            saved = shipmentRepository.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            if (ShipmentTrackingIndex.isDuplicate(e)) {
+                throw new DuplicateTrackingNumberException(entity.getTrackingNumber());
+            }
+            // The order reference was not checked up front; its foreign key failing means the order does not exist
+            if (ConstraintViolations.violates(e, ORDER_FOREIGN_KEY)) {
+                throw new EntityNotFoundException("BeerOrder not found: " + beerOrderId);
+            }
+            throw e;
+        }
+        trackingIndex.put(saved.getTrackingNumber(), saved.getId());
+        events.publish(ShipmentEvent.Type.CREATED, saved.getId(), beerOrderId, saved.getShipmentStatus(), saved.getVersion());
+        log.info("Created shipment id={} for orderId={} with status={}", saved.getId(), beerOrderId, saved.getShipmentStatus());
+        return mapper.toDto(saved);
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Optional<BeerOrderShipmentDto> get(Integer id) {
-        return shipmentRepository.findById(id).map(mapper::toDto);
+    public Optional<BeerOrderShipmentDto> get(Integer beerOrderId, Integer id) {
+        return shipmentRepository.findByIdAndBeerOrder_Id(id, beerOrderId).map(mapper::toDto);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Integer> getVersion(Integer beerOrderId, Integer id) {
+        return shipmentRepository.findVersionByIdAndBeerOrderId(id, beerOrderId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<BeerOrderShipmentDto> getByTrackingNumber(String trackingNumber) {
+        Integer cachedId = trackingIndex.get(trackingNumber);
+        if (cachedId != null) {
+            // The entry is only a hint; the shipment may have been deleted or given another tracking number since
+            Optional<BeerOrderShipment> hit = shipmentRepository.findById(cachedId)
+                    .filter(shipment -> trackingNumber.equals(shipment.getTrackingNumber()));
+            if (hit.isPresent()) {
+                return hit.map(mapper::toDto);
+            }
+            trackingIndex.remove(trackingNumber, cachedId);
+        }
+        Optional<BeerOrderShipment> found = shipmentRepository.findByTrackingNumber(trackingNumber);
+        found.ifPresent(shipment -> trackingIndex.put(trackingNumber, shipment.getId()));
+        return found.map(mapper::toDto);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<BeerOrderShipmentDto> listByBeerOrderId(Integer beerOrderId) {
-        return shipmentRepository.findByBeerOrder_Id(beerOrderId)
-                .stream()
+        List<BeerOrderShipment> shipments = shipmentRepository.findByBeerOrder_Id(beerOrderId);
+        // Only an empty result needs the order looked up, to tell "no shipments yet" from "no such order"
+        if (shipments.isEmpty() && !orderRepository.existsById(beerOrderId)) {
+            throw new EntityNotFoundException("BeerOrder not found: " + beerOrderId);
+        }
+        return shipments.stream()
                 .map(mapper::toDto)
                 .toList();
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public boolean beerOrderExists(Integer beerOrderId) {
-        return orderRepository.existsById(beerOrderId);
+    @Transactional
+    public void update(Integer beerOrderId, Integer id, BeerOrderShipmentUpdateDto dto) {
+        update(beerOrderId, id, null, dto);
     }
 
     @Override
     @Transactional
-    public void update(Integer id, BeerOrderShipmentUpdateDto dto) {
-        BeerOrderShipment entity = shipmentRepository.findById(id)
+    public Integer update(Integer beerOrderId, Integer id, Integer expectedVersion, BeerOrderShipmentUpdateDto request) {
+        // A blank tracking number counts as omitted, like null
+        BeerOrderShipmentUpdateDto dto = new BeerOrderShipmentUpdateDto(request.shipmentStatus(), request.shippedDate(),
+                ShipmentTrackingIndex.normalize(request.trackingNumber()), request.carrier(), request.notes());
+        ShipmentStatus status = mapper.stringToStatus(dto.shipmentStatus());
+        int updated;
+        try {
+            updated = shipmentRepository.updateByIdAndBeerOrderId(id, beerOrderId, expectedVersion, status,
+                    dto.shippedDate(), dto.trackingNumber(), dto.carrier(), dto.notes(), SHIPPED_STATUSES);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateOr(e, dto.trackingNumber());
+        }
+        if (updated == 1) {
+            trackingIndex.put(dto.trackingNumber(), id);
+            // The statement does not return the row; what the request did not pin down is read back (the row stays
+            // locked until commit), so subscribers always get the new version and status
+            Integer version = expectedVersion != null ? expectedVersion + 1 : null;
+            if (version == null || status == null) {
+                ShipmentVersionView written = shipmentRepository.findVersionAndStatusById(id)
+                        .orElseThrow(() -> new EntityNotFoundException("Shipment not found: " + id));
+                version = written.getVersion();
+                status = written.getShipmentStatus();
+            }
+            events.publish(ShipmentEvent.Type.UPDATED, id, beerOrderId, status, version);
+            log.info("Updated shipment id={} of orderId={} to status={} (version {})", id, beerOrderId, status, version);
+            return version;
+        }
+
+        // Nothing matched: load the row to report why (missing, stale or breaking the status rules). If it changed
+        // in between so that the update now applies, it is saved through the @Version-guarded entity instead.
+        BeerOrderShipment entity = shipmentRepository.findByIdAndBeerOrder_Id(id, beerOrderId)
                 .orElseThrow(() -> new EntityNotFoundException("Shipment not found: " + id));
+        if (expectedVersion != null && !entity.getVersion().equals(expectedVersion)) {
+            throw new VersionMismatchException("Shipment", id);
+        }
 
         mapper.updateEntity(entity, dto);
 
         applyBusinessRulesOnCreateOrUpdate(entity);
 
-        shipmentRepository.save(entity);
-        log.info("Updated shipment id={} to status={}", id, entity.getShipmentStatus());
+        BeerOrderShipment saved;
+        try {
+            saved = shipmentRepository.saveAndFlush(entity);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateOr(e, entity.getTrackingNumber());
+        }
+        trackingIndex.put(saved.getTrackingNumber(), id);
+        events.publish(ShipmentEvent.Type.UPDATED, id, beerOrderId, saved.getShipmentStatus(), saved.getVersion());
+        log.info("Updated shipment id={} to status={} (version {})", id, saved.getShipmentStatus(), saved.getVersion());
+        return saved.getVersion();
+    }
+
+    @Override
+    @Transactional
+    public void delete(Integer beerOrderId, Integer id, Integer expectedVersion) {
+        if (shipmentRepository.deleteByIdAndBeerOrderIdAndVersion(id, beerOrderId, expectedVersion) == 0) {
+            throw shipmentRepository.findVersionByIdAndBeerOrderId(id, beerOrderId).isPresent()
+                    ? new VersionMismatchException("Shipment", id)
+                    : new EntityNotFoundException("Shipment not found: " + id);
+        }
+        events.publish(ShipmentEvent.Type.DELETED, id, beerOrderId, null, null);
+        log.info("Deleted shipment id={}", id);
     }
 
     @Override
     @Transactional
-    public void delete(Integer id) {
-        if (!shipmentRepository.existsById(id)) {
+    public void delete(Integer beerOrderId, Integer id) {
+        // Single DELETE; the row count replaces the existence and ownership checks
+        if (shipmentRepository.deleteByIdAndBeerOrderId(id, beerOrderId) == 0) {
             throw new EntityNotFoundException("Shipment not found: " + id);
         }
-        shipmentRepository.deleteById(id);
+        events.publish(ShipmentEvent.Type.DELETED, id, beerOrderId, null, null);
         log.info("Deleted shipment id={}", id);
     }
 
+    private static RuntimeException duplicateOr(DataIntegrityViolationException e, String trackingNumber) {
+        return ShipmentTrackingIndex.isDuplicate(e) ? new DuplicateTrackingNumberException(trackingNumber) : e;
+    }
+
     private void applyBusinessRulesOnCreateOrUpdate(BeerOrderShipment entity) {
         ShipmentStatus status = entity.getShipmentStatus();
         if (status == null) {
@@ -112,9 +232,9 @@ class BeerOrderShipmentServiceImpl implements BeerOrderShipmentService {
         }
 
         // If moving to IN_TRANSIT or later, require tracking and carrier
-        if (status.ordinal() >= ShipmentStatus.IN_TRANSIT.ordinal()) {
+        if (status.isShipped()) {
             if (isBlank(entity.getTrackingNumber()) || isBlank(entity.getCarrier())) {
-                throw new IllegalArgumentException("trackingNumber and carrier are required when status is IN_TRANSIT or later");
+                throw new InvalidRequestException("trackingNumber and carrier are required when status is IN_TRANSIT or later");
             }
             // set shippedDate if missing
             if (entity.getShippedDate() == null) {
@@ -0,0 +1,61 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Tells which named constraint a failed write violated, so a caller can map one constraint to its own error and let
+ * every other violation through.
+ * <p>
+ * The name is read from the integrity-violation {@link SQLException} under Spring's translation: the quoted
+ * identifier the driver reports (H2 and PostgreSQL both quote it), without its schema. H2 names the index backing a
+ * unique constraint {@code <constraint>_INDEX_<n>}, which counts as the constraint. Hibernate's H2 name extractor is
+ * not used because it cuts the first character off foreign key names with H2 2.x.
+ */
+final class ConstraintViolations {
+
+    // SQLSTATE class 23: integrity constraint violation
+    private static final String INTEGRITY_VIOLATION = "23";
+
+    private ConstraintViolations() {
+    }
+
+    static boolean violates(DataIntegrityViolationException e, String constraint) {
+        String name = constraintName(e);
+        if (name == null) {
+            return false;
+        }
+        String expected = constraint.toUpperCase(Locale.ROOT);
+        return name.equals(expected) || name.startsWith(expected + "_INDEX_");
+    }
+
+    // The violated constraint in upper case, or null when the cause is not an integrity violation or names none
+    static String constraintName(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sql && sql.getSQLState() != null
+                    && sql.getSQLState().startsWith(INTEGRITY_VIOLATION)) {
+                return quotedIdentifier(sql.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private static String quotedIdentifier(String message) {
+        if (message == null) {
+            return null;
+        }
+        int start = message.indexOf('"');
+        if (start < 0) {
+            return null;
+        }
+        int end = start + 1;
+        while (end < message.length() && " :\"(".indexOf(message.charAt(end)) < 0) {
+            end++;
+        }
+        String qualified = message.substring(start + 1, end);
+        String name = qualified.substring(qualified.lastIndexOf('.') + 1);
+        return name.isEmpty() ? null : name.toUpperCase(Locale.ROOT);
+    }
+}
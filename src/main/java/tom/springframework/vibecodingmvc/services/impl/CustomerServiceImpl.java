@@ -1,5 +1,9 @@
 package tom.springframework.vibecodingmvc.services.impl;
 
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import tom.springframework.vibecodingmvc.entities.Customer;
@@ -8,6 +12,9 @@ import tom.springframework.vibecodingmvc.models.CustomerRequestDto;
 import tom.springframework.vibecodingmvc.models.CustomerResponseDto;
 import tom.springframework.vibecodingmvc.repositories.CustomerRepository;
 import tom.springframework.vibecodingmvc.services.CustomerService;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
+import tom.springframework.vibecodingmvc.services.PaginationMetrics;
+import tom.springframework.vibecodingmvc.services.VersionMismatchException;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,12 +22,17 @@ import java.util.Optional;
 @Service
 class CustomerServiceImpl implements CustomerService {
 
+    private static final String UNIQUE_EMAIL = "uq_customer_email";
+
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final PaginationMetrics paginationMetrics;
 
-    public CustomerServiceImpl(CustomerRepository customerRepository, CustomerMapper customerMapper) {
+    public CustomerServiceImpl(CustomerRepository customerRepository, CustomerMapper customerMapper,
+                               PaginationMetrics paginationMetrics) {
         this.customerRepository = customerRepository;
         this.customerMapper = customerMapper;
+        this.paginationMetrics = paginationMetrics;
     }
 
     @Override
@@ -31,17 +43,31 @@ class CustomerServiceImpl implements CustomerService {
                 .toList();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<CustomerResponseDto> sliceCustomers(Pageable pageable) {
+        Slice<CustomerResponseDto> slice = customerRepository.findSliceBy(pageable).map(customerMapper::toResponseDto);
+        paginationMetrics.countQuerySkipped("customers");
+        return slice;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Optional<CustomerResponseDto> getCustomerById(Integer id) {
         return customerRepository.findById(id).map(customerMapper::toResponseDto);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Integer> getCustomerVersion(Integer id) {
+        return customerRepository.findVersionById(id);
+    }
+
     @Override
     @Transactional
     public CustomerResponseDto createCustomer(CustomerRequestDto dto) {
         if (dto.email() != null && customerRepository.existsByEmail(dto.email())) {
-            throw new IllegalArgumentException("Email already exists: " + dto.email());
+            throw new InvalidRequestException("Email already exists: " + dto.email());
         }
         Customer entity = customerMapper.toEntity(dto);
         Customer saved = customerRepository.save(entity);
@@ -51,26 +77,61 @@ class CustomerServiceImpl implements CustomerService {
     @Override
     @Transactional
     public Optional<CustomerResponseDto> updateCustomer(Integer id, CustomerRequestDto dto) {
-        return customerRepository.findById(id).map(existing -> {
-            // if email provided and changed, check uniqueness
-            if (dto.email() != null && !dto.email().equalsIgnoreCase(existing.getEmail())) {
-                if (customerRepository.existsByEmail(dto.email())) {
-                    throw new IllegalArgumentException("Email already exists: " + dto.email());
-                }
-            }
-            customerMapper.updateEntityFromDto(dto, existing);
-            Customer saved = customerRepository.save(existing);
-            return customerMapper.toResponseDto(saved);
-        });
+        int updated;
+        try {
+            updated = customerRepository.updateById(id, dto.name(), dto.email(), dto.phone(),
+                    dto.addressLine1(), dto.addressLine2(), dto.city(), dto.state(), dto.postalCode());
+        } catch (DataIntegrityViolationException e) {
+            throw emailTakenOr(e, dto.email());
+        }
+        if (updated == 0) {
+            return Optional.empty();
+        }
+        // Null fields keep their stored values, so the response is read back rather than built from the request
+        return customerRepository.findById(id).map(customerMapper::toResponseDto);
+    }
+
+    @Override
+    @Transactional
+    public CustomerResponseDto updateCustomer(Integer id, Integer expectedVersion, CustomerRequestDto dto) {
+        int updated;
+        try {
+            updated = customerRepository.updateByIdAndVersion(id, expectedVersion, dto.name(), dto.email(),
+                    dto.phone(), dto.addressLine1(), dto.addressLine2(), dto.city(), dto.state(), dto.postalCode());
+        } catch (DataIntegrityViolationException e) {
+            throw emailTakenOr(e, dto.email());
+        }
+        if (updated == 0) {
+            throw notUpdated(id);
+        }
+        return customerRepository.findById(id).map(customerMapper::toResponseDto).orElseThrow(() -> notUpdated(id));
     }
 
     @Override
     @Transactional
     public boolean deleteCustomer(Integer id) {
-        if (customerRepository.existsById(id)) {
-            customerRepository.deleteById(id);
-            return true;
+        return customerRepository.deleteByIdReturningCount(id) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void deleteCustomer(Integer id, Integer expectedVersion) {
+        if (customerRepository.deleteByIdAndVersion(id, expectedVersion) == 0) {
+            throw notUpdated(id);
         }
-        return false;
+    }
+
+    // The unique email index is the conflict check for updates; any other violation is not the client's doing
+    private static RuntimeException emailTakenOr(DataIntegrityViolationException e, String email) {
+        return ConstraintViolations.violates(e, UNIQUE_EMAIL)
+                ? new InvalidRequestException("Email already exists: " + email)
+                : e;
+    }
+
+    // Only reached when the versioned statement matched no row: tell a stale version apart from a missing customer
+    private RuntimeException notUpdated(Integer id) {
+        return customerRepository.existsById(id)
+                ? new VersionMismatchException("Customer", id)
+                : new EntityNotFoundException("Customer not found: " + id);
     }
 }
@@ -0,0 +1,179 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import tom.springframework.vibecodingmvc.config.ShipmentClaimProperties;
+import tom.springframework.vibecodingmvc.config.ShipmentClaimProperties.Strategy;
+import tom.springframework.vibecodingmvc.entities.BeerOrderShipment;
+import tom.springframework.vibecodingmvc.mappers.BeerOrderShipmentMapper;
+import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
+import tom.springframework.vibecodingmvc.models.ShipmentClaim;
+import tom.springframework.vibecodingmvc.models.ShipmentClaimRequest;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
+import tom.springframework.vibecodingmvc.services.ShipmentClaimService;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Leases the oldest PENDING shipments without a live lease, found through {@code idx_bos_status}.
+ * <p>
+ * With {@code SKIP LOCKED} one short transaction locks the candidates and stamps the lease; concurrent claimers pass
+ * over rows another claimer has locked instead of queueing behind them, so each gets a disjoint batch in one round
+ * trip. The optimistic fallback reads candidates without locks and leases each with an UPDATE that only matches while
+ * the shipment is still pending and unleased, so a lost race is a 0-row update rather than a double lease. Claimers
+ * start at a random point of a wider candidate window to mostly avoid each other, and retry for what they lost.
+ * Both run at most a few rounds per claim, so under contention a claim may return a short batch.
+ * <p>
+ * A lease ends when it expires or the shipment leaves PENDING. Claims do not bump the shipment version: the lease is
+ * not part of the shipment's representation, so ETags held by other clients stay valid.
+ */
+@Service
+class ShipmentClaimServiceImpl implements ShipmentClaimService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentClaimServiceImpl.class);
+
+    private static final String SELECT_CLAIMABLE = "select id from beer_order_shipment "
+            + "where shipment_status = 'PENDING' and (lease_expires_at is null or lease_expires_at <= ?) "
+            + "order by id fetch first ? rows only";
+
+    private static final String LEASE = "update beer_order_shipment set lease_owner = ?, lease_expires_at = ? where id = ?";
+
+    private static final String LEASE_IF_FREE = LEASE
+            + " and shipment_status = 'PENDING' and (lease_expires_at is null or lease_expires_at <= ?)";
+
+    // Optimistic claims read this many candidates per shipment wanted; claims give up after this many rounds
+    private static final int CANDIDATE_FACTOR = 4;
+    private static final int MAX_ROUNDS = 5;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BeerOrderShipmentRepository shipmentRepository;
+    private final BeerOrderShipmentMapper mapper;
+    private final ShipmentClaimProperties properties;
+    private volatile boolean skipLocked;
+
+    ShipmentClaimServiceImpl(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             BeerOrderShipmentRepository shipmentRepository, BeerOrderShipmentMapper mapper,
+                             ShipmentClaimProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.shipmentRepository = shipmentRepository;
+        this.mapper = mapper;
+        this.properties = properties;
+        this.skipLocked = properties.strategy() != Strategy.OPTIMISTIC;
+    }
+
+    @Override
+    public ShipmentClaim claim(ShipmentClaimRequest request) {
+        if (request.limit() > properties.maxShipments()) {
+            throw new InvalidRequestException("At most " + properties.maxShipments() + " shipments per claim");
+        }
+        Duration lease = request.leaseSeconds() != null
+                ? Duration.ofSeconds(request.leaseSeconds())
+                : properties.defaultLease();
+        if (lease.compareTo(properties.maxLease()) > 0) {
+            throw new InvalidRequestException("Leases last at most " + properties.maxLease().toSeconds() + " seconds");
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plus(lease);
+
+        List<Integer> ids = skipLocked
+                ? claimSkippingLocked(request.worker(), request.limit(), now, expiresAt)
+                : claimOptimistically(request.worker(), request.limit(), now, expiresAt);
+        List<BeerOrderShipmentDto> shipments = ids.isEmpty() ? List.of() : shipmentRepository.findAllById(ids).stream()
+                .sorted(Comparator.comparing(BeerOrderShipment::getId))
+                .map(mapper::toDto)
+                .toList();
+        log.debug("Leased {} shipments to {} until {}", shipments.size(), request.worker(), expiresAt);
+        return new ShipmentClaim(request.worker(), expiresAt, shipments);
+    }
+
+    private List<Integer> claimSkippingLocked(String worker, int limit, LocalDateTime now, LocalDateTime expiresAt) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<Integer> claimed = new ArrayList<>(limit);
+                // A row leased and committed by another claimer after this query started is dropped when locked,
+                // so a batch can come back short while more are claimable; top it up
+                for (int round = 0; round < MAX_ROUNDS && claimed.size() < limit; round++) {
+                    List<Integer> ids = jdbcTemplate.queryForList(SELECT_CLAIMABLE + " for update skip locked",
+                            Integer.class, Timestamp.valueOf(now), limit - claimed.size());
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    // The rows stay locked until commit, so these updates cannot lose to another claimer
+                    jdbcTemplate.batchUpdate(LEASE, ids, ids.size(), (ps, id) -> {
+                        ps.setString(1, worker);
+                        ps.setTimestamp(2, Timestamp.valueOf(expiresAt));
+                        ps.setInt(3, id);
+                    });
+                    claimed.addAll(ids);
+                }
+                return claimed;
+            });
+        } catch (BadSqlGrammarException e) {
+            if (properties.strategy() != Strategy.AUTO) {
+                throw e;
+            }
+            log.warn("Database rejected SKIP LOCKED ({}); claiming shipments optimistically from now on", e.getMessage());
+            skipLocked = false;
+            return claimOptimistically(worker, limit, now, expiresAt);
+        }
+    }
+
+    private List<Integer> claimOptimistically(String worker, int limit, LocalDateTime now, LocalDateTime expiresAt) {
+        List<Integer> claimed = new ArrayList<>(limit);
+        for (int round = 0; round < MAX_ROUNDS && claimed.size() < limit; round++) {
+            int wanted = limit - claimed.size();
+            List<Integer> candidates = jdbcTemplate.queryForList(SELECT_CLAIMABLE, Integer.class,
+                    Timestamp.valueOf(now), wanted * CANDIDATE_FACTOR);
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Collections.rotate(candidates, -ThreadLocalRandom.current().nextInt(candidates.size()));
+            // Locked in id order, so two claimers whose attempts overlap wait for each other rather than deadlock
+            List<Integer> attempt = candidates.subList(0, Math.min(wanted, candidates.size())).stream()
+                    .sorted()
+                    .toList();
+            try {
+                claimed.addAll(lease(worker, attempt, now, expiresAt));
+            } catch (ConcurrencyFailureException e) {
+                // The attempt was rolled back as a whole, so nothing of it is leased; try other candidates
+                log.debug("Optimistic shipment claim round lost: {}", e.getMessage());
+            }
+        }
+        return claimed;
+    }
+
+    // One short transaction per attempt, committed before the next candidates are read
+    private List<Integer> lease(String worker, List<Integer> ids, LocalDateTime now, LocalDateTime expiresAt) {
+        return transactionTemplate.execute(status -> {
+            int[] counts = jdbcTemplate.batchUpdate(LEASE_IF_FREE, ids, ids.size(), (ps, id) -> {
+                ps.setString(1, worker);
+                ps.setTimestamp(2, Timestamp.valueOf(expiresAt));
+                ps.setInt(3, id);
+                ps.setTimestamp(4, Timestamp.valueOf(now));
+            })[0];
+            // Only a reported row count proves the lease was won, unlike a bare "succeeded"
+            List<Integer> won = new ArrayList<>(ids.size());
+            for (int k = 0; k < ids.size(); k++) {
+                if (counts[k] > 0) {
+                    won.add(ids.get(k));
+                }
+            }
+            return won;
+        });
+    }
+}
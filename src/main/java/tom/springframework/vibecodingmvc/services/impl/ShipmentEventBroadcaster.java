@@ -0,0 +1,197 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tom.springframework.vibecodingmvc.config.ShipmentEventProperties;
+import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
+import tom.springframework.vibecodingmvc.services.ShipmentEventService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps the last {@code app.shipment-events.buffer-size} committed shipment changes in a ring buffer and streams
+ * them to subscribers. Ids continue a sequence that starts at the startup time in microseconds, so an id from a
+ * previous run is recognised as unknown instead of being resumed at some unrelated position.
+ * <p>
+ * Each subscriber runs on its own virtual thread that waits on the buffer and writes to its client: an idle
+ * subscriber is a parked virtual thread rather than a platform thread, and a slow client only holds up itself.
+ * Streams are closed before the web server's graceful shutdown, which would otherwise wait for them.
+ */
+@Service
+class ShipmentEventBroadcaster implements ShipmentEventService, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentEventBroadcaster.class);
+
+    // Events handed to a subscriber per wake-up, so a lagging one still gets to heartbeats and cancellation
+    private static final int MAX_READ = 256;
+
+    private final ShipmentEventProperties properties;
+    private final ShipmentEvent[] ring;
+    private final long firstId;
+    private final ThreadFactory threads = Thread.ofVirtual().name("shipment-events-", 0).factory();
+    private final Set<Thread> subscribers = ConcurrentHashMap.newKeySet();
+
+    // Guards ring and lastId; appends signal waiting subscribers
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long lastId;
+    private volatile boolean running;
+
+    ShipmentEventBroadcaster(ShipmentEventProperties properties) {
+        this.properties = properties;
+        this.ring = new ShipmentEvent[properties.bufferSize()];
+        this.lastId = System.currentTimeMillis() * 1000;
+        this.firstId = lastId + 1;
+    }
+
+    /**
+     * Adds a change to the stream once the surrounding transaction commits, or right away outside of one.
+     */
+    void publish(ShipmentEvent.Type type, Integer shipmentId, Integer beerOrderId, ShipmentStatus status,
+                 Integer version) {
+        String shipmentStatus = status == null ? null : status.name();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(type, shipmentId, beerOrderId, shipmentStatus, version);
+                }
+            });
+        } else {
+            append(type, shipmentId, beerOrderId, shipmentStatus, version);
+        }
+    }
+
+    @Override
+    public Runnable subscribe(Integer beerOrderId, Long lastEventId, Sink sink) {
+        long from;
+        lock.lock();
+        try {
+            from = lastEventId != null ? lastEventId : lastId;
+        } finally {
+            lock.unlock();
+        }
+        Thread thread = threads.newThread(() -> stream(beerOrderId, from, sink));
+        subscribers.add(thread);
+        thread.start();
+        return thread::interrupt;
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        subscribers.forEach(Thread::interrupt);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stops before the web server waits for in-flight requests, which include open streams
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE + 512;
+    }
+
+    private void append(ShipmentEvent.Type type, Integer shipmentId, Integer beerOrderId, String shipmentStatus,
+                        Integer version) {
+        lock.lock();
+        try {
+            long id = ++lastId;
+            ring[(int) (id % ring.length)] = new ShipmentEvent(id, type, shipmentId, beerOrderId, shipmentStatus,
+                    version, LocalDateTime.now());
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void stream(Integer beerOrderId, long from, Sink sink) {
+        long heartbeatNanos = properties.heartbeatInterval().toNanos();
+        long position = from;
+        try {
+            // Lets the client know the stream is open, and where it starts
+            sink.heartbeat(position);
+            long lastWrite = System.nanoTime();
+            while (running) {
+                Read read = read(position, heartbeatNanos);
+                position = read.position();
+                if (read.missed()) {
+                    sink.reset(position);
+                    lastWrite = System.nanoTime();
+                }
+                for (ShipmentEvent event : read.events()) {
+                    if (beerOrderId == null || beerOrderId.equals(event.beerOrderId())) {
+                        sink.send(event);
+                        lastWrite = System.nanoTime();
+                    }
+                }
+                if (System.nanoTime() - lastWrite >= heartbeatNanos) {
+                    sink.heartbeat(position);
+                    lastWrite = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Cancelled, or shutting down
+        } catch (Exception e) {
+            // Most likely the client went away
+            log.debug("Shipment event subscriber ended: {}", e.toString());
+        } finally {
+            subscribers.remove(Thread.currentThread());
+            sink.close();
+        }
+    }
+
+    // The events after "after", waiting up to timeoutNanos for one to arrive
+    private Read read(long after, long timeoutNanos) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            long nanos = timeoutNanos;
+            while (after == lastId) {
+                if (nanos <= 0 || !running) {
+                    return new Read(List.of(), after, false);
+                }
+                nanos = appended.awaitNanos(nanos);
+            }
+            // Checked after waiting: a burst of appends may have overwritten what this subscriber had not read yet
+            long oldest = Math.max(firstId, lastId - ring.length + 1);
+            if (after < oldest - 1 || after > lastId) {
+                return new Read(List.of(), lastId, true);
+            }
+            long to = Math.min(lastId, after + MAX_READ);
+            List<ShipmentEvent> events = new ArrayList<>((int) (to - after));
+            for (long id = after + 1; id <= to; id++) {
+                events.add(ring[(int) (id % ring.length)]);
+            }
+            return new Read(events, to, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private record Read(List<ShipmentEvent> events, long position, boolean missed) {
+    }
+}
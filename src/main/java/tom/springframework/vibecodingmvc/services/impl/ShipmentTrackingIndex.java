@@ -0,0 +1,64 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import tom.springframework.vibecodingmvc.config.ShipmentTrackingIndexProperties;
+
+/**
+ * Bounded map from tracking number to shipment id, filled on create, update and lookup, so a carrier callback
+ * resolves its shipment with a primary key read. Statistics are published as {@code cache.*} meters tagged
+ * {@code cache=shipment-tracking}.
+ * <p>
+ * Entries are hints: a shipment whose tracking number changed or that was deleted leaves its old entry behind, so
+ * callers check the shipment they load and {@link #remove(String, Integer) remove} an entry that no longer holds.
+ */
+@Component
+class ShipmentTrackingIndex {
+
+    static final String CACHE_NAME = "shipment-tracking";
+
+    // Unique index from the V8 migration (and the entity mapping)
+    private static final String UNIQUE_INDEX = "ux_bos_tracking_number";
+
+    private final Cache<String, Integer> ids;
+
+    ShipmentTrackingIndex(ShipmentTrackingIndexProperties properties, MeterRegistry meterRegistry) {
+        this.ids = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ids, CACHE_NAME);
+    }
+
+    Integer get(String trackingNumber) {
+        return ids.getIfPresent(trackingNumber);
+    }
+
+    void put(String trackingNumber, Integer shipmentId) {
+        if (trackingNumber != null && !trackingNumber.isBlank() && shipmentId != null) {
+            ids.put(trackingNumber, shipmentId);
+        }
+    }
+
+    void remove(String trackingNumber, Integer shipmentId) {
+        ids.asMap().remove(trackingNumber, shipmentId);
+    }
+
+    /**
+     * Whether a write failed because the tracking number is taken, as opposed to another constraint.
+     */
+    static boolean isDuplicate(DataIntegrityViolationException e) {
+        return ConstraintViolations.violates(e, UNIQUE_INDEX);
+    }
+
+    /**
+     * Blank tracking numbers mean "none"; they are stored as NULL, which the unique index does not compare.
+     */
+    static String normalize(String trackingNumber) {
+        return trackingNumber == null || trackingNumber.isBlank() ? null : trackingNumber;
+    }
+}
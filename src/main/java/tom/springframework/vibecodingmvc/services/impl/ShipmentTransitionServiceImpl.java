@@ -0,0 +1,284 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tom.springframework.vibecodingmvc.config.ShipmentTransitionProperties;
+import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionReport;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionReport.Outcome;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionReport.Result;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionRequest;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository.ShipmentStateView;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
+import tom.springframework.vibecodingmvc.services.ShipmentTransitionService;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a status to many shipments per batch of {@code app.shipment-transitions.batch-size}: one query reads the
+ * columns the rules need (plus one for the current owners of any tracking numbers sent), the rules run in memory,
+ * and one JDBC batch writes the changes. Each UPDATE is guarded by the version that was read, so a shipment changed
+ * in between is reported as a conflict instead of overwritten.
+ * <p>
+ * Each batch runs under a savepoint. When a concurrent write takes one of its tracking numbers, only the batch is
+ * rolled back and its rows are written one by one, so just the shipment that lost the number is rejected.
+ */
+@Service
+class ShipmentTransitionServiceImpl implements ShipmentTransitionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentTransitionServiceImpl.class);
+
+    private static final String UPDATE_SHIPMENT = "update beer_order_shipment set shipment_status = ?, tracking_number = ?, "
+            + "carrier = ?, shipped_date = ?, version = version + 1, updated_date = ? where id = ? and version = ?";
+
+    private static final String SELECT_WRITTEN = "select id, version from beer_order_shipment "
+            + "where shipment_status = ? and updated_date = ? and id in (%s)";
+
+    private final BeerOrderShipmentRepository shipmentRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ShipmentTransitionProperties properties;
+    private final ShipmentTrackingIndex trackingIndex;
+    private final ShipmentEventBroadcaster events;
+
+    ShipmentTransitionServiceImpl(BeerOrderShipmentRepository shipmentRepository, JdbcTemplate jdbcTemplate,
+                                  ShipmentTransitionProperties properties, ShipmentTrackingIndex trackingIndex,
+                                  ShipmentEventBroadcaster events) {
+        this.shipmentRepository = shipmentRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.trackingIndex = trackingIndex;
+        this.events = events;
+    }
+
+    @Override
+    @Transactional
+    public ShipmentTransitionReport transition(ShipmentTransitionRequest request) {
+        List<ShipmentTransitionRequest.Item> items = request.shipments();
+        if (items.size() > properties.maxShipments()) {
+            throw new InvalidRequestException("At most " + properties.maxShipments() + " shipments per transition");
+        }
+        Result[] results = new Result[items.size()];
+        Set<Integer> seen = new HashSet<>();
+        Map<String, Integer> claimed = new HashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < items.size(); from += properties.batchSize()) {
+            int to = Math.min(from + properties.batchSize(), items.size());
+            transitionBatch(request, from, to, seen, claimed, now, results);
+        }
+
+        long applied = Arrays.stream(results).filter(result -> result.outcome() == Outcome.APPLIED).count();
+        log.info("Moved {} of {} shipments to {}", applied, items.size(), request.status());
+        return new ShipmentTransitionReport(applied, items.size() - applied, List.of(results));
+    }
+
+    private void transitionBatch(ShipmentTransitionRequest request, int from, int to, Set<Integer> seen,
+                                 Map<String, Integer> claimed, LocalDateTime now, Result[] results) {
+        List<ShipmentTransitionRequest.Item> items = request.shipments();
+        List<ShipmentTransitionRequest.Item> batch = items.subList(from, to);
+        Map<Integer, ShipmentStateView> states = shipmentRepository.findByIdIn(batch.stream()
+                        .map(ShipmentTransitionRequest.Item::id)
+                        .collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.toMap(ShipmentStateView::getId, Function.identity()));
+        Map<String, Integer> owners = owners(batch);
+
+        ShipmentStatus status = request.status();
+        List<Change> changes = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ShipmentTransitionRequest.Item item = items.get(i);
+            Integer id = item.id();
+            if (!seen.add(id)) {
+                results[i] = new Result(id, Outcome.REJECTED, "listed more than once");
+                continue;
+            }
+            ShipmentStateView state = states.get(id);
+            if (state == null) {
+                results[i] = new Result(id, Outcome.NOT_FOUND, "Shipment not found: " + id);
+                continue;
+            }
+            String newTrackingNumber = ShipmentTrackingIndex.normalize(item.trackingNumber());
+            if (newTrackingNumber != null) {
+                // Held by another shipment, or given to another one earlier in this request
+                Integer owner = owners.getOrDefault(newTrackingNumber, claimed.get(newTrackingNumber));
+                if (owner != null && !owner.equals(id)) {
+                    results[i] = new Result(id, Outcome.REJECTED,
+                            "Tracking number " + newTrackingNumber + " is already used by shipment " + owner);
+                    continue;
+                }
+            }
+            // Same rules as a single update: omitted values keep what is stored
+            String trackingNumber = newTrackingNumber != null ? newTrackingNumber : state.getTrackingNumber();
+            String carrier = request.carrier() != null ? request.carrier() : state.getCarrier();
+            LocalDateTime shippedDate = state.getShippedDate();
+            if (status.isShipped()) {
+                if (isBlank(trackingNumber) || isBlank(carrier)) {
+                    results[i] = new Result(id, Outcome.REJECTED,
+                            "trackingNumber and carrier are required when status is IN_TRANSIT or later");
+                    continue;
+                }
+                if (shippedDate == null) {
+                    shippedDate = now;
+                }
+            }
+            if (newTrackingNumber != null) {
+                claimed.put(newTrackingNumber, id);
+            }
+            changes.add(new Change(i, id, state.getBeerOrderId(), state.getVersion(), trackingNumber, carrier,
+                    shippedDate));
+        }
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Timestamp updatedDate = Timestamp.valueOf(now);
+        int[] counts;
+        try {
+            counts = underSavepoint(() -> jdbcTemplate.batchUpdate(UPDATE_SHIPMENT, changes, changes.size(),
+                    (ps, change) -> bind(ps, status, change, updatedDate))[0]);
+        } catch (DataIntegrityViolationException e) {
+            if (!ShipmentTrackingIndex.isDuplicate(e)) {
+                throw e;
+            }
+            // A tracking number taken by a concurrent write after the owners were read
+            counts = updateEach(changes, status, updatedDate);
+        }
+        Set<Integer> confirmed = confirmWritten(changes, counts, status, updatedDate);
+        for (int k = 0; k < changes.size(); k++) {
+            Change change = changes.get(k);
+            if (counts[k] == Statement.EXECUTE_FAILED) {
+                results[change.index()] = new Result(change.id(), Outcome.REJECTED,
+                        "Tracking number " + change.trackingNumber() + " is already used by another shipment");
+                continue;
+            }
+            boolean updated = counts[k] == Statement.SUCCESS_NO_INFO ? confirmed.contains(change.id()) : counts[k] > 0;
+            if (updated) {
+                trackingIndex.put(change.trackingNumber(), change.id());
+                events.publish(ShipmentEvent.Type.UPDATED, change.id(), change.beerOrderId(), status,
+                        change.version() + 1);
+            }
+            results[change.index()] = updated
+                    ? new Result(change.id(), Outcome.APPLIED, null)
+                    : new Result(change.id(), Outcome.CONFLICT, "Shipment was modified concurrently; retry it");
+        }
+    }
+
+    // One savepoint per row, so a duplicate undoes only its own row; duplicates are counted as EXECUTE_FAILED
+    private int[] updateEach(List<Change> changes, ShipmentStatus status, Timestamp updatedDate) {
+        int[] counts = new int[changes.size()];
+        for (int k = 0; k < changes.size(); k++) {
+            Change change = changes.get(k);
+            try {
+                counts[k] = underSavepoint(() -> jdbcTemplate.update(UPDATE_SHIPMENT,
+                        ps -> bind(ps, status, change, updatedDate)));
+            } catch (DataIntegrityViolationException e) {
+                if (!ShipmentTrackingIndex.isDuplicate(e)) {
+                    throw e;
+                }
+                counts[k] = Statement.EXECUTE_FAILED;
+            }
+        }
+        return counts;
+    }
+
+    // Some drivers only report that a batched statement succeeded, not whether its version guard matched. A row this
+    // request wrote holds its status, its updated date and the next version, and stays locked until commit.
+    private Set<Integer> confirmWritten(List<Change> changes, int[] counts, ShipmentStatus status,
+                                        Timestamp updatedDate) {
+        Map<Integer, Integer> expectedVersions = new HashMap<>();
+        for (int k = 0; k < changes.size(); k++) {
+            if (counts[k] == Statement.SUCCESS_NO_INFO) {
+                expectedVersions.put(changes.get(k).id(), changes.get(k).version() + 1);
+            }
+        }
+        if (expectedVersions.isEmpty()) {
+            return Set.of();
+        }
+        List<Object> args = new ArrayList<>(expectedVersions.size() + 2);
+        args.add(status.name());
+        args.add(updatedDate);
+        args.addAll(expectedVersions.keySet());
+        String sql = SELECT_WRITTEN.formatted(String.join(", ", Collections.nCopies(expectedVersions.size(), "?")));
+        Set<Integer> written = new HashSet<>();
+        jdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+            int id = rs.getInt(1);
+            if (expectedVersions.get(id) == rs.getInt(2)) {
+                written.add(id);
+            }
+        }, args.toArray());
+        return written;
+    }
+
+    // Statements run on the transaction's connection; a failure rolls back to the savepoint and leaves the rest intact
+    private <T> T underSavepoint(Supplier<T> statements) {
+        return jdbcTemplate.execute((ConnectionCallback<T>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            T result;
+            try {
+                result = statements.get();
+            } catch (RuntimeException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+            connection.releaseSavepoint(savepoint);
+            return result;
+        });
+    }
+
+    private static void bind(PreparedStatement ps, ShipmentStatus status, Change change, Timestamp updatedDate)
+            throws SQLException {
+        ps.setString(1, status.name());
+        ps.setString(2, change.trackingNumber());
+        ps.setString(3, change.carrier());
+        ps.setObject(4, change.shippedDate() == null ? null : Timestamp.valueOf(change.shippedDate()), Types.TIMESTAMP);
+        ps.setTimestamp(5, updatedDate);
+        ps.setInt(6, change.id());
+        ps.setInt(7, change.version());
+    }
+
+    // Shipments that already hold the tracking numbers sent in this batch; one query, only when any are sent
+    private Map<String, Integer> owners(List<ShipmentTransitionRequest.Item> batch) {
+        Set<String> trackingNumbers = batch.stream()
+                .map(item -> ShipmentTrackingIndex.normalize(item.trackingNumber()))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (trackingNumbers.isEmpty()) {
+            return Map.of();
+        }
+        return shipmentRepository.findByTrackingNumberIn(trackingNumbers).stream()
+                .collect(Collectors.toMap(ShipmentStateView::getTrackingNumber, ShipmentStateView::getId));
+    }
+
+    private static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    private record Change(int index, Integer id, Integer beerOrderId, Integer version, String trackingNumber,
+                          String carrier, LocalDateTime shippedDate) {
+    }
+}
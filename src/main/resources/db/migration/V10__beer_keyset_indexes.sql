@@ -0,0 +1,7 @@
+-- Flyway migration: indexes for keyset pagination of the beer listing.
+-- A cursor walks beers by one sort column with id as tie-breaker, so each sortable column gets a (column, id)
+-- index and the seek past the last row is a range scan that stops after `size` rows.
+
+CREATE INDEX IF NOT EXISTS idx_beer_name_id ON beer (beer_name, id);
+CREATE INDEX IF NOT EXISTS idx_beer_style_id ON beer (beer_style, id);
+CREATE INDEX IF NOT EXISTS idx_beer_upc_id ON beer (upc, id);
@@ -0,0 +1,23 @@
+-- Flyway migration: switch beer orders, order lines and shipments from IDENTITY to pooled sequences
+-- so Hibernate can assign ids without an insert round trip and batch the INSERTs.
+-- INCREMENT BY must match allocationSize on the entities; with the pooled-lo optimizer each
+-- NEXT VALUE is the first id of a block, so restarting past MAX(id) keeps existing ids untouched.
+
+CREATE SEQUENCE IF NOT EXISTS beer_order_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE beer_order_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM beer_order);
+
+CREATE SEQUENCE IF NOT EXISTS beer_order_line_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE beer_order_line_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM beer_order_line);
+
+CREATE SEQUENCE IF NOT EXISTS beer_order_shipment_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE beer_order_shipment_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM beer_order_shipment);
+
+-- Plain SQL inserts without an id keep working and draw from the same sequences
+ALTER TABLE beer_order ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE beer_order ALTER COLUMN id SET DEFAULT NEXT VALUE FOR beer_order_seq;
+
+ALTER TABLE beer_order_line ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE beer_order_line ALTER COLUMN id SET DEFAULT NEXT VALUE FOR beer_order_line_seq;
+
+ALTER TABLE beer_order_shipment ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE beer_order_shipment ALTER COLUMN id SET DEFAULT NEXT VALUE FOR beer_order_shipment_seq;
@@ -0,0 +1,13 @@
+-- Flyway migration: responses recorded per Idempotency-Key so retried creates are replayed, also after a restart.
+-- The primary key (scope + client key) is what stops two instances from recording the same key twice.
+
+CREATE TABLE IF NOT EXISTS idempotency_record (
+    id VARCHAR(300) PRIMARY KEY,
+    request_hash VARCHAR(64) NOT NULL,
+    response_status INT NOT NULL,
+    location VARCHAR(1000),
+    response_body CLOB,
+    created_date TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_created ON idempotency_record(created_date);
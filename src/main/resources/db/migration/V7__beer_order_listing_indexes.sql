@@ -0,0 +1,7 @@
+-- Flyway migration: indexes for keyset pagination of the order listing.
+-- Orders are listed by (created_date, id); each filter gets an index that starts with the filtered column
+-- and ends with the sort key, so a page is a range scan that stops after `size` rows.
+
+CREATE INDEX IF NOT EXISTS idx_beer_order_created ON beer_order (created_date, id);
+CREATE INDEX IF NOT EXISTS idx_beer_order_status_created ON beer_order (status, created_date, id);
+CREATE INDEX IF NOT EXISTS idx_beer_order_customer_created ON beer_order (customer_ref, created_date, id);
@@ -0,0 +1,17 @@
+-- Carrier callbacks look shipments up by tracking number; a tracking number identifies one shipment.
+-- NULLs do not collide, so shipments without a tracking number are unaffected.
+
+-- Blank tracking numbers mean "none yet"; store them as NULL so they do not collide with each other
+UPDATE beer_order_shipment SET tracking_number = NULL WHERE TRIM(tracking_number) = '';
+
+-- Existing duplicates: the oldest shipment keeps the number, later ones get it with a "-dup-<id>" suffix (so
+-- shipped ones still carry a tracking number) and a note naming the holder
+UPDATE beer_order_shipment s
+SET notes = LEFT(COALESCE(s.notes || ' | ', '') || 'Tracking number ' || s.tracking_number
+                     || ' renamed by migration V8: already used by shipment '
+                     || (SELECT MIN(h.id) FROM beer_order_shipment h WHERE h.tracking_number = s.tracking_number),
+                 1000),
+    tracking_number = LEFT(s.tracking_number, 255 - LENGTH('-dup-' || s.id)) || '-dup-' || s.id
+WHERE EXISTS (SELECT 1 FROM beer_order_shipment o WHERE o.tracking_number = s.tracking_number AND o.id < s.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_bos_tracking_number ON beer_order_shipment(tracking_number);
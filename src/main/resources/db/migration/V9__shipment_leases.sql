@@ -0,0 +1,4 @@
+-- Packing workers lease PENDING shipments (POST /api/v1/shipments/claims). A lease is free again once
+-- lease_expires_at has passed; claims find candidates through idx_bos_status.
+ALTER TABLE beer_order_shipment ADD COLUMN IF NOT EXISTS lease_owner VARCHAR(100);
+ALTER TABLE beer_order_shipment ADD COLUMN IF NOT EXISTS lease_expires_at TIMESTAMP;
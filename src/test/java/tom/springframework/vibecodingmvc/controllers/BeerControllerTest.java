@@ -10,23 +10,37 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tom.springframework.vibecodingmvc.models.BeerBatchResponse;
+import tom.springframework.vibecodingmvc.models.BeerFacetsResponse;
+import tom.springframework.vibecodingmvc.models.BeerImportReport;
 import tom.springframework.vibecodingmvc.models.BeerRequestDto;
 import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
+import tom.springframework.vibecodingmvc.services.BeerExportService;
+import tom.springframework.vibecodingmvc.services.BeerImportService;
 import tom.springframework.vibecodingmvc.services.BeerService;
+import tom.springframework.vibecodingmvc.services.VersionMismatchException;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -38,6 +52,12 @@ class BeerControllerTest {
     @Mock
     BeerService beerService;
 
+    @Mock
+    BeerImportService beerImportService;
+
+    @Mock
+    BeerExportService beerExportService;
+
     @InjectMocks
     BeerController beerController;
 
@@ -84,6 +104,7 @@ class BeerControllerTest {
         mockMvc = MockMvcBuilders
                 .standaloneSetup(beerController)
                 .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
+                .setControllerAdvice(new GlobalExceptionHandler())
                 .build();
     }
 
@@ -122,6 +143,49 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.content[0].beerName", is("Test Beer")));
     }
 
+    @Test
+    void listBeers_withTotalFalse_returnsSlice() throws Exception {
+        given(beerService.sliceBeers(isNull(), any())).willReturn(new SliceImpl<>(beers, PageRequest.of(0, 2), true));
+
+        mockMvc.perform(get("/api/v1/beers")
+                        .param("withTotal", "false")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)));
+        verify(beerService, never()).listBeers(any(), any());
+    }
+
+    @Test
+    void listBeers_withTotalParsedAsBoolean() throws Exception {
+        given(beerService.sliceBeers(isNull(), any())).willReturn(new SliceImpl<>(beers, PageRequest.of(0, 2), true));
+        given(beerService.listBeers(isNull(), any())).willReturn(new PageImpl<>(beers, PageRequest.of(0, 2), 5));
+
+        mockMvc.perform(get("/api/v1/beers").param("withTotal", "0").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/beers").param("withTotal", "FALSE").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/v1/beers").param("withTotal", "true").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+        verify(beerService, times(2)).sliceBeers(isNull(), any());
+        verify(beerService).listBeers(isNull(), any());
+    }
+
+    @Test
+    void scrollBeers_cursorParam_returnsCursorPage() throws Exception {
+        CursorPageResponse<BeerResponseDto> page = new CursorPageResponse<>(beers, 2, "next-token");
+        given(beerService.scrollBeers(isNull(), eq(""), eq(2), any())).willReturn(page);
+
+        mockMvc.perform(get("/api/v1/beers")
+                        .param("cursor", "")
+                        .param("size", "2")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.size", is(2)))
+                .andExpect(jsonPath("$.next", is("next-token")));
+    }
+
     @Test
     void testGetBeerById() throws Exception {
         given(beerService.getBeerById(1)).willReturn(Optional.of(testBeer));
@@ -134,6 +198,37 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.beerName", is("Test Beer")));
     }
 
+    @Test
+    void getBeerById_returnsETagFromIdAndVersion() throws Exception {
+        given(beerService.getBeerById(1)).willReturn(Optional.of(testBeer));
+
+        mockMvc.perform(get("/api/v1/beers/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-1\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+    }
+
+    @Test
+    void getBeerById_ifNoneMatchCurrent_returns304WithoutLoadingBeer() throws Exception {
+        given(beerService.getBeerVersion(1)).willReturn(Optional.of(1));
+
+        mockMvc.perform(get("/api/v1/beers/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-1\""))
+                .andExpect(content().string(""));
+        verify(beerService, never()).getBeerById(anyInt());
+    }
+
+    @Test
+    void getBeerById_ifNoneMatchStale_returnsFullBody() throws Exception {
+        given(beerService.getBeerVersion(1)).willReturn(Optional.of(1));
+        given(beerService.getBeerById(1)).willReturn(Optional.of(testBeer));
+
+        mockMvc.perform(get("/api/v1/beers/1").header(HttpHeaders.IF_NONE_MATCH, "\"1-0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.beerName", is("Test Beer")));
+    }
+
     @Test
     void testGetBeerByIdNotFound() throws Exception {
         given(beerService.getBeerById(999)).willReturn(Optional.empty());
@@ -212,6 +307,103 @@ class BeerControllerTest {
                 .andExpect(jsonPath("$.beerStyle", is("Stout")));
     }
 
+    @Test
+    void importBeers_ndjsonBody_returnsReport() throws Exception {
+        given(beerImportService.importBeers(any(), any())).willReturn(
+                new BeerImportReport(1, 1, List.of(new BeerImportReport.LineError(2, "beerName: must not be blank")), false));
+
+        mockMvc.perform(post("/api/v1/beers/import")
+                        .contentType("application/x-ndjson")
+                        .content("{\"beerName\":\"A\",\"beerStyle\":\"IPA\",\"upc\":\"1\"}\n{\"beerStyle\":\"IPA\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.errors[0].line", is(2)));
+    }
+
+    @Test
+    void getFacets_passesEscapedNameFilter() throws Exception {
+        given(beerService.getFacets("a&amp;b")).willReturn(
+                new BeerFacetsResponse(3, Map.of("IPA", 3L), new BeerFacetsResponse.Stock(2, 1)));
+
+        mockMvc.perform(get("/api/v1/beers/facets").param("beerName", "a&b"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(3)))
+                .andExpect(jsonPath("$.beerStyle.IPA", is(3)))
+                .andExpect(jsonPath("$.stock.outOfStock", is(1)));
+    }
+
+    @Test
+    void getBeersByIds_queryParam_returnsBatch() throws Exception {
+        given(beerService.getBeersByIds(List.of(2, 1, 9))).willReturn(new BeerBatchResponse(List.of(beers.get(1), testBeer), List.of(9)));
+
+        mockMvc.perform(get("/api/v1/beers").param("ids", "2,1,9"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(2)))
+                .andExpect(jsonPath("$.content[1].id", is(1)))
+                .andExpect(jsonPath("$.missing[0]", is(9)));
+        verify(beerService, never()).listBeers(any(), any());
+    }
+
+    @Test
+    void getBeersByIds_winsOverCursorAndWithTotalParams() throws Exception {
+        given(beerService.getBeersByIds(List.of(1))).willReturn(new BeerBatchResponse(List.of(testBeer), List.of()));
+
+        mockMvc.perform(get("/api/v1/beers").param("ids", "1").param("cursor", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(1)));
+        mockMvc.perform(get("/api/v1/beers").param("ids", "1").param("withTotal", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id", is(1)));
+        verify(beerService, never()).scrollBeers(any(), any(), anyInt(), any());
+        verify(beerService, never()).sliceBeers(any(), any());
+    }
+
+    @Test
+    void getBeersByIds_postBody_returnsBatch() throws Exception {
+        given(beerService.getBeersByIds(List.of(1))).willReturn(new BeerBatchResponse(List.of(testBeer), List.of()));
+
+        mockMvc.perform(post("/api/v1/beers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].beerName", is("Test Beer")));
+    }
+
+    @Test
+    void exportBeers_unknownFormat_returns400() throws Exception {
+        mockMvc.perform(get("/api/v1/beers/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        verify(beerExportService, never()).exportBeers(any(), any());
+    }
+
+    @Test
+    void updateBeer_staleIfMatch_returns412() throws Exception {
+        BeerRequestDto update = new BeerRequestDto("Updated Beer", "Stout", "654321", 200, new BigDecimal("14.99"), null);
+        given(beerService.updateBeer(eq(1), eq(0), any(BeerRequestDto.class)))
+                .willThrow(new VersionMismatchException("Beer", 1));
+
+        mockMvc.perform(put("/api/v1/beers/1")
+                        .header(HttpHeaders.IF_MATCH, "\"1-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.title", is("Precondition failed")));
+        verify(beerService, never()).updateBeer(anyInt(), any(BeerRequestDto.class));
+    }
+
+    @Test
+    void updateBeer_ifMatchForAnotherBeer_neverMatches() throws Exception {
+        BeerRequestDto update = new BeerRequestDto("Updated Beer", "Stout", "654321", 200, new BigDecimal("14.99"), null);
+        given(beerService.updateBeer(eq(1), eq(-1), any(BeerRequestDto.class)))
+                .willThrow(new VersionMismatchException("Beer", 1));
+
+        mockMvc.perform(put("/api/v1/beers/1")
+                        .header(HttpHeaders.IF_MATCH, "\"2-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(update)))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void testUpdateBeerNotFound() throws Exception {
         BeerRequestDto updatedBeer = new BeerRequestDto(
@@ -233,15 +425,34 @@ class BeerControllerTest {
 
     @Test
     void testDeleteBeer() throws Exception {
-        given(beerService.getBeerById(1)).willReturn(Optional.of(testBeer));
+        given(beerService.deleteBeer(1)).willReturn(true);
 
         mockMvc.perform(delete("/api/v1/beers/1"))
                 .andExpect(status().isNoContent());
+
+        verify(beerService, never()).getBeerById(anyInt());
+    }
+
+    @Test
+    void deleteBeer_withIfMatch_issuesVersionedDeleteOnly() throws Exception {
+        mockMvc.perform(delete("/api/v1/beers/1").header(HttpHeaders.IF_MATCH, "\"1-4\""))
+                .andExpect(status().isNoContent());
+
+        verify(beerService).deleteBeer(1, 4);
+        verify(beerService, never()).getBeerById(anyInt());
+    }
+
+    @Test
+    void deleteBeer_withStaleIfMatch_returns412() throws Exception {
+        doThrow(new VersionMismatchException("Beer", 1)).when(beerService).deleteBeer(1, 3);
+
+        mockMvc.perform(delete("/api/v1/beers/1").header(HttpHeaders.IF_MATCH, "\"1-3\""))
+                .andExpect(status().isPreconditionFailed());
     }
 
     @Test
     void testDeleteBeerNotFound() throws Exception {
-        given(beerService.getBeerById(999)).willReturn(Optional.empty());
+        given(beerService.deleteBeer(999)).willReturn(false);
 
         mockMvc.perform(delete("/api/v1/beers/999"))
                 .andExpect(status().isNotFound());
@@ -0,0 +1,99 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tom.springframework.vibecodingmvc.config.BeerExportProperties;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerExportIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    BeerExportProperties exportProperties;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("delete from beer");
+        jdbcTemplate.update("insert into beer (version, beer_name, beer_style, upc, quantity_on_hand, price, description) "
+                + "values (0, 'Export One', 'IPA', 'EXP-1', 3, 4.50, 'hoppy, bitter')");
+        jdbcTemplate.update("insert into beer (version, beer_name, beer_style, upc, quantity_on_hand, price) "
+                + "values (0, 'Export Two', 'STOUT', 'EXP-2', 7, 6.25)");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer");
+    }
+
+    @Test
+    void exportBeers_ndjson_writesOneJsonObjectPerLine() throws Exception {
+        String body = export("ndjson", "application/x-ndjson");
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertThat(first.get("beerName").asText()).isEqualTo("Export One");
+        assertThat(objectMapper.readTree(lines.get(1)).get("upc").asText()).isEqualTo("EXP-2");
+    }
+
+    @Test
+    void exportBeers_csv_writesHeaderAndQuotedRows() throws Exception {
+        String body = export("csv", "text/csv");
+
+        List<String> lines = body.lines().toList();
+        assertThat(lines).hasSize(3);
+        assertThat(lines.get(0)).startsWith("id,version,beerName,beerStyle,upc");
+        assertThat(lines.get(1)).contains("Export One").contains("\"hoppy, bitter\"");
+        assertThat(lines.get(2)).contains("EXP-2");
+    }
+
+    @Test
+    void exportBeers_usesExportRequestTimeout() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/beers/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(started.getRequest().getAsyncContext().getTimeout())
+                .isEqualTo(exportProperties.requestTimeout().toMillis());
+        mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+    }
+
+    private String export(String format, String contentType) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/v1/beers/export").param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(contentType))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"beers." + format + "\""))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
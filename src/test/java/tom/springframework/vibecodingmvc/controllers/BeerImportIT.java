@@ -0,0 +1,95 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.beer-import.batch-size=2")
+@AutoConfigureMockMvc
+class BeerImportIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer where upc like 'IMP-%'");
+    }
+
+    @Test
+    void importBeers_insertsValidLinesInBatches_andReportsRejectedLines() throws Exception {
+        String ndjson = """
+                {"beerName":"Import One","beerStyle":"IPA","upc":"IMP-1","quantityOnHand":5,"price":4.99}
+                {"beerName":"Import <Two>","beerStyle":"STOUT","upc":"IMP-2"}
+
+                {"beerName":"","beerStyle":"IPA","upc":"IMP-3"}
+                {"beerName":"Broken",
+                {"beerName":"Import Three","beerStyle":"LAGER","upc":"IMP-4","price":-1}
+                {"beerName":"Import Four","beerStyle":"LAGER","upc":"IMP-5","description":"crisp"}
+                """;
+
+        mockMvc.perform(post("/api/v1/beers/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.errorsTruncated").value(false))
+                .andExpect(jsonPath("$.errors[0].line").value(4))
+                .andExpect(jsonPath("$.errors[0].message").value("beerName: must not be blank"))
+                .andExpect(jsonPath("$.errors[1].line").value(5))
+                .andExpect(jsonPath("$.errors[2].line").value(6));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer where upc like 'IMP-%'", Integer.class))
+                .isEqualTo(3);
+        // sanitized like a single create
+        assertThat(jdbcTemplate.queryForObject("select beer_name from beer where upc = 'IMP-2'", String.class))
+                .isEqualTo("Import &lt;Two&gt;");
+
+        // imported rows are searchable through the name index right away
+        mockMvc.perform(get("/api/v1/beers").param("beerName", "import four"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].upc").value("IMP-5"));
+    }
+
+    @Test
+    void importBeers_validatesSanitizedValues_andKeepsTheRestOfABatchTheDatabaseRefuses() throws Exception {
+        String ndjson = """
+                {"beerName":"Import Five","beerStyle":"IPA","upc":"IMP-10"}
+                {"beerName":"Import Six","beerStyle":"IPA","upc":"IMP-11","price":1e40}
+                {"beerName":"Import Seven","beerStyle":"IPA","upc":"IMP-<<<<<<<<<<"}
+                {"beerName":"Import Eight","beerStyle":"IPA","upc":"IMP-12"}
+                """;
+
+        mockMvc.perform(post("/api/v1/beers/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(2))
+                .andExpect(jsonPath("$.errors[0].line").value(2))
+                .andExpect(jsonPath("$.errors[0].message").value("rejected by the database"))
+                .andExpect(jsonPath("$.errors[1].line").value(3))
+                .andExpect(jsonPath("$.errors[1].message").value("upc: size must be between 0 and 32"));
+
+        assertThat(jdbcTemplate.queryForList("select upc from beer where upc like 'IMP-%' order by upc", String.class))
+                .containsExactly("IMP-10", "IMP-12");
+    }
+}
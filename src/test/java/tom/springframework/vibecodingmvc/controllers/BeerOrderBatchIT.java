@@ -0,0 +1,85 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.beer-order-batch.group-size=2")
+@AutoConfigureMockMvc
+class BeerOrderBatchIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Integer beerId;
+
+    @BeforeEach
+    void setUp() {
+        beerId = beerRepository.save(Beer.builder().beerName("Batch Beer").beerStyle("IPA").upc("BATCH-1")
+                .quantityOnHand(10).price(new BigDecimal("3.50")).build()).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order_line where beer_order_id in "
+                + "(select id from beer_order where customer_ref like 'BATCH-%')");
+        jdbcTemplate.update("delete from beer_order where customer_ref like 'BATCH-%'");
+        beerRepository.deleteById(beerId);
+    }
+
+    @Test
+    void createBatch_reportsPerOrderOutcome_andBadOrdersDoNotRollBackTheirGroup() throws Exception {
+        String ndjson = """
+                {"customerRef":"BATCH-1","paymentAmount":1.00,"items":[{"beerId":%1$d,"quantity":1}]}
+                {"customerRef":"BATCH-2","paymentAmount":2.00,"items":[{"beerId":999999,"quantity":1}]}
+
+                {"customerRef":"BATCH-3","paymentAmount":3.00,"items":[]}
+                {"customerRef":"BATCH-4",
+                {"customerRef":"BATCH-5","paymentAmount":5.00,"items":[{"beerId":%1$d,"quantity":2},{"beerId":%1$d,"quantity":3}]}
+                """.formatted(beerId);
+
+        mockMvc.perform(post("/api/v1/beer-orders/batch")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.results[0].line").value(1))
+                .andExpect(jsonPath("$.results[0].error").value(nullValue()))
+                // unknown beer is rejected before the group is stored, so BATCH-1 commits with it
+                .andExpect(jsonPath("$.results[1].line").value(2))
+                .andExpect(jsonPath("$.results[1].id").value(nullValue()))
+                .andExpect(jsonPath("$.results[1].error").value("items: unknown beer id(s) [999999]"))
+                .andExpect(jsonPath("$.results[2].line").value(4))
+                .andExpect(jsonPath("$.results[2].error").value("items: size must be between 1 and 2147483647"))
+                .andExpect(jsonPath("$.results[3].line").value(5))
+                .andExpect(jsonPath("$.results[4].line").value(6))
+                .andExpect(jsonPath("$.results[4].id").isNumber());
+
+        assertThat(jdbcTemplate.queryForList("select customer_ref from beer_order where customer_ref like 'BATCH-%' "
+                + "order by customer_ref", String.class)).containsExactly("BATCH-1", "BATCH-5");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer_order_line where beer_order_id in "
+                + "(select id from beer_order where customer_ref = 'BATCH-5')", Integer.class)).isEqualTo(2);
+    }
+}
@@ -5,7 +5,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.transaction.annotation.Transactional;
 import tom.springframework.vibecodingmvc.entities.Beer;
@@ -14,9 +16,19 @@ import tom.springframework.vibecodingmvc.entities.BeerOrderLine;
 import tom.springframework.vibecodingmvc.repositories.BeerOrderRepository;
 import tom.springframework.vibecodingmvc.repositories.BeerRepository;
 
+import com.jayway.jsonpath.JsonPath;
+
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -36,6 +48,9 @@ class BeerOrderControllerIT {
     @Autowired
     EntityManager entityManager;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
     @Test
     @Transactional
     void testListOrders_WithLines_ShouldNotThrowLazyInitializationException() throws Exception {
@@ -92,6 +107,94 @@ class BeerOrderControllerIT {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    @Transactional
+    void testListOrdersWithoutTotal_ReturnsSliceDtoWithoutCounts() throws Exception {
+        // Given
+        beerOrderRepository.saveAndFlush(BeerOrder.builder()
+                .customerRef("Slice Order 1")
+                .paymentAmount(new BigDecimal("10.00"))
+                .status("NEW")
+                .build());
+        beerOrderRepository.saveAndFlush(BeerOrder.builder()
+                .customerRef("Slice Order 2")
+                .paymentAmount(new BigDecimal("12.00"))
+                .status("NEW")
+                .build());
+
+        // When/Then
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("withTotal", "false")
+                        .param("size", "1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.page.size").value(1))
+                .andExpect(jsonPath("$.page.number").value(0))
+                .andExpect(jsonPath("$.page.hasNext").value(true))
+                .andExpect(jsonPath("$.page.totalElements").doesNotExist());
+    }
+
+    @Test
+    @Transactional
+    void testGetOrder_ETagRoundTrip_Returns304WhenUnchanged() throws Exception {
+        BeerOrder saved = beerOrderRepository.saveAndFlush(BeerOrder.builder()
+                .customerRef("ETag Order")
+                .paymentAmount(new BigDecimal("10.00"))
+                .status("NEW")
+                .build());
+        String etag = "\"" + saved.getId() + "-" + saved.getVersion() + "\"";
+
+        mockMvc.perform(get("/api/v1/beer-orders/{id}", saved.getId()).accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(jsonPath("$.version").value(saved.getVersion()));
+
+        mockMvc.perform(get("/api/v1/beer-orders/{id}", saved.getId())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @Transactional
+    void testCreateOrder_ReturnsAggregateWithBeerNames() throws Exception {
+        Beer beer = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Create Response Beer")
+                .beerStyle("IPA")
+                .price(new BigDecimal("5.00"))
+                .upc("654321")
+                .build());
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerRef\":\"Created\",\"paymentAmount\":10.00,\"items\":[{\"beerId\":"
+                                + beer.getId() + ",\"quantity\":2}]}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(jsonPath("$.id").isNumber())
+                .andExpect(jsonPath("$.version").value(0))
+                .andExpect(jsonPath("$.createdDate").exists())
+                .andExpect(jsonPath("$.lines[0].id").isNumber())
+                .andExpect(jsonPath("$.lines[0].beerId").value(beer.getId()))
+                .andExpect(jsonPath("$.lines[0].beerName").value("Create Response Beer"))
+                .andExpect(jsonPath("$.lines[0].orderQuantity").value(2));
+    }
+
+    @Test
+    void testCreateOrder_UnknownBeer_Returns400() throws Exception {
+        long before = beerOrderRepository.count();
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"paymentAmount\":10.00,\"items\":[{\"beerId\":-1,\"quantity\":2}]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Unknown beer id(s): [-1]"));
+
+        assertThat(beerOrderRepository.count()).isEqualTo(before);
+    }
+
     @Test
     void testListOrdersWithCreatedAtSort_ShouldBeMappedToCreatedDate() throws Exception {
         // This test confirms that createdAt is safely mapped to createdDate in the service layer
@@ -100,4 +203,212 @@ class BeerOrderControllerIT {
                         .accept(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    @Transactional
+    void testScrollOrders_WalksNewestFirstWithFilters() throws Exception {
+        // Given: four matching orders, two sharing a timestamp, plus orders excluded by each filter
+        LocalDateTime base = LocalDateTime.of(2025, 8, 1, 12, 0);
+        Integer oldest = keysetOrder("KEYSET-A", "NEW", base);
+        Integer tieLow = keysetOrder("KEYSET-A", "NEW", base.plusHours(1));
+        Integer tieHigh = keysetOrder("KEYSET-A", "NEW", base.plusHours(1));
+        Integer newest = keysetOrder("KEYSET-A", "NEW", base.plusHours(2));
+        keysetOrder("KEYSET-A", "ALLOCATED", base.plusHours(1));
+        keysetOrder("KEYSET-B", "NEW", base.plusHours(1));
+        keysetOrder("KEYSET-A", "NEW", base.plusDays(1));
+        entityManager.clear();
+
+        // When: walking two at a time
+        String first = mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", "")
+                        .param("size", "2")
+                        .param("status", "NEW")
+                        .param("customerRef", "KEYSET-A")
+                        .param("createdTo", "2025-08-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size").value(2))
+                .andReturn().getResponse().getContentAsString();
+        String second = mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", JsonPath.<String>read(first, "$.next"))
+                        .param("size", "2")
+                        .param("status", "NEW")
+                        .param("customerRef", "KEYSET-A")
+                        .param("createdTo", "2025-08-02T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.next").value(nullValue()))
+                .andReturn().getResponse().getContentAsString();
+
+        // Then: newest first, ties broken by id, no row repeated or skipped
+        List<Integer> ids = new ArrayList<>(JsonPath.<List<Integer>>read(first, "$.content[*].id"));
+        ids.addAll(JsonPath.<List<Integer>>read(second, "$.content[*].id"));
+        assertThat(ids).containsExactly(newest, tieHigh, tieLow, oldest);
+
+        // And the date range alone narrows the window
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", "")
+                        .param("customerRef", "KEYSET-A")
+                        .param("createdFrom", "2025-08-01T13:00:00")
+                        .param("createdTo", "2025-08-01T14:00:00")
+                        .param("sort", "createdAt,asc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(3))
+                .andExpect(jsonPath("$.content[0].id").value(tieLow))
+                .andExpect(jsonPath("$.content[2].status").value("ALLOCATED"));
+    }
+
+    @Test
+    void testScrollOrders_InvalidCursorOrSort_Returns400() throws Exception {
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", "not-a-cursor")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", "")
+                        .param("sort", "customerRef,asc")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Cursor pagination supports sorting by createdAt"));
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", "")
+                        .param("createdFrom", "2025-09-01T00:00:00")
+                        .param("createdTo", "2025-08-01T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    void testListOrders_IncludeAggregates_AddsLineTotalsPerOrder() throws Exception {
+        // Given
+        Beer beer = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Aggregate Ale")
+                .beerStyle("ALE")
+                .price(new BigDecimal("4.00"))
+                .upc("agg-1")
+                .build());
+        BeerOrder withLines = BeerOrder.builder()
+                .customerRef("AGG-LINES")
+                .paymentAmount(new BigDecimal("10.00"))
+                .status("PARTIALLY_ALLOCATED")
+                .build();
+        withLines.addLine(BeerOrderLine.builder().beer(beer).orderQuantity(3).quantityAllocated(3).status("ALLOCATED").build());
+        withLines.addLine(BeerOrderLine.builder().beer(beer).orderQuantity(5).quantityAllocated(0).status("BACKORDERED").build());
+        Integer withLinesId = beerOrderRepository.saveAndFlush(withLines).getId();
+        Integer emptyId = beerOrderRepository.saveAndFlush(BeerOrder.builder()
+                .customerRef("AGG-EMPTY")
+                .paymentAmount(new BigDecimal("1.00"))
+                .status("NEW")
+                .build()).getId();
+        entityManager.clear();
+
+        // When/Then: aggregates only when asked for
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("size", "1000")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[?(@.id == " + withLinesId + ")].aggregates").isEmpty());
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("size", "1000")
+                        .param("include", "aggregates")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[?(@.id == " + withLinesId + ")].aggregates.lineCount").value(2))
+                .andExpect(jsonPath("$.content[?(@.id == " + withLinesId + ")].aggregates.totalQuantity").value(8))
+                .andExpect(jsonPath("$.content[?(@.id == " + withLinesId + ")].aggregates.allocatedQuantity").value(3))
+                .andExpect(jsonPath("$.content[?(@.id == " + emptyId + ")].aggregates.lineCount").value(0));
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", "")
+                        .param("customerRef", "AGG-LINES")
+                        .param("include", "aggregates")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].aggregates.totalQuantity").value(8));
+    }
+
+    @Test
+    void testListOrders_UnknownInclude_Returns400() throws Exception {
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("include", "lines")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail").value("Unsupported include 'lines'; supported: aggregates"));
+    }
+
+    @Test
+    void testCreateOrderAsync_Returns202_ThenSubmissionReportsCreatedOrder() throws Exception {
+        // Given
+        Integer beerId = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Async Ale")
+                .beerStyle("ALE")
+                .price(new BigDecimal("4.00"))
+                .upc("async-1")
+                .build()).getId();
+        try {
+            // When
+            String location = mockMvc.perform(post("/api/v1/beer-orders")
+                            .param("async", "true")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"customerRef\":\"PO-ASYNC\",\"paymentAmount\":4.00,\"items\":[{\"beerId\":"
+                                    + beerId + ",\"quantity\":1}]}"))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.state").value("ACCEPTED"))
+                    .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+            // Then: the queued order is stored shortly after
+            String submission = null;
+            for (int attempt = 0; attempt < 100; attempt++) {
+                submission = mockMvc.perform(get(location))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString();
+                if (!"ACCEPTED".equals(JsonPath.read(submission, "$.state"))) {
+                    break;
+                }
+                Thread.sleep(50);
+            }
+            assertThat(JsonPath.<String>read(submission, "$.state")).isEqualTo("CREATED");
+            mockMvc.perform(get("/api/v1/beer-orders/{id}", JsonPath.<Integer>read(submission, "$.orderId")))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.customerRef").value("PO-ASYNC"))
+                    .andExpect(jsonPath("$.lines[0].beerName").value("Async Ale"));
+
+            // Unknown beers are still rejected synchronously
+            mockMvc.perform(post("/api/v1/beer-orders")
+                            .param("async", "true")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"paymentAmount\":1.00,\"items\":[{\"beerId\":-1,\"quantity\":1}]}"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.detail").value("Unknown beer id(s): [-1]"));
+        } finally {
+            jdbcTemplate.update("delete from beer_order_line where beer_id = ?", beerId);
+            jdbcTemplate.update("delete from beer_order where customer_ref = 'PO-ASYNC'");
+            beerRepository.deleteById(beerId);
+        }
+    }
+
+    @Test
+    void testGetSubmission_Unknown_Returns404() throws Exception {
+        mockMvc.perform(get("/api/v1/beer-orders/submissions/{id}", "3f2b8c1e-7a4d-4e0f-9b6a-1c2d3e4f5a6b"))
+                .andExpect(status().isNotFound());
+    }
+
+    private Integer keysetOrder(String customerRef, String status, LocalDateTime createdDate) {
+        Integer id = beerOrderRepository.saveAndFlush(BeerOrder.builder()
+                .customerRef(customerRef)
+                .paymentAmount(new BigDecimal("10.00"))
+                .status(status)
+                .build()).getId();
+        // createdDate is set by Hibernate on insert, so pin it afterwards
+        entityManager.createNativeQuery("update beer_order set created_date = ?1 where id = ?2")
+                .setParameter(1, createdDate)
+                .setParameter(2, id)
+                .executeUpdate();
+        return id;
+    }
 }
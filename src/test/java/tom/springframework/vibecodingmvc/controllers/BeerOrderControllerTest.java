@@ -9,25 +9,40 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tom.springframework.vibecodingmvc.models.BeerOrderBatchReport;
+import tom.springframework.vibecodingmvc.models.BeerOrderFilter;
+import tom.springframework.vibecodingmvc.models.BeerOrderIntakeStatus;
+import tom.springframework.vibecodingmvc.models.BeerOrderLineAggregates;
 import tom.springframework.vibecodingmvc.models.BeerOrderResponse;
 import tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
+import tom.springframework.vibecodingmvc.services.BeerOrderBatchService;
+import tom.springframework.vibecodingmvc.services.BeerOrderIntakeService;
 import tom.springframework.vibecodingmvc.services.BeerOrderService;
+import tom.springframework.vibecodingmvc.services.IdempotencyService;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +53,15 @@ class BeerOrderControllerTest {
     @Mock
     BeerOrderService beerOrderService;
 
+    @Mock
+    BeerOrderBatchService beerOrderBatchService;
+
+    @Mock
+    IdempotencyService idempotencyService;
+
+    @Mock
+    BeerOrderIntakeService beerOrderIntakeService;
+
     @InjectMocks
     BeerOrderController beerOrderController;
 
@@ -49,6 +73,7 @@ class BeerOrderControllerTest {
         orderSummaries = new ArrayList<>();
         testOrder = new BeerOrderResponse(
                 1,
+                0,
                 "PO-1",
                 new BigDecimal("25.00"),
                 "NEW",
@@ -74,7 +99,7 @@ class BeerOrderControllerTest {
     void listOrders_returnsPaged() throws Exception {
         PageRequest pageRequest = PageRequest.of(0, 10);
         Page<BeerOrderSummaryResponse> page = new PageImpl<>(orderSummaries, pageRequest, orderSummaries.size());
-        given(beerOrderService.listOrders(any())).willReturn(page);
+        given(beerOrderService.listOrders(any(), eq(false))).willReturn(page);
 
         mockMvc.perform(get("/api/v1/beer-orders")
                         .param("page", "0")
@@ -91,7 +116,7 @@ class BeerOrderControllerTest {
     void listOrdersAlias_returnsPaged() throws Exception {
         PageRequest pageRequest = PageRequest.of(0, 10);
         Page<BeerOrderSummaryResponse> page = new PageImpl<>(orderSummaries, pageRequest, orderSummaries.size());
-        given(beerOrderService.listOrders(any())).willReturn(page);
+        given(beerOrderService.listOrders(any(), eq(false))).willReturn(page);
 
         mockMvc.perform(get("/api/v1/beer-orders/list")
                         .accept(MediaType.APPLICATION_JSON))
@@ -100,6 +125,54 @@ class BeerOrderControllerTest {
                 .andExpect(jsonPath("$.content", hasSize(1)));
     }
 
+    @Test
+    void listOrders_withTotalFalse_returnsSlice() throws Exception {
+        given(beerOrderService.sliceOrders(any(), eq(false))).willReturn(new SliceImpl<>(orderSummaries, PageRequest.of(0, 10), false));
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("withTotal", "false")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].customerRef", is("PO-1")));
+    }
+
+    @Test
+    void listOrders_includeAggregates_passesFlagToService() throws Exception {
+        List<BeerOrderSummaryResponse> withAggregates = orderSummaries.stream()
+                .map(summary -> new BeerOrderSummaryResponse(summary.id(), summary.customerRef(),
+                        summary.paymentAmount(), summary.status(), summary.createdDate(),
+                        new BeerOrderLineAggregates(2, 8, 3)))
+                .toList();
+        given(beerOrderService.sliceOrders(any(), eq(true)))
+                .willReturn(new SliceImpl<>(withAggregates, PageRequest.of(0, 10), false));
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("withTotal", "false")
+                        .param("include", "aggregates")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].aggregates.lineCount", is(2)))
+                .andExpect(jsonPath("$.content[0].aggregates.allocatedQuantity", is(3)));
+    }
+
+    @Test
+    void listOrders_cursorParam_bindsFiltersAndReturnsCursorPage() throws Exception {
+        given(beerOrderService.scrollOrders(eq(new BeerOrderFilter("NEW", "PO-1", LocalDateTime.of(2025, 8, 1, 0, 0), null)),
+                eq(""), eq(5), any(), eq(false))).willReturn(new CursorPageResponse<>(orderSummaries, 5, "next-token"));
+
+        mockMvc.perform(get("/api/v1/beer-orders")
+                        .param("cursor", "")
+                        .param("size", "5")
+                        .param("status", "NEW")
+                        .param("customerRef", "PO-1")
+                        .param("createdFrom", "2025-08-01T00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.next", is("next-token")));
+    }
+
     @Test
     void getOrderById() throws Exception {
         given(beerOrderService.getOrder(any())).willReturn(Optional.of(testOrder));
@@ -110,4 +183,60 @@ class BeerOrderControllerTest {
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.id", is(1)));
     }
+
+    @Test
+    void create_withReplayedIdempotencyKey_returnsRecordedResponseWithoutCreating() throws Exception {
+        given(idempotencyService.execute(eq("beer-orders"), eq("key-1"), any(), eq(BeerOrderResponse.class), any()))
+                .willReturn(new IdempotencyService.Outcome<>(201, URI.create("http://localhost/api/v1/beer-orders/1"),
+                        testOrder, true));
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"paymentAmount\":25.00,\"items\":[{\"beerId\":1,\"quantity\":2}]}"))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Location", "http://localhost/api/v1/beer-orders/1"))
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id", is(1)));
+
+        verify(beerOrderService, never()).createOrder(any());
+    }
+
+    @Test
+    void createAsync_returns202WithSubmissionLocation_andStatusCanBePolled() throws Exception {
+        UUID id = UUID.fromString("3f2b8c1e-7a4d-4e0f-9b6a-1c2d3e4f5a6b");
+        given(beerOrderIntakeService.submit(any())).willReturn(BeerOrderIntakeStatus.accepted(id));
+        given(beerOrderIntakeService.getStatus(id)).willReturn(Optional.of(BeerOrderIntakeStatus.created(id, 42)));
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .param("async", "true")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"paymentAmount\":25.00,\"items\":[{\"beerId\":1,\"quantity\":2}]}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "http://localhost/api/v1/beer-orders/submissions/" + id))
+                .andExpect(jsonPath("$.state", is("ACCEPTED")))
+                .andExpect(jsonPath("$.orderId").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/beer-orders/submissions/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state", is("CREATED")))
+                .andExpect(jsonPath("$.orderId", is(42)));
+
+        verify(beerOrderService, never()).createOrder(any());
+    }
+
+    @Test
+    void createBatch_streamsNdjsonToBatchService() throws Exception {
+        given(beerOrderBatchService.createOrders(any())).willReturn(new BeerOrderBatchReport(1, 1, List.of(
+                new BeerOrderBatchReport.OrderResult(1, 42, null),
+                new BeerOrderBatchReport.OrderResult(2, null, "items: must not be null"))));
+
+        mockMvc.perform(post("/api/v1/beer-orders/batch")
+                        .contentType("application/x-ndjson")
+                        .content("{}\n{}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created", is(1)))
+                .andExpect(jsonPath("$.results[0].id", is(42)))
+                .andExpect(jsonPath("$.results[1].error", is("items: must not be null")));
+    }
 }
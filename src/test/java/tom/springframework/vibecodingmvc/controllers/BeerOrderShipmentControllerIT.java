@@ -0,0 +1,176 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class BeerOrderShipmentControllerIT {
+
+    private static final String SHIPMENTS = "/api/v1/beerorders/{beerOrderId}/shipments";
+    private static final String SHIPMENT = SHIPMENTS + "/{id}";
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Integer beerId;
+
+    @BeforeEach
+    void setUp() {
+        beerId = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Shipping Stout")
+                .beerStyle("STOUT")
+                .price(new BigDecimal("5.00"))
+                .upc("888")
+                .build()).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order_shipment");
+        jdbcTemplate.update("delete from beer_order_line");
+        jdbcTemplate.update("delete from beer_order");
+        jdbcTemplate.update("delete from beer");
+    }
+
+    @Test
+    void shipmentOfAnotherOrder_isNotFound_andLeftUntouched() throws Exception {
+        Integer owner = createOrder("PO-OWNER");
+        Integer other = createOrder("PO-OTHER");
+        Integer shipmentId = createShipment(owner);
+        String update = "{\"notes\":\"moved\"}";
+
+        mockMvc.perform(get(SHIPMENT, other, shipmentId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(SHIPMENT, other, shipmentId).header(HttpHeaders.IF_NONE_MATCH, "\"" + shipmentId + "-0\""))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch(SHIPMENT, other, shipmentId).contentType(MediaType.APPLICATION_JSON).content(update))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(patch(SHIPMENT, other, shipmentId).header(HttpHeaders.IF_MATCH, "\"" + shipmentId + "-0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(update))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete(SHIPMENT, other, shipmentId))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get(SHIPMENTS, other))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+
+        mockMvc.perform(get(SHIPMENT, owner, shipmentId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + shipmentId + "-0\""))
+                .andExpect(jsonPath("$.notes").doesNotExist());
+    }
+
+    @Test
+    void missingOrder_isNotFound() throws Exception {
+        mockMvc.perform(get(SHIPMENTS, 999_999))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post(SHIPMENTS, 999_999)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"beerOrderId\":999999,\"shipmentStatus\":\"PENDING\"}"))
+                .andExpect(status().isNotFound());
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer_order_shipment", Integer.class)).isZero();
+    }
+
+    @Test
+    void otherConstraintViolation_onCreate_isConflict_notMissingOrder() throws Exception {
+        Integer orderId = createOrder("PO-LONG");
+
+        mockMvc.perform(post(SHIPMENTS, orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"beerOrderId\":" + orderId + ",\"shipmentStatus\":\"PENDING\",\"carrier\":\""
+                                + "x".repeat(300) + "\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title").value("Data integrity violation"));
+    }
+
+    @Test
+    void update_appliesStatusRulesInTheGuardedUpdate() throws Exception {
+        Integer orderId = createOrder("PO-SHIP");
+        Integer shipmentId = createShipment(orderId);
+
+        mockMvc.perform(patch(SHIPMENT, orderId, shipmentId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shipmentStatus\":\"IN_TRANSIT\"}"))
+                .andExpect(status().isBadRequest());
+
+        // The carrier is already stored; only the tracking number is sent
+        mockMvc.perform(patch(SHIPMENT, orderId, shipmentId)
+                        .header(HttpHeaders.IF_MATCH, "\"" + shipmentId + "-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"shipmentStatus\":\"IN_TRANSIT\",\"trackingNumber\":\"TRK-1\"}"))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + shipmentId + "-1\""));
+
+        mockMvc.perform(get(SHIPMENT, orderId, shipmentId))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + shipmentId + "-1\""))
+                .andExpect(jsonPath("$.shipmentStatus").value("IN_TRANSIT"))
+                .andExpect(jsonPath("$.trackingNumber").value("TRK-1"))
+                .andExpect(jsonPath("$.carrier").value("UPS"))
+                .andExpect(jsonPath("$.shippedDate").exists());
+
+        mockMvc.perform(patch(SHIPMENT, orderId, shipmentId)
+                        .header(HttpHeaders.IF_MATCH, "\"" + shipmentId + "-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"notes\":\"stale\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(SHIPMENT, orderId, shipmentId).header(HttpHeaders.IF_MATCH, "\"" + shipmentId + "-0\""))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(delete(SHIPMENT, orderId, shipmentId).header(HttpHeaders.IF_MATCH, "\"" + shipmentId + "-1\""))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(delete(SHIPMENT, orderId, shipmentId))
+                .andExpect(status().isNotFound());
+    }
+
+    private Integer createOrder(String customerRef) throws Exception {
+        MvcResult order = mockMvc.perform(post("/api/v1/beer-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerRef\":\"" + customerRef + "\",\"paymentAmount\":10.00,\"items\":[{\"beerId\":"
+                                + beerId + ",\"quantity\":1}]}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return JsonPath.read(order.getResponse().getContentAsString(), "$.id");
+    }
+
+    private Integer createShipment(Integer orderId) throws Exception {
+        MvcResult shipment = mockMvc.perform(post(SHIPMENTS, orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"beerOrderId\":" + orderId + ",\"shipmentStatus\":\"PENDING\",\"carrier\":\"UPS\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.beerOrderId").value(orderId))
+                .andExpect(jsonPath("$.version").value(0))
+                .andReturn();
+        return JsonPath.read(shipment.getResponse().getContentAsString(), "$.id");
+    }
+}
@@ -9,12 +9,15 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentCreateDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentUpdateDto;
 import tom.springframework.vibecodingmvc.services.BeerOrderShipmentService;
+import tom.springframework.vibecodingmvc.services.IdempotencyService;
+import tom.springframework.vibecodingmvc.services.VersionMismatchException;
 
 import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
 
@@ -38,6 +41,11 @@ class BeerOrderShipmentControllerTest {
         BeerOrderShipmentService beerOrderShipmentService() {
             return org.mockito.Mockito.mock(BeerOrderShipmentService.class);
         }
+
+        @Bean
+        IdempotencyService idempotencyService() {
+            return org.mockito.Mockito.mock(IdempotencyService.class);
+        }
     }
 
     @Autowired
@@ -55,14 +63,15 @@ class BeerOrderShipmentControllerTest {
         int beerOrderId = 11;
         BeerOrderShipmentCreateDto create = new BeerOrderShipmentCreateDto(beerOrderId, ShipmentStatus.PENDING, null, null, null, null);
         String json = objectMapper.writeValueAsString(create);
-        given(service.beerOrderExists(beerOrderId)).willReturn(true);
-        given(service.create(any(BeerOrderShipmentCreateDto.class))).willReturn(100);
+        given(service.create(eq(beerOrderId), any(BeerOrderShipmentCreateDto.class)))
+                .willReturn(new BeerOrderShipmentDto(100, 0, beerOrderId, "PENDING", null, null, null, null));
 
         mockMvc.perform(post("/api/v1/beerorders/{beerOrderId}/shipments", beerOrderId)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isCreated())
-                .andExpect(header().string("Location", containsString("/api/v1/beerorders/" + beerOrderId + "/shipments/100")));
+                .andExpect(header().string("Location", containsString("/api/v1/beerorders/" + beerOrderId + "/shipments/100")))
+                .andExpect(jsonPath("$.id", is(100)));
     }
 
     @Test
@@ -70,10 +79,9 @@ class BeerOrderShipmentControllerTest {
     void list_ok() throws Exception {
         int beerOrderId = 9;
         List<BeerOrderShipmentDto> list = List.of(
-                new BeerOrderShipmentDto(1, beerOrderId, "PENDING", null, null, null, null),
-                new BeerOrderShipmentDto(2, beerOrderId, "PACKED", null, null, null, null)
+                new BeerOrderShipmentDto(1, 0, beerOrderId, "PENDING", null, null, null, null),
+                new BeerOrderShipmentDto(2, 0, beerOrderId, "PACKED", null, null, null, null)
         );
-        given(service.beerOrderExists(beerOrderId)).willReturn(true);
         given(service.listByBeerOrderId(beerOrderId)).willReturn(list);
 
         mockMvc.perform(get("/api/v1/beerorders/{beerOrderId}/shipments", beerOrderId))
@@ -87,7 +95,7 @@ class BeerOrderShipmentControllerTest {
     @DisplayName("GET list returns 404 when beer order does not exist")
     void list_notFound_whenOrderMissing() throws Exception {
         int beerOrderId = 1234;
-        given(service.beerOrderExists(beerOrderId)).willReturn(false);
+        given(service.listByBeerOrderId(beerOrderId)).willThrow(new EntityNotFoundException("BeerOrder not found: 1234"));
 
         mockMvc.perform(get("/api/v1/beerorders/{beerOrderId}/shipments", beerOrderId))
                 .andExpect(status().isNotFound());
@@ -99,7 +107,8 @@ class BeerOrderShipmentControllerTest {
         int beerOrderId = 55;
         BeerOrderShipmentCreateDto create = new BeerOrderShipmentCreateDto(beerOrderId, ShipmentStatus.PENDING, null, null, null, null);
         String json = objectMapper.writeValueAsString(create);
-        given(service.beerOrderExists(beerOrderId)).willReturn(false);
+        given(service.create(eq(beerOrderId), any(BeerOrderShipmentCreateDto.class)))
+                .willThrow(new EntityNotFoundException("BeerOrder not found: 55"));
 
         mockMvc.perform(post("/api/v1/beerorders/{beerOrderId}/shipments", beerOrderId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -119,24 +128,22 @@ class BeerOrderShipmentControllerTest {
         int beerOrderId = 22;
         BeerOrderShipmentUpdateDto updateDto = new BeerOrderShipmentUpdateDto("IN_TRANSIT", null, "TN", "DHL", null);
         String json = objectMapper.writeValueAsString(updateDto);
-        // Beer order exists for success case
-        given(service.beerOrderExists(beerOrderId)).willReturn(true);
-
         mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", beerOrderId, 77)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isNoContent());
 
         // 404 shipment not found case (but order exists)
-        given(service.beerOrderExists(beerOrderId)).willReturn(true);
-        doThrow(new EntityNotFoundException("Shipment not found: 404")).when(service).update(eq(404), any(BeerOrderShipmentUpdateDto.class));
+        doThrow(new EntityNotFoundException("Shipment not found: 404")).when(service)
+                .update(eq(beerOrderId), eq(404), any(BeerOrderShipmentUpdateDto.class));
         mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", beerOrderId, 404)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
                 .andExpect(status().isNotFound());
 
-        // 404 when beer order does not exist
-        given(service.beerOrderExists(9999)).willReturn(false);
+        // 404 when the shipment belongs to another (or no) order
+        doThrow(new EntityNotFoundException("Shipment not found: 77")).when(service)
+                .update(eq(9999), eq(77), any(BeerOrderShipmentUpdateDto.class));
         mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", 9999, 77)
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(json))
@@ -146,39 +153,69 @@ class BeerOrderShipmentControllerTest {
     @Test
     void delete_noContent_and_notFound() throws Exception {
         int beerOrderId = 33;
-        given(service.beerOrderExists(beerOrderId)).willReturn(true);
         mockMvc.perform(delete("/api/v1/beerorders/{beerOrderId}/shipments/{id}", beerOrderId, 12))
                 .andExpect(status().isNoContent());
 
-        doThrow(new EntityNotFoundException("Shipment not found: 999")).when(service).delete(999);
-        given(service.beerOrderExists(beerOrderId)).willReturn(true);
+        doThrow(new EntityNotFoundException("Shipment not found: 999")).when(service).delete(beerOrderId, 999);
         mockMvc.perform(delete("/api/v1/beerorders/{beerOrderId}/shipments/{id}", beerOrderId, 999))
                 .andExpect(status().isNotFound());
 
-        // 404 when beer order does not exist
-        given(service.beerOrderExists(4444)).willReturn(false);
+        // 404 when the shipment belongs to another (or no) order
+        doThrow(new EntityNotFoundException("Shipment not found: 12")).when(service).delete(4444, 12);
         mockMvc.perform(delete("/api/v1/beerorders/{beerOrderId}/shipments/{id}", 4444, 12))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @DisplayName("PATCH with stale If-Match returns 412")
+    void update_staleIfMatch_returns412() throws Exception {
+        int beerOrderId = 5;
+        int shipmentId = 6;
+        given(service.update(eq(beerOrderId), eq(shipmentId), eq(2), any(BeerOrderShipmentUpdateDto.class)))
+                .willThrow(new VersionMismatchException("Shipment", shipmentId));
+        String json = objectMapper.writeValueAsString(new BeerOrderShipmentUpdateDto("PACKED", null, null, null, null));
+
+        mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", beerOrderId, shipmentId)
+                        .header(HttpHeaders.IF_MATCH, "\"6-2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    @DisplayName("PATCH with current If-Match returns the new ETag")
+    void update_matchingIfMatch_returnsNewETag() throws Exception {
+        int beerOrderId = 5;
+        int shipmentId = 6;
+        given(service.update(eq(beerOrderId), eq(shipmentId), eq(2), any(BeerOrderShipmentUpdateDto.class)))
+                .willReturn(3);
+        String json = objectMapper.writeValueAsString(new BeerOrderShipmentUpdateDto("PACKED", null, null, null, null));
+
+        mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", beerOrderId, shipmentId)
+                        .header(HttpHeaders.IF_MATCH, "\"6-2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"6-3\""));
+    }
+
     @Test
     @DisplayName("GET by id returns item and 404 when order missing")
     void getById_ok_and_notFoundWhenOrderMissing() throws Exception {
         int beerOrderId = 77;
         int shipmentId = 888;
-        BeerOrderShipmentDto dto = new BeerOrderShipmentDto(shipmentId, beerOrderId, "PENDING", null, null, null, null);
+        BeerOrderShipmentDto dto = new BeerOrderShipmentDto(shipmentId, 0, beerOrderId, "PENDING", null, null, null, null);
 
         // success
-        given(service.beerOrderExists(beerOrderId)).willReturn(true);
-        given(service.get(shipmentId)).willReturn(java.util.Optional.of(dto));
+        given(service.get(beerOrderId, shipmentId)).willReturn(java.util.Optional.of(dto));
         mockMvc.perform(get("/api/v1/beerorders/{beerOrderId}/shipments/{id}", beerOrderId, shipmentId))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id", is(shipmentId)))
                 .andExpect(jsonPath("$.beerOrderId", is(beerOrderId)))
                 .andExpect(jsonPath("$.shipmentStatus", is("PENDING")));
 
-        // order missing
-        given(service.beerOrderExists(9999)).willReturn(false);
+        // order missing, or the shipment belongs to another order
+        given(service.get(9999, shipmentId)).willReturn(java.util.Optional.empty());
         mockMvc.perform(get("/api/v1/beerorders/{beerOrderId}/shipments/{id}", 9999, shipmentId))
                 .andExpect(status().isNotFound());
     }
@@ -7,6 +7,10 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -21,8 +25,11 @@ import java.util.Optional;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.core.Is.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -65,6 +72,7 @@ class CustomerControllerTest {
 
         mockMvc = MockMvcBuilders
                 .standaloneSetup(customerController)
+                .setCustomArgumentResolvers(new PageableHandlerMethodArgumentResolver())
                 .build();
     }
 
@@ -81,6 +89,19 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$[0].name", is("Jane Doe")));
     }
 
+    @Test
+    void testListCustomers_withTotalFalse_returnsSlice() throws Exception {
+        given(customerService.sliceCustomers(any())).willReturn(new SliceImpl<>(customers, PageRequest.of(0, 5), false));
+
+        mockMvc.perform(get("/api/v1/customers")
+                        .param("withTotal", "false")
+                        .param("size", "5")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].name", is("Jane Doe")));
+    }
+
     @Test
     void testGetCustomer() throws Exception {
         given(customerService.getCustomerById(1)).willReturn(Optional.of(testCustomer));
@@ -93,6 +114,17 @@ class CustomerControllerTest {
                 .andExpect(jsonPath("$.email", is("jane.doe@example.com")));
     }
 
+    @Test
+    void testGetCustomer_ifNoneMatchCurrent_returns304() throws Exception {
+        given(customerService.getCustomerVersion(1)).willReturn(Optional.of(testCustomer.version()));
+        String etag = "\"1-" + testCustomer.version() + "\"";
+
+        mockMvc.perform(get("/api/v1/customers/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+        verify(customerService, never()).getCustomerById(anyInt());
+    }
+
     @Test
     void testGetCustomerNotFound() throws Exception {
         given(customerService.getCustomerById(999)).willReturn(Optional.empty());
@@ -0,0 +1,159 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyKeyIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Integer beerId;
+
+    @BeforeEach
+    void setUp() {
+        beerId = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Idempotent IPA")
+                .beerStyle("IPA")
+                .price(new BigDecimal("5.00"))
+                .upc("777")
+                .build()).getId();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from idempotency_record");
+        jdbcTemplate.update("delete from beer_order_shipment");
+        jdbcTemplate.update("delete from beer_order_line");
+        jdbcTemplate.update("delete from beer_order");
+        jdbcTemplate.update("delete from beer");
+    }
+
+    @Test
+    void createOrder_retriedWithSameKey_returnsOriginalResponseAndCreatesOnce() throws Exception {
+        String body = orderJson("PO-IDEMPOTENT");
+
+        MvcResult first = mockMvc.perform(post("/api/v1/beer-orders")
+                        .header("Idempotency-Key", "order-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andReturn();
+        Integer id = JsonPath.read(first.getResponse().getContentAsString(), "$.id");
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .header("Idempotency-Key", "order-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(header().string("Location", first.getResponse().getHeader("Location")))
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.lines[0].beerName").value("Idempotent IPA"));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer_order", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void createOrder_sameKeyDifferentPayload_returns422() throws Exception {
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .header("Idempotency-Key", "order-key-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson("PO-A")))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(post("/api/v1/beer-orders")
+                        .header("Idempotency-Key", "order-key-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson("PO-B")))
+                .andExpect(status().isUnprocessableEntity())
+                .andExpect(jsonPath("$.title").value("Idempotency-Key reused"));
+    }
+
+    @Test
+    void createOrder_withoutKey_createsEveryTime() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/api/v1/beer-orders")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(orderJson("PO-NO-KEY")))
+                    .andExpect(status().isCreated());
+        }
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer_order", Integer.class)).isEqualTo(2);
+    }
+
+    @Test
+    void createShipment_retriedWithSameKey_createsOnce() throws Exception {
+        MvcResult order = mockMvc.perform(post("/api/v1/beer-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson("PO-SHIP")))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Integer orderId = JsonPath.read(order.getResponse().getContentAsString(), "$.id");
+        String shipment = "{\"beerOrderId\":" + orderId + ",\"shipmentStatus\":\"PENDING\",\"carrier\":\"UPS\"}";
+
+        MvcResult first = mockMvc.perform(post("/api/v1/beerorders/{beerOrderId}/shipments", orderId)
+                        .header("Idempotency-Key", "shipment-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(shipment))
+                .andExpect(status().isCreated())
+                .andReturn();
+        Integer shipmentId = JsonPath.read(first.getResponse().getContentAsString(), "$.id");
+
+        mockMvc.perform(post("/api/v1/beerorders/{beerOrderId}/shipments", orderId)
+                        .header("Idempotency-Key", "shipment-key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(shipment))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.id").value(shipmentId));
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer_order_shipment", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void createShipment_missingOrderIsNotRecorded() throws Exception {
+        String shipment = "{\"beerOrderId\":999999,\"shipmentStatus\":\"PENDING\"}";
+
+        mockMvc.perform(post("/api/v1/beerorders/{beerOrderId}/shipments", 999_999)
+                        .header("Idempotency-Key", "shipment-key-2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(shipment))
+                .andExpect(status().isNotFound());
+
+        assertThat(jdbcTemplate.queryForObject("select count(*) from idempotency_record", Integer.class)).isZero();
+    }
+
+    private String orderJson(String customerRef) {
+        return "{\"customerRef\":\"" + customerRef + "\",\"paymentAmount\":10.00,\"items\":[{\"beerId\":"
+                + beerId + ",\"quantity\":1}]}";
+    }
+}
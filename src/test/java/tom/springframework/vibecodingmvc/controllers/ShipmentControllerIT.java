@@ -0,0 +1,303 @@
+package tom.springframework.vibecodingmvc.controllers;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.shipment-transitions.batch-size=2")
+@AutoConfigureMockMvc
+class ShipmentControllerIT {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    Integer orderId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Integer beerId = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Wave Lager")
+                .beerStyle("LAGER")
+                .price(new BigDecimal("5.00"))
+                .upc("999")
+                .build()).getId();
+        MvcResult order = mockMvc.perform(post("/api/v1/beer-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"customerRef\":\"PO-WAVE\",\"paymentAmount\":10.00,\"items\":[{\"beerId\":"
+                                + beerId + ",\"quantity\":1}]}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        orderId = JsonPath.read(order.getResponse().getContentAsString(), "$.id");
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order_shipment");
+        jdbcTemplate.update("delete from beer_order_line");
+        jdbcTemplate.update("delete from beer_order");
+        jdbcTemplate.update("delete from beer");
+    }
+
+    @Test
+    void transitions_applyRulesPerShipment_acrossBatches() throws Exception {
+        Integer tracked = createShipment("\"trackingNumber\":\"TRK-1\"");
+        Integer untracked = createShipment("\"carrier\":\"UPS\"");
+        Integer scanned = createShipment("\"carrier\":\"UPS\"");
+
+        mockMvc.perform(post("/api/v1/shipments/transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"IN_TRANSIT\",\"carrier\":\"DHL\",\"shipments\":["
+                                + "{\"id\":" + tracked + "},"
+                                + "{\"id\":" + untracked + "},"
+                                + "{\"id\":" + scanned + ",\"trackingNumber\":\"TRK-3\"},"
+                                + "{\"id\":999999},"
+                                + "{\"id\":" + tracked + "}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.results.length()").value(5))
+                .andExpect(jsonPath("$.results[0].outcome").value("APPLIED"))
+                .andExpect(jsonPath("$.results[1].outcome").value("REJECTED"))
+                .andExpect(jsonPath("$.results[1].error").value("trackingNumber and carrier are required when status is IN_TRANSIT or later"))
+                .andExpect(jsonPath("$.results[2].outcome").value("APPLIED"))
+                .andExpect(jsonPath("$.results[3].outcome").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.results[4].outcome").value("REJECTED"));
+
+        Map<String, Object> moved = jdbcTemplate.queryForMap(
+                "select shipment_status, tracking_number, carrier, shipped_date, version from beer_order_shipment where id = ?",
+                scanned);
+        assertThat(moved.get("SHIPMENT_STATUS")).isEqualTo("IN_TRANSIT");
+        assertThat(moved.get("TRACKING_NUMBER")).isEqualTo("TRK-3");
+        assertThat(moved.get("CARRIER")).isEqualTo("DHL");
+        assertThat(moved.get("SHIPPED_DATE")).isNotNull();
+        assertThat(moved.get("VERSION")).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("select shipment_status from beer_order_shipment where id = ?",
+                String.class, untracked)).isEqualTo("PENDING");
+    }
+
+    @Test
+    void byTracking_followsTrackingNumberChanges() throws Exception {
+        Integer shipmentId = createShipment("\"trackingNumber\":\"TRK-OLD\"");
+
+        mockMvc.perform(get("/api/v1/shipments/by-tracking/{trackingNumber}", "TRK-OLD"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + shipmentId + "-0\""))
+                .andExpect(jsonPath("$.id").value(shipmentId))
+                .andExpect(jsonPath("$.beerOrderId").value(orderId));
+
+        mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", orderId, shipmentId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"trackingNumber\":\"TRK-NEW\"}"))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/v1/shipments/by-tracking/{trackingNumber}", "TRK-OLD"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/shipments/by-tracking/{trackingNumber}", "TRK-NEW"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(shipmentId));
+
+        // The old number can now go to another shipment, whose lookup replaces the stale entry
+        Integer other = createShipment("\"trackingNumber\":\"TRK-OLD\"");
+        mockMvc.perform(get("/api/v1/shipments/by-tracking/{trackingNumber}", "TRK-OLD"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(other));
+    }
+
+    @Test
+    void duplicateTrackingNumber_isConflict_orRejectedInTransitions() throws Exception {
+        Integer holder = createShipment("\"trackingNumber\":\"TRK-TAKEN\"");
+        Integer other = createShipment("\"carrier\":\"UPS\"");
+
+        mockMvc.perform(post("/api/v1/beerorders/{beerOrderId}/shipments", orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"beerOrderId\":" + orderId + ",\"shipmentStatus\":\"PENDING\",\"trackingNumber\":\"TRK-TAKEN\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.title").value("Duplicate tracking number"));
+        mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", orderId, other)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"trackingNumber\":\"TRK-TAKEN\"}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/v1/shipments/transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PACKED\",\"shipments\":[{\"id\":" + other + ",\"trackingNumber\":\"TRK-TAKEN\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].outcome").value("REJECTED"))
+                .andExpect(jsonPath("$.results[0].error").value("Tracking number TRK-TAKEN is already used by shipment " + holder));
+    }
+
+    @Test
+    void blankTrackingNumbers_areStoredAsNone_andDoNotCollide() throws Exception {
+        Integer first = createShipment("\"trackingNumber\":\"\"");
+        Integer second = createShipment("\"trackingNumber\":\"  \"");
+        mockMvc.perform(patch("/api/v1/beerorders/{beerOrderId}/shipments/{id}", orderId, first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"trackingNumber\":\" \",\"carrier\":\"UPS\"}"))
+                .andExpect(status().isNoContent());
+
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from beer_order_shipment where id in (?, ?) and tracking_number is null",
+                Integer.class, first, second)).isEqualTo(2);
+    }
+
+    @Test
+    void claims_leaseDisjointPendingShipments_untilTheLeaseExpires() throws Exception {
+        Integer first = createShipment("\"carrier\":\"UPS\"");
+        Integer second = createShipment("\"carrier\":\"UPS\"");
+        Integer packed = createShipment("\"carrier\":\"UPS\"");
+        mockMvc.perform(post("/api/v1/shipments/transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PACKED\",\"shipments\":[{\"id\":" + packed + "}]}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/v1/shipments/claims")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"worker\":\"packer-1\",\"limit\":1}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.worker").value("packer-1"))
+                .andExpect(jsonPath("$.leaseExpiresAt").exists())
+                .andExpect(jsonPath("$.shipments.length()").value(1))
+                .andExpect(jsonPath("$.shipments[0].id").value(first))
+                .andExpect(jsonPath("$.shipments[0].version").value(0));
+        mockMvc.perform(post("/api/v1/shipments/claims")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"worker\":\"packer-2\",\"limit\":5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shipments.length()").value(1))
+                .andExpect(jsonPath("$.shipments[0].id").value(second));
+        mockMvc.perform(post("/api/v1/shipments/claims")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"worker\":\"packer-3\",\"limit\":5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shipments.length()").value(0));
+
+        // An expired lease makes the shipment claimable again
+        jdbcTemplate.update("update beer_order_shipment set lease_expires_at = ? where id = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), first);
+        mockMvc.perform(post("/api/v1/shipments/claims")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"worker\":\"packer-3\",\"limit\":5,\"leaseSeconds\":60}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.shipments.length()").value(1))
+                .andExpect(jsonPath("$.shipments[0].id").value(first));
+        assertThat(jdbcTemplate.queryForObject("select lease_owner from beer_order_shipment where id = ?",
+                String.class, first)).isEqualTo("packer-3");
+
+        mockMvc.perform(post("/api/v1/shipments/claims")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"worker\":\"packer-1\",\"limit\":1000}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/shipments/claims")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"worker\":\"\",\"limit\":1}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void stream_sendsTheOrdersCommittedChanges_andResumesAfterLastEventId() throws Exception {
+        MvcResult stream = mockMvc.perform(get("/api/v1/shipments/stream").param("beerOrderId", orderId.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult otherOrders = mockMvc.perform(get("/api/v1/shipments/stream").param("beerOrderId", "999999"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        Integer shipmentId = createShipment("\"carrier\":\"UPS\"");
+        mockMvc.perform(post("/api/v1/shipments/transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PACKED\",\"shipments\":[{\"id\":" + shipmentId + "}]}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/v1/beerorders/{beerOrderId}/shipments/{id}", orderId, shipmentId))
+                .andExpect(status().isNoContent());
+
+        List<String> events = awaitEvents(stream, 3);
+        assertThat(events.get(0)).contains("\"type\":\"CREATED\"", "\"shipmentStatus\":\"PENDING\"");
+        assertThat(events.get(1)).contains("\"type\":\"UPDATED\"", "\"shipmentStatus\":\"PACKED\"", "\"version\":1");
+        assertThat(events.get(2)).contains("\"type\":\"DELETED\"", "\"shipmentId\":" + shipmentId);
+        assertThat(events).allSatisfy(event -> assertThat(event).contains("event:shipment", "\"beerOrderId\":" + orderId));
+
+        // A reconnecting client gets what followed the last event it saw
+        String createdId = events.get(0).lines().filter(line -> line.startsWith("id:")).findFirst().orElseThrow()
+                .substring(3);
+        MvcResult resumed = mockMvc.perform(get("/api/v1/shipments/stream").header("Last-Event-ID", createdId))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        List<String> replayed = awaitEvents(resumed, 2);
+        assertThat(replayed.get(0)).contains("\"type\":\"UPDATED\"");
+        assertThat(replayed.get(1)).contains("\"type\":\"DELETED\"");
+
+        assertThat(otherOrders.getResponse().getContentAsString()).doesNotContain("event:shipment");
+        for (MvcResult result : List.of(stream, otherOrders, resumed)) {
+            result.getRequest().getAsyncContext().complete();
+        }
+    }
+
+    @Test
+    void transitions_invalidRequest_isBadRequest() throws Exception {
+        mockMvc.perform(post("/api/v1/shipments/transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PACKED\",\"shipments\":[]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/v1/shipments/transitions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"LOST\",\"shipments\":[{\"id\":1}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // The "shipment" events written to a stream so far, waiting until there are at least "count" of them
+    private static List<String> awaitEvents(MvcResult stream, int count) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        List<String> events;
+        do {
+            Thread.sleep(20);
+            events = Arrays.stream(stream.getResponse().getContentAsString().split("\n\n"))
+                    .filter(event -> event.contains("event:shipment"))
+                    .toList();
+        } while (events.size() < count && System.nanoTime() < deadline);
+        assertThat(events).hasSize(count);
+        return events;
+    }
+
+    private Integer createShipment(String fields) throws Exception {
+        MvcResult shipment = mockMvc.perform(post("/api/v1/beerorders/{beerOrderId}/shipments", orderId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"beerOrderId\":" + orderId + ",\"shipmentStatus\":\"PENDING\"," + fields + "}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return JsonPath.read(shipment.getResponse().getContentAsString(), "$.id");
+    }
+}
@@ -1,12 +1,15 @@
 package tom.springframework.vibecodingmvc.repositories;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import tom.springframework.vibecodingmvc.entities.BeerOrder;
+import tom.springframework.vibecodingmvc.models.BeerOrderSummaryResponse;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -19,6 +22,9 @@ class BeerOrderRepositoryTest {
     @Autowired
     BeerOrderRepository beerOrderRepository;
 
+    @Autowired
+    TestEntityManager entityManager;
+
     @Test
     void testFindAllWithCreatedDateSort() {
         // Given
@@ -45,4 +51,27 @@ class BeerOrderRepositoryTest {
         // We can't strictly assert order1 vs order2 because they might have same timestamp if saved too fast,
         // but the main point is it doesn't throw PropertyReferenceException.
     }
+
+    @Test
+    void testFindSummaries_projectsSummaryColumnsWithoutManagingEntities() {
+        // Given
+        beerOrderRepository.saveAllAndFlush(List.of(
+                BeerOrder.builder().customerRef("Summary 1").paymentAmount(new BigDecimal("10.00")).status("NEW").build(),
+                BeerOrder.builder().customerRef("Summary 2").paymentAmount(new BigDecimal("20.00")).status("NEW").build()));
+        entityManager.clear();
+
+        // When
+        Page<BeerOrderSummaryResponse> page = beerOrderRepository.findSummaries(
+                PageRequest.of(0, 1, Sort.by("paymentAmount").descending()));
+
+        // Then
+        assertThat(page.getTotalElements()).isEqualTo(2);
+        assertThat(page.getContent()).singleElement()
+                .satisfies(summary -> {
+                    assertThat(summary.customerRef()).isEqualTo("Summary 2");
+                    assertThat(summary.status()).isEqualTo("NEW");
+                    assertThat(summary.createdDate()).isNotNull();
+                });
+        assertThat(entityManager.getEntityManager().unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
 }
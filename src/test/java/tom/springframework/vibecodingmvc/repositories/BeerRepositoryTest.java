@@ -3,15 +3,21 @@ package tom.springframework.vibecodingmvc.repositories;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import tom.springframework.vibecodingmvc.entities.Beer;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 
 @DataJpaTest
 class BeerRepositoryTest {
@@ -99,6 +105,73 @@ class BeerRepositoryTest {
         assertThat(deletedBeerOptional).isEmpty();
     }
 
+    @Test
+    void testUpdateAndDeleteByIdAndVersion_onlyTouchCurrentVersion() {
+        Beer saved = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Versioned")
+                .beerStyle("IPA")
+                .upc("777")
+                .price(new BigDecimal("4.99"))
+                .quantityOnHand(5)
+                .build());
+        Integer version = saved.getVersion();
+
+        assertThat(beerRepository.updateByIdAndVersion(saved.getId(), version + 1, "Stale", "IPA", "777", null, null, null))
+                .isZero();
+        assertThat(beerRepository.updateByIdAndVersion(saved.getId(), version, "Fresh", "IPA", "777", null, null, null))
+                .isEqualTo(1);
+
+        Beer reloaded = beerRepository.findById(saved.getId()).orElseThrow();
+        assertThat(reloaded.getBeerName()).isEqualTo("Fresh");
+        assertThat(reloaded.getQuantityOnHand()).isEqualTo(5); // null keeps the current value
+        assertThat(reloaded.getVersion()).isEqualTo(version + 1);
+        assertThat(beerRepository.findVersionById(saved.getId())).contains(version + 1);
+
+        assertThat(beerRepository.deleteByIdAndVersion(saved.getId(), version)).isZero();
+        assertThat(beerRepository.deleteByIdAndVersion(saved.getId(), version + 1)).isEqualTo(1);
+        assertThat(beerRepository.existsById(saved.getId())).isFalse();
+    }
+
+    @Test
+    void testUpdateAndDeleteById_reportAffectedRows() {
+        Beer saved = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Single Statement")
+                .beerStyle("LAGER")
+                .upc("888")
+                .price(new BigDecimal("3.99"))
+                .quantityOnHand(9)
+                .build());
+        Integer version = saved.getVersion();
+
+        assertThat(beerRepository.updateById(saved.getId(), "Renamed", null, null, null, null, "fresh")).isEqualTo(1);
+        assertThat(beerRepository.updateById(-1, "Ghost", null, null, null, null, null)).isZero();
+
+        Beer reloaded = beerRepository.findById(saved.getId()).orElseThrow();
+        assertThat(reloaded.getBeerName()).isEqualTo("Renamed");
+        assertThat(reloaded.getBeerStyle()).isEqualTo("LAGER"); // null keeps the current value
+        assertThat(reloaded.getDescription()).isEqualTo("fresh");
+        assertThat(reloaded.getVersion()).isEqualTo(version + 1);
+
+        assertThat(beerRepository.deleteByIdReturningCount(saved.getId())).isEqualTo(1);
+        assertThat(beerRepository.deleteByIdReturningCount(saved.getId())).isZero();
+    }
+
+    @Test
+    void testFacetCountFallbacks_groupByStyleAndStock() {
+        beerRepository.deleteAll();
+        beerRepository.saveAll(List.of(
+                Beer.builder().beerName("Galaxy IPA").beerStyle("IPA").upc("1").quantityOnHand(4).price(BigDecimal.ONE).build(),
+                Beer.builder().beerName("Galaxy Stout").beerStyle("STOUT").upc("2").quantityOnHand(0).price(BigDecimal.ONE).build(),
+                Beer.builder().beerName("Pale Rider").beerStyle("IPA").upc("3").quantityOnHand(2).price(BigDecimal.ONE).build()));
+
+        assertThat(beerRepository.countByBeerStyle(null))
+                .extracting(BeerRepository.FacetCountView::getValue, BeerRepository.FacetCountView::getCount)
+                .containsExactlyInAnyOrder(tuple("IPA", 2L), tuple("STOUT", 1L));
+        assertThat(beerRepository.countByStockStatus("GALAXY"))
+                .extracting(BeerRepository.FacetCountView::getValue, BeerRepository.FacetCountView::getCount)
+                .containsExactlyInAnyOrder(tuple("IN_STOCK", 1L), tuple("OUT_OF_STOCK", 1L));
+    }
+
     @Test
     void testListBeers() {
         // Given
@@ -153,4 +226,33 @@ class BeerRepositoryTest {
         assertThat(page.getTotalElements()).isEqualTo(1);
         assertThat(page.getContent().getFirst().getBeerName()).isEqualTo("Galaxy Cat IPA");
     }
+
+    @Test
+    void testFindAllBy_keysetWindowsCoverAllRowsOnce() {
+        // Given
+        beerRepository.deleteAll();
+        for (String name : List.of("Delta", "Alpha", "Charlie", "Bravo", "Alpha")) {
+            beerRepository.save(Beer.builder()
+                    .beerName(name)
+                    .beerStyle("IPA")
+                    .upc("000")
+                    .price(new BigDecimal("1.00"))
+                    .quantityOnHand(1)
+                    .build());
+        }
+        Sort sort = Sort.by(Sort.Order.asc("beerName"), Sort.Order.asc("id"));
+
+        // When
+        List<String> seen = new ArrayList<>();
+        ScrollPosition position = ScrollPosition.keyset();
+        Window<Beer> window;
+        do {
+            window = beerRepository.findAllBy(position, sort, Limit.of(2));
+            window.forEach(beer -> seen.add(beer.getBeerName()));
+            position = window.isEmpty() ? position : window.positionAt(window.size() - 1);
+        } while (window.hasNext());
+
+        // Then
+        assertThat(seen).containsExactly("Alpha", "Alpha", "Bravo", "Charlie", "Delta");
+    }
 }
\ No newline at end of file
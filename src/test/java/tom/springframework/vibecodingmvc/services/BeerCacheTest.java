@@ -0,0 +1,141 @@
+package tom.springframework.vibecodingmvc.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tom.springframework.vibecodingmvc.config.BeerCacheProperties;
+import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerCacheTest {
+
+    SimpleMeterRegistry meterRegistry;
+    BeerCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BeerCache(new BeerCacheProperties(2L, Duration.ofMinutes(1)), meterRegistry);
+    }
+
+    @Test
+    void get_loadsOnce_andRecordsHitsAndMisses() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(1, id -> { loads.incrementAndGet(); return Optional.of(beer(id, 0)); });
+        cache.get(1, id -> { loads.incrementAndGet(); return Optional.of(beer(id, 0)); });
+
+        assertThat(loads).hasValue(1);
+        assertThat(gets("hit")).isEqualTo(1);
+        assertThat(gets("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void getAll_loadsOnlyUncachedIdsInOneCall() {
+        cache.get(1, id -> Optional.of(beer(id, 0)));
+        List<List<Integer>> calls = new ArrayList<>();
+
+        Map<Integer, BeerResponseDto> found = cache.getAll(List.of(1, 2, 3), ids -> {
+            calls.add(List.copyOf(ids));
+            return List.of(beer(2, 0));
+        });
+
+        assertThat(found).containsOnlyKeys(1, 2);
+        assertThat(calls).containsExactly(List.of(2, 3));
+        assertThat(gets("hit")).isEqualTo(1);
+    }
+
+    @Test
+    void get_doesNotCacheMissingBeers() {
+        cache.get(1, id -> Optional.empty());
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void get_discardsLoadThatRacedWithAnInvalidation() {
+        // the write lands (and invalidates) while the reader still holds the old row
+        Optional<BeerResponseDto> result = cache.get(1, id -> {
+            cache.invalidate(id);
+            return Optional.of(beer(id, 0));
+        });
+
+        assertThat(result).isPresent();
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void get_neverReplacesANewerVersion() {
+        cache.get(1, id -> Optional.of(beer(id, 3)));
+        cache.get(1, id -> Optional.of(beer(id, 2)));
+
+        assertThat(cache.get(1, id -> Optional.empty())).get()
+                .extracting(BeerResponseDto::version).isEqualTo(3);
+    }
+
+    @Test
+    void concurrentReadersNeverSeeAVersionOlderThanTheLastCommittedUpdate() throws Exception {
+        AtomicReference<BeerResponseDto> row = new AtomicReference<>(beer(1, 0));
+        AtomicInteger committed = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger staleReads = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 7; r++) {
+            readers.add(pool.submit(() -> {
+                while (running.get()) {
+                    int floor = committed.get();
+                    BeerResponseDto seen = cache.get(1, id -> {
+                        BeerResponseDto read = row.get();
+                        LockSupport.parkNanos(50_000); // widen the window between reading the row and caching it
+                        return Optional.of(read);
+                    }).orElseThrow();
+                    if (seen.version() < floor) {
+                        staleReads.incrementAndGet();
+                    }
+                }
+            }));
+        }
+
+        for (int version = 1; version <= 500; version++) {
+            row.set(beer(1, version));
+            cache.invalidate(1);
+            committed.set(version);
+            LockSupport.parkNanos(20_000);
+        }
+        running.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(10, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(staleReads).hasValue(0);
+        assertThat(cache.get(1, id -> Optional.of(row.get()))).get()
+                .extracting(BeerResponseDto::version).isEqualTo(500);
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", BeerCache.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+
+    private static BeerResponseDto beer(Integer id, int version) {
+        return new BeerResponseDto(id, version, "Beer " + id, "IPA", "123", 1, null, null, null, null);
+    }
+}
@@ -0,0 +1,79 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerFacetIndexTest {
+
+    BeerFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BeerFacetIndex();
+        index.rebuild(Map.of(
+                1, BeerFacetIndex.Entry.of("IPA", 10),
+                2, BeerFacetIndex.Entry.of("IPA", 0),
+                3, BeerFacetIndex.Entry.of("STOUT", null)
+        ));
+    }
+
+    @Test
+    void counts_afterRebuild() {
+        BeerFacetIndex.Facets facets = index.counts();
+
+        assertThat(facets.total()).isEqualTo(3);
+        assertThat(facets.beerStyles()).containsExactly(Map.entry("IPA", 2L), Map.entry("STOUT", 1L));
+        assertThat(facets.inStock()).isEqualTo(1);
+        assertThat(facets.outOfStock()).isEqualTo(2);
+    }
+
+    @Test
+    void put_movesBeerBetweenBuckets_andRemoveDropsEmptyStyles() {
+        index.put(3, "PORTER", 5);
+        index.remove(2);
+
+        BeerFacetIndex.Facets facets = index.counts();
+        assertThat(facets.beerStyles()).containsExactly(Map.entry("IPA", 1L), Map.entry("PORTER", 1L));
+        assertThat(facets.inStock()).isEqualTo(2);
+        assertThat(facets.outOfStock()).isZero();
+    }
+
+    @Test
+    void rebuild_replaysWritesMadeWhileTheSnapshotWasRead() {
+        index.beginRebuild();
+        index.put(4, "PORTER", 3);
+        index.putStock(2, 7);
+        index.remove(3);
+
+        index.rebuild(Map.of(
+                1, BeerFacetIndex.Entry.of("IPA", 10),
+                2, BeerFacetIndex.Entry.of("IPA", 0),
+                3, BeerFacetIndex.Entry.of("STOUT", null)
+        ));
+
+        BeerFacetIndex.Facets facets = index.counts();
+        assertThat(facets.beerStyles()).containsExactly(Map.entry("IPA", 2L), Map.entry("PORTER", 1L));
+        assertThat(facets.inStock()).isEqualTo(3);
+        assertThat(facets.outOfStock()).isZero();
+    }
+
+    @Test
+    void counts_forIds_aggregatesOnlyThoseBeers() {
+        BeerFacetIndex.Facets facets = index.counts(List.of(2, 3, 99));
+
+        assertThat(facets.total()).isEqualTo(2);
+        assertThat(facets.beerStyles()).containsExactly(Map.entry("IPA", 1L), Map.entry("STOUT", 1L));
+        assertThat(facets.inStock()).isZero();
+    }
+
+    @Test
+    void isReady_onlyAfterRebuild() {
+        assertThat(new BeerFacetIndex().isReady()).isFalse();
+        assertThat(index.isReady()).isTrue();
+    }
+}
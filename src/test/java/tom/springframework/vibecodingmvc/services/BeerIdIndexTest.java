@@ -0,0 +1,81 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerIdIndexTest {
+
+    BeerIdIndex index;
+    List<Collection<Integer>> lookups;
+
+    @BeforeEach
+    void setUp() {
+        index = new BeerIdIndex();
+        lookups = new ArrayList<>();
+    }
+
+    @Test
+    void findMissing_beforeRebuild_looksUpEveryId() {
+        assertThat(index.findMissing(List.of(1, 2), existing(1))).containsExactly(2);
+
+        assertThat(lookups).containsExactly(List.of(1, 2));
+    }
+
+    @Test
+    void findMissing_knownIdsNeedNoLookup() {
+        index.rebuild(List.of(1, 2, 3));
+
+        assertThat(index.findMissing(List.of(3, 1), existing())).isEmpty();
+        assertThat(lookups).isEmpty();
+    }
+
+    @Test
+    void findMissing_looksUpAbsentIdsOnceAndKeepsInputOrder() {
+        index.rebuild(List.of(1));
+
+        assertThat(index.findMissing(List.of(9, 1, 5, 7), existing(5))).containsExactly(9, 7);
+        assertThat(lookups).containsExactly(List.of(9, 5, 7));
+
+        // the confirmed id is now known
+        assertThat(index.findMissing(List.of(5), existing())).isEmpty();
+        assertThat(lookups).hasSize(1);
+    }
+
+    @Test
+    void addAndRemove_keepSetInSync() {
+        index.rebuild(List.of(1));
+        index.add(2);
+        index.remove(1);
+
+        assertThat(index.findMissing(List.of(1, 2), existing())).containsExactly(1);
+        assertThat(lookups).containsExactly(List.of(1));
+    }
+
+    @Test
+    void findMissing_removalDuringLookup_doesNotAddStaleIds() {
+        index.rebuild(List.of());
+
+        index.findMissing(List.of(4), ids -> {
+            lookups.add(ids);
+            index.remove(4);
+            return List.of(4);
+        });
+
+        assertThat(index.findMissing(List.of(4), existing())).containsExactly(4);
+        assertThat(lookups).hasSize(2);
+    }
+
+    private Function<Collection<Integer>, Collection<Integer>> existing(Integer... ids) {
+        return requested -> {
+            lookups.add(List.copyOf(requested));
+            return requested.stream().filter(List.of(ids)::contains).toList();
+        };
+    }
+}
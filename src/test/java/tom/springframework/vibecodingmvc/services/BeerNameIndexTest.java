@@ -0,0 +1,76 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BeerNameIndexTest {
+
+    BeerNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new BeerNameIndex();
+        index.rebuild(Map.of(
+                1, "Galaxy Cat IPA",
+                2, "Pale Rider",
+                3, "Mango Galaxy Sour",
+                4, "IPA"
+        ));
+    }
+
+    @Test
+    void search_matchesSubstringsCaseInsensitive() {
+        assertThat(index.search("GALAXY")).containsExactly(1, 3);
+        assertThat(index.search("laxy s")).containsExactly(3);
+        assertThat(index.search("ipa")).containsExactly(1, 4);
+    }
+
+    @Test
+    void rebuild_replaysWritesMadeWhileTheSnapshotWasRead() {
+        index.beginRebuild();
+        // The snapshot below was read before these writes
+        index.put(5, "Galaxy Gose");
+        index.put(2, "Pale Galaxy");
+        index.remove(3);
+
+        index.rebuild(Map.of(1, "Galaxy Cat IPA", 2, "Pale Rider", 3, "Mango Galaxy Sour"));
+
+        assertThat(index.search("galaxy")).containsExactly(1, 2, 5);
+        assertThat(index.search("rider")).isEmpty();
+    }
+
+    @Test
+    void search_verifiesCandidates_soSharedTrigramsDoNotFalselyMatch() {
+        // every trigram of "hopmalt" occurs in this name, but never as one contiguous substring
+        index.put(5, "Hopma Pmalt");
+        assertThat(index.search("hopmalt")).isEmpty();
+        assertThat(index.search("hopma")).containsExactly(5);
+    }
+
+    @Test
+    void search_shorterThanTrigram_scansNames() {
+        assertThat(index.search("le")).containsExactly(2);
+        assertThat(index.search("")).isEmpty();
+    }
+
+    @Test
+    void put_replacesPreviousNameAndRemoveDropsId() {
+        index.put(2, "Pale Ale Deluxe");
+        assertThat(index.search("rider")).isEmpty();
+        assertThat(index.search("deluxe")).containsExactly(2);
+
+        index.remove(2);
+        assertThat(index.search("pale")).isEmpty();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void isReady_onlyAfterRebuild() {
+        assertThat(new BeerNameIndex().isReady()).isFalse();
+        assertThat(index.isReady()).isTrue();
+    }
+}
@@ -0,0 +1,100 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the LIKE '%x%' repository query with the in-memory name index at growing catalog sizes.
+ * <p>
+ * Disabled by default; run with {@code mvn test -Dtest=BeerNameSearchBenchmarkTest -Dbenchmark=true}.
+ * Sizes can be overridden with {@code -Dbenchmark.sizes=10000,100000}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class BeerNameSearchBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BeerNameSearchBenchmarkTest.class);
+
+    private static final String[] WORDS = {"Galaxy", "Cat", "Pale", "Rider", "Hazy", "Night", "Owl", "Mango",
+            "Citra", "Mosaic", "Stout", "Porter", "Lager", "Pilsner", "Sour", "Amber", "Golden", "Imperial"};
+    private static final List<String> QUERIES = List.of("galaxy", "owl st", "imperial mango", "xyz");
+    private static final int ITERATIONS = 20;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerServiceImpl beerService;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer");
+        beerService.rebuildSearchIndexes();
+    }
+
+    @Test
+    void compareLikeQueryWithNameIndex() {
+        String sizes = System.getProperty("benchmark.sizes", "10000,100000,1000000");
+        for (int size : Arrays.stream(sizes.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray()) {
+            seed(size);
+            beerService.rebuildSearchIndexes();
+            PageRequest page = PageRequest.of(0, 20);
+
+            for (String query : QUERIES) {
+                long likeTotal = beerRepository.findAllByBeerNameContainingIgnoreCase(query, page).getTotalElements();
+                long indexTotal = beerService.listBeers(query, page).getTotalElements();
+                assertThat(indexTotal).isEqualTo(likeTotal);
+
+                double likeMicros = time(() -> beerRepository.findAllByBeerNameContainingIgnoreCase(query, page));
+                double indexMicros = time(() -> beerService.listBeers(query, page));
+                log.info("beers={} query='{}' matches={} like={}us index={}us speedup={}x",
+                        size, query, likeTotal, Math.round(likeMicros), Math.round(indexMicros),
+                        String.format("%.1f", likeMicros / Math.max(indexMicros, 1)));
+            }
+            jdbcTemplate.update("delete from beer");
+        }
+    }
+
+    private void seed(int size) {
+        int batch = 5_000;
+        for (int start = 0; start < size; start += batch) {
+            List<Object[]> rows = new ArrayList<>(batch);
+            for (int i = start; i < Math.min(start + batch, size); i++) {
+                String name = WORDS[i % WORDS.length] + " " + WORDS[(i / 7) % WORDS.length] + " "
+                        + WORDS[(i / 31) % WORDS.length] + " " + i;
+                rows.add(new Object[]{name, "IPA", String.valueOf(i), 10, new BigDecimal("9.99")});
+            }
+            jdbcTemplate.batchUpdate("insert into beer (version, beer_name, beer_style, upc, quantity_on_hand, price) "
+                    + "values (0, ?, ?, ?, ?, ?)", rows);
+        }
+    }
+
+    private static double time(Runnable action) {
+        action.run(); // warm-up
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+    }
+}
@@ -0,0 +1,141 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.models.BeerOrderLineResponse;
+import tom.springframework.vibecodingmvc.models.BeerOrderResponse;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class BeerOrderAllocationServiceTest {
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    BeerOrderAllocationService allocationService;
+
+    @Autowired
+    BeerOrderBatchService beerOrderBatchService;
+
+    @Autowired
+    BeerServiceImpl beerService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order_line");
+        jdbcTemplate.update("delete from beer_order");
+        jdbcTemplate.update("delete from beer");
+        beerService.rebuildSearchIndexes();
+    }
+
+    @Test
+    void createOrder_allocatesStockAndMarksLinesAllocated() {
+        Integer beerId = beer("Plenty", 10);
+
+        BeerOrderResponse order = beerOrderService.createOrder(command(item(beerId, 4)));
+
+        assertThat(order.status()).isEqualTo("ALLOCATED");
+        assertThat(order.lines()).singleElement()
+                .satisfies(line -> {
+                    assertThat(line.status()).isEqualTo("ALLOCATED");
+                    assertThat(line.quantityAllocated()).isEqualTo(4);
+                });
+        assertThat(stock(beerId)).isEqualTo(6);
+    }
+
+    @Test
+    void createOrder_backordersLinesWithoutEnoughStock() {
+        Integer plenty = beer("Plenty", 10);
+        Integer scarce = beer("Scarce", 1);
+
+        BeerOrderResponse order = beerOrderService.createOrder(command(item(plenty, 2), item(scarce, 3)));
+
+        assertThat(order.status()).isEqualTo("PARTIALLY_ALLOCATED");
+        assertThat(order.lines()).extracting(BeerOrderLineResponse::status)
+                .containsExactlyInAnyOrder("ALLOCATED", "BACKORDERED");
+        assertThat(stock(plenty)).isEqualTo(8);
+        assertThat(stock(scarce)).isEqualTo(1);
+
+        BeerOrderResponse none = beerOrderService.createOrder(command(item(scarce, 2)));
+        assertThat(none.status()).isEqualTo("BACKORDERED");
+        assertThat(none.lines().getFirst().quantityAllocated()).isZero();
+    }
+
+    @Test
+    void allocatePendingOrders_allocatesBulkAndBackorderedOrdersOnceStockArrives() throws Exception {
+        Integer beerId = beer("Restocked", 0);
+        Integer backordered = beerOrderService.createOrder(command(item(beerId, 5))).id();
+        beerOrderBatchService.createOrders(new ByteArrayInputStream(
+                ("{\"paymentAmount\":1.00,\"items\":[{\"beerId\":" + beerId + ",\"quantity\":3}]}\n").getBytes()));
+
+        assertThat(allocationService.allocatePendingOrders()).isZero();
+
+        jdbcTemplate.update("update beer set quantity_on_hand = 8 where id = ?", beerId);
+        assertThat(allocationService.allocatePendingOrders()).isEqualTo(2);
+
+        assertThat(beerOrderService.getOrder(backordered).orElseThrow().status()).isEqualTo("ALLOCATED");
+        assertThat(stock(beerId)).isZero();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from beer_order where status <> 'ALLOCATED'",
+                Integer.class)).isZero();
+    }
+
+    @Test
+    void allocateOrder_missingOrderIsEmpty() {
+        assertThat(allocationService.allocateOrder(-1)).isEmpty();
+    }
+
+    @Test
+    void createOrder_updatesStockFacetAndEvictsCachedBeer() {
+        Integer beerId = beer("Last Case", 2);
+        beerService.rebuildSearchIndexes();
+        assertThat(beerService.getBeerById(beerId).orElseThrow().quantityOnHand()).isEqualTo(2);
+        assertThat(beerService.getFacets(null).stock().inStock()).isEqualTo(1);
+
+        beerOrderService.createOrder(command(item(beerId, 2)));
+
+        assertThat(beerService.getBeerById(beerId).orElseThrow().quantityOnHand()).isZero();
+        assertThat(beerService.getFacets(null).stock().inStock()).isZero();
+        assertThat(beerService.getFacets(null).stock().outOfStock()).isEqualTo(1);
+    }
+
+    private Integer beer(String name, int quantityOnHand) {
+        return beerRepository.saveAndFlush(Beer.builder()
+                .beerName(name)
+                .beerStyle("IPA")
+                .upc(name)
+                .price(new BigDecimal("5.00"))
+                .quantityOnHand(quantityOnHand)
+                .build()).getId();
+    }
+
+    private int stock(Integer beerId) {
+        return jdbcTemplate.queryForObject("select quantity_on_hand from beer where id = ?", Integer.class, beerId);
+    }
+
+    private static CreateBeerOrderItem item(Integer beerId, int quantity) {
+        return new CreateBeerOrderItem(beerId, quantity);
+    }
+
+    private static CreateBeerOrderCommand command(CreateBeerOrderItem... items) {
+        return new CreateBeerOrderCommand("PO-ALLOC", new BigDecimal("10.00"), List.of(items));
+    }
+}
@@ -0,0 +1,141 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import tom.springframework.vibecodingmvc.config.BeerOrderIntakeProperties;
+import tom.springframework.vibecodingmvc.models.BeerOrderIntakeStatus;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class BeerOrderIntakeServiceTest {
+
+    BeerOrderService beerOrderService = mock(BeerOrderService.class);
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch firstStoreStarted = new CountDownLatch(1);
+    List<Integer> batchSizes = new ArrayList<>();
+    AtomicInteger nextId = new AtomicInteger(1);
+    BeerOrderIntakeServiceImpl intake;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (intake != null && intake.isRunning()) {
+            intake.stop();
+        }
+    }
+
+    @Test
+    void submit_unknownBeer_isRejectedBeforeQueueing() {
+        intake = intake(10, 10);
+        intake.start();
+        given(beerOrderService.findUnknownBeerIds(List.of(7))).willReturn(List.of(7));
+
+        assertThatThrownBy(() -> intake.submit(command("PO-1", 7)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("Unknown beer id(s): [7]");
+        intake.stop();
+
+        verify(beerOrderService, never()).createOrders(anyList());
+    }
+
+    @Test
+    void submit_whileStopped_isRefused() {
+        intake = intake(10, 10);
+
+        assertThatThrownBy(() -> intake.submit(command("PO-1", 1)))
+                .isInstanceOf(BeerOrderIntakeClosedException.class);
+    }
+
+    @Test
+    void submit_fullQueue_isRefused_andStopDrainsWhatWasAccepted() throws Exception {
+        intake = intake(2, 1);
+        blockFirstStore();
+        intake.start();
+
+        BeerOrderIntakeStatus inFlight = intake.submit(command("PO-1", 1));
+        assertThat(firstStoreStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        BeerOrderIntakeStatus queued1 = intake.submit(command("PO-2", 1));
+        BeerOrderIntakeStatus queued2 = intake.submit(command("PO-3", 1));
+        assertThatThrownBy(() -> intake.submit(command("PO-4", 1)))
+                .isInstanceOf(BeerOrderIntakeFullException.class);
+        assertThat(intake.getStatus(queued2.id())).hasValueSatisfying(status ->
+                assertThat(status.state()).isEqualTo(BeerOrderIntakeStatus.ACCEPTED));
+
+        release.countDown();
+        intake.stop();
+
+        assertThatThrownBy(() -> intake.submit(command("PO-5", 1)))
+                .isInstanceOf(BeerOrderIntakeClosedException.class);
+        for (BeerOrderIntakeStatus accepted : List.of(inFlight, queued1, queued2)) {
+            assertThat(intake.getStatus(accepted.id())).hasValueSatisfying(status -> {
+                assertThat(status.state()).isEqualTo(BeerOrderIntakeStatus.CREATED);
+                assertThat(status.orderId()).isNotNull();
+            });
+        }
+    }
+
+    @Test
+    void queuedOrders_areStoredInBatches_andAFailingBatchIsRetriedOneByOne() throws Exception {
+        intake = intake(10, 10);
+        blockFirstStore();
+        intake.start();
+
+        intake.submit(command("PO-1", 1));
+        assertThat(firstStoreStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        BeerOrderIntakeStatus good = intake.submit(command("PO-GOOD", 1));
+        BeerOrderIntakeStatus bad = intake.submit(command("PO-BAD", 1));
+        release.countDown();
+        intake.stop();
+
+        // first order alone, then both queued orders in one batch that fails, then each alone
+        assertThat(batchSizes).containsExactly(1, 2, 1, 1);
+        assertThat(intake.getStatus(good.id())).hasValueSatisfying(status ->
+                assertThat(status.state()).isEqualTo(BeerOrderIntakeStatus.CREATED));
+        assertThat(intake.getStatus(bad.id())).hasValueSatisfying(status -> {
+            assertThat(status.state()).isEqualTo(BeerOrderIntakeStatus.REJECTED);
+            assertThat(status.error()).isEqualTo("items: references an unknown beer");
+        });
+    }
+
+    private BeerOrderIntakeServiceImpl intake(int queueCapacity, int batchSize) {
+        return new BeerOrderIntakeServiceImpl(beerOrderService, new BeerOrderIntakeProperties(
+                queueCapacity, 1, batchSize, Duration.ofSeconds(5), null, null));
+    }
+
+    // The first store blocks until released, so later submissions pile up in the queue
+    private void blockFirstStore() {
+        given(beerOrderService.createOrders(anyList())).willAnswer(invocation -> {
+            List<CreateBeerOrderCommand> cmds = invocation.getArgument(0);
+            batchSizes.add(cmds.size());
+            if (batchSizes.size() == 1) {
+                firstStoreStarted.countDown();
+                release.await();
+            }
+            if (cmds.stream().anyMatch(cmd -> cmd.customerRef().equals("PO-BAD"))) {
+                throw new DataIntegrityViolationException("fk_bol_beer");
+            }
+            return cmds.stream().map(cmd -> nextId.getAndIncrement()).toList();
+        });
+    }
+
+    private static CreateBeerOrderCommand command(String customerRef, Integer beerId) {
+        return new CreateBeerOrderCommand(customerRef, BigDecimal.ONE, List.of(new CreateBeerOrderItem(beerId, 1)));
+    }
+}
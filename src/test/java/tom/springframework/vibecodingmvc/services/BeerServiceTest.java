@@ -1,26 +1,42 @@
 package tom.springframework.vibecodingmvc.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mapstruct.factory.Mappers;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tom.springframework.vibecodingmvc.config.BeerCacheProperties;
 import tom.springframework.vibecodingmvc.entities.Beer;
 import tom.springframework.vibecodingmvc.mappers.BeerMapper;
+import tom.springframework.vibecodingmvc.models.BeerBatchResponse;
+import tom.springframework.vibecodingmvc.models.BeerFacetsResponse;
 import tom.springframework.vibecodingmvc.models.BeerRequestDto;
 import tom.springframework.vibecodingmvc.models.BeerResponseDto;
+import tom.springframework.vibecodingmvc.models.CursorPageResponse;
 import tom.springframework.vibecodingmvc.repositories.BeerRepository;
 
 import java.math.BigDecimal;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -34,10 +50,24 @@ class BeerServiceTest {
 
     BeerMapper beerMapper;
 
+    BeerNameIndex beerNameIndex;
+
+    BeerFacetIndex beerFacetIndex;
+
+    BeerIdIndex beerIdIndex;
+
+    SimpleMeterRegistry meterRegistry;
+
     @BeforeEach
     void setUp() {
         beerMapper = Mappers.getMapper(BeerMapper.class);
-        beerService = new BeerServiceImpl(beerRepository, beerMapper);
+        beerNameIndex = new BeerNameIndex();
+        beerFacetIndex = new BeerFacetIndex();
+        beerIdIndex = new BeerIdIndex();
+        meterRegistry = new SimpleMeterRegistry();
+        beerService = new BeerServiceImpl(beerRepository, beerMapper, beerNameIndex, new KeysetCursorCodec(),
+                new PaginationMetrics(meterRegistry), new BeerCache(new BeerCacheProperties(null, null), meterRegistry),
+                beerFacetIndex, beerIdIndex);
     }
 
     @Test
@@ -123,6 +153,116 @@ class BeerServiceTest {
         verify(beerRepository, times(1)).findById(1);
     }
 
+    @Test
+    void getBeerById_secondCallServedFromCache_untilUpdateInvalidatesIt() {
+        Beer beer = Beer.builder().id(1).version(0).beerName("Cached Beer").build();
+        Beer updated = Beer.builder().id(1).version(1).beerName("Renamed Beer").build();
+        when(beerRepository.findById(1)).thenReturn(Optional.of(beer));
+
+        beerService.getBeerById(1);
+        beerService.getBeerById(1);
+        verify(beerRepository, times(1)).findById(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "beers").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1);
+
+        when(beerRepository.updateById(eq(1), eq("Renamed Beer"), any(), any(), any(), any(), any())).thenReturn(1);
+        when(beerRepository.findById(1)).thenReturn(Optional.of(updated));
+        beerService.updateBeer(1, new BeerRequestDto("Renamed Beer", null, null, null, null, null));
+
+        assertThat(beerService.getBeerById(1)).get()
+                .extracting(BeerResponseDto::version).isEqualTo(1);
+    }
+
+    @Test
+    void getBeersByIds_preservesRequestOrder_reportsMissing_andUsesOneQuery() {
+        Beer one = Beer.builder().id(1).version(0).beerName("One").build();
+        Beer three = Beer.builder().id(3).version(0).beerName("Three").build();
+        when(beerRepository.findAllById(List.of(3, 2, 1))).thenReturn(List.of(one, three));
+
+        BeerBatchResponse result = beerService.getBeersByIds(List.of(3, 2, 1, 3));
+
+        assertThat(result.content()).extracting(BeerResponseDto::id).containsExactly(3, 1);
+        assertThat(result.missing()).containsExactly(2);
+        verify(beerRepository, times(1)).findAllById(any());
+        verify(beerRepository, never()).findById(any());
+    }
+
+    @Test
+    void getBeersByIds_servesCachedBeersWithoutQueryingThem() {
+        when(beerRepository.findById(1)).thenReturn(Optional.of(Beer.builder().id(1).version(0).beerName("One").build()));
+        beerService.getBeerById(1);
+        when(beerRepository.findAllById(List.of(2))).thenReturn(List.of(Beer.builder().id(2).version(0).beerName("Two").build()));
+
+        BeerBatchResponse result = beerService.getBeersByIds(List.of(1, 2));
+
+        assertThat(result.content()).extracting(BeerResponseDto::beerName).containsExactly("One", "Two");
+        verify(beerRepository).findAllById(List.of(2));
+    }
+
+    @Test
+    void getBeersByIds_rejectsOversizedRequests() {
+        List<Integer> ids = java.util.stream.IntStream.rangeClosed(1, BeerServiceImpl.MAX_BATCH_IDS + 1).boxed().toList();
+
+        assertThatThrownBy(() -> beerService.getBeersByIds(ids)).isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(beerRepository);
+    }
+
+    @Test
+    void getBeersByIds_rejectsBlankEntries() {
+        assertThatThrownBy(() -> beerService.getBeersByIds(java.util.Arrays.asList(1, null, 2)))
+                .isInstanceOf(InvalidRequestException.class);
+        verifyNoInteractions(beerRepository);
+    }
+
+    @Test
+    void getFacets_combinesNameFilterWithInMemoryCounters_andTracksWrites() {
+        beerNameIndex.rebuild(Map.of(1, "Galaxy IPA", 2, "Galaxy Stout", 3, "Pale Rider"));
+        beerFacetIndex.rebuild(Map.of(
+                1, BeerFacetIndex.Entry.of("IPA", 10),
+                2, BeerFacetIndex.Entry.of("STOUT", 0),
+                3, BeerFacetIndex.Entry.of("PALE_ALE", 5)));
+
+        BeerFacetsResponse galaxy = beerService.getFacets("galaxy");
+        assertThat(galaxy.total()).isEqualTo(2);
+        assertThat(galaxy.beerStyle()).containsExactly(Map.entry("IPA", 1L), Map.entry("STOUT", 1L));
+        assertThat(galaxy.stock()).isEqualTo(new BeerFacetsResponse.Stock(1, 1));
+
+        when(beerRepository.save(any(Beer.class))).thenReturn(
+                Beer.builder().id(4).beerName("Galaxy Lager").beerStyle("LAGER").quantityOnHand(3).build());
+        beerService.saveBeer(new BeerRequestDto("Galaxy Lager", "LAGER", "4", 3, BigDecimal.ONE, null));
+
+        BeerFacetsResponse all = beerService.getFacets(null);
+        assertThat(all.total()).isEqualTo(4);
+        assertThat(all.beerStyle()).containsEntry("LAGER", 1L);
+        assertThat(all.stock()).isEqualTo(new BeerFacetsResponse.Stock(3, 1));
+        verify(beerRepository, never()).countByBeerStyle(any());
+    }
+
+    @Test
+    void getFacets_beforeIndexesAreBuilt_aggregatesInDatabase() {
+        when(beerRepository.countByBeerStyle("ipa")).thenReturn(List.of(facetRow("IPA", 2L)));
+        when(beerRepository.countByStockStatus("ipa")).thenReturn(List.of(facetRow("IN_STOCK", 1L), facetRow("OUT_OF_STOCK", 1L)));
+
+        BeerFacetsResponse facets = beerService.getFacets("ipa");
+
+        assertThat(facets.total()).isEqualTo(2);
+        assertThat(facets.stock()).isEqualTo(new BeerFacetsResponse.Stock(1, 1));
+    }
+
+    private static BeerRepository.FacetCountView facetRow(String value, Long count) {
+        return new BeerRepository.FacetCountView() {
+            @Override
+            public String getValue() {
+                return value;
+            }
+
+            @Override
+            public Long getCount() {
+                return count;
+            }
+        };
+    }
+
     @Test
     void testGetBeerByIdNotFound() {
         // Given
@@ -173,15 +313,6 @@ class BeerServiceTest {
         // Given
         Integer beerId = 1;
         
-        Beer existingBeer = Beer.builder()
-                .id(beerId)
-                .beerName("Original Beer")
-                .beerStyle("IPA")
-                .upc("123456")
-                .price(new BigDecimal("12.99"))
-                .quantityOnHand(100)
-                .build();
-        
         BeerRequestDto updatedDto = new BeerRequestDto(
                 "Updated Beer",
                 "Stout",
@@ -200,8 +331,9 @@ class BeerServiceTest {
                 .quantityOnHand(200)
                 .build();
         
-        when(beerRepository.findById(beerId)).thenReturn(Optional.of(existingBeer));
-        when(beerRepository.save(any(Beer.class))).thenReturn(savedBeer);
+        when(beerRepository.updateById(beerId, "Updated Beer", "Stout", "654321", 200,
+                new BigDecimal("14.99"), "Updated desc")).thenReturn(1);
+        when(beerRepository.findById(beerId)).thenReturn(Optional.of(savedBeer));
 
         // When
         Optional<BeerResponseDto> result = beerService.updateBeer(beerId, updatedDto);
@@ -210,8 +342,7 @@ class BeerServiceTest {
         assertThat(result).isPresent();
         assertThat(result.get().id()).isEqualTo(beerId);
         assertThat(result.get().beerName()).isEqualTo("Updated Beer");
-        verify(beerRepository, times(1)).findById(beerId);
-        verify(beerRepository, times(1)).save(any(Beer.class));
+        verify(beerRepository, never()).save(any(Beer.class));
     }
 
     @Test
@@ -227,14 +358,14 @@ class BeerServiceTest {
                 "Updated desc"
         );
         
-        when(beerRepository.findById(beerId)).thenReturn(Optional.empty());
+        when(beerRepository.updateById(eq(beerId), any(), any(), any(), any(), any(), any())).thenReturn(0);
 
         // When
         Optional<BeerResponseDto> result = beerService.updateBeer(beerId, updatedDto);
 
         // Then
         assertThat(result).isEmpty();
-        verify(beerRepository, times(1)).findById(beerId);
+        verify(beerRepository, never()).findById(beerId);
         verify(beerRepository, never()).save(any(Beer.class));
     }
 
@@ -243,10 +374,183 @@ class BeerServiceTest {
         // Given
         Integer beerId = 1;
         
+        when(beerRepository.deleteByIdReturningCount(beerId)).thenReturn(1);
+
+        // When
+        boolean deleted = beerService.deleteBeer(beerId);
+
+        // Then
+        assertThat(deleted).isTrue();
+        verify(beerRepository, times(1)).deleteByIdReturningCount(beerId);
+        verify(beerRepository, never()).existsById(any());
+        verify(beerRepository, never()).findById(any());
+    }
+
+    @Test
+    void testDeleteBeerNotFound_reportedFromRowCount() {
+        when(beerRepository.deleteByIdReturningCount(999)).thenReturn(0);
+
+        assertThat(beerService.deleteBeer(999)).isFalse();
+        verify(beerRepository, never()).existsById(any());
+    }
+
+    @Test
+    void listBeers_withFilter_usesNameIndexOnceBuilt() {
+        // Given
+        beerNameIndex.rebuild(Map.of(1, "Galaxy Cat IPA", 2, "Pale Rider", 3, "Galaxy Haze"));
+        Beer beer1 = Beer.builder().id(1).beerName("Galaxy Cat IPA").beerStyle("IPA").build();
+        Beer beer3 = Beer.builder().id(3).beerName("Galaxy Haze").beerStyle("NEIPA").build();
+        when(beerRepository.findAllById(List.of(1, 3))).thenReturn(List.of(beer3, beer1));
+
+        // When
+        Page<BeerResponseDto> result = beerService.listBeers("galaxy", PageRequest.of(0, 10));
+
+        // Then
+        assertThat(result.getTotalElements()).isEqualTo(2);
+        assertThat(result.getContent()).extracting(BeerResponseDto::id).containsExactly(1, 3);
+        verify(beerRepository, never()).findAllByBeerNameContainingIgnoreCase(anyString(), any());
+    }
+
+    @Test
+    void listBeers_sortedByName_withTooManyIndexMatches_usesLikeQueryInsteadOfHugeInList() {
+        Map<Integer, String> names = new HashMap<>();
+        for (int id = 1; id <= BeerServiceImpl.MAX_BATCH_IDS + 1; id++) {
+            names.put(id, "Galaxy " + id);
+        }
+        beerNameIndex.rebuild(names);
+        Pageable pageable = PageRequest.of(0, 10, Sort.by("beerName"));
+        when(beerRepository.findAllByBeerNameContainingIgnoreCase("galaxy", pageable)).thenReturn(Page.empty(pageable));
+
+        beerService.listBeers("galaxy", pageable);
+
+        verify(beerRepository).findAllByBeerNameContainingIgnoreCase("galaxy", pageable);
+        verify(beerRepository, never()).findAllByIdIn(any(), any());
+    }
+
+    @Test
+    void listBeers_withFilter_noIndexMatch_skipsDatabase() {
+        // Given
+        beerNameIndex.rebuild(Map.of(1, "Galaxy Cat IPA"));
+
+        // When
+        Page<BeerResponseDto> result = beerService.listBeers("stout", PageRequest.of(0, 10));
+
+        // Then
+        assertThat(result.getTotalElements()).isZero();
+        verifyNoInteractions(beerRepository);
+    }
+
+    @Test
+    void saveUpdateDelete_keepNameAndIdIndexesInSync() {
+        // Given
+        beerNameIndex.rebuild(Map.of());
+        beerIdIndex.rebuild(List.of());
+        Beer saved = Beer.builder().id(7).beerName("Night Owl Porter").beerStyle("PORTER").build();
+        when(beerRepository.save(any(Beer.class))).thenReturn(saved);
+
+        // When / Then
+        beerService.saveBeer(new BeerRequestDto("Night Owl Porter", "PORTER", "777", 1, new BigDecimal("5.00"), null));
+        assertThat(beerNameIndex.search("owl")).containsExactly(7);
+        assertThat(beerIdIndex.findMissing(List.of(7), ids -> List.of())).isEmpty();
+
+        when(beerRepository.updateById(eq(7), eq("Early Bird Porter"), any(), any(), any(), any(), any())).thenReturn(1);
+        when(beerRepository.findById(7)).thenReturn(Optional.of(
+                Beer.builder().id(7).beerName("Early Bird Porter").beerStyle("PORTER").build()));
+        beerService.updateBeer(7, new BeerRequestDto("Early Bird Porter", null, null, null, null, null));
+        assertThat(beerNameIndex.search("owl")).isEmpty();
+        assertThat(beerNameIndex.search("bird")).containsExactly(7);
+
+        when(beerRepository.deleteByIdReturningCount(7)).thenReturn(1);
+        beerService.deleteBeer(7);
+        assertThat(beerNameIndex.search("bird")).isEmpty();
+        assertThat(beerIdIndex.findMissing(List.of(7), ids -> List.of())).containsExactly(7);
+    }
+
+    @Test
+    void updateAndDelete_insideTransaction_touchIndexesOnlyAfterCommit() {
+        // Given
+        beerNameIndex.rebuild(Map.of(7, "Night Owl Porter"));
+        beerIdIndex.rebuild(List.of(7));
+        when(beerRepository.updateById(eq(7), eq("Early Bird Porter"), any(), any(), any(), any(), any())).thenReturn(1);
+        when(beerRepository.findById(7)).thenReturn(Optional.of(
+                Beer.builder().id(7).beerName("Early Bird Porter").beerStyle("PORTER").build()));
+        when(beerRepository.deleteByIdReturningCount(7)).thenReturn(1);
+
+        // When: a rolled-back update leaves the index as it was
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            beerService.updateBeer(7, new BeerRequestDto("Early Bird Porter", null, null, null, null, null));
+            assertThat(beerNameIndex.search("owl")).containsExactly(7);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(beerNameIndex.search("owl")).containsExactly(7);
+
+        // Then: a committed delete reaches it once the transaction commits
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            beerService.deleteBeer(7);
+            assertThat(beerIdIndex.findMissing(List.of(7), ids -> List.of())).isEmpty();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(beerNameIndex.search("owl")).isEmpty();
+        assertThat(beerIdIndex.findMissing(List.of(7), ids -> List.of())).containsExactly(7);
+    }
+
+    @Test
+    void scrollBeers_returnsNextCursor_thatSeeksPastLastRow() {
+        // Given
+        Beer beer1 = Beer.builder().id(1).beerName("Amber").beerStyle("ALE").build();
+        Beer beer2 = Beer.builder().id(2).beerName("Bock").beerStyle("LAGER").build();
+        Sort expectedSort = Sort.by(Sort.Order.asc("beerName"), Sort.Order.asc("id"));
+        when(beerRepository.findAllBy(ScrollPosition.keyset(), expectedSort, Limit.of(2)))
+                .thenReturn(Window.from(List.of(beer1, beer2),
+                        i -> ScrollPosition.forward(Map.of("beerName", List.of(beer1, beer2).get(i).getBeerName(),
+                                "id", List.of(beer1, beer2).get(i).getId())),
+                        true));
+
+        // When
+        CursorPageResponse<BeerResponseDto> first = beerService.scrollBeers(null, "", 2, Sort.by("beerName"));
+
+        // Then
+        assertThat(first.content()).extracting(BeerResponseDto::id).containsExactly(1, 2);
+        assertThat(first.next()).isNotBlank();
+
+        when(beerRepository.findAllBy(ScrollPosition.forward(Map.of("beerName", "Bock", "id", 2)), expectedSort, Limit.of(2)))
+                .thenReturn(Window.from(List.of(), i -> ScrollPosition.keyset(), false));
+        CursorPageResponse<BeerResponseDto> second = beerService.scrollBeers(null, first.next(), 2, Sort.unsorted());
+        assertThat(second.content()).isEmpty();
+        assertThat(second.next()).isNull();
+    }
+
+    @Test
+    void scrollBeers_rejectsInvalidCursorAndUnsupportedSort() {
+        assertThatThrownBy(() -> beerService.scrollBeers(null, "not-a-cursor", 10, Sort.unsorted()))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> beerService.scrollBeers(null, "", 10, Sort.by("price")))
+                .isInstanceOf(InvalidCursorException.class);
+        verifyNoInteractions(beerRepository);
+    }
+
+    @Test
+    void sliceBeers_noFilter_usesSliceQuery_andRecordsSkippedCount() {
+        // Given
+        Beer beer1 = Beer.builder().id(1).beerName("Beer 1").beerStyle("IPA").build();
+        Pageable pageable = PageRequest.of(0, 1);
+        when(beerRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(List.of(beer1), pageable, true));
+
         // When
-        beerService.deleteBeer(beerId);
+        Slice<BeerResponseDto> result = beerService.sliceBeers(null, pageable);
 
         // Then
-        verify(beerRepository, times(1)).deleteById(beerId);
+        assertThat(result.getContent()).extracting(BeerResponseDto::id).containsExactly(1);
+        assertThat(result.hasNext()).isTrue();
+        verify(beerRepository, never()).findAll(any(Pageable.class));
+        assertThat(meterRegistry.get(PaginationMetrics.COUNT_QUERIES_SKIPPED).tag("resource", "beers").counter().count())
+                .isEqualTo(1.0);
     }
 }
\ No newline at end of file
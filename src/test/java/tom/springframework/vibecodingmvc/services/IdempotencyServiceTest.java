@@ -0,0 +1,190 @@
+package tom.springframework.vibecodingmvc.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tom.springframework.vibecodingmvc.config.IdempotencyProperties;
+import tom.springframework.vibecodingmvc.repositories.IdempotencyRecordRepository;
+import tom.springframework.vibecodingmvc.services.IdempotencyService.Outcome;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+
+    @Autowired
+    IdempotencyService idempotencyService;
+
+    @Autowired
+    IdempotencyRecordRepository repository;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from idempotency_record");
+    }
+
+    @Test
+    void execute_replaysRecordedOutcomeWithoutRunningAgain() {
+        AtomicInteger runs = new AtomicInteger();
+
+        Outcome<String> first = idempotencyService.execute("test", "replay", "request", String.class,
+                () -> created(runs.incrementAndGet()));
+        Outcome<String> second = idempotencyService.execute("test", "replay", "request", String.class,
+                () -> created(runs.incrementAndGet()));
+
+        assertThat(runs.get()).isEqualTo(1);
+        assertThat(first.replayed()).isFalse();
+        assertThat(second.replayed()).isTrue();
+        assertThat(second.status()).isEqualTo(201);
+        assertThat(second.location()).isEqualTo(URI.create("/things/1"));
+        assertThat(second.body()).isEqualTo("thing 1");
+    }
+
+    @Test
+    void execute_replaysFromDatabaseAfterRestart() {
+        idempotencyService.execute("test", "restart", "request", String.class, () -> created(1));
+
+        // A fresh instance has an empty in-memory store, as after a restart
+        IdempotencyService restarted = newInstance();
+        Outcome<String> replayed = restarted.execute("test", "restart", "request", String.class, () -> {
+            throw new AssertionError("must not run again");
+        });
+
+        assertThat(replayed.replayed()).isTrue();
+        assertThat(replayed.body()).isEqualTo("thing 1");
+    }
+
+    @Test
+    void execute_rejectsKeyReusedForDifferentRequest() {
+        idempotencyService.execute("test", "reuse", "request", String.class, () -> created(1));
+
+        assertThatThrownBy(() -> idempotencyService.execute("test", "reuse", "other request", String.class,
+                () -> created(2)))
+                .isInstanceOf(IdempotencyKeyReuseException.class);
+    }
+
+    @Test
+    void execute_sameKeyInOtherScopeIsIndependent() {
+        idempotencyService.execute("test", "scoped", "request", String.class, () -> created(1));
+
+        Outcome<String> other = idempotencyService.execute("other", "scoped", "request", String.class, () -> created(2));
+
+        assertThat(other.replayed()).isFalse();
+        assertThat(other.body()).isEqualTo("thing 2");
+    }
+
+    @Test
+    void execute_doesNotRecordFailures() {
+        assertThatThrownBy(() -> idempotencyService.execute("test", "failure", "request", String.class, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+        idempotencyService.execute("test", "rejected", "request", String.class,
+                () -> new Outcome<>(400, null, null, false));
+
+        assertThat(idempotencyService.execute("test", "failure", "request", String.class, () -> created(1)).replayed())
+                .isFalse();
+        assertThat(idempotencyService.execute("test", "rejected", "request", String.class, () -> created(2)).replayed())
+                .isFalse();
+    }
+
+    @Test
+    void execute_rejectsBlankAndOverlongKeys() {
+        assertThatThrownBy(() -> idempotencyService.execute("test", " ", "request", String.class, () -> created(1)))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> idempotencyService.execute("test", "k".repeat(256), "request", String.class,
+                () -> created(1)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    @Test
+    void execute_concurrentDuplicatesRunOnceAndReplay() throws Exception {
+        int threads = 16;
+        AtomicInteger runs = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Outcome<String>>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return idempotencyService.execute("test", "concurrent", "request", String.class, () -> {
+                        sleep(50);
+                        return created(runs.incrementAndGet());
+                    });
+                }));
+            }
+            start.countDown();
+
+            List<Outcome<String>> outcomes = new ArrayList<>();
+            for (Future<Outcome<String>> future : futures) {
+                outcomes.add(future.get());
+            }
+            assertThat(runs.get()).isEqualTo(1);
+            assertThat(outcomes).extracting(Outcome::body).containsOnly("thing 1");
+            assertThat(outcomes).filteredOn(outcome -> !outcome.replayed()).hasSize(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void execute_keyRecordedByAnotherInstanceWinsAndRollsBackOwnCreate() {
+        // Two instances with separate in-memory state race on the same key; only the database sees both
+        IdempotencyService other = newInstance();
+
+        Outcome<String> outcome = idempotencyService.execute("test", "race", "request", String.class, () -> {
+            jdbcTemplate.update("insert into idempotency_record (id, request_hash, response_status, created_date) "
+                    + "values ('test:marker', 'x', 200, current_timestamp)");
+            CompletableFuture.runAsync(() ->
+                    other.execute("test", "race", "request", String.class, () -> created(1))).join();
+            return created(2);
+        });
+
+        assertThat(outcome.replayed()).isTrue();
+        assertThat(outcome.body()).isEqualTo("thing 1");
+        // The losing create's own writes were rolled back with its record
+        assertThat(repository.existsById("test:marker")).isFalse();
+    }
+
+    private IdempotencyService newInstance() {
+        return new IdempotencyServiceImpl(repository, transactionTemplate, objectMapper,
+                new IdempotencyProperties(100L, Duration.ofMinutes(1), Duration.ofHours(1), Duration.ofSeconds(5)));
+    }
+
+    private static Outcome<String> created(int n) {
+        return new Outcome<>(201, URI.create("/things/" + n), "thing " + n, false);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs 64 concurrent allocators against a small catalog with one hot beer. Most threads create orders (allocating
+ * on create), some run the pending-order batch and some restock, so demand exceeds supply the whole time.
+ * Afterwards every unit of stock must be accounted for: nothing oversold, nothing lost.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=16"
+})
+class InventoryAllocationStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryAllocationStressTest.class);
+
+    private static final int THREADS = 64;
+    private static final int BATCH_ALLOCATORS = 4;
+    private static final int RESTOCKERS = 4;
+    private static final int ORDERS_PER_CREATOR = 15;
+    private static final int HOT_STOCK = 150;
+    private static final int COLD_STOCK = 100;
+    private static final String CUSTOMER_REF = "STRESS";
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @Autowired
+    BeerOrderAllocationService allocationService;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> beerIds = new ArrayList<>();
+
+    // Only the rows this test created; the in-memory database is shared with the rest of the suite
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order_line where beer_order_id in "
+                + "(select id from beer_order where customer_ref = ?)", CUSTOMER_REF);
+        jdbcTemplate.update("delete from beer_order where customer_ref = ?", CUSTOMER_REF);
+        beerIds.forEach(id -> jdbcTemplate.update("delete from beer where id = ?", id));
+    }
+
+    @Test
+    void concurrentAllocatorsNeverOversell() throws Exception {
+        Map<Integer, Integer> initial = new ConcurrentHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            int stock = i == 0 ? HOT_STOCK : COLD_STOCK;
+            Integer id = beerRepository.saveAndFlush(Beer.builder()
+                    .beerName("Stress " + i)
+                    .beerStyle("IPA")
+                    .upc("stress-" + i)
+                    .price(new BigDecimal("5.00"))
+                    .quantityOnHand(stock)
+                    .build()).getId();
+            beerIds.add(id);
+            initial.put(id, stock);
+        }
+        Integer hot = beerIds.getFirst();
+        Map<Integer, AtomicLong> restocked = new ConcurrentHashMap<>();
+        beerIds.forEach(id -> restocked.put(id, new AtomicLong()));
+
+        int creators = THREADS - BATCH_ALLOCATORS - RESTOCKERS;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch creatorsDone = new CountDownLatch(creators);
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger created = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long startedAt = System.nanoTime();
+        try {
+            for (int t = 0; t < creators; t++) {
+                Random random = new Random(t);
+                futures.add(executor.submit(() -> {
+                    try {
+                        start.await();
+                        for (int n = 0; n < ORDERS_PER_CREATOR; n++) {
+                            // Every order wants the hot beer, plus up to two others in random order
+                            List<CreateBeerOrderItem> items = new ArrayList<>();
+                            items.add(new CreateBeerOrderItem(hot, 1 + random.nextInt(3)));
+                            for (int extra = random.nextInt(3); extra > 0; extra--) {
+                                Integer other = beerIds.get(1 + random.nextInt(beerIds.size() - 1));
+                                items.add(new CreateBeerOrderItem(other, 1 + random.nextInt(4)));
+                            }
+                            beerOrderService.createOrder(new CreateBeerOrderCommand(CUSTOMER_REF, BigDecimal.ONE, items));
+                            created.incrementAndGet();
+                        }
+                    } finally {
+                        creatorsDone.countDown();
+                    }
+                    return null;
+                }));
+            }
+            for (int t = 0; t < BATCH_ALLOCATORS; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (!stop.get()) {
+                        allocationService.allocatePendingOrders();
+                    }
+                    return null;
+                }));
+            }
+            for (int t = 0; t < RESTOCKERS; t++) {
+                Random random = new Random(1_000 + t);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (!stop.get()) {
+                        Integer id = beerIds.get(random.nextInt(beerIds.size()));
+                        int quantity = 1 + random.nextInt(3);
+                        jdbcTemplate.update("update beer set quantity_on_hand = quantity_on_hand + ? where id = ?",
+                                quantity, id);
+                        restocked.get(id).addAndGet(quantity);
+                        Thread.sleep(5);
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            creatorsDone.await();
+            stop.set(true);
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            stop.set(true);
+            executor.shutdownNow();
+        }
+        long millis = (System.nanoTime() - startedAt) / 1_000_000;
+
+        for (Integer id : beerIds) {
+            int remaining = jdbcTemplate.queryForObject("select quantity_on_hand from beer where id = ?",
+                    Integer.class, id);
+            int allocated = jdbcTemplate.queryForObject(
+                    "select coalesce(sum(quantity_allocated), 0) from beer_order_line where beer_id = ?",
+                    Integer.class, id);
+            long supply = initial.get(id) + restocked.get(id).get();
+            log.info("beer={} supply={} allocated={} remaining={}", id, supply, allocated, remaining);
+            assertThat(remaining).isGreaterThanOrEqualTo(0);
+            assertThat(allocated + remaining).isEqualTo(supply);
+        }
+
+        // Lines are all or nothing and order statuses agree with their lines
+        assertThat(jdbcTemplate.queryForObject("""
+                select count(*) from beer_order_line
+                where (status = 'ALLOCATED' and quantity_allocated <> order_quantity)
+                   or (status <> 'ALLOCATED' and quantity_allocated <> 0)""", Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("""
+                select count(*) from beer_order o
+                where case when o.status = 'ALLOCATED' then 1 else 0 end
+                   <> case when exists (select 1 from beer_order_line l
+                                        where l.beer_order_id = o.id and l.status <> 'ALLOCATED') then 0 else 1 end""",
+                Integer.class)).isZero();
+
+        // Demand outran supply, so allocators really competed for the last units
+        int backordered = jdbcTemplate.queryForObject(
+                "select count(*) from beer_order_line where status = 'BACKORDERED'", Integer.class);
+        log.info("threads={} orders={} backorderedLines={} elapsed={}ms", THREADS, created.get(), backordered, millis);
+        assertThat(created.get()).isEqualTo(creators * ORDERS_PER_CREATOR);
+        assertThat(backordered).isPositive();
+    }
+}
@@ -0,0 +1,117 @@
+package tom.springframework.vibecodingmvc.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures order creation at growing line counts, reporting prepared JDBC statements (one per batch)
+ * against the number of rows inserted, plus mean latency. With IDENTITY ids every row was its own statement.
+ * Each size compares returning the response from the creating transaction with the former create-then-re-read flow.
+ * <p>
+ * Disabled by default; run with {@code mvn test -Dtest=OrderCreationBenchmarkTest -Dbenchmark=true}.
+ * Line counts can be overridden with {@code -Dbenchmark.lines=1,50,500}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn",
+        // Measures writing and echoing the aggregate; allocation statements would blur the comparison
+        "app.beer-order-allocation.allocate-on-create=false"
+})
+class OrderCreationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderCreationBenchmarkTest.class);
+    private static final int ITERATIONS = 50;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order_line");
+        jdbcTemplate.update("delete from beer_order");
+        jdbcTemplate.update("delete from beer");
+    }
+
+    @Test
+    void createOrdersWithGrowingLineCounts() {
+        String lineCounts = System.getProperty("benchmark.lines", "1,50,500");
+        List<Integer> beerIds = seedBeers(500);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int lines : Arrays.stream(lineCounts.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray()) {
+            CreateBeerOrderCommand cmd = new CreateBeerOrderCommand("BENCH-" + lines, new BigDecimal("10.00"),
+                    IntStream.range(0, lines)
+                            .mapToObj(i -> new CreateBeerOrderItem(beerIds.get(i % beerIds.size()), 1))
+                            .toList());
+
+            // Previous controller flow: create in one transaction, then re-read the aggregate with a join fetch
+            Result reread = measure("create+re-read", lines, statistics, () -> beerOrderService.getOrder(
+                    beerOrderService.createOrders(List.of(cmd)).getFirst()));
+            Result direct = measure("create returning response", lines, statistics,
+                    () -> beerOrderService.createOrder(cmd));
+
+            assertThat(direct.rows()).isEqualTo(lines + 1);
+            // identity inserts needed one statement per row; batched inserts need far fewer
+            assertThat(direct.statements()).isLessThan(lines > 1 ? direct.rows() / 2 : direct.rows() + 1);
+            assertThat(direct.statements()).isLessThan(reread.statements());
+        }
+    }
+
+    private Result measure(String label, int lines, Statistics statistics, Runnable createOrder) {
+        createOrder.run(); // warm-up
+        statistics.clear();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            createOrder.run();
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+        double rows = (double) statistics.getEntityInsertCount() / ITERATIONS;
+        double statements = (double) statistics.getPrepareStatementCount() / ITERATIONS;
+        log.info("{}: lines={} rows/order={} statements/order={} transactions/order={} latency={}us", label, lines,
+                Math.round(rows), String.format("%.2f", statements),
+                String.format("%.2f", (double) statistics.getTransactionCount() / ITERATIONS), Math.round(micros));
+        return new Result(rows, statements);
+    }
+
+    private List<Integer> seedBeers(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"Beer " + i, "IPA", String.valueOf(i), 100, new BigDecimal("9.99")});
+        }
+        jdbcTemplate.batchUpdate("insert into beer (version, beer_name, beer_style, upc, quantity_on_hand, price) "
+                + "values (0, ?, ?, ?, ?, ?)", rows);
+        return jdbcTemplate.queryForList("select id from beer order by id", Integer.class);
+    }
+
+    private record Result(double rows, double statements) {
+    }
+}
@@ -0,0 +1,100 @@
+package tom.springframework.vibecodingmvc.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tom.springframework.vibecodingmvc.mappers.BeerOrderMapper;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderRepository;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares heap allocated per order-listing request when summaries are mapped from managed {@code BeerOrder}
+ * entities (the former {@code findAll(pageable)} path) against the constructor-expression projection, which
+ * selects the five summary columns and keeps nothing in the persistence context.
+ * <p>
+ * Disabled by default; run with {@code mvn test -Dtest=OrderListingAllocationBenchmarkTest -Dbenchmark=true}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class OrderListingAllocationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderListingAllocationBenchmarkTest.class);
+    private static final int ORDERS = 2_000;
+    private static final int ITERATIONS = 200;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    BeerOrderRepository beerOrderRepository;
+
+    @Autowired
+    BeerOrderMapper beerOrderMapper;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order");
+    }
+
+    @Test
+    void projectionAllocatesLessThanEntityMapping() {
+        seedOrders();
+
+        for (int size : new int[]{20, 100, 500}) {
+            Pageable pageable = PageRequest.of(1, size, Sort.by("createdDate").descending());
+            Result entities = measure("entities", size, () -> beerOrderRepository.findAll(pageable)
+                    .map(beerOrderMapper::toSummaryResponse));
+            Result projection = measure("projection", size, () -> beerOrderRepository.findSummaries(pageable));
+
+            assertThat(projection.bytes()).isLessThan(entities.bytes());
+        }
+    }
+
+    private Result measure(String label, int size, Supplier<?> listOrders) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        for (int i = 0; i < ITERATIONS; i++) {
+            listOrders.get(); // warm-up
+        }
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            listOrders.get();
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / ITERATIONS;
+        long bytes = (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / ITERATIONS;
+        log.info("{}: pageSize={} allocated/request={}KB bytes/row={} latency={}us", label, size, bytes / 1024,
+                bytes / size, Math.round(micros));
+        return new Result(bytes);
+    }
+
+    private void seedOrders() {
+        List<Object[]> rows = new ArrayList<>(ORDERS);
+        for (int i = 0; i < ORDERS; i++) {
+            rows.add(new Object[]{"PO-" + i, new BigDecimal("10.00"), "NEW"});
+        }
+        jdbcTemplate.batchUpdate("insert into beer_order (id, version, customer_ref, payment_amount, status, "
+                + "created_date, updated_date) values (next value for beer_order_seq, 0, ?, ?, ?, current_timestamp, "
+                + "current_timestamp)", rows);
+    }
+
+    private record Result(long bytes) {
+    }
+}
@@ -0,0 +1,176 @@
+package tom.springframework.vibecodingmvc.services;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tom.springframework.vibecodingmvc.entities.Customer;
+import tom.springframework.vibecodingmvc.mappers.BeerMapper;
+import tom.springframework.vibecodingmvc.mappers.CustomerMapper;
+import tom.springframework.vibecodingmvc.models.BeerRequestDto;
+import tom.springframework.vibecodingmvc.models.CustomerRequestDto;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+import tom.springframework.vibecodingmvc.repositories.CustomerRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the former read-then-write update/delete flows for beers and customers with the single
+ * row-count-checked statements, reporting JDBC statements and mean latency per operation.
+ * <p>
+ * Disabled by default; run with {@code mvn test -Dtest=SingleStatementWriteBenchmarkTest -Dbenchmark=true}.
+ * The number of rows per scenario can be overridden with {@code -Dbenchmark.rows=5000}.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=warn"
+})
+class SingleStatementWriteBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(SingleStatementWriteBenchmarkTest.class);
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerMapper beerMapper;
+
+    @Autowired
+    BeerService beerService;
+
+    @Autowired
+    CustomerRepository customerRepository;
+
+    @Autowired
+    CustomerMapper customerMapper;
+
+    @Autowired
+    CustomerService customerService;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer");
+        jdbcTemplate.update("delete from customer");
+    }
+
+    @Test
+    void compareReadThenWriteWithSingleStatement() {
+        int rows = Integer.getInteger("benchmark.rows", 2_000);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        BeerRequestDto beerDto = new BeerRequestDto("Renamed", "IPA", "0123456789012", 5, new BigDecimal("4.99"), null);
+
+        // Previous BeerServiceImpl.updateBeer: load, merge with the mapper, save (merge re-selects outside a transaction)
+        Result oldBeerUpdate = run("beer update (load+merge+save)", seedBeers(rows), statistics, id ->
+                beerRepository.findById(id).ifPresent(beer -> {
+                    beerMapper.updateEntityFromDto(beerDto, beer);
+                    beerRepository.save(beer);
+                }));
+        Result newBeerUpdate = run("beer update (single UPDATE)", seedBeers(rows), statistics,
+                id -> beerService.updateBeer(id, beerDto));
+
+        // Previous BeerController.deleteBeer: existence read, then deleteById (which loads the entity again)
+        Result oldBeerDelete = run("beer delete (read+deleteById)", seedBeers(rows), statistics, id ->
+                beerRepository.findById(id).ifPresent(beer -> beerRepository.deleteById(id)));
+        Result newBeerDelete = run("beer delete (single DELETE)", seedBeers(rows), statistics,
+                id -> beerService.deleteBeer(id));
+
+        // Previous CustomerServiceImpl.updateCustomer with the email unchanged: load and merge in one transaction
+        Result oldCustomerUpdate = run("customer update (load+merge+save)", seedCustomers(rows), statistics, id ->
+                transactionTemplate.executeWithoutResult(status -> customerRepository.findById(id).ifPresent(customer -> {
+                    customerMapper.updateEntityFromDto(customerDto("customer" + id + "@example.com"), customer);
+                    customerRepository.save(customer);
+                })));
+        Result newCustomerUpdate = run("customer update (single UPDATE)", seedCustomers(rows), statistics,
+                id -> customerService.updateCustomer(id, customerDto("customer" + id + "@example.com")));
+
+        // Previous CustomerServiceImpl.deleteCustomer: existsById, then deleteById
+        Result oldCustomerDelete = run("customer delete (exists+deleteById)", seedCustomers(rows), statistics, id ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    if (customerRepository.existsById(id)) {
+                        customerRepository.deleteById(id);
+                    }
+                }));
+        Result newCustomerDelete = run("customer delete (single DELETE)", seedCustomers(rows), statistics,
+                id -> customerService.deleteCustomer(id));
+
+        assertThat(newBeerDelete.statementsPerOp()).isEqualTo(1.0);
+        assertThat(newCustomerDelete.statementsPerOp()).isEqualTo(1.0);
+        assertThat(newBeerUpdate.statementsPerOp()).isLessThan(oldBeerUpdate.statementsPerOp());
+        assertThat(newBeerDelete.statementsPerOp()).isLessThan(oldBeerDelete.statementsPerOp());
+        assertThat(newCustomerUpdate.statementsPerOp()).isLessThanOrEqualTo(oldCustomerUpdate.statementsPerOp());
+        assertThat(newCustomerDelete.statementsPerOp()).isLessThan(oldCustomerDelete.statementsPerOp());
+    }
+
+    private Result run(String label, List<Integer> ids, Statistics statistics, IntConsumer operation) {
+        operation.accept(ids.getFirst()); // warm-up
+        List<Integer> measured = ids.subList(1, ids.size());
+        statistics.clear();
+        long start = System.nanoTime();
+        for (Integer id : measured) {
+            operation.accept(id);
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / measured.size();
+        double statements = (double) statistics.getPrepareStatementCount() / measured.size();
+        log.info("{}: ops={} statements/op={} latency={}us", label, measured.size(),
+                String.format("%.2f", statements), Math.round(micros));
+        return new Result(statements, micros);
+    }
+
+    private List<Integer> seedBeers(int rows) {
+        jdbcTemplate.update("delete from beer");
+        List<Object[]> batch = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{"Beer " + i, "LAGER", String.valueOf(i), 10, new BigDecimal("9.99")});
+        }
+        jdbcTemplate.batchUpdate("insert into beer (version, beer_name, beer_style, upc, quantity_on_hand, price) "
+                + "values (0, ?, ?, ?, ?, ?)", batch);
+        return jdbcTemplate.queryForList("select id from beer order by id", Integer.class);
+    }
+
+    private List<Integer> seedCustomers(int rows) {
+        jdbcTemplate.update("delete from customer");
+        customerRepository.saveAll(java.util.stream.IntStream.range(0, rows)
+                .mapToObj(i -> Customer.builder()
+                        .name("Customer " + i)
+                        .email("seed" + i + "@example.com")
+                        .addressLine1(i + " Main St")
+                        .build())
+                .toList());
+        // key emails by id so update scenarios can resend each customer's current email
+        jdbcTemplate.update("update customer set email = concat('customer', id, '@example.com')");
+        return jdbcTemplate.queryForList("select id from customer order by id", Integer.class);
+    }
+
+    private static CustomerRequestDto customerDto(String email) {
+        return new CustomerRequestDto("Renamed", email, "+1-555-0100", "1 Side St", null, "Springfield", "IL", "62704");
+    }
+
+    private record Result(double statementsPerOp, double micros) {
+    }
+}
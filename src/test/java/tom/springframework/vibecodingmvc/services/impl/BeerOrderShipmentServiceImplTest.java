@@ -7,6 +7,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataIntegrityViolationException;
 import tom.springframework.vibecodingmvc.entities.BeerOrder;
 import tom.springframework.vibecodingmvc.entities.BeerOrderShipment;
 import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
@@ -14,10 +15,12 @@ import tom.springframework.vibecodingmvc.mappers.BeerOrderShipmentMapper;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentCreateDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
 import tom.springframework.vibecodingmvc.models.BeerOrderShipmentUpdateDto;
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
 import tom.springframework.vibecodingmvc.repositories.BeerOrderRepository;
 import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository;
+import tom.springframework.vibecodingmvc.services.VersionMismatchException;
 
-import java.time.LocalDateTime;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -34,6 +37,10 @@ class BeerOrderShipmentServiceImplTest {
     private BeerOrderRepository orderRepository;
     @Mock
     private BeerOrderShipmentMapper mapper;
+    @Mock
+    private ShipmentTrackingIndex trackingIndex;
+    @Mock
+    private ShipmentEventBroadcaster events;
 
     @InjectMocks
     private BeerOrderShipmentServiceImpl service;
@@ -44,10 +51,10 @@ class BeerOrderShipmentServiceImplTest {
     }
 
     @Test
-    void create_shouldValidateOrder_DefaultStatus_ApplyRules_AndReturnId() {
+    void create_shouldReferenceOrder_DefaultStatus_ApplyRules_AndReturnDto() {
         BeerOrderShipmentCreateDto createDto = new BeerOrderShipmentCreateDto(10, null, null, "TN", "UPS", null);
         BeerOrder order = BeerOrder.builder().id(10).build();
-        when(orderRepository.findById(10)).thenReturn(Optional.of(order));
+        when(orderRepository.getReferenceById(10)).thenReturn(order);
 
         BeerOrderShipment mapped = new BeerOrderShipment();
         when(mapper.toEntity(createDto)).thenReturn(mapped);
@@ -57,49 +64,99 @@ class BeerOrderShipmentServiceImplTest {
         saved.setId(123);
         saved.setBeerOrder(order);
         saved.setShipmentStatus(ShipmentStatus.IN_TRANSIT); // final state could be anything; not strictly checked here
-        when(shipmentRepository.save(any(BeerOrderShipment.class))).thenReturn(saved);
+        when(shipmentRepository.saveAndFlush(any(BeerOrderShipment.class))).thenReturn(saved);
+        BeerOrderShipmentDto dto = new BeerOrderShipmentDto(123, 0, 10, "PENDING", null, "TN", "UPS", null);
+        when(mapper.toDto(saved)).thenReturn(dto);
 
-        Integer id = service.create(createDto);
+        assertThat(service.create(10, createDto)).isEqualTo(dto);
 
-        assertThat(id).isEqualTo(123);
         // Ensure beerOrder was set and default status applied when null
         ArgumentCaptor<BeerOrderShipment> captor = ArgumentCaptor.forClass(BeerOrderShipment.class);
-        verify(shipmentRepository).save(captor.capture());
+        verify(shipmentRepository).saveAndFlush(captor.capture());
         BeerOrderShipment toSave = captor.getValue();
         assertThat(toSave.getBeerOrder()).isEqualTo(order);
         assertThat(toSave.getShipmentStatus()).isNotNull();
+        verify(orderRepository, never()).findById(any());
     }
 
     @Test
     void create_shouldThrowWhenOrderNotFound() {
         BeerOrderShipmentCreateDto createDto = new BeerOrderShipmentCreateDto(99, null, null, null, null, null);
-        when(orderRepository.findById(99)).thenReturn(Optional.empty());
-
-        assertThatThrownBy(() -> service.create(createDto))
+        when(mapper.toEntity(createDto)).thenReturn(new BeerOrderShipment());
+        when(orderRepository.getReferenceById(99)).thenReturn(BeerOrder.builder().id(99).build());
+        when(shipmentRepository.saveAndFlush(any(BeerOrderShipment.class)))
+                .thenThrow(new DataIntegrityViolationException("could not execute statement", new SQLException(
+                        "Referential integrity constraint violation: \"FK_BOS_ORDER: PUBLIC.BEER_ORDER_SHIPMENT\"",
+                        "23506")));
+
+        assertThatThrownBy(() -> service.create(99, createDto))
                 .isInstanceOf(EntityNotFoundException.class)
                 .hasMessageContaining("BeerOrder not found");
+    }
 
-        verifyNoInteractions(mapper);
-        verify(shipmentRepository, never()).save(any());
+    @Test
+    void create_passesOtherConstraintViolationsThrough() {
+        BeerOrderShipmentCreateDto createDto = new BeerOrderShipmentCreateDto(10, null, null, null, null, null);
+        DataIntegrityViolationException tooLong = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Value too long for column \"CARRIER CHARACTER VARYING(255)\"", "22001"));
+        when(mapper.toEntity(createDto)).thenReturn(new BeerOrderShipment());
+        when(orderRepository.getReferenceById(10)).thenReturn(BeerOrder.builder().id(10).build());
+        when(shipmentRepository.saveAndFlush(any(BeerOrderShipment.class))).thenThrow(tooLong);
+
+        assertThatThrownBy(() -> service.create(10, createDto)).isSameAs(tooLong);
     }
 
     @Test
     void get_shouldReturnMappedDtoWhenFound() {
         BeerOrderShipment entity = new BeerOrderShipment();
         entity.setId(5);
-        BeerOrderShipmentDto dto = new BeerOrderShipmentDto(5, 10, "PENDING", null, null, null, null);
+        BeerOrderShipmentDto dto = new BeerOrderShipmentDto(5, 0, 10, "PENDING", null, null, null, null);
 
-        when(shipmentRepository.findById(5)).thenReturn(Optional.of(entity));
+        when(shipmentRepository.findByIdAndBeerOrder_Id(5, 10)).thenReturn(Optional.of(entity));
         when(mapper.toDto(entity)).thenReturn(dto);
 
-        Optional<BeerOrderShipmentDto> result = service.get(5);
+        Optional<BeerOrderShipmentDto> result = service.get(10, 5);
         assertThat(result).contains(dto);
     }
 
     @Test
-    void get_shouldReturnEmptyWhenNotFound() {
-        when(shipmentRepository.findById(77)).thenReturn(Optional.empty());
-        assertThat(service.get(77)).isEmpty();
+    void get_shouldReturnEmptyWhenNotFoundForOrder() {
+        when(shipmentRepository.findByIdAndBeerOrder_Id(77, 10)).thenReturn(Optional.empty());
+        assertThat(service.get(10, 77)).isEmpty();
+    }
+
+    @Test
+    void getByTrackingNumber_cachedId_isCheckedAgainstTheLoadedShipment() {
+        BeerOrderShipment current = new BeerOrderShipment();
+        current.setId(5);
+        current.setTrackingNumber("TRK-1");
+        BeerOrderShipmentDto dto = new BeerOrderShipmentDto(5, 0, 10, "PENDING", null, "TRK-1", null, null);
+        when(trackingIndex.get("TRK-1")).thenReturn(5);
+        when(shipmentRepository.findById(5)).thenReturn(Optional.of(current));
+        when(mapper.toDto(current)).thenReturn(dto);
+
+        assertThat(service.getByTrackingNumber("TRK-1")).contains(dto);
+        verify(shipmentRepository, never()).findByTrackingNumber(any());
+    }
+
+    @Test
+    void getByTrackingNumber_staleEntry_fallsBackToTheIndexedQuery() {
+        // Shipment 5 has been given another tracking number; shipment 6 now has TRK-1
+        BeerOrderShipment renamed = new BeerOrderShipment();
+        renamed.setId(5);
+        renamed.setTrackingNumber("TRK-2");
+        BeerOrderShipment current = new BeerOrderShipment();
+        current.setId(6);
+        current.setTrackingNumber("TRK-1");
+        BeerOrderShipmentDto dto = new BeerOrderShipmentDto(6, 0, 10, "PENDING", null, "TRK-1", null, null);
+        when(trackingIndex.get("TRK-1")).thenReturn(5);
+        when(shipmentRepository.findById(5)).thenReturn(Optional.of(renamed));
+        when(shipmentRepository.findByTrackingNumber("TRK-1")).thenReturn(Optional.of(current));
+        when(mapper.toDto(current)).thenReturn(dto);
+
+        assertThat(service.getByTrackingNumber("TRK-1")).contains(dto);
+        verify(trackingIndex).remove("TRK-1", 5);
+        verify(trackingIndex).put("TRK-1", 6);
     }
 
     @Test
@@ -107,22 +164,89 @@ class BeerOrderShipmentServiceImplTest {
         BeerOrderShipment e1 = new BeerOrderShipment(); e1.setId(1);
         BeerOrderShipment e2 = new BeerOrderShipment(); e2.setId(2);
         when(shipmentRepository.findByBeerOrder_Id(44)).thenReturn(List.of(e1, e2));
-        BeerOrderShipmentDto d1 = new BeerOrderShipmentDto(1, 44, "PENDING", null, null, null, null);
-        BeerOrderShipmentDto d2 = new BeerOrderShipmentDto(2, 44, "PACKED", null, null, null, null);
+        BeerOrderShipmentDto d1 = new BeerOrderShipmentDto(1, 0, 44, "PENDING", null, null, null, null);
+        BeerOrderShipmentDto d2 = new BeerOrderShipmentDto(2, 0, 44, "PACKED", null, null, null, null);
         when(mapper.toDto(e1)).thenReturn(d1);
         when(mapper.toDto(e2)).thenReturn(d2);
 
         List<BeerOrderShipmentDto> list = service.listByBeerOrderId(44);
         assertThat(list).containsExactly(d1, d2);
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void listByBeerOrderId_emptyResult_checksTheOrderExists() {
+        when(shipmentRepository.findByBeerOrder_Id(anyInt())).thenReturn(List.of());
+        when(orderRepository.existsById(44)).thenReturn(true);
+
+        assertThat(service.listByBeerOrderId(44)).isEmpty();
+        assertThatThrownBy(() -> service.listByBeerOrderId(45))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("BeerOrder not found");
+    }
+
+    @Test
+    void update_shouldRunSingleGuardedUpdate() {
+        BeerOrderShipmentUpdateDto updateDto = new BeerOrderShipmentUpdateDto("IN_TRANSIT", null, "TN-1", "DHL", "note");
+        when(mapper.stringToStatus("IN_TRANSIT")).thenReturn(ShipmentStatus.IN_TRANSIT);
+        when(shipmentRepository.updateByIdAndBeerOrderId(eq(7), eq(3), eq(4), eq(ShipmentStatus.IN_TRANSIT),
+                isNull(), eq("TN-1"), eq("DHL"), eq("note"), anyCollection())).thenReturn(1);
+
+        assertThat(service.update(3, 7, 4, updateDto)).isEqualTo(5);
+        verify(trackingIndex).put("TN-1", 7);
+        verify(events).publish(ShipmentEvent.Type.UPDATED, 7, 3, ShipmentStatus.IN_TRANSIT, 5);
+
+        verify(shipmentRepository, never()).findByIdAndBeerOrder_Id(any(), any());
+        verify(shipmentRepository, never()).findVersionAndStatusById(any());
+        verify(shipmentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void update_withoutVersionOrStatus_shouldReadBackWhatTheEventNeeds() {
+        BeerOrderShipmentUpdateDto updateDto = new BeerOrderShipmentUpdateDto(null, null, null, null, "note");
+        when(shipmentRepository.updateByIdAndBeerOrderId(eq(7), eq(3), isNull(), isNull(),
+                isNull(), isNull(), isNull(), eq("note"), anyCollection())).thenReturn(1);
+        BeerOrderShipmentRepository.ShipmentVersionView written = mock(BeerOrderShipmentRepository.ShipmentVersionView.class);
+        when(written.getVersion()).thenReturn(6);
+        when(written.getShipmentStatus()).thenReturn(ShipmentStatus.PACKED);
+        when(shipmentRepository.findVersionAndStatusById(7)).thenReturn(Optional.of(written));
+
+        service.update(3, 7, updateDto);
+
+        verify(events).publish(ShipmentEvent.Type.UPDATED, 7, 3, ShipmentStatus.PACKED, 6);
+        verify(shipmentRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void update_unmatched_shouldThrowWhenShipmentNotInOrder() {
+        BeerOrderShipmentUpdateDto updateDto = new BeerOrderShipmentUpdateDto("PACKED", null, null, null, null);
+        when(shipmentRepository.findByIdAndBeerOrder_Id(7, 3)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.update(3, 7, updateDto))
+                .isInstanceOf(EntityNotFoundException.class)
+                .hasMessageContaining("Shipment not found");
+    }
+
+    @Test
+    void update_unmatched_shouldThrowWhenVersionIsStale() {
+        BeerOrderShipment existing = new BeerOrderShipment();
+        existing.setId(7);
+        existing.setVersion(5);
+        when(shipmentRepository.findByIdAndBeerOrder_Id(7, 3)).thenReturn(Optional.of(existing));
+
+        assertThatThrownBy(() -> service.update(3, 7, 4, new BeerOrderShipmentUpdateDto("PACKED", null, null, null, null)))
+                .isInstanceOf(VersionMismatchException.class);
+        verify(shipmentRepository, never()).saveAndFlush(any());
     }
 
     @Test
-    void update_shouldApplyMapperAndBusinessRulesAndSave() {
+    void update_unmatched_shouldApplyMapperAndBusinessRulesAndSave() {
+        // The guarded UPDATE missed (e.g. the row changed in between); the entity path applies it instead
         Integer id = 7;
         BeerOrderShipment existing = new BeerOrderShipment();
         existing.setId(id);
         existing.setShipmentStatus(ShipmentStatus.PENDING);
-        when(shipmentRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(shipmentRepository.findByIdAndBeerOrder_Id(id, 3)).thenReturn(Optional.of(existing));
 
         BeerOrderShipmentUpdateDto updateDto = new BeerOrderShipmentUpdateDto("IN_TRANSIT", null, "TN-1", "DHL", "note");
 
@@ -138,16 +262,16 @@ class BeerOrderShipmentServiceImplTest {
             return null;
         }).when(mapper).updateEntity(any(BeerOrderShipment.class), any(BeerOrderShipmentUpdateDto.class));
 
-        when(shipmentRepository.save(existing)).thenReturn(existing);
+        when(shipmentRepository.saveAndFlush(existing)).thenReturn(existing);
 
-        service.update(id, updateDto);
+        service.update(3, id, updateDto);
 
         // After IN_TRANSIT without shippedDate, service should set shippedDate automatically
         assertThat(existing.getShipmentStatus()).isEqualTo(ShipmentStatus.IN_TRANSIT);
         assertThat(existing.getShippedDate()).isNotNull();
         assertThat(existing.getTrackingNumber()).isEqualTo("TN-1");
         assertThat(existing.getCarrier()).isEqualTo("DHL");
-        verify(shipmentRepository).save(existing);
+        verify(shipmentRepository).saveAndFlush(existing);
     }
 
     @Test
@@ -156,7 +280,7 @@ class BeerOrderShipmentServiceImplTest {
         BeerOrderShipment existing = new BeerOrderShipment();
         existing.setId(id);
         existing.setShipmentStatus(ShipmentStatus.PENDING);
-        when(shipmentRepository.findById(id)).thenReturn(Optional.of(existing));
+        when(shipmentRepository.findByIdAndBeerOrder_Id(id, 3)).thenReturn(Optional.of(existing));
 
         BeerOrderShipmentUpdateDto updateDto = new BeerOrderShipmentUpdateDto("IN_TRANSIT", null, null, null, null);
 
@@ -167,26 +291,27 @@ class BeerOrderShipmentServiceImplTest {
             return null;
         }).when(mapper).updateEntity(any(BeerOrderShipment.class), any(BeerOrderShipmentUpdateDto.class));
 
-        assertThatThrownBy(() -> service.update(id, updateDto))
+        assertThatThrownBy(() -> service.update(3, id, updateDto))
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("trackingNumber and carrier are required");
 
-        verify(shipmentRepository, never()).save(any());
+        verify(shipmentRepository, never()).saveAndFlush(any());
     }
 
     @Test
     void delete_shouldDeleteWhenExists() {
-        when(shipmentRepository.existsById(3)).thenReturn(true);
-        service.delete(3);
-        verify(shipmentRepository).deleteById(3);
+        when(shipmentRepository.deleteByIdAndBeerOrderId(3, 1)).thenReturn(1);
+        service.delete(1, 3);
+        verify(shipmentRepository, never()).existsById(any());
+        verify(events).publish(ShipmentEvent.Type.DELETED, 3, 1, null, null);
     }
 
     @Test
     void delete_shouldThrowWhenNotFound() {
-        when(shipmentRepository.existsById(404)).thenReturn(false);
-        assertThatThrownBy(() -> service.delete(404))
+        when(shipmentRepository.deleteByIdAndBeerOrderId(404, 1)).thenReturn(0);
+        assertThatThrownBy(() -> service.delete(1, 404))
                 .isInstanceOf(EntityNotFoundException.class)
                 .hasMessageContaining("Shipment not found");
-        verify(shipmentRepository, never()).deleteById(any());
+        verifyNoInteractions(events);
     }
 }
@@ -0,0 +1,39 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConstraintViolationsTest {
+
+    @Test
+    void violates_matchesTheReportedConstraint_withoutSchemaOrBackingIndexSuffix() {
+        assertThat(ConstraintViolations.violates(violation("23505", "Unique index or primary key violation: "
+                + "\"PUBLIC.UX_BOS_TRACKING_NUMBER ON PUBLIC.BEER_ORDER_SHIPMENT(TRACKING_NUMBER NULLS FIRST) "
+                + "VALUES ( /* 1 */ 'fk_bos_order' )\""), "ux_bos_tracking_number")).isTrue();
+        assertThat(ConstraintViolations.violates(violation("23505", "Unique index or primary key violation: "
+                + "\"PUBLIC.UX_BOS_TRACKING_NUMBER_INDEX_F ON PUBLIC.BEER_ORDER_SHIPMENT(TRACKING_NUMBER)\""),
+                "ux_bos_tracking_number")).isTrue();
+        assertThat(ConstraintViolations.violates(violation("23506", "Referential integrity constraint violation: "
+                + "\"FK_BOS_ORDER: PUBLIC.BEER_ORDER_SHIPMENT FOREIGN KEY(BEER_ORDER_ID)\""), "fk_bos_order")).isTrue();
+    }
+
+    @Test
+    void violates_ignoresOtherConstraints_valuesAndNonIntegrityErrors() {
+        // The constraint name only appears in the offending value
+        assertThat(ConstraintViolations.violates(violation("23505", "Unique index or primary key violation: "
+                + "\"PUBLIC.UX_BOS_TRACKING_NUMBER ON PUBLIC.BEER_ORDER_SHIPMENT(TRACKING_NUMBER) "
+                + "VALUES ( /* 1 */ 'fk_bos_order' )\""), "fk_bos_order")).isFalse();
+        assertThat(ConstraintViolations.violates(violation("22001", "Value too long for column \"FK_BOS_ORDER\""),
+                "fk_bos_order")).isFalse();
+        assertThat(ConstraintViolations.violates(new DataIntegrityViolationException("fk_bos_order"), "fk_bos_order"))
+                .isFalse();
+    }
+
+    private static DataIntegrityViolationException violation(String sqlState, String message) {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(message, sqlState));
+    }
+}
@@ -1,18 +1,27 @@
 package tom.springframework.vibecodingmvc.services.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import tom.springframework.vibecodingmvc.entities.Customer;
 import tom.springframework.vibecodingmvc.mappers.CustomerMapper;
 import tom.springframework.vibecodingmvc.models.CustomerRequestDto;
 import tom.springframework.vibecodingmvc.models.CustomerResponseDto;
 import tom.springframework.vibecodingmvc.repositories.CustomerRepository;
+import tom.springframework.vibecodingmvc.services.PaginationMetrics;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -30,6 +39,11 @@ class CustomerServiceImplTest {
     @Mock
     CustomerMapper customerMapper;
 
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    PaginationMetrics paginationMetrics = new PaginationMetrics(meterRegistry);
+
     @InjectMocks
     CustomerServiceImpl service;
 
@@ -103,6 +117,23 @@ class CustomerServiceImplTest {
         verify(customerMapper, times(2)).toResponseDto(any());
     }
 
+    @Test
+    void sliceCustomers_usesCountFreeQuery_andRecordsSkippedCount() {
+        // given
+        Pageable pageable = PageRequest.of(0, 1);
+        when(customerRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(List.of(sampleEntity), pageable, false));
+        when(customerMapper.toResponseDto(sampleEntity)).thenReturn(sampleResponse);
+
+        // when
+        Slice<CustomerResponseDto> result = service.sliceCustomers(pageable);
+
+        // then
+        assertEquals(List.of(sampleResponse), result.getContent());
+        assertFalse(result.hasNext());
+        verify(customerRepository, never()).findAll(any(Pageable.class));
+        assertEquals(1.0, meterRegistry.get(PaginationMetrics.COUNT_QUERIES_SKIPPED).tag("resource", "customers").counter().count());
+    }
+
     @Test
     void getCustomerById_whenPresent_returnsDto() {
         when(customerRepository.findById(1)).thenReturn(Optional.of(sampleEntity));
@@ -159,52 +190,35 @@ class CustomerServiceImplTest {
 
     @Test
     void updateCustomer_whenIdNotFound_returnsEmpty() {
-        when(customerRepository.findById(123)).thenReturn(Optional.empty());
+        when(customerRepository.updateById(eq(123), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(0);
 
         Optional<CustomerResponseDto> result = service.updateCustomer(123, sampleRequest);
 
         assertTrue(result.isEmpty());
-        verify(customerRepository).findById(123);
+        verify(customerRepository, never()).findById(anyInt());
         verify(customerRepository, never()).save(any());
     }
 
     @Test
-    void updateCustomer_whenEmailUnchanged_updatesAndReturnsDto() {
-        Customer existing = Customer.builder()
-                .id(1)
-                .email(sampleRequest.email()) // unchanged
-                .name("Old Name")
-                .addressLine1("Old Addr")
-                .build();
-
-        when(customerRepository.findById(1)).thenReturn(Optional.of(existing));
-        // Because email unchanged, existsByEmail must not be checked
-        // Update mapping
-        doAnswer(invocation -> {
-            CustomerRequestDto dto = invocation.getArgument(0);
-            Customer entity = invocation.getArgument(1);
-            entity.setName(dto.name());
-            entity.setAddressLine1(dto.addressLine1());
-            return null;
-        }).when(customerMapper).updateEntityFromDto(any(CustomerRequestDto.class), any(Customer.class));
-
-        when(customerRepository.save(existing)).thenReturn(existing);
-        when(customerMapper.toResponseDto(existing)).thenReturn(sampleResponse);
+    void updateCustomer_updatesInOneStatementAndReturnsDto() {
+        when(customerRepository.updateById(1, sampleRequest.name(), sampleRequest.email(), sampleRequest.phone(),
+                sampleRequest.addressLine1(), sampleRequest.addressLine2(), sampleRequest.city(),
+                sampleRequest.state(), sampleRequest.postalCode())).thenReturn(1);
+        when(customerRepository.findById(1)).thenReturn(Optional.of(sampleEntity));
+        when(customerMapper.toResponseDto(sampleEntity)).thenReturn(sampleResponse);
 
         Optional<CustomerResponseDto> result = service.updateCustomer(1, sampleRequest);
 
         assertTrue(result.isPresent());
         assertEquals(sampleResponse, result.get());
-        verify(customerRepository).findById(1);
-        verify(customerRepository, never()).existsByEmail(anyString());
-        verify(customerMapper).updateEntityFromDto(eq(sampleRequest), same(existing));
-        verify(customerRepository).save(existing);
-        verify(customerMapper).toResponseDto(existing);
+        verify(customerRepository, never()).findByEmail(anyString());
+        verify(customerMapper, never()).updateEntityFromDto(any(), any());
+        verify(customerRepository, never()).save(any());
     }
 
     @Test
-    void updateCustomer_whenEmailChangedAndConflicts_throwsIllegalArgumentException() {
-        Customer existing = Customer.builder().id(1).email("old@example.com").build();
+    void updateCustomer_whenEmailHeldByAnotherCustomer_throwsIllegalArgumentException() {
         CustomerRequestDto changed = new CustomerRequestDto(
                 sampleRequest.name(),
                 "new@example.com",
@@ -216,64 +230,47 @@ class CustomerServiceImplTest {
                 sampleRequest.postalCode()
         );
 
-        when(customerRepository.findById(1)).thenReturn(Optional.of(existing));
-        when(customerRepository.existsByEmail("new@example.com")).thenReturn(true);
+        // the unique email index rejects the UPDATE
+        when(customerRepository.updateById(eq(1), any(), eq("new@example.com"), any(), any(), any(), any(), any(), any()))
+                .thenThrow(violation("Unique index or primary key violation: "
+                        + "\"PUBLIC.UQ_CUSTOMER_EMAIL_INDEX_5 ON PUBLIC.CUSTOMER(EMAIL)\""));
 
         IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
                 () -> service.updateCustomer(1, changed).orElse(null));
 
         assertTrue(ex.getMessage().contains("Email already exists"));
-        verify(customerRepository).findById(1);
-        verify(customerRepository).existsByEmail("new@example.com");
-        verify(customerRepository, never()).save(any());
-        verify(customerMapper, never()).updateEntityFromDto(any(), any());
+        verify(customerRepository, never()).findById(anyInt());
     }
 
     @Test
-    void updateCustomer_whenEmailChangedAndNoConflict_updatesAndReturnsDto() {
-        Customer existing = Customer.builder().id(1).email("old@example.com").name("Old").build();
-        CustomerRequestDto changed = new CustomerRequestDto(
-                "New Name",
-                "new@example.com",
-                sampleRequest.phone(),
-                sampleRequest.addressLine1(),
-                sampleRequest.addressLine2(),
-                sampleRequest.city(),
-                sampleRequest.state(),
-                sampleRequest.postalCode()
-        );
-
-        when(customerRepository.findById(1)).thenReturn(Optional.of(existing));
-        when(customerRepository.existsByEmail("new@example.com")).thenReturn(false);
-
-        doAnswer(invocation -> {
-            CustomerRequestDto dto = invocation.getArgument(0);
-            Customer entity = invocation.getArgument(1);
-            entity.setName(dto.name());
-            entity.setEmail(dto.email());
-            return null;
-        }).when(customerMapper).updateEntityFromDto(any(CustomerRequestDto.class), any(Customer.class));
+    void updateCustomer_whenOtherConstraintFails_rethrows() {
+        DataIntegrityViolationException tooLong = new DataIntegrityViolationException("could not execute statement",
+                new SQLException("Value too long for column \"PHONE CHARACTER VARYING(50)\"", "22001"));
+        when(customerRepository.updateById(eq(1), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(tooLong);
+
+        assertSame(tooLong, assertThrows(DataIntegrityViolationException.class,
+                () -> service.updateCustomer(1, sampleRequest)));
+    }
 
-        when(customerRepository.save(existing)).thenReturn(existing);
-        when(customerMapper.toResponseDto(existing)).thenReturn(sampleResponse);
+    @Test
+    void updateCustomer_withVersion_reportsEmailHeldByAnotherCustomerFromTheIndex() {
+        when(customerRepository.updateByIdAndVersion(eq(1), eq(3), any(), eq(sampleRequest.email()), any(), any(),
+                any(), any(), any(), any()))
+                .thenThrow(violation("duplicate key value violates unique constraint \"uq_customer_email\""));
 
-        Optional<CustomerResponseDto> result = service.updateCustomer(1, changed);
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> service.updateCustomer(1, 3, sampleRequest));
 
-        assertTrue(result.isPresent());
-        assertEquals(sampleResponse, result.get());
-        verify(customerRepository).findById(1);
-        verify(customerRepository).existsByEmail("new@example.com");
-        verify(customerMapper).updateEntityFromDto(eq(changed), same(existing));
-        verify(customerRepository).save(existing);
-        verify(customerMapper).toResponseDto(existing);
+        assertTrue(ex.getMessage().contains("Email already exists"));
+        verify(customerRepository, never()).findByEmail(anyString());
     }
 
     @Test
-    void updateCustomer_whenEmailNull_treatedAsUnchanged_updates() {
-        Customer existing = Customer.builder().id(1).email("keep@example.com").name("Old").build();
+    void updateCustomer_whenEmailNull_keepsStoredEmail() {
         CustomerRequestDto changed = new CustomerRequestDto(
                 "New Name",
-                null, // email null => treated as unchanged
+                null, // email null => stored value kept by coalesce
                 sampleRequest.phone(),
                 sampleRequest.addressLine1(),
                 sampleRequest.addressLine2(),
@@ -282,38 +279,37 @@ class CustomerServiceImplTest {
                 sampleRequest.postalCode()
         );
 
-        when(customerRepository.findById(1)).thenReturn(Optional.of(existing));
-
-        doNothing().when(customerMapper).updateEntityFromDto(any(), any());
-        when(customerRepository.save(existing)).thenReturn(existing);
-        when(customerMapper.toResponseDto(existing)).thenReturn(sampleResponse);
+        when(customerRepository.updateById(eq(1), eq("New Name"), isNull(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(1);
+        when(customerRepository.findById(1)).thenReturn(Optional.of(sampleEntity));
+        when(customerMapper.toResponseDto(sampleEntity)).thenReturn(sampleResponse);
 
         Optional<CustomerResponseDto> result = service.updateCustomer(1, changed);
 
         assertTrue(result.isPresent());
-        verify(customerRepository, never()).existsByEmail(anyString());
-        verify(customerRepository).save(existing);
     }
 
     @Test
-    void deleteCustomer_whenExists_deletesAndReturnsTrue() {
-        when(customerRepository.existsById(1)).thenReturn(true);
+    void deleteCustomer_whenExists_deletesInOneStatementAndReturnsTrue() {
+        when(customerRepository.deleteByIdReturningCount(1)).thenReturn(1);
 
         boolean deleted = service.deleteCustomer(1);
 
         assertTrue(deleted);
-        verify(customerRepository).existsById(1);
-        verify(customerRepository).deleteById(1);
+        verify(customerRepository, never()).existsById(anyInt());
     }
 
     @Test
     void deleteCustomer_whenNotExists_returnsFalse() {
-        when(customerRepository.existsById(42)).thenReturn(false);
+        when(customerRepository.deleteByIdReturningCount(42)).thenReturn(0);
 
         boolean deleted = service.deleteCustomer(42);
 
         assertFalse(deleted);
-        verify(customerRepository).existsById(42);
-        verify(customerRepository, never()).deleteById(anyInt());
+        verify(customerRepository, never()).existsById(anyInt());
+    }
+
+    private static DataIntegrityViolationException violation(String message) {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(message, "23505"));
     }
 }
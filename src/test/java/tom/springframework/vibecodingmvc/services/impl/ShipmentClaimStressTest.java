@@ -0,0 +1,171 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import tom.springframework.vibecodingmvc.config.ShipmentClaimProperties;
+import tom.springframework.vibecodingmvc.config.ShipmentClaimProperties.Strategy;
+import tom.springframework.vibecodingmvc.entities.Beer;
+import tom.springframework.vibecodingmvc.mappers.BeerOrderShipmentMapper;
+import tom.springframework.vibecodingmvc.models.BeerOrderShipmentDto;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderCommand;
+import tom.springframework.vibecodingmvc.models.CreateBeerOrderItem;
+import tom.springframework.vibecodingmvc.models.ShipmentClaimRequest;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository;
+import tom.springframework.vibecodingmvc.repositories.BeerRepository;
+import tom.springframework.vibecodingmvc.services.BeerOrderService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contention benchmark: 32 packing workers claim batches from the same pool of pending shipments until it is empty,
+ * once per claim strategy. No shipment may be leased twice or left behind; throughput and the number of short
+ * claims (batches that came back smaller than asked while shipments remained) are logged for comparison.
+ */
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=32"
+})
+class ShipmentClaimStressTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ShipmentClaimStressTest.class);
+
+    private static final int CLAIMERS = 32;
+    private static final int SHIPMENTS = 6_400;
+    private static final int BATCH = 10;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    BeerOrderShipmentRepository shipmentRepository;
+
+    @Autowired
+    BeerOrderShipmentMapper mapper;
+
+    @Autowired
+    BeerRepository beerRepository;
+
+    @Autowired
+    BeerOrderService beerOrderService;
+
+    @BeforeEach
+    void setUp() {
+        Integer beerId = beerRepository.saveAndFlush(Beer.builder()
+                .beerName("Claim Pils")
+                .beerStyle("PILSNER")
+                .upc("claim-1")
+                .price(new BigDecimal("5.00"))
+                .build()).getId();
+        Integer orderId = beerOrderService.createOrder(new CreateBeerOrderCommand("CLAIMS", BigDecimal.ONE,
+                List.of(new CreateBeerOrderItem(beerId, 1)))).id();
+        // Ids far above the sequence, which the rest of the suite draws from
+        jdbcTemplate.update("""
+                insert into beer_order_shipment (id, version, beer_order_id, shipment_status, created_date)
+                select x, 0, ?, 'PENDING', current_timestamp from system_range(1000001, ?)""",
+                orderId, 1_000_000 + SHIPMENTS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("delete from beer_order_shipment");
+        jdbcTemplate.update("delete from beer_order_line");
+        jdbcTemplate.update("delete from beer_order");
+        jdbcTemplate.update("delete from beer");
+    }
+
+    @Test
+    void skipLocked_leasesEveryShipmentOnce() throws Exception {
+        run(Strategy.SKIP_LOCKED);
+    }
+
+    @Test
+    void optimistic_leasesEveryShipmentOnce() throws Exception {
+        run(Strategy.OPTIMISTIC);
+    }
+
+    private void run(Strategy strategy) throws Exception {
+        ShipmentClaimServiceImpl service = new ShipmentClaimServiceImpl(jdbcTemplate, transactionTemplate,
+                shipmentRepository, mapper, new ShipmentClaimProperties(BATCH, null, null, strategy));
+        Map<Integer, String> owners = new ConcurrentHashMap<>();
+        AtomicInteger doubleLeases = new AtomicInteger();
+        AtomicInteger claims = new AtomicInteger();
+        AtomicInteger shortClaims = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CLAIMERS);
+        List<Future<?>> futures = new ArrayList<>();
+        long startedAt;
+        try {
+            for (int t = 0; t < CLAIMERS; t++) {
+                String worker = "packer-" + t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    while (true) {
+                        List<BeerOrderShipmentDto> leased = service.claim(new ShipmentClaimRequest(worker, BATCH, 600))
+                                .shipments();
+                        claims.incrementAndGet();
+                        for (BeerOrderShipmentDto shipment : leased) {
+                            if (owners.putIfAbsent(shipment.id(), worker) != null) {
+                                doubleLeases.incrementAndGet();
+                            }
+                        }
+                        if (leased.size() < BATCH) {
+                            if (unleased() == 0) {
+                                return null;
+                            }
+                            shortClaims.incrementAndGet();
+                        }
+                    }
+                }));
+            }
+            startedAt = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        long millis = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+
+        assertThat(doubleLeases.get()).isZero();
+        assertThat(owners).hasSize(SHIPMENTS);
+        // The database agrees with what the claimers were told
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from beer_order_shipment where lease_owner is null", Integer.class)).isZero();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("select id, lease_owner from beer_order_shipment");
+        assertThat(rows).allSatisfy(row -> assertThat(row.get("LEASE_OWNER")).isEqualTo(owners.get((Integer) row.get("ID"))));
+
+        log.info("strategy={} claimers={} shipments={} batch={} claims={} shortClaims={} elapsed={}ms ({} shipments/s)",
+                strategy, CLAIMERS, SHIPMENTS, BATCH, claims.get(), shortClaims.get(), millis, SHIPMENTS * 1000L / millis);
+    }
+
+    private int unleased() {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from beer_order_shipment where lease_owner is null", Integer.class);
+    }
+}
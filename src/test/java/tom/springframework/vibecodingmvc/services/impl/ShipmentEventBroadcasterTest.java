@@ -0,0 +1,156 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tom.springframework.vibecodingmvc.config.ShipmentEventProperties;
+import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
+import tom.springframework.vibecodingmvc.services.ShipmentEventService;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShipmentEventBroadcasterTest {
+
+    ShipmentEventBroadcaster broadcaster = new ShipmentEventBroadcaster(
+            new ShipmentEventProperties(4, Duration.ofMinutes(1)));
+
+    @AfterEach
+    void tearDown() {
+        broadcaster.stop();
+    }
+
+    @Test
+    void subscriber_getsNewChangesOfItsOrder_fromTheCurrentPosition() throws Exception {
+        broadcaster.start();
+        broadcaster.publish(ShipmentEvent.Type.CREATED, 1, 10, ShipmentStatus.PENDING, 0);
+        RecordingSink sink = new RecordingSink();
+        broadcaster.subscribe(10, null, sink);
+        long start = sink.nextHeartbeat();
+
+        broadcaster.publish(ShipmentEvent.Type.CREATED, 2, 20, ShipmentStatus.PENDING, 0);
+        broadcaster.publish(ShipmentEvent.Type.UPDATED, 1, 10, ShipmentStatus.PACKED, 1);
+
+        ShipmentEvent event = sink.nextEvent();
+        assertThat(event.id()).isEqualTo(start + 2);
+        assertThat(event.type()).isEqualTo(ShipmentEvent.Type.UPDATED);
+        assertThat(event.shipmentId()).isEqualTo(1);
+        assertThat(event.shipmentStatus()).isEqualTo("PACKED");
+        assertThat(event.version()).isEqualTo(1);
+        assertThat(sink.events.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void subscriber_resumesAfterLastEventId_orIsResetWhenItLeftTheBuffer() throws Exception {
+        broadcaster.start();
+        RecordingSink first = new RecordingSink();
+        broadcaster.subscribe(null, null, first);
+        long start = first.nextHeartbeat();
+        for (int i = 1; i <= 6; i++) {
+            broadcaster.publish(ShipmentEvent.Type.UPDATED, i, 10, null, null);
+        }
+
+        // The last four changes are still buffered
+        RecordingSink resumed = new RecordingSink();
+        broadcaster.subscribe(null, start + 3, resumed);
+        resumed.nextHeartbeat();
+        assertThat(resumed.nextEvent().shipmentId()).isEqualTo(4);
+        assertThat(resumed.nextEvent().shipmentId()).isEqualTo(5);
+        assertThat(resumed.nextEvent().shipmentId()).isEqualTo(6);
+
+        RecordingSink tooOld = new RecordingSink();
+        broadcaster.subscribe(null, start + 1, tooOld);
+        tooOld.nextHeartbeat();
+        assertThat(tooOld.resets.poll(5, TimeUnit.SECONDS)).isEqualTo(start + 6);
+        broadcaster.publish(ShipmentEvent.Type.DELETED, 7, 10, null, null);
+        assertThat(tooOld.nextEvent().shipmentId()).isEqualTo(7);
+
+        // An id this run never handed out, e.g. from before a restart
+        RecordingSink unknown = new RecordingSink();
+        broadcaster.subscribe(null, 42L, unknown);
+        unknown.nextHeartbeat();
+        assertThat(unknown.resets.poll(5, TimeUnit.SECONDS)).isEqualTo(start + 7);
+    }
+
+    @Test
+    void idleSubscriber_getsHeartbeats_andCancellingClosesIt() throws Exception {
+        broadcaster = new ShipmentEventBroadcaster(new ShipmentEventProperties(4, Duration.ofMillis(20)));
+        broadcaster.start();
+        RecordingSink sink = new RecordingSink();
+        Runnable cancel = broadcaster.subscribe(10, null, sink);
+        long start = sink.nextHeartbeat();
+
+        // Changes of other orders move the position a heartbeat reports
+        broadcaster.publish(ShipmentEvent.Type.CREATED, 2, 20, ShipmentStatus.PENDING, 0);
+        long position;
+        do {
+            position = sink.nextHeartbeat();
+        } while (position == start);
+        assertThat(position).isEqualTo(start + 1);
+
+        cancel.run();
+        assertThat(sink.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(broadcaster.subscriberCount()).isZero();
+    }
+
+    @Test
+    void stop_closesEverySubscriber() throws Exception {
+        broadcaster.start();
+        RecordingSink first = new RecordingSink();
+        RecordingSink second = new RecordingSink();
+        broadcaster.subscribe(null, null, first);
+        broadcaster.subscribe(10, null, second);
+        first.nextHeartbeat();
+        second.nextHeartbeat();
+
+        broadcaster.stop();
+
+        assertThat(first.closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.closed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    static class RecordingSink implements ShipmentEventService.Sink {
+
+        final BlockingQueue<ShipmentEvent> events = new LinkedBlockingQueue<>();
+        final BlockingQueue<Long> heartbeats = new LinkedBlockingQueue<>();
+        final BlockingQueue<Long> resets = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(ShipmentEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void heartbeat(long position) {
+            heartbeats.add(position);
+        }
+
+        @Override
+        public void reset(long position) {
+            resets.add(position);
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+
+        ShipmentEvent nextEvent() throws InterruptedException {
+            ShipmentEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).as("event").isNotNull();
+            return event;
+        }
+
+        long nextHeartbeat() throws InterruptedException {
+            Long position = heartbeats.poll(5, TimeUnit.SECONDS);
+            assertThat(position).as("heartbeat").isNotNull();
+            return position;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package tom.springframework.vibecodingmvc.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import tom.springframework.vibecodingmvc.config.ShipmentTransitionProperties;
+import tom.springframework.vibecodingmvc.entities.ShipmentStatus;
+import tom.springframework.vibecodingmvc.models.ShipmentEvent;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionReport;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionReport.Outcome;
+import tom.springframework.vibecodingmvc.models.ShipmentTransitionRequest;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository;
+import tom.springframework.vibecodingmvc.repositories.BeerOrderShipmentRepository.ShipmentStateView;
+import tom.springframework.vibecodingmvc.services.InvalidRequestException;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+class ShipmentTransitionServiceImplTest {
+
+    BeerOrderShipmentRepository shipmentRepository = mock(BeerOrderShipmentRepository.class);
+    JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    ShipmentTrackingIndex trackingIndex = mock(ShipmentTrackingIndex.class);
+    ShipmentEventBroadcaster events = mock(ShipmentEventBroadcaster.class);
+    ShipmentTransitionServiceImpl service = new ShipmentTransitionServiceImpl(shipmentRepository, jdbcTemplate,
+            new ShipmentTransitionProperties(3, 2), trackingIndex, events);
+    Connection connection = mock(Connection.class);
+
+    @BeforeEach
+    void runSavepointsOnTheMockConnection() throws SQLException {
+        given(jdbcTemplate.execute(anyCallback())).willAnswer(invocation ->
+                invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+    }
+
+    @Test
+    void transition_readsAndWritesOncePerBatch_andReportsStaleRowsAsConflicts() {
+        given(shipmentRepository.findByIdIn(anyCollection())).willAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> state(id, 4)).toList();
+        });
+        // The second row of the first batch changed after it was read
+        given(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), anySetter()))
+                .willReturn(new int[][]{{1, 0}}, new int[][]{{1}});
+
+        ShipmentTransitionReport report = service.transition(request(ShipmentStatus.PACKED, 1, 2, 3));
+
+        assertThat(report.applied()).isEqualTo(2);
+        assertThat(report.failed()).isEqualTo(1);
+        assertThat(report.results()).extracting(ShipmentTransitionReport.Result::outcome)
+                .containsExactly(Outcome.APPLIED, Outcome.CONFLICT, Outcome.APPLIED);
+        verify(shipmentRepository, times(2)).findByIdIn(anyCollection());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyCollection(), anyInt(),
+                anySetter());
+        // Only applied changes reach the event stream
+        verify(events).publish(ShipmentEvent.Type.UPDATED, 1, 50, ShipmentStatus.PACKED, 5);
+        verify(events).publish(ShipmentEvent.Type.UPDATED, 3, 50, ShipmentStatus.PACKED, 5);
+        verifyNoMoreInteractions(events);
+    }
+
+    @Test
+    void transition_withNothingToWrite_skipsTheBatchUpdate() {
+        given(shipmentRepository.findByIdIn(anyCollection())).willReturn(List.of(state(1, 0)));
+
+        // Shipment 1 has neither tracking number nor carrier, shipment 2 does not exist
+        ShipmentTransitionReport report = service.transition(request(ShipmentStatus.DELIVERED, 1, 2));
+
+        assertThat(report.results()).extracting(ShipmentTransitionReport.Result::outcome)
+                .containsExactly(Outcome.REJECTED, Outcome.NOT_FOUND);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void transition_trackingNumberHeldElsewhere_isRejected() {
+        given(shipmentRepository.findByIdIn(anyCollection())).willReturn(List.of(state(1, 0), state(2, 0)));
+        given(shipmentRepository.findByTrackingNumberIn(Set.of("TRK-9", "TRK-2")))
+                .willReturn(List.of(state(9, 0, "TRK-9")));
+        given(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), anySetter()))
+                .willReturn(new int[][]{{1}});
+
+        ShipmentTransitionReport report = service.transition(new ShipmentTransitionRequest(ShipmentStatus.IN_TRANSIT, "DHL",
+                List.of(new ShipmentTransitionRequest.Item(1, "TRK-9"), new ShipmentTransitionRequest.Item(2, "TRK-2"))));
+
+        assertThat(report.results()).extracting(ShipmentTransitionReport.Result::outcome)
+                .containsExactly(Outcome.REJECTED, Outcome.APPLIED);
+        assertThat(report.results().getFirst().error()).isEqualTo("Tracking number TRK-9 is already used by shipment 9");
+        verify(trackingIndex).put("TRK-2", 2);
+    }
+
+    @Test
+    void transition_trackingNumberTakenConcurrently_rejectsOnlyThatShipment() throws SQLException {
+        given(shipmentRepository.findByIdIn(anyCollection())).willReturn(List.of(state(1, 0), state(2, 0)));
+        given(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), anySetter()))
+                .willThrow(duplicateTrackingNumber());
+        // Row by row, only shipment 1 trips the unique index
+        given(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class)))
+                .willThrow(duplicateTrackingNumber())
+                .willReturn(1);
+
+        ShipmentTransitionReport report = service.transition(new ShipmentTransitionRequest(ShipmentStatus.IN_TRANSIT, "DHL",
+                List.of(new ShipmentTransitionRequest.Item(1, "TRK-1"), new ShipmentTransitionRequest.Item(2, "TRK-2"))));
+
+        assertThat(report.applied()).isEqualTo(1);
+        assertThat(report.results()).extracting(ShipmentTransitionReport.Result::outcome)
+                .containsExactly(Outcome.REJECTED, Outcome.APPLIED);
+        assertThat(report.results().getFirst().error()).isEqualTo("Tracking number TRK-1 is already used by another shipment");
+        verify(trackingIndex).put("TRK-2", 2);
+        verify(trackingIndex, never()).put("TRK-1", 1);
+        verify(events).publish(ShipmentEvent.Type.UPDATED, 2, 50, ShipmentStatus.IN_TRANSIT, 1);
+        verifyNoMoreInteractions(events);
+        // The batch and shipment 1 were undone; shipment 2 kept its update
+        verify(connection, times(2)).rollback(any());
+    }
+
+    @Test
+    void transition_successWithoutRowCount_isConfirmedByReadingTheRowsBack() throws SQLException {
+        given(shipmentRepository.findByIdIn(anyCollection())).willReturn(List.of(state(1, 4), state(2, 4)));
+        given(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), anySetter()))
+                .willReturn(new int[][]{{Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO}});
+        // Shipment 1 carries this write; shipment 2 was moved by someone else and its guard did not match
+        ResultSet written = mock(ResultSet.class);
+        given(written.getInt(1)).willReturn(1, 2);
+        given(written.getInt(2)).willReturn(5, 7);
+        willAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(written);
+            handler.processRow(written);
+            return null;
+        }).given(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), eq("PACKED"), any(), any(), any());
+
+        ShipmentTransitionReport report = service.transition(request(ShipmentStatus.PACKED, 1, 2));
+
+        assertThat(report.results()).extracting(ShipmentTransitionReport.Result::outcome)
+                .containsExactly(Outcome.APPLIED, Outcome.CONFLICT);
+        verify(events).publish(ShipmentEvent.Type.UPDATED, 1, 50, ShipmentStatus.PACKED, 5);
+        verifyNoMoreInteractions(events);
+    }
+
+    @Test
+    void transition_tooManyShipments_isRejected() {
+        assertThatThrownBy(() -> service.transition(request(ShipmentStatus.PACKED, 1, 2, 3, 4)))
+                .isInstanceOf(InvalidRequestException.class)
+                .hasMessage("At most 3 shipments per transition");
+        verifyNoInteractions(shipmentRepository);
+    }
+
+    private static ParameterizedPreparedStatementSetter<Object> anySetter() {
+        return any();
+    }
+
+    private static ConnectionCallback<Object> anyCallback() {
+        return any();
+    }
+
+    private static DataIntegrityViolationException duplicateTrackingNumber() {
+        return new DataIntegrityViolationException("could not execute statement", new SQLException(
+                "Unique index or primary key violation: \"PUBLIC.UX_BOS_TRACKING_NUMBER ON PUBLIC.BEER_ORDER_SHIPMENT\"",
+                "23505"));
+    }
+
+    private static ShipmentTransitionRequest request(ShipmentStatus status, int... ids) {
+        return new ShipmentTransitionRequest(status, null, IntStream.of(ids)
+                .mapToObj(id -> new ShipmentTransitionRequest.Item(id, null))
+                .toList());
+    }
+
+    private static ShipmentStateView state(Integer id, Integer version) {
+        return state(id, version, null);
+    }
+
+    private static ShipmentStateView state(Integer id, Integer version, String trackingNumber) {
+        return new ShipmentStateView() {
+            public Integer getId() { return id; }
+            public Integer getBeerOrderId() { return 50; }
+            public Integer getVersion() { return version; }
+            public String getTrackingNumber() { return trackingNumber; }
+            public String getCarrier() { return null; }
+            public LocalDateTime getShippedDate() { return null; }
+        };
+    }
+}